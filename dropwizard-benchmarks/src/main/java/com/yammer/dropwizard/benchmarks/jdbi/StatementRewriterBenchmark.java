@@ -0,0 +1,150 @@
+package com.yammer.dropwizard.benchmarks.jdbi;
+
+import com.yammer.dropwizard.jdbi.NamePrependingStatementRewriter;
+import org.openjdk.jmh.annotations.*;
+import org.skife.jdbi.v2.Binding;
+import org.skife.jdbi.v2.Cleanable;
+import org.skife.jdbi.v2.ColonPrefixNamedParamStatementRewriter;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.StatementRewriter;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of rewriting a SQL object statement with and without caching the prepended
+ * comment and the parsed named parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StatementRewriterBenchmark {
+    public interface PeopleDAO {
+        void findByNameAndEmail(String name, String email);
+    }
+
+    private static final String SQL = "SELECT id, name, email, age FROM people " +
+            "WHERE name = :name AND email = :email AND status <> 'deleted' ORDER BY name";
+
+    /**
+     * The uncached behavior: build the comment and re-parse the statement on every execution.
+     */
+    private static class UncachedRewriter implements StatementRewriter {
+        private final StatementRewriter rewriter = new ColonPrefixNamedParamStatementRewriter();
+
+        @Override
+        public org.skife.jdbi.v2.tweak.RewrittenStatement rewrite(String sql,
+                                                                  Binding params,
+                                                                  StatementContext ctx) {
+            final StringBuilder query = new StringBuilder(sql.length() + 100);
+            query.append("/* ")
+                 .append(ctx.getSqlObjectType().getSimpleName())
+                 .append('.')
+                 .append(ctx.getSqlObjectMethod().getName())
+                 .append(" */ ")
+                 .append(sql);
+            return rewriter.rewrite(query.toString(), params, ctx);
+        }
+    }
+
+    private static class SqlObjectContext implements StatementContext {
+        private final Method method;
+
+        private SqlObjectContext(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        public Object setAttribute(String key, Object value) {
+            return null;
+        }
+
+        @Override
+        public Object getAttribute(String key) {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getRawSql() {
+            return SQL;
+        }
+
+        @Override
+        public String getRewrittenSql() {
+            return null;
+        }
+
+        @Override
+        public String getLocatedSql() {
+            return SQL;
+        }
+
+        @Override
+        public PreparedStatement getStatement() {
+            return null;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return null;
+        }
+
+        @Override
+        public Binding getBinding() {
+            return null;
+        }
+
+        @Override
+        public Class<?> getSqlObjectType() {
+            return PeopleDAO.class;
+        }
+
+        @Override
+        public Method getSqlObjectMethod() {
+            return method;
+        }
+
+        @Override
+        public boolean isReturningGeneratedKeys() {
+            return false;
+        }
+
+        @Override
+        public void addCleanable(Cleanable cleanable) {
+        }
+    }
+
+    private final StatementRewriter uncached = new UncachedRewriter();
+    private final StatementRewriter cached = new NamePrependingStatementRewriter(1024);
+    private final Binding binding = new Binding();
+    private StatementContext ctx;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.ctx = new SqlObjectContext(PeopleDAO.class.getMethod("findByNameAndEmail",
+                                                                  String.class,
+                                                                  String.class));
+    }
+
+    @Benchmark
+    public String uncachedRewrite() {
+        return uncached.rewrite(SQL, binding, ctx).getSql();
+    }
+
+    @Benchmark
+    public String cachedRewrite() {
+        return cached.rewrite(SQL, binding, ctx).getSql();
+    }
+}
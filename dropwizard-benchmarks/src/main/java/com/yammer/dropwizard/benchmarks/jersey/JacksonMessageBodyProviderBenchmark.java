@@ -0,0 +1,124 @@
+package com.yammer.dropwizard.benchmarks.jersey;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+import com.sun.jersey.core.util.StringKeyObjectValueIgnoreCaseMultivaluedMap;
+import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of reading and writing a list of entities with {@link JacksonJaxbJsonProvider},
+ * which resolves its reader, writer, and root type on every call, and with
+ * {@link JacksonMessageBodyProvider}, which prepares them once per endpoint.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JacksonMessageBodyProviderBenchmark {
+    public static class Person {
+        @JsonProperty
+        long id;
+
+        @JsonProperty
+        String name;
+
+        @JsonProperty
+        String email;
+
+        @JsonProperty
+        int age;
+    }
+
+    public static class PeopleResource {
+        @GET
+        @Produces(MediaType.APPLICATION_JSON)
+        public List<Person> list() {
+            return null;
+        }
+    }
+
+    private static final byte[] ENTITY = ("[{\"id\":1,\"name\":\"Coda\",\"email\":\"coda@example.com\",\"age\":33}," +
+            "{\"id\":2,\"name\":\"Jamie\",\"email\":\"jamie@example.com\",\"age\":29}]").getBytes();
+
+    private final ObjectMapper mapper = new ObjectMapperFactory().build();
+    private final JacksonJaxbJsonProvider uncached = new JacksonJaxbJsonProvider(mapper,
+                                                                                 JacksonJaxbJsonProvider.DEFAULT_ANNOTATIONS);
+    private final JacksonMessageBodyProvider cached = new JacksonMessageBodyProvider(mapper, new Validator());
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream(ENTITY.length * 2);
+    private Type type;
+    private Annotation[] annotations;
+    private Object people;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.type = PeopleResource.class.getMethod("list").getGenericReturnType();
+        this.annotations = PeopleResource.class.getMethod("list").getAnnotations();
+        this.people = read(cached);
+    }
+
+    @Benchmark
+    public Object uncachedRead() throws Exception {
+        return read(uncached);
+    }
+
+    @Benchmark
+    public Object cachedRead() throws Exception {
+        return read(cached);
+    }
+
+    @Benchmark
+    public int uncachedWrite() throws Exception {
+        return write(uncached);
+    }
+
+    @Benchmark
+    public int cachedWrite() throws Exception {
+        return write(cached);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object read(JacksonJaxbJsonProvider provider) throws Exception {
+        final Class<Object> klass = (Class<Object>) (Class<?>) List.class;
+        if (!provider.isReadable(klass, type, annotations, MediaType.APPLICATION_JSON_TYPE)) {
+            throw new IllegalStateException("not readable");
+        }
+        return provider.readFrom(klass,
+                                 type,
+                                 annotations,
+                                 MediaType.APPLICATION_JSON_TYPE,
+                                 new MultivaluedMapImpl(),
+                                 new ByteArrayInputStream(ENTITY));
+    }
+
+    private int write(JacksonJaxbJsonProvider provider) throws Exception {
+        if (!provider.isWriteable(people.getClass(), type, annotations, MediaType.APPLICATION_JSON_TYPE)) {
+            throw new IllegalStateException("not writeable");
+        }
+        output.reset();
+        provider.writeTo(people,
+                         people.getClass(),
+                         type,
+                         annotations,
+                         MediaType.APPLICATION_JSON_TYPE,
+                         new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                         output);
+        return output.size();
+    }
+}
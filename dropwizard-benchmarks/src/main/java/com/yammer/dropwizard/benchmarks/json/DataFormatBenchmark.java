@@ -0,0 +1,67 @@
+package com.yammer.dropwizard.benchmarks.json;
+
+import com.example.helloworld.core.Person;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of encoding and decoding the example service's representations as JSON and as
+ * a binary Jackson data format, as the service's providers would.
+ * <p/>
+ * Smile is only on the classpath when the benchmarks are built with {@code -Psmile}; otherwise,
+ * run them with {@code -p format=json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DataFormatBenchmark {
+    private static final TypeReference<List<Person>> PEOPLE = new TypeReference<List<Person>>() {};
+    private static final ImmutableMap<String, String> FACTORIES = ImmutableMap.of(
+            "json", "com.fasterxml.jackson.core.JsonFactory",
+            "smile", "com.fasterxml.jackson.dataformat.smile.SmileFactory");
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private List<Person> people;
+    private byte[] encodedPeople;
+
+    @Setup
+    public void setUp() throws Exception {
+        final JsonFactory factory = (JsonFactory) Class.forName(FACTORIES.get(format)).newInstance();
+        this.mapper = new ObjectMapperFactory().build(factory);
+
+        this.people = Lists.newArrayList();
+        for (int i = 0; i < 100; i++) {
+            final Person person = new Person();
+            person.setId(i);
+            person.setFullName("Person Number " + i);
+            person.setJobTitle("Senior Software Engineer, Platform Infrastructure");
+            people.add(person);
+        }
+
+        this.encodedPeople = mapper.writeValueAsBytes(people);
+    }
+
+    @Benchmark
+    public byte[] writePeople() throws Exception {
+        return mapper.writeValueAsBytes(people);
+    }
+
+    @Benchmark
+    public List<Person> readPeople() throws Exception {
+        return mapper.readValue(encodedPeople, PEOPLE);
+    }
+}
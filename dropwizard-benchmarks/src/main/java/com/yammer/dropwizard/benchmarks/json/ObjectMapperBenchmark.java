@@ -0,0 +1,75 @@
+package com.yammer.dropwizard.benchmarks.json;
+
+import com.example.helloworld.core.Person;
+import com.example.helloworld.core.Saying;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of encoding and decoding the example service's representations with
+ * reflective property access and with Afterburner's generated accessors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ObjectMapperBenchmark {
+    private static final TypeReference<List<Person>> PEOPLE = new TypeReference<List<Person>>() {};
+
+    @Param({"false", "true"})
+    public boolean afterburner;
+
+    private ObjectMapper mapper;
+    private List<Person> people;
+    private Saying saying;
+    private byte[] encodedPeople;
+    private byte[] encodedSaying;
+
+    @Setup
+    public void setUp() throws Exception {
+        final ObjectMapperFactory factory = new ObjectMapperFactory();
+        factory.setAfterburnerEnabled(afterburner);
+        this.mapper = factory.build();
+
+        this.people = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            final Person person = new Person();
+            person.setId(i);
+            person.setFullName("Person Number " + i);
+            person.setJobTitle("Senior Software Engineer, Platform Infrastructure");
+            people.add(person);
+        }
+        this.saying = new Saying(1, "Hello, Stranger!");
+
+        this.encodedPeople = mapper.writeValueAsBytes(people);
+        this.encodedSaying = mapper.writeValueAsBytes(saying);
+    }
+
+    @Benchmark
+    public byte[] writePeople() throws Exception {
+        return mapper.writeValueAsBytes(people);
+    }
+
+    @Benchmark
+    public List<Person> readPeople() throws Exception {
+        return mapper.readValue(encodedPeople, PEOPLE);
+    }
+
+    @Benchmark
+    public byte[] writeSaying() throws Exception {
+        return mapper.writeValueAsBytes(saying);
+    }
+
+    @Benchmark
+    public Saying readSaying() throws Exception {
+        return mapper.readValue(encodedSaying, Saying.class);
+    }
+}
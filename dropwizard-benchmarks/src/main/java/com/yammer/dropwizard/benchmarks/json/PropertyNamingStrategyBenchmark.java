@@ -0,0 +1,156 @@
+package com.yammer.dropwizard.benchmarks.json;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.AnnotatedParameter;
+import com.fasterxml.jackson.databind.introspect.AnnotationMap;
+import com.yammer.dropwizard.json.AnnotationSensitivePropertyNamingStrategy;
+import com.yammer.dropwizard.json.JsonSnakeCase;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of naming the properties of a {@link JsonSnakeCase} representation, and of
+ * building an {@link ObjectMapper} and its serializer and deserializer for it as a service does at
+ * startup, with and without caching the annotation lookup and the {@code snake_case} names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PropertyNamingStrategyBenchmark {
+    @JsonSnakeCase
+    public static class Account {
+        @JsonProperty
+        private long accountId;
+
+        @JsonProperty
+        private String displayName;
+
+        @JsonProperty
+        private String emailAddress;
+
+        @JsonProperty
+        private String billingPostalCode;
+
+        @JsonProperty
+        private long createdAtMillis;
+
+        @JsonProperty
+        private boolean emailVerified;
+
+        public String getPrimaryRegion() {
+            return "us-east";
+        }
+
+        public void setPrimaryRegion(String primaryRegion) {
+            // ignored
+        }
+    }
+
+    /**
+     * The uncached behavior: look up the annotation and translate the name for every property.
+     */
+    private static class UncachedStrategy extends PropertyNamingStrategy {
+        private final LowerCaseWithUnderscoresStrategy snakeCase = new LowerCaseWithUnderscoresStrategy();
+
+        @Override
+        public String nameForConstructorParameter(MapperConfig<?> config,
+                                                  AnnotatedParameter ctorParam,
+                                                  String defaultName) {
+            if (ctorParam.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
+                return snakeCase.nameForConstructorParameter(config, ctorParam, defaultName);
+            }
+            return super.nameForConstructorParameter(config, ctorParam, defaultName);
+        }
+
+        @Override
+        public String nameForField(MapperConfig<?> config, AnnotatedField field, String defaultName) {
+            if (field.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
+                return snakeCase.nameForField(config, field, defaultName);
+            }
+            return super.nameForField(config, field, defaultName);
+        }
+
+        @Override
+        public String nameForGetterMethod(MapperConfig<?> config, AnnotatedMethod method, String defaultName) {
+            if (method.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
+                return snakeCase.nameForGetterMethod(config, method, defaultName);
+            }
+            return super.nameForGetterMethod(config, method, defaultName);
+        }
+
+        @Override
+        public String nameForSetterMethod(MapperConfig<?> config, AnnotatedMethod method, String defaultName) {
+            if (method.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
+                return snakeCase.nameForSetterMethod(config, method, defaultName);
+            }
+            return super.nameForSetterMethod(config, method, defaultName);
+        }
+    }
+
+    private static final byte[] ENTITY = ("{\"account_id\":1,\"display_name\":\"Coda\"," +
+            "\"email_address\":\"coda@example.com\",\"billing_postal_code\":\"94110\"," +
+            "\"created_at_millis\":0,\"email_verified\":true,\"primary_region\":\"us-east\"}").getBytes();
+
+    private final Account account = new Account();
+    private final PropertyNamingStrategy uncached = new UncachedStrategy();
+    private final PropertyNamingStrategy cached = new AnnotationSensitivePropertyNamingStrategy();
+    private AnnotatedField[] fields;
+
+    @Setup
+    public void setUp() throws Exception {
+        final Field[] declared = Account.class.getDeclaredFields();
+        this.fields = new AnnotatedField[declared.length];
+        for (int i = 0; i < declared.length; i++) {
+            fields[i] = new AnnotatedField(declared[i], new AnnotationMap());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int uncachedNaming() {
+        return nameFields(uncached);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int cachedNaming() {
+        return nameFields(cached);
+    }
+
+    @Benchmark
+    public Object uncachedStartup() throws Exception {
+        return roundTrip(new UncachedStrategy());
+    }
+
+    @Benchmark
+    public Object cachedStartup() throws Exception {
+        return roundTrip(new AnnotationSensitivePropertyNamingStrategy());
+    }
+
+    private int nameFields(PropertyNamingStrategy strategy) {
+        int length = 0;
+        for (AnnotatedField field : fields) {
+            length += strategy.nameForField(null, field, field.getName()).length();
+        }
+        return length;
+    }
+
+    private Object roundTrip(PropertyNamingStrategy strategy) throws Exception {
+        final ObjectMapperFactory factory = new ObjectMapperFactory();
+        factory.setPropertyNamingStrategy(strategy);
+        final ObjectMapper mapper = factory.build();
+        mapper.writeValueAsBytes(account);
+        return mapper.readValue(ENTITY, Account.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.yammer.dropwizard.client;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+
+/**
+ * A Jersey client filter which gives requests without an {@code Accept} header one preferring the
+ * given media types, in order, over JSON and then over anything else.
+ * <p/>
+ * This lets a client which can read a binary Jackson data format, such as Smile, ask for it from
+ * services which can write it, while still accepting JSON from those which can't.
+ */
+public class AcceptHeaderFilter extends ClientFilter {
+    private final String accept;
+
+    /**
+     * Creates a new {@link AcceptHeaderFilter}.
+     *
+     * @param mediaTypes    the media types to prefer over JSON, most preferred first
+     */
+    public AcceptHeaderFilter(List<MediaType> mediaTypes) {
+        final List<String> ranges = Lists.newArrayList();
+        for (MediaType mediaType : mediaTypes) {
+            ranges.add(mediaType.toString());
+        }
+        ranges.add(MediaType.APPLICATION_JSON + ";q=0.9");
+        ranges.add(MediaType.WILDCARD + ";q=0.8");
+        this.accept = Joiner.on(", ").join(ImmutableList.copyOf(ranges));
+    }
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+        if (!request.getHeaders().containsKey(HttpHeaders.ACCEPT)) {
+            request.getHeaders().putSingle(HttpHeaders.ACCEPT, accept);
+        }
+        return getNext().handle(request);
+    }
+}
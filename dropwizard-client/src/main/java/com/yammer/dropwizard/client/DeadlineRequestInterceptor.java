@@ -0,0 +1,58 @@
+package com.yammer.dropwizard.client;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.util.Deadline;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link HttpRequestInterceptor} which limits requests made on behalf of a request with a
+ * {@link Deadline} to the time it has left.
+ * <p/>
+ * The time left, in milliseconds, is forwarded in a header so that downstream services can apply
+ * the same deadline, and the connection's socket timeout is shortened to match. Requests made once
+ * the deadline has passed fail with a {@link SocketTimeoutException} without being sent.
+ */
+public class DeadlineRequestInterceptor implements HttpRequestInterceptor {
+    private final String header;
+
+    /**
+     * Creates a new {@link DeadlineRequestInterceptor}.
+     *
+     * @param header    the header in which to forward the time left
+     */
+    public DeadlineRequestInterceptor(String header) {
+        this.header = header;
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+        final Optional<Deadline> deadline = Deadline.current();
+        if (!deadline.isPresent()) {
+            return;
+        }
+
+        final long remaining = deadline.get().remaining(TimeUnit.MILLISECONDS);
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Request deadline exceeded");
+        }
+
+        request.setHeader(header, Long.toString(remaining));
+
+        final HttpConnection connection = (HttpConnection) context.getAttribute(ExecutionContext.HTTP_CONNECTION);
+        if (connection != null) {
+            final int timeout = connection.getSocketTimeout();
+            if ((timeout <= 0) || (timeout > remaining)) {
+                connection.setSocketTimeout((int) Math.min(Integer.MAX_VALUE, remaining));
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.util.concurrent.TimeUnit;
  *     <li>Disables stale connection checks</li>
  *     <li>Disables Nagle's algorithm</li>
  *     <li>Disables cookie management by default</li>
+ *     <li>Limits requests to the time left before the current {@link com.yammer.dropwizard.util.Deadline}</li>
  * </ul>
  */
 public class HttpClientBuilder {
@@ -77,6 +78,7 @@ public class HttpClientBuilder {
         final InstrumentedClientConnManager manager = createConnectionManager(registry);
         final InstrumentedHttpClient client = new InstrumentedHttpClient(manager, params);
         setStrategiesForClient(client);
+        client.addRequestInterceptor(new DeadlineRequestInterceptor(configuration.getRequestTimeoutHeader()));
 
         return client;
     }
@@ -1,6 +1,7 @@
 package com.yammer.dropwizard.client;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.yammer.dropwizard.util.Deadline;
 import com.yammer.dropwizard.util.Duration;
 
 import javax.validation.constraints.Max;
@@ -42,6 +43,18 @@ public class HttpClientConfiguration {
     @JsonProperty
     private Duration keepAlive = Duration.milliseconds(0);
 
+    @NotNull
+    @JsonProperty
+    private String requestTimeoutHeader = Deadline.DEFAULT_HEADER;
+
+    public String getRequestTimeoutHeader() {
+        return requestTimeoutHeader;
+    }
+
+    public void setRequestTimeoutHeader(String header) {
+        this.requestTimeoutHeader = header;
+    }
+
     public Duration getKeepAlive() {
         return keepAlive;
     }
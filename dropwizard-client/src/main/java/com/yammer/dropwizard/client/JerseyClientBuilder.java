@@ -1,6 +1,9 @@
 package com.yammer.dropwizard.client;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.sun.jersey.api.client.Client;
@@ -15,6 +18,7 @@ import com.yammer.dropwizard.validation.Validator;
 import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.scheme.SchemeRegistry;
 
+import javax.ws.rs.core.MediaType;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -32,6 +36,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  *     <li>Disables stale connection checks</li>
  *     <li>Disables Nagle's algorithm</li>
  *     <li>Disables cookie management by default</li>
+ *     <li>Prefers any binary Jackson data formats, such as Smile, over JSON</li>
  * </ul>
  *
  * @see HttpClientBuilder
@@ -42,6 +47,7 @@ public class JerseyClientBuilder {
     private final List<Class<?>> providers = Lists.newArrayList();
     private final Map<String, Boolean> features = Maps.newLinkedHashMap();
     private final Map<String, Object> properties = Maps.newLinkedHashMap();
+    private final Map<MediaType, ObjectMapper> jacksonFormats = Maps.newLinkedHashMap();
 
     private JerseyClientConfiguration configuration = new JerseyClientConfiguration();
     private Environment environment;
@@ -96,6 +102,21 @@ public class JerseyClientBuilder {
         return this;
     }
 
+    /**
+     * Adds a Jackson data format other than JSON, such as Smile, which the client can read and
+     * write. Requests made without an {@code Accept} header will prefer the format to JSON.
+     *
+     * @param mediaType    the format's media type (e.g. {@code application/x-jackson-smile})
+     * @param objectMapper an object mapper built with the format's
+     *                     {@link com.fasterxml.jackson.core.JsonFactory}
+     * @return {@code this}
+     * @see Environment#addJacksonFormat(MediaType, Supplier)
+     */
+    public JerseyClientBuilder withJacksonFormat(MediaType mediaType, ObjectMapper objectMapper) {
+        jacksonFormats.put(checkNotNull(mediaType), checkNotNull(objectMapper));
+        return this;
+    }
+
     /**
      * Uses the given {@link JerseyClientConfiguration}.
      *
@@ -110,6 +131,8 @@ public class JerseyClientBuilder {
 
     /**
      * Uses the given {@link Environment}.
+     * <p/>
+     * Any Jackson data formats added to the environment are added to the client as well.
      *
      * @param environment a Dropwizard {@link Environment}
      * @return {@code this}
@@ -168,7 +191,16 @@ public class JerseyClientBuilder {
         }
 
         if (environment == null) {
-            return build(executorService, objectMapper);
+            return build(executorService, objectMapper, jacksonFormats);
+        }
+
+        final Map<MediaType, ObjectMapper> formats = Maps.newLinkedHashMap(jacksonFormats);
+        final Map<MediaType, Supplier<? extends JsonFactory>> factories = environment.getJacksonFormats();
+        for (Map.Entry<MediaType, Supplier<? extends JsonFactory>> format : factories.entrySet()) {
+            if (!formats.containsKey(format.getKey())) {
+                formats.put(format.getKey(),
+                            environment.getObjectMapperFactory().build(format.getValue().get()));
+            }
         }
 
         return build(environment.managedExecutorService("jersey-client-%d",
@@ -176,18 +208,24 @@ public class JerseyClientBuilder {
                                                         configuration.getMaxThreads(),
                                                         60,
                                                         TimeUnit.SECONDS),
-                     environment.getObjectMapperFactory().build());
+                     environment.getObjectMapperFactory().build(),
+                     formats);
     }
 
     private Client build(ExecutorService threadPool,
-                         ObjectMapper objectMapper) {
-        final Client client = new ApacheHttpClient4(buildHandler(), buildConfig(objectMapper));
+                         ObjectMapper objectMapper,
+                         Map<MediaType, ObjectMapper> formats) {
+        final Client client = new ApacheHttpClient4(buildHandler(), buildConfig(objectMapper, formats));
         client.setExecutorService(threadPool);
 
         if (configuration.isGzipEnabled()) {
             client.addFilter(new GZIPContentEncodingFilter(configuration.isGzipEnabledForRequests()));
         }
 
+        if (!formats.isEmpty()) {
+            client.addFilter(new AcceptHeaderFilter(ImmutableList.copyOf(formats.keySet())));
+        }
+
         return client;
     }
 
@@ -195,10 +233,16 @@ public class JerseyClientBuilder {
         return new ApacheHttpClient4Handler(builder.build(), null, true);
     }
 
-    private ApacheHttpClient4Config buildConfig(ObjectMapper objectMapper) {
+    private ApacheHttpClient4Config buildConfig(ObjectMapper objectMapper,
+                                                Map<MediaType, ObjectMapper> formats) {
         final ApacheHttpClient4Config config = new DefaultApacheHttpClient4Config();
         config.getSingletons().addAll(singletons);
         config.getSingletons().add(new JacksonMessageBodyProvider(objectMapper, new Validator()));
+        for (Map.Entry<MediaType, ObjectMapper> format : formats.entrySet()) {
+            config.getSingletons().add(new JacksonMessageBodyProvider(format.getValue(),
+                                                                      new Validator(),
+                                                                      format.getKey()));
+        }
         config.getClasses().addAll(providers);
         config.getFeatures().putAll(features);
         config.getProperties().putAll(properties);
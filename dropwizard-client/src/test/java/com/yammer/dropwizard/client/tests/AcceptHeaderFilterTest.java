@@ -0,0 +1,52 @@
+package com.yammer.dropwizard.client.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandler;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.yammer.dropwizard.client.AcceptHeaderFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class AcceptHeaderFilterTest {
+    private final ClientHandler handler = mock(ClientHandler.class);
+    private final Client client = new Client(handler);
+
+    @Before
+    public void setUp() throws Exception {
+        when(handler.handle(any(ClientRequest.class))).thenReturn(mock(ClientResponse.class));
+        client.addFilter(new AcceptHeaderFilter(ImmutableList.of(new MediaType("application",
+                                                                               "x-jackson-smile"))));
+    }
+
+    @Test
+    public void prefersTheGivenMediaTypesOverJson() throws Exception {
+        client.resource("http://example.com/").get(ClientResponse.class);
+
+        assertThat(accept())
+                .isEqualTo("application/x-jackson-smile, application/json;q=0.9, */*;q=0.8");
+    }
+
+    @Test
+    public void leavesRequestsWithAnAcceptHeaderAlone() throws Exception {
+        client.resource("http://example.com/").accept(MediaType.TEXT_PLAIN).get(ClientResponse.class);
+
+        assertThat(accept())
+                .isEqualTo(MediaType.TEXT_PLAIN);
+    }
+
+    private String accept() {
+        final ArgumentCaptor<ClientRequest> request = ArgumentCaptor.forClass(ClientRequest.class);
+        verify(handler).handle(request.capture());
+        return request.getValue().getHeaders().getFirst(HttpHeaders.ACCEPT).toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.yammer.dropwizard.client.tests;
+
+import com.yammer.dropwizard.client.DeadlineRequestInterceptor;
+import com.yammer.dropwizard.util.Deadline;
+import com.yammer.dropwizard.util.Duration;
+import org.apache.http.HttpConnection;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.net.SocketTimeoutException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Mockito.*;
+
+public class DeadlineRequestInterceptorTest {
+    private final DeadlineRequestInterceptor interceptor = new DeadlineRequestInterceptor("X-Request-Timeout");
+    private final HttpGet request = new HttpGet("http://example.com/");
+    private final HttpConnection connection = mock(HttpConnection.class);
+    private final HttpContext context = new BasicHttpContext();
+
+    @Before
+    public void setUp() throws Exception {
+        context.setAttribute(ExecutionContext.HTTP_CONNECTION, connection);
+        when(connection.getSocketTimeout()).thenReturn(500000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Deadline.clearCurrent();
+    }
+
+    @Test
+    public void leavesRequestsWithoutADeadlineAlone() throws Exception {
+        interceptor.process(request, context);
+
+        assertThat(request.containsHeader("X-Request-Timeout"))
+                .isFalse();
+
+        verifyZeroInteractions(connection);
+    }
+
+    @Test
+    public void forwardsTheTimeLeft() throws Exception {
+        Deadline.setCurrent(Deadline.after(Duration.seconds(2)));
+
+        interceptor.process(request, context);
+
+        assertThat(Long.parseLong(request.getFirstHeader("X-Request-Timeout").getValue()))
+                .isGreaterThan(1000)
+                .isLessThanOrEqualTo(2000);
+    }
+
+    @Test
+    public void shortensTheSocketTimeout() throws Exception {
+        Deadline.setCurrent(Deadline.after(Duration.seconds(2)));
+
+        interceptor.process(request, context);
+
+        final ArgumentCaptor<Integer> timeout = ArgumentCaptor.forClass(Integer.class);
+        verify(connection).setSocketTimeout(timeout.capture());
+
+        assertThat(timeout.getValue())
+                .isGreaterThan(1000)
+                .isLessThanOrEqualTo(2000);
+    }
+
+    @Test
+    public void keepsShorterSocketTimeouts() throws Exception {
+        when(connection.getSocketTimeout()).thenReturn(100);
+        Deadline.setCurrent(Deadline.after(Duration.seconds(2)));
+
+        interceptor.process(request, context);
+
+        verify(connection, never()).setSocketTimeout(anyInt());
+    }
+
+    @Test
+    public void failsRequestsOnceTheDeadlineHasPassed() throws Exception {
+        Deadline.setCurrent(Deadline.after(Duration.milliseconds(0)));
+
+        try {
+            interceptor.process(request, context);
+            failBecauseExceptionWasNotThrown(SocketTimeoutException.class);
+        } catch (SocketTimeoutException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("Request deadline exceeded");
+        }
+    }
+}
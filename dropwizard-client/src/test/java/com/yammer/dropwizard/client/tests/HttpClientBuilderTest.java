@@ -1,6 +1,7 @@
 package com.yammer.dropwizard.client.tests;
 
 import com.google.common.collect.ImmutableList;
+import com.yammer.dropwizard.client.DeadlineRequestInterceptor;
 import com.yammer.dropwizard.client.HttpClientBuilder;
 import com.yammer.dropwizard.client.HttpClientConfiguration;
 import com.yammer.dropwizard.util.Duration;
@@ -189,6 +190,19 @@ public class HttpClientBuilderTest {
                 .isTrue();
     }
 
+    @Test
+    public void limitsRequestsToTheCurrentDeadline() throws Exception {
+        final AbstractHttpClient client = (AbstractHttpClient) builder.using(configuration).build();
+
+        boolean found = false;
+        for (int i = 0; i < client.getRequestInterceptorCount(); i++) {
+            found |= client.getRequestInterceptor(i) instanceof DeadlineRequestInterceptor;
+        }
+
+        assertThat(found)
+                .isTrue();
+    }
+
     @Test
     public void disablesStaleConnectionCheck() throws Exception {
         final AbstractHttpClient client = (AbstractHttpClient) builder.using(configuration).build();
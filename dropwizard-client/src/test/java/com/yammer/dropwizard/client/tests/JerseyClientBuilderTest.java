@@ -1,14 +1,24 @@
 package com.yammer.dropwizard.client.tests;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.yammer.dropwizard.client.AcceptHeaderFilter;
 import com.yammer.dropwizard.client.JerseyClientBuilder;
 import com.yammer.dropwizard.client.JerseyClientConfiguration;
+import com.yammer.dropwizard.config.Configuration;
 import com.yammer.dropwizard.config.Environment;
+import com.yammer.dropwizard.config.HttpConfiguration;
+import com.yammer.dropwizard.config.ServerFactory;
 import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
 import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.validation.Validator;
 import org.junit.Test;
 
 import javax.ws.rs.Consumes;
@@ -26,6 +36,7 @@ import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +56,7 @@ public class JerseyClientBuilderTest {
     }
 
     private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+    private static final MediaType SMILE_TYPE = new MediaType("application", "x-jackson-smile");
 
     private final JerseyClientBuilder builder = new JerseyClientBuilder();
     private final Environment environment = mock(Environment.class);
@@ -207,4 +219,130 @@ public class JerseyClientBuilderTest {
         assertThat(client.getExecutorService())
                 .isEqualTo(executorService);
     }
+
+    @Test
+    public void usesTheGivenObjectMappersForOtherJacksonFormats() throws Exception {
+        final ObjectMapper smileMapper = mock(ObjectMapper.class);
+        final Client client = builder.withJacksonFormat(SMILE_TYPE, smileMapper)
+                                     .using(executorService, objectMapper)
+                                     .build();
+
+        final MessageBodyReader<Object> reader = client.getProviders()
+                                                       .getMessageBodyReader(Object.class,
+                                                                             null,
+                                                                             NO_ANNOTATIONS,
+                                                                             SMILE_TYPE);
+
+        assertThat(((JacksonMessageBodyProvider) reader).getObjectMapper())
+                .isEqualTo(smileMapper);
+
+        final MessageBodyReader<Object> jsonReader = client.getProviders()
+                                                           .getMessageBodyReader(Object.class,
+                                                                                 null,
+                                                                                 NO_ANNOTATIONS,
+                                                                                 MediaType.APPLICATION_JSON_TYPE);
+
+        assertThat(((JacksonMessageBodyProvider) jsonReader).getObjectMapper())
+                .isEqualTo(objectMapper);
+    }
+
+    @Test
+    public void prefersOtherJacksonFormatsInRequests() throws Exception {
+        final ApacheHttpClient4 client = (ApacheHttpClient4) builder.withJacksonFormat(SMILE_TYPE,
+                                                                                       mock(ObjectMapper.class))
+                                                                    .using(executorService,
+                                                                           objectMapper)
+                                                                    .build();
+
+        assertThat(client.getHeadHandler())
+                .isInstanceOf(AcceptHeaderFilter.class);
+    }
+
+    @Test
+    public void doesNotChangeTheAcceptHeaderWithoutOtherJacksonFormats() throws Exception {
+        final ApacheHttpClient4 client = (ApacheHttpClient4) builder.using(executorService,
+                                                                           objectMapper)
+                                                                    .build();
+
+        assertThat(client.getHeadHandler())
+                .isNotInstanceOf(AcceptHeaderFilter.class);
+    }
+
+    @Test
+    public void usesJacksonFormatsFromTheEnvironment() throws Exception {
+        final JerseyClientConfiguration configuration = new JerseyClientConfiguration();
+
+        when(environment.managedExecutorService("jersey-client-%d",
+                                                configuration.getMinThreads(),
+                                                configuration.getMaxThreads(),
+                                                60,
+                                                TimeUnit.SECONDS)).thenReturn(executorService);
+        final ObjectMapper smileMapper = mock(ObjectMapper.class);
+        final ObjectMapperFactory factory = mock(ObjectMapperFactory.class);
+        when(factory.build()).thenReturn(objectMapper);
+        when(factory.build(any(JsonFactory.class))).thenReturn(smileMapper);
+
+        when(environment.getObjectMapperFactory()).thenReturn(factory);
+        when(environment.getJacksonFormats()).thenReturn(
+                ImmutableMap.<MediaType, Supplier<? extends JsonFactory>>of(SMILE_TYPE,
+                                                                            Suppliers.ofInstance(new JsonFactory())));
+
+        final ApacheHttpClient4 client = (ApacheHttpClient4) builder.using(environment).build();
+
+        final MessageBodyReader<Object> reader = client.getProviders()
+                                                       .getMessageBodyReader(Object.class,
+                                                                             null,
+                                                                             NO_ANNOTATIONS,
+                                                                             SMILE_TYPE);
+
+        assertThat(((JacksonMessageBodyProvider) reader).getObjectMapper())
+                .isEqualTo(smileMapper);
+
+        assertThat(client.getHeadHandler())
+                .isInstanceOf(AcceptHeaderFilter.class);
+    }
+
+    @Test
+    public void givesTheServerAndTheClientTheirOwnJacksonFormatFactories() throws Exception {
+        final MediaType yamlType = new MediaType("application", "x-yaml");
+        final Environment realEnvironment = new Environment("test",
+                                                            new Configuration(),
+                                                            new ObjectMapperFactory(),
+                                                            new Validator());
+        realEnvironment.addJacksonFormat(yamlType, new Supplier<JsonFactory>() {
+            @Override
+            public JsonFactory get() {
+                return new YAMLFactory();
+            }
+        });
+
+        new ServerFactory(new HttpConfiguration(), "test").buildServer(realEnvironment);
+
+        JsonFactory serverFactory = null;
+        for (Object provider : realEnvironment.getJerseyResourceConfig().getSingletons()) {
+            if ((provider instanceof JacksonMessageBodyProvider) &&
+                    (((JacksonMessageBodyProvider) provider).getObjectMapper().getFactory() instanceof YAMLFactory)) {
+                serverFactory = ((JacksonMessageBodyProvider) provider).getObjectMapper().getFactory();
+            }
+        }
+
+        final ApacheHttpClient4 client = (ApacheHttpClient4) builder.using(new JerseyClientConfiguration())
+                                                                    .using(realEnvironment)
+                                                                    .build();
+        final MessageBodyReader<Object> reader = client.getProviders()
+                                                       .getMessageBodyReader(Object.class,
+                                                                             null,
+                                                                             NO_ANNOTATIONS,
+                                                                             yamlType);
+        final JsonFactory clientFactory = ((JacksonMessageBodyProvider) reader).getObjectMapper().getFactory();
+
+        assertThat(serverFactory)
+                .isInstanceOf(YAMLFactory.class);
+
+        assertThat(clientFactory)
+                .isInstanceOf(YAMLFactory.class);
+
+        assertThat(clientFactory)
+                .isNotSameAs(serverFactory);
+    }
 }
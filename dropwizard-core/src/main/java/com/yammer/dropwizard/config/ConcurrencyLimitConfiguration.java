@@ -0,0 +1,108 @@
+package com.yammer.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.yammer.dropwizard.validation.ValidationMethod;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * An object representation of the {@code http.concurrencyLimit} section of the YAML configuration
+ * file.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class ConcurrencyLimitConfiguration {
+    @JsonProperty
+    private boolean enabled = false;
+
+    @Min(1)
+    @Max(1000000)
+    @JsonProperty
+    private int initialLimit = 20;
+
+    @Min(1)
+    @Max(1000000)
+    @JsonProperty
+    private int minLimit = 1;
+
+    @Min(1)
+    @Max(1000000)
+    @JsonProperty
+    private int maxLimit = 1000;
+
+    @Min(1)
+    @JsonProperty
+    private int windowSize = 100;
+
+    @DecimalMin("1.0")
+    @JsonProperty
+    private double latencyTolerance = 1.5;
+
+    @DecimalMin("0.01")
+    @DecimalMax("1.0")
+    @JsonProperty
+    private double smoothing = 0.2;
+
+    @ValidationMethod(message = "must have minLimit <= initialLimit <= maxLimit")
+    public boolean isLimitOrdered() {
+        return (minLimit <= initialLimit) && (initialLimit <= maxLimit);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int limit) {
+        this.initialLimit = limit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int limit) {
+        this.minLimit = limit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int limit) {
+        this.maxLimit = limit;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int size) {
+        this.windowSize = size;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    public void setLatencyTolerance(double tolerance) {
+        this.latencyTolerance = tolerance;
+    }
+
+    public double getSmoothing() {
+        return smoothing;
+    }
+
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+}
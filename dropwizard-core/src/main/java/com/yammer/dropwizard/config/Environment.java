@@ -1,5 +1,7 @@
 package com.yammer.dropwizard.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.google.common.base.Supplier;
 import com.google.common.collect.*;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sun.jersey.api.core.ResourceConfig;
@@ -33,9 +35,11 @@ import javax.servlet.Filter;
 import javax.servlet.Servlet;
 import javax.ws.rs.HttpMethod;
 import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.ext.Provider;
 import java.util.EventListener;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -64,6 +68,7 @@ public class Environment extends AbstractLifeCycle {
     private final ImmutableSet.Builder<Task> tasks;
     private final ImmutableSet.Builder<String> protectedTargets;
     private final ImmutableList.Builder<ServerLifecycleListener> serverListeners;
+    private final Map<MediaType, Supplier<? extends JsonFactory>> jacksonFormats;
     private Resource baseResource;
     private final AggregateLifeCycle lifeCycle;
     private final ObjectMapperFactory objectMapperFactory;
@@ -106,6 +111,7 @@ public class Environment extends AbstractLifeCycle {
         this.baseResource = Resource.newClassPathResource(".");
         this.protectedTargets = ImmutableSet.builder();
         this.serverListeners = ImmutableList.builder();
+        this.jacksonFormats = Maps.newLinkedHashMap();
         this.lifeCycle = new AggregateLifeCycle();
         this.jerseyServletContainer = new ServletContainer(config);
         addTask(new GarbageCollectionTask());
@@ -174,6 +180,33 @@ public class Environment extends AbstractLifeCycle {
         config.getClasses().add(checkNotNull(klass));
     }
 
+    /**
+     * Adds a Jackson data format other than JSON, such as Smile, to those the service's resources
+     * can read and write. Entities in the format are mapped and validated the same way JSON
+     * entities are; resources opt in by listing {@code mediaType} in their {@code @Consumes} and
+     * {@code @Produces} annotations.
+     * <p/>
+     * A {@link JsonFactory} belongs to the single {@link com.fasterxml.jackson.databind.ObjectMapper}
+     * built with it, so the server and each client get a new factory from {@code factories}.
+     *
+     * @param mediaType    the format's media type (e.g. {@code application/x-jackson-smile})
+     * @param factories    a supplier of new, configured {@link JsonFactory} instances for the
+     *                     format (e.g. {@code SmileFactory}s)
+     */
+    public void addJacksonFormat(MediaType mediaType, Supplier<? extends JsonFactory> factories) {
+        jacksonFormats.put(checkNotNull(mediaType), checkNotNull(factories));
+    }
+
+    /**
+     * Returns the Jackson data formats other than JSON added to the environment, by media type.
+     *
+     * @return the service's Jackson data formats
+     * @see #addJacksonFormat(MediaType, Supplier)
+     */
+    public Map<MediaType, Supplier<? extends JsonFactory>> getJacksonFormats() {
+        return ImmutableMap.copyOf(jacksonFormats);
+    }
+
     /**
      * Adds the given health check to the set of health checks exposed on the admin port.
      *
@@ -1,16 +1,53 @@
 package com.yammer.dropwizard.config;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.yammer.dropwizard.jetty.ContentEncoding;
 import com.yammer.dropwizard.util.Size;
+import org.hibernate.validator.constraints.NotEmpty;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.zip.Deflater;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
 @SuppressWarnings("UnusedDeclaration")
 public class GzipConfiguration {
+    public enum CompressionStrategy {
+        DEFAULT(Deflater.DEFAULT_STRATEGY),
+        FILTERED(Deflater.FILTERED),
+        HUFFMAN_ONLY(Deflater.HUFFMAN_ONLY);
+
+        private final int value;
+
+        CompressionStrategy(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        @JsonValue
+        public String toString() {
+            return super.toString().replace("_", "-").toLowerCase(Locale.ENGLISH);
+        }
+
+        @JsonCreator
+        public static CompressionStrategy parse(String strategy) {
+            return valueOf(strategy.toUpperCase(Locale.ENGLISH).replace('-', '_'));
+        }
+    }
+
     @JsonProperty
     private boolean enabled = true;
 
@@ -27,6 +64,23 @@ public class GzipConfiguration {
     @JsonProperty
     private ImmutableSet<String> compressedMimeTypes = ImmutableSet.of();
 
+    @JsonProperty
+    @NotEmpty
+    private ImmutableList<ContentEncoding> encodings = ImmutableList.of(ContentEncoding.GZIP);
+
+    @JsonProperty
+    @Min(Deflater.DEFAULT_COMPRESSION)
+    @Max(Deflater.BEST_COMPRESSION)
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    @JsonProperty
+    @NotNull
+    private CompressionStrategy compressionStrategy = CompressionStrategy.DEFAULT;
+
+    @JsonProperty
+    @Min(1)
+    private int codecPoolSize = 64;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -66,4 +120,36 @@ public class GzipConfiguration {
     public void setCompressedMimeTypes(Set<String> mimeTypes) {
         this.compressedMimeTypes = ImmutableSet.copyOf(mimeTypes);
     }
+
+    public ImmutableList<ContentEncoding> getEncodings() {
+        return encodings;
+    }
+
+    public void setEncodings(List<ContentEncoding> encodings) {
+        this.encodings = ImmutableList.copyOf(encodings);
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int level) {
+        this.compressionLevel = level;
+    }
+
+    public CompressionStrategy getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    public void setCompressionStrategy(CompressionStrategy strategy) {
+        this.compressionStrategy = checkNotNull(strategy);
+    }
+
+    public int getCodecPoolSize() {
+        return codecPoolSize;
+    }
+
+    public void setCodecPoolSize(int size) {
+        this.codecPoolSize = size;
+    }
 }
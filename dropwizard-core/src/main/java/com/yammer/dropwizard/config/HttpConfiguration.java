@@ -4,18 +4,24 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
 import com.yammer.dropwizard.validation.PortRange;
+import com.yammer.dropwizard.util.Deadline;
 import com.yammer.dropwizard.util.Duration;
 import com.yammer.dropwizard.util.Size;
 import com.yammer.dropwizard.validation.ValidationMethod;
+import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * An object representation of the {@code http} section of the YAML configuration file.
@@ -41,6 +47,22 @@ public class HttpConfiguration {
         }
     }
 
+    public enum ThreadType {
+        PLATFORM,
+        VIRTUAL;
+
+        @Override
+        @JsonValue
+        public String toString() {
+            return super.toString().toLowerCase(Locale.ENGLISH);
+        }
+
+        @JsonCreator
+        public static ThreadType parse(String type) {
+            return valueOf(type.toUpperCase(Locale.ENGLISH));
+        }
+    }
+
     @Valid
     @NotNull
     @JsonProperty
@@ -51,6 +73,16 @@ public class HttpConfiguration {
     @JsonProperty
     private GzipConfiguration gzip = new GzipConfiguration();
 
+    @Valid
+    @NotNull
+    @JsonProperty
+    private ConcurrencyLimitConfiguration concurrencyLimit = new ConcurrencyLimitConfiguration();
+
+    @Valid
+    @NotNull
+    @JsonProperty
+    private ImmutableList<RequestClassConfiguration> requestClasses = ImmutableList.of();
+
     @Valid
     @JsonProperty
     private SslConfiguration ssl = null;
@@ -77,6 +109,35 @@ public class HttpConfiguration {
     @JsonProperty
     private int minThreads = 8;
 
+    @NotNull
+    @JsonProperty
+    private ThreadType threadType = ThreadType.PLATFORM;
+
+    @Min(1)
+    @JsonProperty
+    private Integer maxQueuedRequests = null;
+
+    @JsonProperty
+    private Duration maxQueueWait = null;
+
+    @NotNull
+    @JsonProperty
+    private Duration loadSheddingRetryAfter = Duration.seconds(1);
+
+    @NotEmpty
+    @JsonProperty
+    private String requestTimeoutHeader = Deadline.DEFAULT_HEADER;
+
+    @JsonProperty
+    private Duration defaultRequestTimeout = null;
+
+    @JsonProperty
+    private Duration maxRequestTimeout = null;
+
+    @NotNull
+    @JsonProperty
+    private Duration inFlightStackTraceThreshold = Duration.seconds(1);
+
     @NotNull
     @JsonProperty
     private String rootPath = "/*";
@@ -123,6 +184,10 @@ public class HttpConfiguration {
     @JsonProperty
     private Size responseHeaderBufferSize = Size.kilobytes(6);
 
+    @NotNull
+    @JsonProperty
+    private Size streamingFlushInterval = Size.kilobytes(16);
+
     @JsonProperty
     private boolean reuseAddress = true;
 
@@ -152,6 +217,9 @@ public class HttpConfiguration {
     @JsonProperty
     private boolean useDirectBuffers = true;
 
+    @JsonProperty
+    private boolean useRequestThreadNames = false;
+
     @JsonProperty
     private String bindHost = null;
 
@@ -173,6 +241,17 @@ public class HttpConfiguration {
         return minThreads <= maxThreads;
     }
     
+    @ValidationMethod(message = "must have unique requestClasses names")
+    public boolean isRequestClassNamesUnique() {
+        final Set<String> names = Sets.newHashSet();
+        for (RequestClassConfiguration requestClass : requestClasses) {
+            if (!names.add(requestClass.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @ValidationMethod(message = "must have adminUsername if adminPassword is defined")
     public boolean isAdminUsernameDefined() {
         return (adminPassword == null) || (adminUsername != null);
@@ -194,6 +273,22 @@ public class HttpConfiguration {
         this.gzip = config;
     }
 
+    public ConcurrencyLimitConfiguration getConcurrencyLimitConfiguration() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimitConfiguration(ConcurrencyLimitConfiguration config) {
+        this.concurrencyLimit = config;
+    }
+
+    public ImmutableList<RequestClassConfiguration> getRequestClasses() {
+        return requestClasses;
+    }
+
+    public void setRequestClasses(List<RequestClassConfiguration> classes) {
+        this.requestClasses = ImmutableList.copyOf(classes);
+    }
+
     public SslConfiguration getSslConfiguration() {
         return ssl;
     }
@@ -250,6 +345,74 @@ public class HttpConfiguration {
         this.minThreads = count;
     }
 
+    public ThreadType getThreadType() {
+        return threadType;
+    }
+
+    public void setThreadType(ThreadType type) {
+        this.threadType = type;
+    }
+
+    public Optional<Integer> getMaxQueuedRequests() {
+        return Optional.fromNullable(maxQueuedRequests);
+    }
+
+    public void setMaxQueuedRequests(Integer count) {
+        this.maxQueuedRequests = count;
+    }
+
+    public Optional<Duration> getMaxQueueWait() {
+        return Optional.fromNullable(maxQueueWait);
+    }
+
+    public void setMaxQueueWait(Duration duration) {
+        this.maxQueueWait = duration;
+    }
+
+    public Duration getLoadSheddingRetryAfter() {
+        return loadSheddingRetryAfter;
+    }
+
+    public void setLoadSheddingRetryAfter(Duration duration) {
+        this.loadSheddingRetryAfter = duration;
+    }
+
+    public boolean isLoadSheddingEnabled() {
+        return (maxQueuedRequests != null) || (maxQueueWait != null);
+    }
+
+    public String getRequestTimeoutHeader() {
+        return requestTimeoutHeader;
+    }
+
+    public void setRequestTimeoutHeader(String header) {
+        this.requestTimeoutHeader = header;
+    }
+
+    public Optional<Duration> getDefaultRequestTimeout() {
+        return Optional.fromNullable(defaultRequestTimeout);
+    }
+
+    public void setDefaultRequestTimeout(Duration timeout) {
+        this.defaultRequestTimeout = timeout;
+    }
+
+    public Optional<Duration> getMaxRequestTimeout() {
+        return Optional.fromNullable(maxRequestTimeout);
+    }
+
+    public void setMaxRequestTimeout(Duration timeout) {
+        this.maxRequestTimeout = timeout;
+    }
+
+    public Duration getInFlightStackTraceThreshold() {
+        return inFlightStackTraceThreshold;
+    }
+
+    public void setInFlightStackTraceThreshold(Duration threshold) {
+        this.inFlightStackTraceThreshold = threshold;
+    }
+
     public Duration getMaxIdleTime() {
         return maxIdleTime;
     }
@@ -322,6 +485,14 @@ public class HttpConfiguration {
         this.responseHeaderBufferSize = size;
     }
 
+    public Size getStreamingFlushInterval() {
+        return streamingFlushInterval;
+    }
+
+    public void setStreamingFlushInterval(Size interval) {
+        this.streamingFlushInterval = interval;
+    }
+
     public boolean isReuseAddressEnabled() {
         return reuseAddress;
     }
@@ -378,6 +549,14 @@ public class HttpConfiguration {
         this.useDirectBuffers = useDirectBuffers;
     }
 
+    public boolean useRequestThreadNames() {
+        return useRequestThreadNames;
+    }
+
+    public void setUseRequestThreadNames(boolean useRequestThreadNames) {
+        this.useRequestThreadNames = useRequestThreadNames;
+    }
+
     public Optional<String> getBindHost() {
         return Optional.fromNullable(bindHost);
     }
@@ -0,0 +1,302 @@
+package com.yammer.dropwizard.config;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link JsonParser} which applies property overrides (e.g. {@code -Ddw.http.port=8080}) to a
+ * configuration document as its tokens are read, rather than to a tree of the whole document.
+ * <p/>
+ * Overridden values replace the document's values in place, and overridden properties which are
+ * missing from the document are added at the end of their object, so the configuration class
+ * sees a single stream of tokens either way. An empty document is treated as an empty object.
+ */
+class OverridingJsonParser extends JsonParserDelegate {
+    /**
+     * A tree of overridden property names, built once per configuration.
+     */
+    static class Overrides {
+        private static final Splitter PATH = Splitter.on('.').trimResults();
+
+        /**
+         * Returns the overrides given by the properties whose names start with the given prefix.
+         *
+         * @param properties    a set of properties (e.g. the system properties)
+         * @param prefix        the prefix of the overriding properties' names
+         * @return the overrides
+         * @throws IllegalArgumentException if an override's path runs through another override
+         */
+        static Overrides of(Map<String, String> properties, String prefix) {
+            final Overrides root = new Overrides("");
+            // sorted, so that "a" is always added before "a.b"
+            for (Map.Entry<String, String> property : ImmutableSortedMap.copyOf(properties).entrySet()) {
+                if (property.getKey().startsWith(prefix)) {
+                    root.add(property.getKey().substring(prefix.length()), property.getValue());
+                }
+            }
+            return root;
+        }
+
+        private final String name;
+        private final Map<String, Overrides> children = Maps.newLinkedHashMap();
+        private String value;
+
+        private Overrides(String name) {
+            this.name = name;
+        }
+
+        boolean isEmpty() {
+            return (value == null) && children.isEmpty();
+        }
+
+        private void add(String path, String value) {
+            Overrides node = this;
+            final Iterator<String> keys = PATH.split(path).iterator();
+            while (keys.hasNext()) {
+                final String key = keys.next();
+                if (node.value != null) {
+                    throw invalidPath(path);
+                }
+                Overrides child = node.children.get(key);
+                if (child == null) {
+                    child = new Overrides(path);
+                    node.children.put(key, child);
+                }
+                node = child;
+            }
+            node.value = value;
+            node.children.clear();
+        }
+
+        private void write(TokenBuffer buffer, String key) throws IOException {
+            buffer.writeFieldName(key);
+            if (value != null) {
+                buffer.writeString(value);
+            } else {
+                buffer.writeStartObject();
+                for (Map.Entry<String, Overrides> child : children.entrySet()) {
+                    child.getValue().write(buffer, child.getKey());
+                }
+                buffer.writeEndObject();
+            }
+        }
+    }
+
+    private static class Frame {
+        private final Overrides overrides;
+        private final Set<String> seen;
+        private boolean completed;
+
+        private Frame(Overrides overrides) {
+            this.overrides = overrides;
+            this.seen = (overrides == null) ? null : Sets.<String>newHashSet();
+        }
+    }
+
+    private static IllegalArgumentException invalidPath(String name) {
+        return new IllegalArgumentException("Unable to override " + name + "; it's not a valid path.");
+    }
+
+    private final JsonParser source;
+    private final Deque<Frame> frames = Queues.newArrayDeque();
+    private Overrides pending;
+    private boolean started;
+    private boolean resume;
+    private IllegalArgumentException invalidOverride;
+
+    /**
+     * Creates a new {@link OverridingJsonParser}.
+     *
+     * @param source       the parser for the configuration document
+     * @param overrides    the overrides to apply
+     */
+    OverridingJsonParser(JsonParser source, Overrides overrides) {
+        super(source);
+        this.source = source;
+        this.pending = overrides.isEmpty() ? null : overrides;
+    }
+
+    /**
+     * Returns the error from the first override which couldn't be applied, if any. The error is
+     * thrown from {@link #nextToken()}, but may reach the caller wrapped by a deserializer.
+     *
+     * @return the error from the first override which couldn't be applied, if any
+     */
+    Optional<IllegalArgumentException> getInvalidOverride() {
+        return Optional.fromNullable(invalidOverride);
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException, JsonParseException {
+        if (delegate != source) {
+            final JsonToken token = delegate.nextToken();
+            if (token != null) {
+                return token;
+            }
+            this.delegate = source;
+            if (resume) {
+                this.resume = false;
+                // the end of the object whose missing overrides were just added
+                frames.pop();
+                return source.getCurrentToken();
+            }
+        }
+        return process(source.nextToken());
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException, JsonParseException {
+        final JsonToken token = nextToken();
+        if (token == JsonToken.FIELD_NAME) {
+            return nextToken();
+        }
+        return token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException, JsonParseException {
+        // skip via nextToken(), so that overrides for the skipped values are accounted for
+        final JsonToken current = getCurrentToken();
+        if ((current == JsonToken.START_OBJECT) || (current == JsonToken.START_ARRAY)) {
+            int open = 1;
+            while (open > 0) {
+                final JsonToken token = nextToken();
+                if (token == null) {
+                    break;
+                } else if ((token == JsonToken.START_OBJECT) || (token == JsonToken.START_ARRAY)) {
+                    open++;
+                } else if ((token == JsonToken.END_OBJECT) || (token == JsonToken.END_ARRAY)) {
+                    open--;
+                }
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (delegate != source) {
+            delegate.close();
+        }
+        source.close();
+    }
+
+    private JsonToken process(JsonToken token) throws IOException {
+        if (token == null) {
+            if (!started) {
+                // an empty document
+                this.started = true;
+                return replay(emptyObject());
+            }
+            return null;
+        }
+        this.started = true;
+
+        switch (token) {
+            case START_OBJECT:
+                frames.push(new Frame(pending));
+                this.pending = null;
+                return token;
+            case START_ARRAY:
+                checkPending();
+                frames.push(new Frame(null));
+                return token;
+            case END_OBJECT:
+                return endObject(token);
+            case END_ARRAY:
+                frames.pop();
+                return token;
+            case FIELD_NAME:
+                return fieldName(token);
+            default:
+                checkPending();
+                return token;
+        }
+    }
+
+    private JsonToken endObject(JsonToken token) throws IOException {
+        final Frame frame = frames.peek();
+        if ((frame.overrides != null) && !frame.completed) {
+            frame.completed = true;
+            final List<String> missing = Lists.newArrayList();
+            for (String key : frame.overrides.children.keySet()) {
+                if (!frame.seen.contains(key)) {
+                    missing.add(key);
+                }
+            }
+            if (!missing.isEmpty()) {
+                final TokenBuffer buffer = new TokenBuffer(source.getCodec());
+                for (String key : missing) {
+                    frame.overrides.children.get(key).write(buffer, key);
+                }
+                this.resume = true;
+                return replay(buffer);
+            }
+        }
+        frames.pop();
+        return token;
+    }
+
+    private JsonToken fieldName(JsonToken token) throws IOException {
+        final Frame frame = frames.peek();
+        if (frame.overrides != null) {
+            final String key = source.getCurrentName();
+            final Overrides override = frame.overrides.children.get(key);
+            if (override != null) {
+                frame.seen.add(key);
+                if (override.value != null) {
+                    // replace the value with the override
+                    source.nextToken();
+                    source.skipChildren();
+                    final TokenBuffer buffer = new TokenBuffer(source.getCodec());
+                    override.write(buffer, key);
+                    return replay(buffer);
+                }
+                this.pending = override;
+            }
+        }
+        return token;
+    }
+
+    private TokenBuffer emptyObject() throws IOException {
+        final TokenBuffer buffer = new TokenBuffer(source.getCodec());
+        buffer.writeStartObject();
+        if (pending != null) {
+            for (Map.Entry<String, Overrides> child : pending.children.entrySet()) {
+                child.getValue().write(buffer, child.getKey());
+            }
+            this.pending = null;
+        }
+        buffer.writeEndObject();
+        return buffer;
+    }
+
+    private JsonToken replay(TokenBuffer buffer) throws IOException {
+        this.delegate = buffer.asParser(source.getCodec());
+        return delegate.nextToken();
+    }
+
+    private void checkPending() {
+        if (pending != null) {
+            this.invalidOverride = invalidPath(pending.name);
+            throw invalidOverride;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.yammer.dropwizard.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.dropwizard.validation.ValidationMethod;
+import org.hibernate.validator.constraints.NotEmpty;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * An object representation of an entry in the {@code http.requestClasses} section of the YAML
+ * configuration file.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class RequestClassConfiguration {
+    @NotEmpty
+    @JsonProperty
+    private String name;
+
+    @JsonProperty
+    private String pathPrefix = null;
+
+    @JsonProperty
+    private String header = null;
+
+    @JsonProperty
+    private String headerValue = null;
+
+    @Min(1)
+    @Max(1000000)
+    @JsonProperty
+    private int maxConcurrency = 64;
+
+    @Min(0)
+    @JsonProperty
+    private int maxQueued = 0;
+
+    @JsonProperty
+    private Duration maxQueueWait = null;
+
+    @ValidationMethod(message = "must have a header if it has a headerValue")
+    public boolean isHeaderValueMatchable() {
+        return (headerValue == null) || (header != null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Optional<String> getPathPrefix() {
+        return Optional.fromNullable(pathPrefix);
+    }
+
+    public void setPathPrefix(String prefix) {
+        this.pathPrefix = prefix;
+    }
+
+    public Optional<String> getHeader() {
+        return Optional.fromNullable(header);
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public Optional<String> getHeaderValue() {
+        return Optional.fromNullable(headerValue);
+    }
+
+    public void setHeaderValue(String value) {
+        this.headerValue = value;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int count) {
+        this.maxConcurrency = count;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int count) {
+        this.maxQueued = count;
+    }
+
+    public Optional<Duration> getMaxQueueWait() {
+        return Optional.fromNullable(maxQueueWait);
+    }
+
+    public void setMaxQueueWait(Duration duration) {
+        this.maxQueueWait = duration;
+    }
+}
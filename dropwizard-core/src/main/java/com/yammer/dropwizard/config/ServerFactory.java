@@ -1,21 +1,46 @@
 package com.yammer.dropwizard.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.google.common.base.Supplier;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.sun.jersey.spi.container.servlet.ServletContainer;
 import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
+import com.yammer.dropwizard.jersey.scheduling.RequestClassResourceMethodDispatchAdapter;
+import com.yammer.dropwizard.jersey.streaming.StreamingArrayProvider;
 import com.yammer.dropwizard.jetty.BiDiGzipHandler;
+import com.yammer.dropwizard.jetty.BoundedQueuedThreadPool;
+import com.yammer.dropwizard.jetty.ConcurrencyLimitHandler;
+import com.yammer.dropwizard.jetty.GradientConcurrencyLimit;
+import com.yammer.dropwizard.jetty.LoadSheddingHandler;
+import com.yammer.dropwizard.jetty.RequestClass;
+import com.yammer.dropwizard.jetty.RequestClassHandler;
 import com.yammer.dropwizard.jetty.UnbrandedErrorHandler;
+import com.yammer.dropwizard.jetty.VirtualThreadPool;
+import com.yammer.dropwizard.servlets.DeadlineFilter;
+import com.yammer.dropwizard.servlets.InFlightRequests;
+import com.yammer.dropwizard.servlets.InFlightRequestsServlet;
+import com.yammer.dropwizard.servlets.RequestDescriptorFilter;
+import com.yammer.dropwizard.servlets.RequestThreadDumpServlet;
 import com.yammer.dropwizard.servlets.ThreadNameFilter;
 import com.yammer.dropwizard.tasks.TaskServlet;
 import com.yammer.dropwizard.util.Duration;
 import com.yammer.dropwizard.util.Size;
 import com.yammer.metrics.HealthChecks;
+import com.yammer.metrics.core.Clock;
 import com.yammer.metrics.core.HealthCheck;
 import com.yammer.metrics.jetty.*;
 import com.yammer.metrics.reporting.AdminServlet;
+import com.yammer.metrics.reporting.HealthCheckServlet;
+import com.yammer.metrics.reporting.MetricsServlet;
+import com.yammer.metrics.reporting.PingServlet;
 import com.yammer.metrics.util.DeadlockHealthCheck;
 import org.eclipse.jetty.security.ConstraintMapping;
 import org.eclipse.jetty.security.ConstraintSecurityHandler;
@@ -43,12 +68,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.MediaType;
 import java.io.File;
 import java.net.URI;
 import java.security.KeyStore;
 import java.util.EnumSet;
 import java.util.EventListener;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
 
 // TODO: 11/7/11 <coda> -- document ServerFactory
 // TODO: 11/7/11 <coda> -- document ServerFactory
@@ -58,9 +87,11 @@ public class ServerFactory {
 
     private final HttpConfiguration config;
     private final RequestLogHandlerFactory requestLogHandlerFactory;
+    private final InFlightRequests inFlightRequests;
 
     public ServerFactory(HttpConfiguration config, String name) {
         this.config = config;
+        this.inFlightRequests = new InFlightRequests(config.getMaxThreads());
         this.requestLogHandlerFactory = new RequestLogHandlerFactory(config.getRequestLogConfiguration(),
                                                                      name);
     }
@@ -312,7 +343,17 @@ public class ServerFactory {
     private Handler createInternalServlet(Environment env) {
         final ServletContextHandler handler = new ServletContextHandler();
         handler.addServlet(new ServletHolder(new TaskServlet(env.getTasks())), "/tasks/*");
-        handler.addServlet(new ServletHolder(new AdminServlet()), "/*");
+        handler.addServlet(new ServletHolder(new InFlightRequestsServlet(inFlightRequests,
+                                                                         config.getInFlightStackTraceThreshold())),
+                           "/in-flight");
+        handler.addServlet(new ServletHolder(new AdminServlet(new HealthCheckServlet(),
+                                                              new MetricsServlet(),
+                                                              new PingServlet(),
+                                                              new RequestThreadDumpServlet(),
+                                                              AdminServlet.DEFAULT_HEALTHCHECK_URI,
+                                                              AdminServlet.DEFAULT_METRICS_URI,
+                                                              AdminServlet.DEFAULT_PING_URI,
+                                                              AdminServlet.DEFAULT_THREADS_URI)), "/*");
 
         if (config.getAdminPort() == config.getPort()) {
             handler.setContextPath("/admin");
@@ -355,7 +396,16 @@ public class ServerFactory {
 
     private Handler createExternalServlet(Environment env) {
         final ServletContextHandler handler = new ServletContextHandler();
-        handler.addFilter(ThreadNameFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
+        handler.addFilter(new FilterHolder(new RequestDescriptorFilter(Optional.of(inFlightRequests),
+                                                                       Clock.defaultClock())),
+                          "/*", EnumSet.of(DispatcherType.REQUEST));
+        if (config.useRequestThreadNames()) {
+            handler.addFilter(ThreadNameFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
+        }
+        handler.addFilter(new FilterHolder(new DeadlineFilter(config.getRequestTimeoutHeader(),
+                                                              config.getDefaultRequestTimeout(),
+                                                              config.getMaxRequestTimeout())),
+                          "/*", EnumSet.of(DispatcherType.REQUEST));
         handler.setBaseResource(env.getBaseResource());
 
         if(!env.getProtectedTargets().isEmpty()) {
@@ -366,10 +416,24 @@ public class ServerFactory {
             handler.addServlet(entry.getValue(), entry.getKey());
         }
 
+        final ImmutableList<RequestClass> requestClasses = createRequestClasses();
+
         final ServletContainer jerseyContainer = env.getJerseyServletContainer();
         if (jerseyContainer != null) {
             env.addProvider(new JacksonMessageBodyProvider(env.getObjectMapperFactory().build(),
                                                            env.getValidator()));
+            env.addProvider(new StreamingArrayProvider(env.getObjectMapperFactory().build(),
+                                                       config.getStreamingFlushInterval()));
+            for (Map.Entry<MediaType, Supplier<? extends JsonFactory>> format : env.getJacksonFormats().entrySet()) {
+                final ObjectMapper mapper = env.getObjectMapperFactory().build(format.getValue().get());
+                env.addProvider(new JacksonMessageBodyProvider(mapper,
+                                                               env.getValidator(),
+                                                               format.getKey()));
+            }
+            if (!requestClasses.isEmpty()) {
+                env.addProvider(new RequestClassResourceMethodDispatchAdapter(requestClasses,
+                                                                              config.getLoadSheddingRetryAfter()));
+            }
             final ServletHolder jerseyHolder = new ServletHolder(jerseyContainer);
             jerseyHolder.setInitOrder(Integer.MAX_VALUE);
             handler.addServlet(jerseyHolder, config.getRootPath());
@@ -391,11 +455,38 @@ public class ServerFactory {
 
         handler.setConnectorNames(new String[]{"main"});
 
-        return wrapHandler(handler);
+        return limitConcurrency(wrapHandler(classifyRequests(handler, requestClasses)));
+    }
+
+    private ImmutableList<RequestClass> createRequestClasses() {
+        final ImmutableList.Builder<RequestClass> classes = ImmutableList.builder();
+        for (RequestClassConfiguration requestClass : config.getRequestClasses()) {
+            final List<Predicate<HttpServletRequest>> predicates = Lists.newArrayList();
+            if (requestClass.getPathPrefix().isPresent()) {
+                predicates.add(RequestClass.pathPrefix(requestClass.getPathPrefix().get()));
+            }
+            if (requestClass.getHeader().isPresent()) {
+                predicates.add(RequestClass.header(requestClass.getHeader().get(),
+                                                   requestClass.getHeaderValue()));
+            }
+            classes.add(new RequestClass(requestClass.getName(),
+                                         Predicates.or(predicates),
+                                         requestClass.getMaxConcurrency(),
+                                         requestClass.getMaxQueued(),
+                                         requestClass.getMaxQueueWait()));
+        }
+        return classes.build();
+    }
+
+    private Handler classifyRequests(Handler handler, ImmutableList<RequestClass> requestClasses) {
+        if (requestClasses.isEmpty()) {
+            return handler;
+        }
+        return new RequestClassHandler(handler, requestClasses, config.getLoadSheddingRetryAfter());
     }
 
-    private Handler wrapHandler(ServletContextHandler handler) {
-        final InstrumentedHandler instrumented = new InstrumentedHandler(handler);
+    private Handler wrapHandler(Handler handler) {
+        final InstrumentedHandler instrumented = new InstrumentedHandler(shedLoad(handler));
         final GzipConfiguration gzip = config.getGzipConfiguration();
         if (gzip.isEnabled()) {
             final BiDiGzipHandler gzipHandler = new BiDiGzipHandler(instrumented);
@@ -416,13 +507,53 @@ public class ServerFactory {
                 gzipHandler.setMimeTypes(mimeTypes);
             }
 
+            gzipHandler.setEncodings(gzip.getEncodings());
+            gzipHandler.setCompressionLevel(gzip.getCompressionLevel());
+            gzipHandler.setCompressionStrategy(gzip.getCompressionStrategy().getValue());
+            gzipHandler.setCodecPoolSize(gzip.getCodecPoolSize());
+
             return gzipHandler;
         }
         return instrumented;
     }
 
+    private Handler limitConcurrency(Handler handler) {
+        final ConcurrencyLimitConfiguration limit = config.getConcurrencyLimitConfiguration();
+        if (limit.isEnabled()) {
+            return new ConcurrencyLimitHandler(handler,
+                                               new GradientConcurrencyLimit(limit.getInitialLimit(),
+                                                                            limit.getMinLimit(),
+                                                                            limit.getMaxLimit(),
+                                                                            limit.getWindowSize(),
+                                                                            limit.getLatencyTolerance(),
+                                                                            limit.getSmoothing()),
+                                               config.getLoadSheddingRetryAfter());
+        }
+        return handler;
+    }
+
+    private Handler shedLoad(Handler handler) {
+        if (config.isLoadSheddingEnabled()) {
+            return new LoadSheddingHandler(handler, config.getLoadSheddingRetryAfter());
+        }
+        return handler;
+    }
+
     private ThreadPool createThreadPool() {
-        final InstrumentedQueuedThreadPool pool = new InstrumentedQueuedThreadPool();
+        if (config.getThreadType() == HttpConfiguration.ThreadType.VIRTUAL) {
+            final Optional<ThreadFactory> factory = VirtualThreadPool.virtualThreadFactory("dw-virtual-");
+            if (factory.isPresent()) {
+                return new VirtualThreadPool(factory.get(),
+                                             config.getMaxThreads(),
+                                             config.getMaxQueuedRequests().or(-1),
+                                             config.getMaxQueueWait());
+            }
+            LOGGER.warn("Virtual threads are not supported by this JVM ({}); using platform threads",
+                        System.getProperty("java.version"));
+        }
+
+        final BoundedQueuedThreadPool pool = new BoundedQueuedThreadPool(config.getMaxQueuedRequests().or(-1),
+                                                                         config.getMaxQueueWait());
         pool.setMinThreads(config.getMinThreads());
         pool.setMaxThreads(config.getMaxThreads());
         return pool;
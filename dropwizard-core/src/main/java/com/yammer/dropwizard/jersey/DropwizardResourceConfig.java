@@ -2,6 +2,7 @@ package com.yammer.dropwizard.jersey;
 
 import com.sun.jersey.api.core.ScanningResourceConfig;
 import com.yammer.dropwizard.jersey.caching.CacheControlledResourceMethodDispatchAdapter;
+import com.yammer.dropwizard.jersey.latency.LatencyHistogramResourceMethodDispatchAdapter;
 import com.yammer.metrics.jersey.InstrumentedResourceMethodDispatchAdapter;
 
 public class DropwizardResourceConfig extends ScanningResourceConfig {
@@ -15,8 +16,10 @@ public class DropwizardResourceConfig extends ScanningResourceConfig {
             getSingletons().add(new JsonProcessingExceptionMapper());
         }
         getClasses().add(InstrumentedResourceMethodDispatchAdapter.class);
+        getClasses().add(LatencyHistogramResourceMethodDispatchAdapter.class);
         getClasses().add(CacheControlledResourceMethodDispatchAdapter.class);
         getClasses().add(OptionalResourceMethodDispatchAdapter.class);
         getClasses().add(OptionalQueryParamInjectableProvider.class);
+        getContainerResponseFilters().add(new SerializedEntityTagFilter());
     }
 }
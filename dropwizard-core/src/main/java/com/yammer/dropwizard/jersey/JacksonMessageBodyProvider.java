@@ -1,22 +1,42 @@
 package com.yammer.dropwizard.jersey;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.fasterxml.jackson.jaxrs.json.annotation.EndpointConfig;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.yammer.dropwizard.jersey.caching.CacheSerialized;
+import com.yammer.dropwizard.jersey.caching.CacheableEntity;
 import com.yammer.dropwizard.validation.InvalidEntityException;
 import com.yammer.dropwizard.validation.Validated;
 import com.yammer.dropwizard.validation.Validator;
 
 import javax.validation.Valid;
 import javax.validation.groups.Default;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A Jersey provider which enables using Jackson to parse request entities into objects and generate
@@ -27,6 +47,20 @@ import java.lang.reflect.Type;
  * <p/>
  * (Essentially, extends {@link JacksonJaxbJsonProvider} with validation and support for {@link
  * JsonIgnoreType}.)
+ * <p/>
+ * The {@link ObjectReader}s and {@link ObjectWriter}s for each combination of entity type, method
+ * annotations and media type are prepared once, along with the entity's validation groups, and
+ * reused for every request. At most {@link #MAX_PREPARED_ENDPOINTS} combinations are kept.
+ * <p/>
+ * The serialized forms of {@link CacheableEntity cacheable} entities and of entities returned by
+ * {@link CacheSerialized}-annotated methods are cached, and responses written from the cache are
+ * given a strong {@code ETag}. On the server, {@link SerializedEntityTagFilter} answers {@code GET}
+ * and {@code HEAD} requests whose {@code If-None-Match} header matches it with a {@code 304 Not
+ * Modified} instead.
+ * <p/>
+ * By default, the provider handles JSON media types. Given a mapper built with a binary Jackson
+ * data format's {@link JsonFactory}, such as Smile, it handles that
+ * format's media type instead.
  */
 @Provider
 public class JacksonMessageBodyProvider extends JacksonJaxbJsonProvider {
@@ -34,21 +68,170 @@ public class JacksonMessageBodyProvider extends JacksonJaxbJsonProvider {
      * The default group array used in case any of the validate methods is called without a group.
      */
     private static final Class<?>[] DEFAULT_GROUP_ARRAY = new Class<?>[]{ Default.class };
+
+    /**
+     * The default maximum number of entities whose serialized forms are cached.
+     */
+    public static final long DEFAULT_MAX_CACHED_ENTITIES = 1000;
+
+    /**
+     * The maximum number of prepared readers, and of prepared writers.
+     */
+    public static final long MAX_PREPARED_ENDPOINTS = 1000;
+
+    private static class Endpoint {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final MediaType mediaType;
+        private final int hashCode;
+
+        private Endpoint(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            this.type = type;
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType;
+            // annotations hash reflectively, so only their types are hashed
+            int hash = (31 * type.hashCode()) + Objects.hashCode(genericType);
+            hash = (31 * hash) + Objects.hashCode(mediaType);
+            for (Annotation annotation : annotations) {
+                hash = (31 * hash) + annotation.annotationType().hashCode();
+            }
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) { return true; }
+            if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+            final Endpoint that = (Endpoint) obj;
+            return (hashCode == that.hashCode) &&
+                    (type == that.type) &&
+                    Objects.equal(genericType, that.genericType) &&
+                    Objects.equal(mediaType, that.mediaType) &&
+                    sameAnnotations(that.annotations);
+        }
+
+        private boolean sameAnnotations(Annotation[] others) {
+            if (annotations == others) {
+                return true;
+            }
+            if (annotations.length != others.length) {
+                return false;
+            }
+            for (int i = 0; i < annotations.length; i++) {
+                if ((annotations[i] != others[i]) && !annotations[i].equals(others[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class PreparedReader {
+        private final ObjectReader reader;
+        private final Class<?>[] validationGroups;
+
+        private PreparedReader(ObjectReader reader, Class<?>[] validationGroups) {
+            this.reader = reader;
+            this.validationGroups = validationGroups;
+        }
+    }
+
+    private static class PreparedWriter {
+        private final EndpointConfig config;
+        private final ObjectWriter writer;
+        private final boolean indenting;
+
+        private PreparedWriter(EndpointConfig config, ObjectWriter writer) {
+            this.config = config;
+            this.writer = writer;
+            this.indenting = writer.isEnabled(SerializationFeature.INDENT_OUTPUT);
+        }
+    }
+
     private final ObjectMapper mapper;
     private final Validator validator;
+    private final SerializedEntityCache cache;
+    private final Optional<MediaType> mediaType;
+    private final ConcurrentMap<Class<?>, Boolean> readableTypes = Maps.newConcurrentMap();
+    private final ConcurrentMap<Class<?>, Boolean> writeableTypes = Maps.newConcurrentMap();
+    private final Cache<Endpoint, PreparedReader> readers = CacheBuilder.newBuilder()
+                                                                        .maximumSize(MAX_PREPARED_ENDPOINTS)
+                                                                        .build();
+    private final Cache<Endpoint, PreparedWriter> writers = CacheBuilder.newBuilder()
+                                                                        .maximumSize(MAX_PREPARED_ENDPOINTS)
+                                                                        .build();
 
     public JacksonMessageBodyProvider(ObjectMapper mapper, Validator validator) {
+        this(mapper, validator, DEFAULT_MAX_CACHED_ENTITIES);
+    }
+
+    /**
+     * Creates a new {@link JacksonMessageBodyProvider}.
+     *
+     * @param mapper                the object mapper
+     * @param validator             the validator for request entities
+     * @param maxCachedEntities     the maximum number of identical entities and of entity keys
+     *                              whose serialized forms are cached
+     */
+    public JacksonMessageBodyProvider(ObjectMapper mapper, Validator validator, long maxCachedEntities) {
+        this(mapper, validator, maxCachedEntities, Optional.<MediaType>absent());
+    }
+
+    /**
+     * Creates a new {@link JacksonMessageBodyProvider} for a Jackson data format other than JSON.
+     *
+     * @param mapper       an object mapper built with the format's {@link JsonFactory}
+     * @param validator    the validator for request entities
+     * @param mediaType    the format's media type
+     */
+    public JacksonMessageBodyProvider(ObjectMapper mapper, Validator validator, MediaType mediaType) {
+        this(mapper, validator, DEFAULT_MAX_CACHED_ENTITIES, Optional.of(mediaType));
+    }
+
+    private JacksonMessageBodyProvider(ObjectMapper mapper,
+                                       Validator validator,
+                                       long maxCachedEntities,
+                                       Optional<MediaType> mediaType) {
         this.validator = validator;
         this.mapper = mapper;
+        this.cache = new SerializedEntityCache(maxCachedEntities);
+        this.mediaType = mediaType;
         setMapper(mapper);
     }
 
+    @Override
+    protected boolean isJsonType(MediaType mediaType) {
+        if (this.mediaType.isPresent()) {
+            // unlike isCompatible(), wildcards don't match, so JSON stays the default format
+            return (mediaType != null) &&
+                    this.mediaType.get().getType().equalsIgnoreCase(mediaType.getType()) &&
+                    this.mediaType.get().getSubtype().equalsIgnoreCase(mediaType.getSubtype());
+        }
+        return super.isJsonType(mediaType);
+    }
+
     @Override
     public boolean isReadable(Class<?> type,
                               Type genericType,
                               Annotation[] annotations,
                               MediaType mediaType) {
-        return isProvidable(type) && super.isReadable(type, genericType, annotations, mediaType);
+        if (!isJsonType(mediaType)) {
+            return false;
+        }
+        Boolean readable = readableTypes.get(type);
+        if (readable == null) {
+            readable = isProvidable(type) &&
+                    super.isReadable(type, genericType, annotations, this.mediaType.orNull());
+            readableTypes.putIfAbsent(type, readable);
+        }
+        return readable;
     }
 
     @Override
@@ -58,17 +241,13 @@ public class JacksonMessageBodyProvider extends JacksonJaxbJsonProvider {
                            MediaType mediaType,
                            MultivaluedMap<String, String> httpHeaders,
                            InputStream entityStream) throws IOException {
-        return validate(annotations, super.readFrom(type,
-                                                    genericType,
-                                                    annotations,
-                                                    mediaType,
-                                                    httpHeaders,
-                                                    entityStream));
+        final PreparedReader prepared = reader(type, genericType, annotations, mediaType);
+        final JsonParser parser = prepared.reader.getFactory().createJsonParser(entityStream);
+        final Object value = (parser.nextToken() == null) ? null : prepared.reader.readValue(parser);
+        return validate(prepared.validationGroups, value);
     }
 
-    private Object validate(Annotation[] annotations, Object value) {
-        final Class<?>[] classes = findValidationGroups(annotations);
-
+    private Object validate(Class<?>[] classes, Object value) {
         if (classes != null) {
             final ImmutableList<String> errors = validator.validate(value, classes);
             if (!errors.isEmpty()) {
@@ -96,7 +275,130 @@ public class JacksonMessageBodyProvider extends JacksonJaxbJsonProvider {
                                Type genericType,
                                Annotation[] annotations,
                                MediaType mediaType) {
-        return isProvidable(type) && super.isWriteable(type, genericType, annotations, mediaType);
+        if (!isJsonType(mediaType)) {
+            return false;
+        }
+        Boolean writeable = writeableTypes.get(type);
+        if (writeable == null) {
+            writeable = isProvidable(type) &&
+                    super.isWriteable(type, genericType, annotations, this.mediaType.orNull());
+            writeableTypes.putIfAbsent(type, writeable);
+        }
+        return writeable;
+    }
+
+    @Override
+    public void writeTo(Object value,
+                        Class<?> type,
+                        Type genericType,
+                        Annotation[] annotations,
+                        MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        if (!SerializedEntityCache.isCacheable(value, annotations)) {
+            write(value, type, genericType, annotations, mediaType, httpHeaders, entityStream);
+            return;
+        }
+
+        Optional<SerializedEntityCache.SerializedEntity> serialized = cache.get(value,
+                                                                                genericType,
+                                                                                annotations,
+                                                                                mediaType);
+        if (!serialized.isPresent()) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            write(value, type, genericType, annotations, mediaType, httpHeaders, output);
+            serialized = Optional.of(cache.put(value,
+                                               genericType,
+                                               annotations,
+                                               mediaType,
+                                               output.toByteArray()));
+        }
+
+        if (!httpHeaders.containsKey(HttpHeaders.ETAG)) {
+            httpHeaders.putSingle(HttpHeaders.ETAG, serialized.get().getEntityTag());
+        }
+        entityStream.write(serialized.get().getBytes());
+    }
+
+    /**
+     * Returns the tag of the entity's serialized form, if it has been cached.
+     */
+    Optional<EntityTag> getCachedEntityTag(Object value,
+                                           Type genericType,
+                                           Annotation[] annotations,
+                                           MediaType mediaType) {
+        if (!SerializedEntityCache.isCacheable(value, annotations)) {
+            return Optional.absent();
+        }
+        final Optional<SerializedEntityCache.SerializedEntity> serialized = cache.get(value,
+                                                                                      genericType,
+                                                                                      annotations,
+                                                                                      mediaType);
+        if (serialized.isPresent()) {
+            return Optional.of(serialized.get().getEntityTag());
+        }
+        return Optional.absent();
+    }
+
+    private void write(Object value,
+                       Class<?> type,
+                       Type genericType,
+                       Annotation[] annotations,
+                       MediaType mediaType,
+                       MultivaluedMap<String, Object> httpHeaders,
+                       OutputStream entityStream) throws IOException {
+        final PreparedWriter prepared = writer(type, genericType, annotations, mediaType);
+        final JsonGenerator generator = prepared.writer.getJsonFactory()
+                                                       .createJsonGenerator(entityStream,
+                                                                            findEncoding(mediaType,
+                                                                                         httpHeaders));
+        if (prepared.indenting) {
+            generator.useDefaultPrettyPrinter();
+        }
+        prepared.writer.writeValue(generator, prepared.config.applyJSONP(value));
+    }
+
+    private PreparedReader reader(Class<?> type,
+                                  Type genericType,
+                                  Annotation[] annotations,
+                                  MediaType mediaType) {
+        final Endpoint endpoint = new Endpoint(type, genericType, annotations, mediaType);
+        final PreparedReader reader = readers.getIfPresent(endpoint);
+        if (reader != null) {
+            return reader;
+        }
+        final EndpointConfig config = EndpointConfig.forReading(locateMapper(type, mediaType),
+                                                                annotations);
+        final PreparedReader prepared = new PreparedReader(config.getReader()
+                                                                 .withType((genericType == null) ? type : genericType),
+                                                           findValidationGroups(annotations));
+        final PreparedReader existing = readers.asMap().putIfAbsent(endpoint, prepared);
+        return (existing == null) ? prepared : existing;
+    }
+
+    private PreparedWriter writer(Class<?> type,
+                                  Type genericType,
+                                  Annotation[] annotations,
+                                  MediaType mediaType) {
+        final Endpoint endpoint = new Endpoint(type, genericType, annotations, mediaType);
+        final PreparedWriter writer = writers.getIfPresent(endpoint);
+        if (writer != null) {
+            return writer;
+        }
+        final EndpointConfig config = EndpointConfig.forWriting(locateMapper(type, mediaType),
+                                                                annotations,
+                                                                _jsonpFunctionName);
+        ObjectWriter objectWriter = config.getWriter();
+        // as in JacksonJsonProvider, only generic types are used as the root type
+        if ((genericType != null) && (genericType.getClass() != Class.class)) {
+            final JavaType rootType = objectWriter.getTypeFactory().constructType(genericType);
+            if (rootType.getRawClass() != Object.class) {
+                objectWriter = objectWriter.withType(rootType);
+            }
+        }
+        final PreparedWriter prepared = new PreparedWriter(config, objectWriter);
+        final PreparedWriter existing = writers.asMap().putIfAbsent(endpoint, prepared);
+        return (existing == null) ? prepared : existing;
     }
 
     private boolean isProvidable(Class<?> type) {
@@ -0,0 +1,138 @@
+package com.yammer.dropwizard.jersey;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.yammer.dropwizard.jersey.caching.CacheSerialized;
+import com.yammer.dropwizard.jersey.caching.CacheableEntity;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded cache of the serialized forms of {@link CacheableEntity cacheable} entities and of
+ * entities returned by {@link CacheSerialized}-annotated methods.
+ * <p/>
+ * Each entity may be serialized differently depending on its declared type, the annotations of
+ * the method which returned it, and the media type, so each of those combinations is cached
+ * separately. {@link CacheableEntity Cacheable} entities are cached by their class and key, since
+ * entities of different classes may have equal keys. Serialized forms are held softly.
+ */
+class SerializedEntityCache {
+    static class SerializedEntity {
+        private final byte[] bytes;
+        private final EntityTag entityTag;
+
+        private SerializedEntity(byte[] bytes) {
+            this.bytes = bytes;
+            this.entityTag = new EntityTag(Hashing.murmur3_128().hashBytes(bytes).toString());
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public EntityTag getEntityTag() {
+            return entityTag;
+        }
+    }
+
+    private static class Variant {
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final MediaType mediaType;
+
+        private Variant(Type genericType, Annotation[] annotations, MediaType mediaType) {
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) { return true; }
+            if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+            final Variant that = (Variant) obj;
+            return genericType.equals(that.genericType) &&
+                    mediaType.equals(that.mediaType) &&
+                    Arrays.equals(annotations, that.annotations);
+        }
+
+        @Override
+        public int hashCode() {
+            // annotations hash reflectively, so leave them to equals()
+            return (31 * genericType.hashCode()) + mediaType.hashCode();
+        }
+    }
+
+    private final Cache<Object, ConcurrentMap<Variant, SerializedEntity>> instances;
+    private final Cache<Object, ConcurrentMap<Variant, SerializedEntity>> keys;
+
+    SerializedEntityCache(long maximumSize) {
+        this.instances = CacheBuilder.newBuilder()
+                                     .weakKeys()
+                                     .softValues()
+                                     .maximumSize(maximumSize)
+                                     .build();
+        this.keys = CacheBuilder.newBuilder()
+                                .softValues()
+                                .maximumSize(maximumSize)
+                                .build();
+    }
+
+    static boolean isCacheable(Object entity, Annotation[] annotations) {
+        if (entity instanceof CacheableEntity) {
+            return ((CacheableEntity) entity).getCacheKey() != null;
+        }
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == CacheSerialized.class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Optional<SerializedEntity> get(Object entity,
+                                   Type genericType,
+                                   Annotation[] annotations,
+                                   MediaType mediaType) {
+        return Optional.fromNullable(variants(entity).get(new Variant(genericType,
+                                                                      annotations,
+                                                                      mediaType)));
+    }
+
+    SerializedEntity put(Object entity,
+                         Type genericType,
+                         Annotation[] annotations,
+                         MediaType mediaType,
+                         byte[] bytes) {
+        final SerializedEntity serialized = new SerializedEntity(bytes);
+        variants(entity).put(new Variant(genericType, annotations, mediaType), serialized);
+        return serialized;
+    }
+
+    private ConcurrentMap<Variant, SerializedEntity> variants(Object entity) {
+        if (entity instanceof CacheableEntity) {
+            return variants(keys, ImmutableList.of(entity.getClass(), ((CacheableEntity) entity).getCacheKey()));
+        }
+        return variants(instances, entity);
+    }
+
+    private static ConcurrentMap<Variant, SerializedEntity> variants(Cache<Object, ConcurrentMap<Variant, SerializedEntity>> cache,
+                                                                     Object key) {
+        final ConcurrentMap<Variant, SerializedEntity> variants = cache.getIfPresent(key);
+        if (variants != null) {
+            return variants;
+        }
+        final ConcurrentMap<Variant, SerializedEntity> created = Maps.newConcurrentMap();
+        final ConcurrentMap<Variant, SerializedEntity> existing = cache.asMap().putIfAbsent(key, created);
+        return (existing == null) ? created : existing;
+    }
+}
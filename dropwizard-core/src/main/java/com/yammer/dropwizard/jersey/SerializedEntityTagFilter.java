@@ -0,0 +1,62 @@
+package com.yammer.dropwizard.jersey;
+
+import com.google.common.base.Optional;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * Answers conditional {@code GET} and {@code HEAD} requests for entities whose serialized forms
+ * have been cached by a {@link JacksonMessageBodyProvider}, without writing the entity if the
+ * request's preconditions aren't met.
+ * <p/>
+ * This runs before the entity is written, so only entities which have been served before are
+ * answered this way; the rest get a {@code 200 OK} and their {@code ETag} as usual.
+ */
+class SerializedEntityTagFilter implements ContainerResponseFilter {
+    @Override
+    public ContainerResponse filter(ContainerRequest request, ContainerResponse response) {
+        final Object entity = response.getEntity();
+        final MediaType mediaType = response.getMediaType();
+        if ((entity == null) || (mediaType == null) ||
+                (response.getStatus() != Response.Status.OK.getStatusCode()) ||
+                !isSafe(request.getMethod()) ||
+                !SerializedEntityCache.isCacheable(entity, response.getAnnotations())) {
+            return response;
+        }
+
+        final MessageBodyWriter<?> writer = response.getMessageBodyWorkers()
+                                                    .getMessageBodyWriter(entity.getClass(),
+                                                                          response.getEntityType(),
+                                                                          response.getAnnotations(),
+                                                                          mediaType);
+        if (!(writer instanceof JacksonMessageBodyProvider)) {
+            return response;
+        }
+
+        final Optional<EntityTag> entityTag = ((JacksonMessageBodyProvider) writer).getCachedEntityTag(entity,
+                                                                                                      response.getEntityType(),
+                                                                                                      response.getAnnotations(),
+                                                                                                      mediaType);
+        if (entityTag.isPresent()) {
+            final Response.ResponseBuilder precondition = request.evaluatePreconditions(entityTag.get());
+            if (precondition != null) {
+                response.setStatus(precondition.build().getStatus());
+                response.setEntity(null);
+                response.getHttpHeaders().putSingle(HttpHeaders.ETAG, entityTag.get());
+            }
+        }
+        return response;
+    }
+
+    private static boolean isSafe(String method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method);
+    }
+}
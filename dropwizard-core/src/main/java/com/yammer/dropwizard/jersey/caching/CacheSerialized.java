@@ -0,0 +1,19 @@
+package com.yammer.dropwizard.jersey.caching;
+
+import java.lang.annotation.*;
+
+/**
+ * An annotation which caches the JSON serialization of the entities returned by the annotated
+ * method, so that returning the same instance again writes the cached bytes instead of
+ * re-serializing it. Responses written from the cache are given a strong {@code ETag}.
+ * <p/>
+ * Entities are cached by identity and held weakly, so the annotated method must only return
+ * instances which are never modified once returned.
+ *
+ * @see CacheableEntity
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheSerialized {
+}
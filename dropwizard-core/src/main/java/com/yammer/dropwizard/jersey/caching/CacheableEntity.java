@@ -0,0 +1,20 @@
+package com.yammer.dropwizard.jersey.caching;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An entity whose JSON serialization is cached, whichever resource method returns it, by a key it
+ * provides. Responses written from the cache are given a strong {@code ETag}.
+ *
+ * @see CacheSerialized
+ */
+public interface CacheableEntity {
+    /**
+     * Returns the key of the entity's serialization, such as its ID and version. Two entities with
+     * equal keys must serialize identically.
+     *
+     * @return the entity's cache key
+     */
+    @JsonIgnore
+    Object getCacheKey();
+}
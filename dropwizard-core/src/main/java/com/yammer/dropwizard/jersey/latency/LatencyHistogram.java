@@ -0,0 +1,289 @@
+package com.yammer.dropwizard.jersey.latency;
+
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A histogram of latencies with a fixed relative precision, in the style of HdrHistogram.
+ * <p/>
+ * Unlike the reservoir-sampled histograms of Metrics, every recorded value is counted, so high
+ * percentiles such as the 99.9th are accurate however rarely they occur. Latencies are recorded in
+ * microseconds into log-linear buckets: exact below 128µs, and within 1% (128 buckets per power of
+ * two) above that, up to the highest trackable latency. Longer latencies are recorded as that.
+ * <p/>
+ * Latencies are counted in fixed intervals, and snapshots cover the last complete interval, so that
+ * percentiles follow current latencies rather than being averaged over the whole uptime.
+ * <p/>
+ * Recording a latency is a few atomic increments into a preallocated array; it never locks or
+ * allocates. Each histogram keeps a ring of three intervals (the current one, the last complete one,
+ * and a stale one which is cleared and reused for the next interval), so it holds three sets of
+ * buckets: about 60KB with the default highest trackable latency of a minute.
+ */
+public class LatencyHistogram {
+    /**
+     * An immutable copy of a {@link LatencyHistogram}'s counts for one interval.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the longest latency recorded.
+         *
+         * @param unit    the unit of the result
+         * @return the longest latency, in {@code unit}
+         */
+        public double getMax(TimeUnit unit) {
+            return convert(max, unit);
+        }
+
+        /**
+         * Returns the mean of the recorded latencies.
+         *
+         * @param unit    the unit of the result
+         * @return the mean latency, in {@code unit}, or zero if none have been recorded
+         */
+        public double getMean(TimeUnit unit) {
+            return (count == 0) ? 0 : convert(sum, unit) / count;
+        }
+
+        /**
+         * Returns the latency at the given quantile: the highest latency which is equivalent, at
+         * the histogram's precision, to the one below which {@code quantile} of all latencies fall.
+         *
+         * @param quantile    a quantile, in {@code [0..1]}
+         * @param unit        the unit of the result
+         * @return the latency at {@code quantile}, in {@code unit}, or zero if none have been
+         *         recorded
+         */
+        public double getValue(double quantile, TimeUnit unit) {
+            checkArgument((quantile >= 0) && (quantile <= 1), "%s is not in [0..1]", quantile);
+            final long total = sumCounts();
+            if (total == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return convert(Math.min(highestEquivalentValue(i), max), unit);
+                }
+            }
+            return convert(max, unit);
+        }
+
+        private long sumCounts() {
+            // the counts are copied one at a time, so may not quite agree with the total count
+            long total = 0;
+            for (long bucket : counts) {
+                total += bucket;
+            }
+            return total;
+        }
+
+        private static double convert(long micros, TimeUnit unit) {
+            return micros / (double) unit.toMicros(1);
+        }
+    }
+
+    private static class Interval {
+        // the number of the interval this holds the counts of, or a negative number if none
+        private final AtomicLong number;
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private Interval(long number, int buckets) {
+            this.number = new AtomicLong(number);
+            this.counts = new AtomicLongArray(buckets);
+        }
+
+        private boolean claim(long next) {
+            final long claimed = number.get();
+            return (claimed < next) && number.compareAndSet(claimed, next);
+        }
+
+        private void clear() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+
+        private void update(long micros) {
+            counts.incrementAndGet(index(micros));
+            count.incrementAndGet();
+            sum.addAndGet(micros);
+            long current = max.get();
+            while ((micros > current) && !max.compareAndSet(current, micros)) {
+                current = max.get();
+            }
+        }
+
+        private Snapshot snapshot() {
+            final long[] copy = new long[counts.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = counts.get(i);
+            }
+            return new Snapshot(copy, count.get(), sum.get(), max.get());
+        }
+    }
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = (1L << 31) - 1;
+    private static final int RING_SIZE = 3;
+
+    private final Clock clock;
+    private final long interval;
+    private final long highestTrackableValue;
+    private final int buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final long origin;
+    private final AtomicLong current;
+    private final Interval[] intervals;
+
+    /**
+     * Creates a new {@link LatencyHistogram} whose snapshots cover the last complete minute, and
+     * which records latencies of up to a minute.
+     */
+    public LatencyHistogram() {
+        this(Clock.defaultClock(), Duration.minutes(1), Duration.minutes(1));
+    }
+
+    /**
+     * Creates a new {@link LatencyHistogram}.
+     *
+     * @param clock                      the clock which divides time into intervals
+     * @param interval                   the length of each interval
+     * @param highestTrackableLatency    the longest latency which can be recorded; longer ones are
+     *                                   recorded as this, and it determines how many buckets are
+     *                                   allocated (up to about 35 minutes)
+     */
+    public LatencyHistogram(Clock clock, Duration interval, Duration highestTrackableLatency) {
+        checkArgument(interval.toNanoseconds() > 0, "interval must be positive");
+        checkArgument((highestTrackableLatency.toMicroseconds() > 0) &&
+                              (highestTrackableLatency.toMicroseconds() <= MAX_VALUE),
+                      "highest trackable latency must be between 1µs and %sµs", MAX_VALUE);
+        this.clock = clock;
+        this.interval = interval.toNanoseconds();
+        this.highestTrackableValue = highestTrackableLatency.toMicroseconds();
+        this.buckets = index(highestTrackableValue) + 1;
+        // the first interval is number 1, so the last complete one is never negative
+        this.origin = clock.tick() - this.interval;
+        this.current = new AtomicLong(1);
+        this.intervals = new Interval[RING_SIZE];
+        for (int i = 0; i < RING_SIZE; i++) {
+            intervals[i] = new Interval(-1, buckets);
+        }
+        intervals[slot(1)].claim(1);
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param duration    the length of the latency
+     * @param unit        the unit of {@code duration}
+     */
+    public void update(long duration, TimeUnit unit) {
+        final long micros = Math.min(Math.max(0, unit.toMicros(duration)), highestTrackableValue);
+        count.incrementAndGet();
+        rotate().update(micros);
+    }
+
+    /**
+     * Returns the number of latencies recorded since the histogram was created.
+     *
+     * @return the number of latencies recorded
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns a copy of the counts of the last complete interval. Every reader sees the same
+     * interval, which is empty if no latencies were recorded during it.
+     *
+     * @return a snapshot of the last complete interval
+     */
+    public Snapshot getSnapshot() {
+        rotate();
+        final long number = current.get() - 1;
+        final Interval previous = intervals[slot(number)];
+        if (previous.number.get() != number) {
+            // nothing was recorded during the last complete interval, so it was never started
+            return new Snapshot(new long[buckets], 0, 0, 0);
+        }
+        return previous.snapshot();
+    }
+
+    private Interval rotate() {
+        final long number = (clock.tick() - origin) / interval;
+        final long started = current.get();
+        if (number <= started) {
+            return intervals[slot(started)];
+        }
+        final Interval next = intervals[slot(number)];
+        if (next.claim(number)) {
+            // the claimed interval is at least two intervals old, so no one is recording into it
+            next.clear();
+            long latest = current.get();
+            while ((latest < number) && !current.compareAndSet(latest, number)) {
+                latest = current.get();
+            }
+        }
+        // if another thread is starting the interval, a latency recorded meanwhile lands in the
+        // interval just completed, which is close enough
+        return intervals[slot(current.get())];
+    }
+
+    private static int slot(long number) {
+        return (int) (number % RING_SIZE);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // values in [2^m, 2^(m+1)) fall in group (m - 6), split into 128 equal sub-buckets
+        final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        final int group = magnitude - SUB_BUCKET_BITS + 1;
+        final int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return (group << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int group = index >>> SUB_BUCKET_BITS;
+        final int subBucket = index & (SUB_BUCKET_COUNT - 1);
+        final int shift = group - 1;
+        final long lowest = ((long) (SUB_BUCKET_COUNT + subBucket)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.yammer.dropwizard.jersey.latency;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.sun.jersey.api.container.MappableContainerException;
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the latency of every resource method in {@link LatencyHistogram}s, one for each class of
+ * response status ({@code 1xx} to {@code 5xx}).
+ * <p/>
+ * Each histogram is reported as a gauge named {@code <method>-latency} on the resource class,
+ * scoped by status class, whose value holds the count, mean, maximum, and 50th to 99.9th
+ * percentile latencies in milliseconds of the last complete minute. Latencies over a minute are
+ * recorded as a minute. Histograms are created the first time a method responds
+ * with a status in their class. Exceptions other than {@link WebApplicationException} are counted
+ * as {@code 5xx}, since the status they'll be mapped to isn't known when the method returns.
+ */
+public class LatencyHistogramResourceMethodDispatchAdapter implements ResourceMethodDispatchAdapter {
+    private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+    private static final Duration INTERVAL = Duration.minutes(1);
+    private static final Duration HIGHEST_TRACKABLE_LATENCY = Duration.minutes(1);
+
+    private class LatencyHistogramResourceMethodDispatchProvider implements ResourceMethodDispatchProvider {
+        private final ResourceMethodDispatchProvider provider;
+
+        private LatencyHistogramResourceMethodDispatchProvider(ResourceMethodDispatchProvider provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public RequestDispatcher create(AbstractResourceMethod abstractResourceMethod) {
+            final RequestDispatcher dispatcher = provider.create(abstractResourceMethod);
+            if (dispatcher == null) {
+                return null;
+            }
+            final MetricName name = new MetricName(abstractResourceMethod.getDeclaringResource().getResourceClass(),
+                                                   abstractResourceMethod.getMethod().getName() + "-latency");
+            return new LatencyHistogramRequestDispatcher(dispatcher, endpoint(name));
+        }
+    }
+
+    private class LatencyHistogramRequestDispatcher implements RequestDispatcher {
+        private final RequestDispatcher dispatcher;
+        private final Endpoint endpoint;
+
+        private LatencyHistogramRequestDispatcher(RequestDispatcher dispatcher, Endpoint endpoint) {
+            this.dispatcher = dispatcher;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void dispatch(Object resource, HttpContext context) {
+            final long start = clock.tick();
+            int status = 500;
+            try {
+                dispatcher.dispatch(resource, context);
+                status = context.getResponse().getStatus();
+            } catch (RuntimeException e) {
+                status = status(e);
+                throw e;
+            } finally {
+                endpoint.update(status, clock.tick() - start);
+            }
+        }
+    }
+
+    private class Endpoint {
+        private final MetricName name;
+        private final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<LatencyHistogram>(STATUS_CLASSES.length);
+
+        private Endpoint(MetricName name) {
+            this.name = name;
+        }
+
+        private void update(int status, long nanos) {
+            final int statusClass = Math.min(Math.max(status / 100, 1), STATUS_CLASSES.length) - 1;
+            LatencyHistogram histogram = histograms.get(statusClass);
+            if (histogram == null) {
+                histogram = register(statusClass);
+            }
+            histogram.update(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        private LatencyHistogram register(int statusClass) {
+            final LatencyHistogram histogram = new LatencyHistogram(clock, INTERVAL, HIGHEST_TRACKABLE_LATENCY);
+            if (!histograms.compareAndSet(statusClass, null, histogram)) {
+                return histograms.get(statusClass);
+            }
+            registry.newGauge(new MetricName(name.getGroup(),
+                                             name.getType(),
+                                             name.getName(),
+                                             STATUS_CLASSES[statusClass]),
+                              new Gauge<Map<String, Object>>() {
+                                  @Override
+                                  public Map<String, Object> value() {
+                                      return summarize(histogram.getSnapshot());
+                                  }
+                              });
+            return histogram;
+        }
+    }
+
+    private final MetricsRegistry registry;
+    private final Clock clock;
+    private final ConcurrentMap<MetricName, Endpoint> endpoints = Maps.newConcurrentMap();
+
+    /**
+     * Creates a new {@link LatencyHistogramResourceMethodDispatchAdapter} which reports to the
+     * default registry.
+     */
+    public LatencyHistogramResourceMethodDispatchAdapter() {
+        this(Metrics.defaultRegistry(), Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link LatencyHistogramResourceMethodDispatchAdapter}.
+     *
+     * @param registry    the registry for the histograms' gauges
+     * @param clock       the clock used to time resource methods
+     */
+    public LatencyHistogramResourceMethodDispatchAdapter(MetricsRegistry registry, Clock clock) {
+        this.registry = registry;
+        this.clock = clock;
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(ResourceMethodDispatchProvider provider) {
+        return new LatencyHistogramResourceMethodDispatchProvider(provider);
+    }
+
+    private Endpoint endpoint(MetricName name) {
+        // overloaded methods share their histograms, as they would their metric names
+        final Endpoint endpoint = new Endpoint(name);
+        final Endpoint existing = endpoints.putIfAbsent(name, endpoint);
+        return (existing == null) ? endpoint : existing;
+    }
+
+    private static int status(RuntimeException e) {
+        // exceptions thrown by resource methods arrive wrapped
+        final Throwable cause = (e instanceof MappableContainerException) ? e.getCause() : e;
+        if (cause instanceof WebApplicationException) {
+            return ((WebApplicationException) cause).getResponse().getStatus();
+        }
+        return 500;
+    }
+
+    private static Map<String, Object> summarize(LatencyHistogram.Snapshot snapshot) {
+        final TimeUnit unit = TimeUnit.MILLISECONDS;
+        return ImmutableMap.<String, Object>builder()
+                           .put("count", snapshot.getCount())
+                           .put("mean", snapshot.getMean(unit))
+                           .put("max", snapshot.getMax(unit))
+                           .put("p50", snapshot.getValue(0.5, unit))
+                           .put("p75", snapshot.getValue(0.75, unit))
+                           .put("p95", snapshot.getValue(0.95, unit))
+                           .put("p98", snapshot.getValue(0.98, unit))
+                           .put("p99", snapshot.getValue(0.99, unit))
+                           .put("p999", snapshot.getValue(0.999, unit))
+                           .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.yammer.dropwizard.jersey.scheduling;
+
+import java.lang.annotation.*;
+
+/**
+ * An annotation which serves requests to the annotated resource method, or to every method of the
+ * annotated resource class, within the named request class from {@code http.requestClasses}.
+ * <p/>
+ * Requests which already matched a request class by path or header are served within that class
+ * instead.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InRequestClass {
+    /**
+     * The name of the request class.
+     */
+    String value();
+}
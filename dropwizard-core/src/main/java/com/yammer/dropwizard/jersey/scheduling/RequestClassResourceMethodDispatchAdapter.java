@@ -0,0 +1,121 @@
+package com.yammer.dropwizard.jersey.scheduling;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.CloseableService;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.dropwizard.jetty.RequestClass;
+import com.yammer.dropwizard.jetty.RequestClassHandler;
+import com.yammer.dropwizard.jetty.ServiceUnavailable;
+import com.yammer.dropwizard.util.Duration;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Serves requests to resource methods annotated with {@link InRequestClass} within the named
+ * {@link RequestClass}, responding with a {@code 503 Service Unavailable} if the class rejects them.
+ * <p/>
+ * A request keeps its turn until Jersey has finished with it, including writing its response
+ * entity, since that's often where the expensive part of the request (e.g. streaming a large
+ * result) happens.
+ */
+public class RequestClassResourceMethodDispatchAdapter implements ResourceMethodDispatchAdapter {
+    private class RequestClassResourceMethodDispatchProvider implements ResourceMethodDispatchProvider {
+        private final ResourceMethodDispatchProvider provider;
+
+        private RequestClassResourceMethodDispatchProvider(ResourceMethodDispatchProvider provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public RequestDispatcher create(AbstractResourceMethod abstractResourceMethod) {
+            final RequestDispatcher dispatcher = provider.create(abstractResourceMethod);
+            InRequestClass annotation = abstractResourceMethod.getAnnotation(InRequestClass.class);
+            if (annotation == null) {
+                annotation = abstractResourceMethod.getDeclaringResource()
+                                                   .getAnnotation(InRequestClass.class);
+            }
+            if (annotation != null) {
+                final RequestClass requestClass = classes.get(annotation.value());
+                if (requestClass == null) {
+                    throw new IllegalArgumentException("No request class named " + annotation.value() +
+                                                               " for " + abstractResourceMethod.getMethod());
+                }
+                return new RequestClassRequestDispatcher(dispatcher, requestClass);
+            }
+            return dispatcher;
+        }
+    }
+
+    private class RequestClassRequestDispatcher implements RequestDispatcher {
+        private final RequestDispatcher dispatcher;
+        private final RequestClass requestClass;
+
+        private RequestClassRequestDispatcher(RequestDispatcher dispatcher, RequestClass requestClass) {
+            this.dispatcher = dispatcher;
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public void dispatch(Object resource, HttpContext context) {
+            if (RequestClassHandler.isCurrentRequestClassified()) {
+                dispatcher.dispatch(resource, context);
+                return;
+            }
+
+            if (!acquire()) {
+                throw new WebApplicationException(unavailable.toResponse());
+            }
+            // closed once the response has been written, whether or not the dispatch succeeds
+            closeables.add(new Closeable() {
+                @Override
+                public void close() {
+                    requestClass.release();
+                }
+            });
+            dispatcher.dispatch(resource, context);
+        }
+
+        private boolean acquire() {
+            try {
+                return requestClass.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private final ImmutableMap<String, RequestClass> classes;
+    private final ServiceUnavailable unavailable;
+
+    @Context
+    private CloseableService closeables;
+
+    /**
+     * Creates a new {@link RequestClassResourceMethodDispatchAdapter}.
+     *
+     * @param classes       the request classes
+     * @param retryAfter    how long clients should wait before retrying rejected requests
+     */
+    public RequestClassResourceMethodDispatchAdapter(Iterable<RequestClass> classes, Duration retryAfter) {
+        final Map<String, RequestClass> byName = Maps.newHashMap();
+        for (RequestClass requestClass : classes) {
+            byName.put(requestClass.getName(), requestClass);
+        }
+        this.classes = ImmutableMap.copyOf(byName);
+        this.unavailable = new ServiceUnavailable(retryAfter);
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(ResourceMethodDispatchProvider provider) {
+        return new RequestClassResourceMethodDispatchProvider(provider);
+    }
+}
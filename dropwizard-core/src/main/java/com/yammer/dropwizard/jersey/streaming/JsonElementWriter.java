@@ -0,0 +1,62 @@
+package com.yammer.dropwizard.jersey.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Writes the elements of a streamed JSON array to a {@link JsonGenerator} the way Jackson writes
+ * the elements of a collection: each with the serializer for its runtime class, and with the type
+ * information of the array's declared element type, if it's polymorphic.
+ * <p/>
+ * (An {@link com.fasterxml.jackson.databind.ObjectWriter} typed with the declared element type
+ * would keep the type information, but would also drop any properties of subclasses.)
+ */
+public class JsonElementWriter implements StreamingArray.Sink<Object> {
+    private final JsonGenerator json;
+    private final DefaultSerializerProvider provider;
+    private final TypeSerializer typeSerializer;
+
+    /**
+     * Creates a new {@link JsonElementWriter}.
+     *
+     * @param mapper         the {@link ObjectMapper} used to serialize each element
+     * @param elementType    the declared type of the elements
+     * @param json           the generator to write the elements to
+     * @throws JsonMappingException if the element type's type information can't be resolved
+     */
+    public JsonElementWriter(ObjectMapper mapper,
+                             JavaType elementType,
+                             JsonGenerator json) throws JsonMappingException {
+        final SerializationConfig config = mapper.getSerializationConfig();
+        this.json = json;
+        this.provider = ((DefaultSerializerProvider) mapper.getSerializerProvider())
+                .createInstance(config, mapper.getSerializerFactory());
+        this.typeSerializer = mapper.getSerializerFactory().createTypeSerializer(config, elementType);
+        if (config.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+            json.useDefaultPrettyPrinter();
+        }
+    }
+
+    @Override
+    public void write(Object element) throws IOException {
+        if (element == null) {
+            provider.defaultSerializeNull(json);
+        } else if (typeSerializer == null) {
+            provider.findTypedValueSerializer(element.getClass(), true, null)
+                    .serialize(element, json, provider);
+        } else {
+            final JsonSerializer<Object> serializer = provider.findValueSerializer(element.getClass(),
+                                                                                   null);
+            serializer.serializeWithType(element, json, provider, typeSerializer);
+        }
+    }
+}
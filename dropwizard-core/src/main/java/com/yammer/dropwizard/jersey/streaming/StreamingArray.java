@@ -0,0 +1,82 @@
+package com.yammer.dropwizard.jersey.streaming;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A response entity which is written as a JSON array, one element at a time, as its elements are
+ * produced.
+ * <p/>
+ * Unlike returning a {@code List<T>}, the elements are never all held in memory: each is
+ * serialized as soon as it's produced, and since writing blocks while the client is slow to read,
+ * production only runs as far ahead of the client as the server's buffers allow.
+ * <pre>{@code
+ * @GET
+ * public StreamingArray<Person> exportPeople() {
+ *     return new StreamingArray<Person>() {
+ *         public void produce(Sink<? super Person> sink) throws Exception {
+ *             for (Person person : directory.people()) {
+ *                 sink.write(person);
+ *             }
+ *         }
+ *     };
+ * }
+ * }</pre>
+ *
+ * @param <T> the type of the elements
+ * @see StreamingArrayProvider
+ */
+public abstract class StreamingArray<T> {
+    /**
+     * The destination of a {@link StreamingArray}'s elements.
+     *
+     * @param <T> the type of the elements
+     */
+    public interface Sink<T> {
+        /**
+         * Writes the given element to the response.
+         *
+         * @param element    an element of the array
+         * @throws IOException if the element could not be written
+         */
+        void write(T element) throws IOException;
+    }
+
+    /**
+     * Returns a {@link StreamingArray} of the given iterator's elements. If the iterator is
+     * {@link Closeable}, it will be closed once the array has been written.
+     *
+     * @param elements    an iterator over the elements
+     * @param <T>         the type of the elements
+     * @return a {@link StreamingArray} of {@code elements}
+     */
+    public static <T> StreamingArray<T> of(final Iterator<? extends T> elements) {
+        checkNotNull(elements);
+        return new StreamingArray<T>() {
+            @Override
+            public void produce(Sink<? super T> sink) throws Exception {
+                try {
+                    while (elements.hasNext()) {
+                        sink.write(elements.next());
+                    }
+                } finally {
+                    if (elements instanceof Closeable) {
+                        ((Closeable) elements).close();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Produces the elements of the array, writing each to the given sink in order. This is only
+     * called once the response is being written, after the resource method has returned.
+     *
+     * @param sink    the destination of the elements
+     * @throws Exception if the elements could not be produced or written
+     */
+    public abstract void produce(Sink<? super T> sink) throws Exception;
+}
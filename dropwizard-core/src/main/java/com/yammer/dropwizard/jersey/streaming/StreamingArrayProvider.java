@@ -0,0 +1,135 @@
+package com.yammer.dropwizard.jersey.streaming;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.google.common.io.CountingOutputStream;
+import com.yammer.dropwizard.util.Size;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A Jersey provider which writes {@link StreamingArray} entities as JSON arrays.
+ * <p/>
+ * Each response's elements are written through a single {@link JsonGenerator} by a
+ * {@link JsonElementWriter}, which keeps the polymorphic type information of the array's declared
+ * element type. The response is flushed whenever
+ * the given number of bytes has been written since the last flush, so that the client receives
+ * elements steadily instead of whenever a buffer happens to fill. Intervals smaller than the
+ * generator's own buffer have the effect of flushing each time that buffer fills.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class StreamingArrayProvider implements MessageBodyWriter<StreamingArray<?>> {
+    private final ObjectMapper mapper;
+    private final long flushInterval;
+
+    /**
+     * Creates a new {@link StreamingArrayProvider}.
+     *
+     * @param mapper           the {@link ObjectMapper} used to serialize each element
+     * @param flushInterval    the number of bytes to write between flushes
+     */
+    public StreamingArrayProvider(ObjectMapper mapper, Size flushInterval) {
+        checkArgument(flushInterval.toBytes() > 0, "flushInterval must be positive");
+        this.mapper = mapper;
+        this.flushInterval = flushInterval.toBytes();
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type,
+                               Type genericType,
+                               Annotation[] annotations,
+                               MediaType mediaType) {
+        return StreamingArray.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(StreamingArray<?> array,
+                        Class<?> type,
+                        Type genericType,
+                        Annotation[] annotations,
+                        MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(StreamingArray<?> array,
+                        Class<?> type,
+                        Type genericType,
+                        Annotation[] annotations,
+                        MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException, WebApplicationException {
+        final CountingOutputStream output = new CountingOutputStream(entityStream);
+        final JsonGenerator json = mapper.getFactory().createJsonGenerator(output,
+                                                                           JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // an array which fails part way through is left unterminated, so the client can tell
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        try {
+            final JsonElementWriter writer = new JsonElementWriter(mapper, elementType(genericType), json);
+            json.writeStartArray();
+            try {
+                array.produce(new GeneratorSink(writer, json, output));
+            } catch (IOException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new WebApplicationException(e);
+            }
+            json.writeEndArray();
+        } finally {
+            // flushes the generator and returns its buffers to the recycler
+            json.close();
+        }
+    }
+
+    private JavaType elementType(Type genericType) {
+        final TypeFactory types = mapper.getTypeFactory();
+        if (genericType != null) {
+            final JavaType[] parameters = types.findTypeParameters(types.constructType(genericType),
+                                                                   StreamingArray.class);
+            if ((parameters != null) && (parameters.length == 1)) {
+                return parameters[0];
+            }
+        }
+        return types.constructType(Object.class);
+    }
+
+    private class GeneratorSink implements StreamingArray.Sink<Object> {
+        private final JsonElementWriter writer;
+        private final JsonGenerator json;
+        private final CountingOutputStream output;
+        private long flushedAt;
+
+        private GeneratorSink(JsonElementWriter writer, JsonGenerator json, CountingOutputStream output) {
+            this.writer = writer;
+            this.json = json;
+            this.output = output;
+        }
+
+        @Override
+        public void write(Object element) throws IOException {
+            writer.write(element);
+            if (output.getCount() - flushedAt >= flushInterval) {
+                json.flush();
+                this.flushedAt = output.getCount();
+            }
+        }
+    }
+}
@@ -1,9 +1,26 @@
 package com.yammer.dropwizard.jetty;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.eclipse.jetty.continuation.Continuation;
+import org.eclipse.jetty.continuation.ContinuationListener;
+import org.eclipse.jetty.continuation.ContinuationSupport;
 import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.http.HttpMethods;
+import org.eclipse.jetty.http.gzip.AbstractCompressedStream;
+import org.eclipse.jetty.http.gzip.CompressedResponseWrapper;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.GzipHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.servlet.ServletException;
 import javax.servlet.ServletInputStream;
@@ -12,25 +29,440 @@ import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.zip.GZIPInputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 
-// TODO: 10/12/11 <coda> -- write tests for BiDiGzipHandler
+import static com.google.common.base.Preconditions.checkArgument;
 
 /**
- * A Jetty {@link Handler} which both compresses response entities to requests with {@code gzip} as
- * an acceptable content-encoding and decompresses request entities with {@code gzip} as the given
- * content-encoding.
+ * A Jetty {@link Handler} which both compresses response entities to requests with a supported
+ * content-encoding in their {@code Accept-Encoding} header and decompresses request entities with
+ * a supported {@code Content-Encoding}.
+ * <p/>
+ * Responses are compressed with the first of the {@link #setEncodings(List) configured encodings}
+ * the client accepts, at the configured level and strategy, by {@link Deflater}s and
+ * {@link Inflater}s which are pooled rather than created for each request. Request entities in
+ * other encodings are passed on as-is. For each configured encoding, the handler exports
+ * {@code compression-time} and {@code decompression-time} timers of the CPU time spent per
+ * request, and a {@code compression-ratio} histogram of the size of compressed responses as a
+ * percentage of their original size.
  */
-@SuppressWarnings("IOResourceOpenedButNotSafelyClosed")
 public class BiDiGzipHandler extends GzipHandler {
-    private static final String GZIP_ENCODING = "gzip";
+    private static final Logger LOGGER = LoggerFactory.getLogger(BiDiGzipHandler.class);
+    private static final Splitter ENCODINGS = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final Splitter PARAMETERS = Splitter.on(';').trimResults();
 
-    private static class GzipServletInputStream extends ServletInputStream {
-        private final GZIPInputStream input;
+    private final MetricsRegistry registry;
+    private final Clock clock;
+    private final Map<ContentEncoding, Codec> codecs = Maps.newEnumMap(ContentEncoding.class);
+    private ImmutableList<ContentEncoding> encodings = ImmutableList.of(ContentEncoding.GZIP);
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int compressionStrategy = Deflater.DEFAULT_STRATEGY;
+    private int codecPoolSize = 64;
 
-        private GzipServletInputStream(HttpServletRequest request, int bufferSize) throws IOException {
-            this.input = new GZIPInputStream(request.getInputStream(), bufferSize);
+    /**
+     * Creates a new BiDiGzipHandler which forwards requests to the given handler.
+     *
+     * @param underlying    the underlying handler
+     */
+    public BiDiGzipHandler(Handler underlying) {
+        this(Metrics.defaultRegistry(), new Clock.CpuTimeClock(), underlying);
+    }
+
+    /**
+     * Creates a new BiDiGzipHandler which forwards requests to the given handler.
+     *
+     * @param registry      the registry for the handler's metrics
+     * @param clock         the clock used to time compression and decompression
+     * @param underlying    the underlying handler
+     */
+    public BiDiGzipHandler(MetricsRegistry registry, Clock clock, Handler underlying) {
+        this.registry = registry;
+        this.clock = clock;
+        setHandler(underlying);
+    }
+
+    public ImmutableList<ContentEncoding> getEncodings() {
+        return encodings;
+    }
+
+    /**
+     * Sets the encodings responses may be compressed and requests decompressed with, in order of
+     * preference.
+     *
+     * @param encodings    the supported encodings
+     */
+    public void setEncodings(List<ContentEncoding> encodings) {
+        this.encodings = ImmutableList.copyOf(encodings);
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Sets the compression level, from {@link Deflater#BEST_SPEED} to
+     * {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}.
+     *
+     * @param level    the compression level
+     */
+    public void setCompressionLevel(int level) {
+        checkArgument((level == Deflater.DEFAULT_COMPRESSION) ||
+                              ((level >= Deflater.BEST_SPEED) && (level <= Deflater.BEST_COMPRESSION)),
+                      "invalid compression level: %s", level);
+        this.compressionLevel = level;
+    }
+
+    public int getCompressionStrategy() {
+        return compressionStrategy;
+    }
+
+    /**
+     * Sets the compression strategy: {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED},
+     * or {@link Deflater#HUFFMAN_ONLY}.
+     *
+     * @param strategy    the compression strategy
+     */
+    public void setCompressionStrategy(int strategy) {
+        this.compressionStrategy = strategy;
+    }
+
+    public int getCodecPoolSize() {
+        return codecPoolSize;
+    }
+
+    /**
+     * Sets the most idle {@link Deflater}s and {@link Inflater}s kept for reuse, per
+     * encoding.
+     *
+     * @param size    the size of each pool
+     */
+    public void setCodecPoolSize(int size) {
+        checkArgument(size > 0, "codec pool size must be positive");
+        this.codecPoolSize = size;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        for (ContentEncoding encoding : encodings) {
+            codecs.put(encoding, new Codec(encoding));
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        for (Codec codec : codecs.values()) {
+            codec.clear();
+        }
+        codecs.clear();
+    }
+
+    @Override
+    public void handle(String target,
+                       Request baseRequest,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException, ServletException {
+        final Codec codec = requestCodec(request);
+        if (codec == null) {
+            compress(target, baseRequest, request, response);
+            return;
+        }
+
+        final DecompressingRequest decompressing = new DecompressingRequest(request, codec);
+        try {
+            compress(target, baseRequest, decompressing, response);
+        } finally {
+            final Continuation continuation = ContinuationSupport.getContinuation(request);
+            if (continuation.isSuspended()) {
+                continuation.addContinuationListener(new ContinuationListener() {
+                    @Override
+                    public void onComplete(Continuation continuation) {
+                        decompressing.finish();
+                    }
+
+                    @Override
+                    public void onTimeout(Continuation continuation) {
+                        // the inflater is released on completion
+                    }
+                });
+            } else {
+                decompressing.finish();
+            }
+        }
+    }
+
+    private void compress(String target,
+                          Request baseRequest,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException, ServletException {
+        final Handler handler = getHandler();
+        if ((handler == null) || !isStarted()) {
+            return;
+        }
+
+        final ContentEncoding encoding = negotiate(request, response);
+        if (encoding == null) {
+            handler.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        final CompressingResponse compressing = new CompressingResponse(request, response, codecs.get(encoding));
+        boolean exceptional = true;
+        try {
+            handler.handle(target, baseRequest, request, compressing);
+            exceptional = false;
+        } finally {
+            final Continuation continuation = ContinuationSupport.getContinuation(request);
+            if (continuation.isSuspended() && continuation.isResponseWrapped()) {
+                continuation.addContinuationListener(new ContinuationListener() {
+                    @Override
+                    public void onComplete(Continuation continuation) {
+                        try {
+                            compressing.finish();
+                        } catch (IOException e) {
+                            LOGGER.warn("Unable to finish compressed response", e);
+                        }
+                    }
+
+                    @Override
+                    public void onTimeout(Continuation continuation) {
+                        // the response is finished on completion
+                    }
+                });
+            } else if (exceptional && !response.isCommitted()) {
+                compressing.resetBuffer();
+                compressing.noCompression();
+            } else {
+                compressing.finish();
+            }
+        }
+    }
+
+    private Codec requestCodec(HttpServletRequest request) {
+        final String header = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (header == null) {
+            return null;
+        }
+        final String encoding = header.trim();
+        for (ContentEncoding candidate : ContentEncoding.values()) {
+            if (candidate.toString().equalsIgnoreCase(encoding)) {
+                return codecs.get(candidate);
+            }
+        }
+        return null;
+    }
+
+    private ContentEncoding negotiate(HttpServletRequest request, HttpServletResponse response) {
+        final String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if ((header == null) ||
+                response.containsHeader(HttpHeaders.CONTENT_ENCODING) ||
+                HttpMethods.HEAD.equalsIgnoreCase(request.getMethod()) ||
+                ((_excluded != null) && _excluded.contains(request.getHeader(HttpHeaders.USER_AGENT)))) {
+            return null;
+        }
+
+        for (ContentEncoding encoding : encodings) {
+            if (isAccepted(header, encoding.toString())) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAccepted(String header, String coding) {
+        boolean wildcard = false;
+        for (String accepted : ENCODINGS.split(header)) {
+            final Iterator<String> parameters = PARAMETERS.split(accepted).iterator();
+            final String name = parameters.next();
+            if (name.equalsIgnoreCase(coding)) {
+                return hasNonZeroQuality(parameters);
+            }
+            if ("*".equals(name)) {
+                wildcard = hasNonZeroQuality(parameters);
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean hasNonZeroQuality(Iterator<String> parameters) {
+        while (parameters.hasNext()) {
+            final String parameter = parameters.next();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(parameter.substring(2)) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private class Codec {
+        private final ContentEncoding encoding;
+        private final DeflaterPool deflaters;
+        private final InflaterPool inflaters;
+        private final Timer compressionTime;
+        private final Timer decompressionTime;
+        private final Histogram compressionRatio;
+
+        private Codec(ContentEncoding encoding) {
+            final boolean nowrap = encoding == ContentEncoding.GZIP;
+            this.encoding = encoding;
+            this.deflaters = new DeflaterPool(compressionLevel, compressionStrategy, nowrap, codecPoolSize);
+            this.inflaters = new InflaterPool(nowrap, codecPoolSize);
+            this.compressionTime = registry.newTimer(BiDiGzipHandler.class,
+                                                     "compression-time",
+                                                     encoding.toString(),
+                                                     TimeUnit.MICROSECONDS,
+                                                     TimeUnit.SECONDS);
+            this.decompressionTime = registry.newTimer(BiDiGzipHandler.class,
+                                                       "decompression-time",
+                                                       encoding.toString(),
+                                                       TimeUnit.MICROSECONDS,
+                                                       TimeUnit.SECONDS);
+            this.compressionRatio = registry.newHistogram(BiDiGzipHandler.class,
+                                                          "compression-ratio",
+                                                          encoding.toString(),
+                                                          true);
+        }
+
+        private CompressingOutputStream compress(OutputStream output) throws IOException {
+            final Deflater deflater = deflaters.acquire();
+            try {
+                return new CompressingOutputStream(output, deflater, _bufferSize,
+                                                   encoding == ContentEncoding.GZIP, clock);
+            } catch (IOException e) {
+                deflaters.release(deflater);
+                throw e;
+            }
+        }
+
+        private void release(CompressingOutputStream output) {
+            if (output.isFinished()) {
+                compressionTime.update(output.getCompressionTime(), TimeUnit.NANOSECONDS);
+                if (output.getUncompressedSize() > 0) {
+                    compressionRatio.update(output.getCompressedSize() * 100 / output.getUncompressedSize());
+                }
+            }
+            deflaters.release(output.getDeflater());
+        }
+
+        private DecompressingInputStream decompress(InputStream input) throws IOException {
+            final Inflater inflater = inflaters.acquire();
+            try {
+                return new DecompressingInputStream(input, inflater, _bufferSize,
+                                                    encoding == ContentEncoding.GZIP, clock);
+            } catch (IOException e) {
+                inflaters.release(inflater);
+                throw e;
+            }
+        }
+
+        private void release(DecompressingInputStream input) {
+            decompressionTime.update(input.getDecompressionTime(), TimeUnit.NANOSECONDS);
+            inflaters.release(input.getInflater());
+        }
+
+        private void clear() {
+            deflaters.clear();
+            inflaters.clear();
+        }
+    }
+
+    private class CompressingResponse extends CompressedResponseWrapper {
+        private final Codec codec;
+
+        private CompressingResponse(HttpServletRequest request, HttpServletResponse response, Codec codec) {
+            super(request, response);
+            this.codec = codec;
+            setMimeTypes(_mimeTypes);
+            setBufferSize(_bufferSize);
+            setMinCompressSize(_minGzipSize);
+        }
+
+        @Override
+        protected AbstractCompressedStream newCompressedStream(HttpServletRequest request,
+                                                               HttpServletResponse response,
+                                                               long contentLength,
+                                                               int bufferSize,
+                                                               int minCompressSize) throws IOException {
+            return new CompressingStream(request, response, contentLength, bufferSize, minCompressSize);
+        }
+
+        @Override
+        protected PrintWriter newWriter(OutputStream out, String encoding) throws UnsupportedEncodingException {
+            return BiDiGzipHandler.this.newWriter(out, encoding);
+        }
+
+        private class CompressingStream extends AbstractCompressedStream {
+            private CompressingOutputStream output;
+
+            private CompressingStream(HttpServletRequest request,
+                                      HttpServletResponse response,
+                                      long contentLength,
+                                      int bufferSize,
+                                      int minCompressSize) throws IOException {
+                super(codec.encoding.toString(), request, response, contentLength, bufferSize, minCompressSize);
+            }
+
+            @Override
+            protected DeflaterOutputStream createStream() throws IOException {
+                release();
+                this.output = codec.compress(_response.getOutputStream());
+                return output;
+            }
+
+            @Override
+            public void finish() throws IOException {
+                try {
+                    super.finish();
+                } finally {
+                    release();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    release();
+                }
+            }
+
+            @Override
+            public void resetBuffer() {
+                super.resetBuffer();
+                release();
+            }
+
+            private void release() {
+                if (output != null) {
+                    codec.release(output);
+                    this.output = null;
+                }
+            }
+        }
+    }
+
+    private static class DecompressingServletInputStream extends ServletInputStream {
+        private final InputStream input;
+
+        private DecompressingServletInputStream(InputStream input) {
+            this.input = input;
         }
 
         @Override
@@ -79,48 +511,42 @@ public class BiDiGzipHandler extends GzipHandler {
         }
     }
 
-    private static class GzipServletRequest extends HttpServletRequestWrapper {
-        private final ServletInputStream input;
-        private final BufferedReader reader;
+    private static class DecompressingRequest extends HttpServletRequestWrapper {
+        private final Codec codec;
+        private DecompressingInputStream decompressed;
+        private ServletInputStream input;
+        private BufferedReader reader;
 
-        private GzipServletRequest(HttpServletRequest request, int bufferSize) throws IOException {
+        private DecompressingRequest(HttpServletRequest request, Codec codec) {
             super(request);
-            this.input = new GzipServletInputStream(request, bufferSize);
-            this.reader = new BufferedReader(new InputStreamReader(input));
+            this.codec = codec;
         }
 
         @Override
         public ServletInputStream getInputStream() throws IOException {
+            if (input == null) {
+                this.decompressed = codec.decompress(super.getInputStream());
+                this.input = new DecompressingServletInputStream(decompressed);
+            }
             return input;
         }
 
         @Override
         public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                final String charset = getCharacterEncoding();
+                this.reader = new BufferedReader(
+                        new InputStreamReader(getInputStream(),
+                                              (charset == null) ? Charsets.ISO_8859_1.name() : charset));
+            }
             return reader;
         }
-    }
-
-    /**
-     * Creates a new BiDiGzipHandler which forwards requests to the given handler.
-     *
-     * @param underlying    the underlying handler
-     */
-    public BiDiGzipHandler(Handler underlying) {
-        setHandler(underlying);
-    }
 
-    @Override
-    public void handle(String target,
-                       Request baseRequest,
-                       HttpServletRequest request,
-                       HttpServletResponse response) throws IOException, ServletException {
-        if (GZIP_ENCODING.equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
-            super.handle(target,
-                         baseRequest,
-                         new GzipServletRequest(request, getBufferSize()),
-                         response);
-        } else {
-            super.handle(target, baseRequest, request, response);
+        private void finish() {
+            if (decompressed != null) {
+                codec.release(decompressed);
+                this.decompressed = null;
+            }
         }
     }
 }
@@ -0,0 +1,227 @@
+package com.yammer.dropwizard.jetty;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.util.RatioGauge;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An instrumented {@link QueuedThreadPool} which records how long each job waits in its queue, and
+ * which marks jobs for shedding when the queue grows too long or a job waits too long.
+ * <p/>
+ * Instead of being rejected outright (which would drop the connection without a response), a job
+ * which arrives when every thread is busy and the queue is full isn't queued at all: it's run at
+ * once by one of a few dedicated shedding threads, marked so that its request is answered with a
+ * cheap {@code 503 Service Unavailable} by a {@link LoadSheddingHandler}. Jobs which wait longer
+ * than the maximum queue wait are shed the same way when they're run. Jobs which are admitted start
+ * new threads as usual while the pool is below its maximum.
+ * <p/>
+ * Besides the gauges of Metrics' {@code InstrumentedQueuedThreadPool}, this exports a
+ * {@code queued-jobs} gauge and a {@code queue-wait} timer.
+ */
+public class BoundedQueuedThreadPool extends QueuedThreadPool {
+    private static final ThreadLocal<Boolean> SHED = new ThreadLocal<Boolean>();
+    private static final int SHEDDING_THREADS = 2;
+    private static final int MAX_SHEDDING_JOBS = 1024;
+
+    /**
+     * Returns {@code true} if the job running on the current thread has been marked for shedding,
+     * and clears the mark so that any later requests handled by the same job are served normally.
+     *
+     * @return whether or not the current request should be shed
+     */
+    public static boolean shouldShedCurrentRequest() {
+        final Boolean shed = SHED.get();
+        if (shed == null) {
+            return false;
+        }
+        SHED.remove();
+        return shed;
+    }
+
+    static void markCurrentRequest(boolean shed) {
+        SHED.set(shed);
+    }
+
+    static void clearCurrentRequest() {
+        SHED.remove();
+    }
+
+    private class QueuedJob implements Runnable {
+        private final Runnable job;
+        private final long queuedAt;
+
+        private QueuedJob(Runnable job) {
+            this.job = job;
+            this.queuedAt = clock.tick();
+        }
+
+        @Override
+        public void run() {
+            final long waited = clock.tick() - queuedAt;
+            queueWait.update(waited, TimeUnit.NANOSECONDS);
+            markCurrentRequest((maxQueueWait > 0) && (waited > maxQueueWait));
+            try {
+                job.run();
+            } finally {
+                clearCurrentRequest();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return job.toString();
+        }
+    }
+
+    private final BlockingQueue<Runnable> queue;
+    private final int maxQueued;
+    private final long maxQueueWait;
+    private final Clock clock;
+    private final Timer queueWait;
+    private volatile ExecutorService shedding;
+
+    /**
+     * Creates a new {@link BoundedQueuedThreadPool}.
+     *
+     * @param maxQueued       the number of jobs which may be queued before new jobs are shed, or
+     *                        {@code -1} for no limit
+     * @param maxQueueWait    the longest a job may wait before it's shed, if any
+     */
+    public BoundedQueuedThreadPool(int maxQueued, Optional<Duration> maxQueueWait) {
+        this(Metrics.defaultRegistry(), Clock.defaultClock(), maxQueued, maxQueueWait);
+    }
+
+    /**
+     * Creates a new {@link BoundedQueuedThreadPool}.
+     *
+     * @param registry        the registry for the pool's metrics
+     * @param clock           the clock used to measure queue waits
+     * @param maxQueued       the number of jobs which may be queued before new jobs are shed, or
+     *                        {@code -1} for no limit
+     * @param maxQueueWait    the longest a job may wait before it's shed, if any
+     */
+    public BoundedQueuedThreadPool(MetricsRegistry registry,
+                                   Clock clock,
+                                   int maxQueued,
+                                   Optional<Duration> maxQueueWait) {
+        this(new LinkedBlockingQueue<Runnable>(), registry, clock, maxQueued, maxQueueWait);
+    }
+
+    private BoundedQueuedThreadPool(final BlockingQueue<Runnable> queue,
+                                    MetricsRegistry registry,
+                                    Clock clock,
+                                    int maxQueued,
+                                    Optional<Duration> maxQueueWait) {
+        super(queue);
+        this.queue = queue;
+        this.maxQueued = maxQueued;
+        this.maxQueueWait = maxQueueWait.isPresent() ? maxQueueWait.get().toNanoseconds() : 0;
+        this.clock = clock;
+        this.queueWait = registry.newTimer(QueuedThreadPool.class,
+                                           "queue-wait",
+                                           TimeUnit.MILLISECONDS,
+                                           TimeUnit.SECONDS);
+        registry.newGauge(QueuedThreadPool.class, "percent-idle", new RatioGauge() {
+            @Override
+            protected double getNumerator() {
+                return getIdleThreads();
+            }
+
+            @Override
+            protected double getDenominator() {
+                return getThreads();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "active-threads", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getThreads() - getIdleThreads();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "idle-threads", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getIdleThreads();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "queued-jobs", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return queue.size();
+            }
+        });
+    }
+
+    @Override
+    public boolean dispatch(Runnable job) {
+        if (isOverflowed()) {
+            return shed(job);
+        }
+        return super.dispatch(new QueuedJob(job));
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        this.shedding = new ThreadPoolExecutor(SHEDDING_THREADS,
+                                               SHEDDING_THREADS,
+                                               0,
+                                               TimeUnit.SECONDS,
+                                               new ArrayBlockingQueue<Runnable>(MAX_SHEDDING_JOBS),
+                                               new ThreadFactoryBuilder().setDaemon(true)
+                                                                         .setNameFormat(getName() + "-shedding-%d")
+                                                                         .build());
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        shedding.shutdownNow();
+    }
+
+    private boolean isOverflowed() {
+        return (maxQueued >= 0) &&
+                (queue.size() >= maxQueued) &&
+                (getIdleThreads() == 0) &&
+                (getThreads() >= getMaxThreads());
+    }
+
+    private boolean shed(final Runnable job) {
+        try {
+            shedding.execute(new Runnable() {
+                @Override
+                public void run() {
+                    markCurrentRequest(true);
+                    try {
+                        job.run();
+                    } finally {
+                        clearCurrentRequest();
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return job.toString();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
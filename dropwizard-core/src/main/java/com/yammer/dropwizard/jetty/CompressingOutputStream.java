@@ -0,0 +1,157 @@
+package com.yammer.dropwizard.jetty;
+
+import com.yammer.metrics.core.Clock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A {@link DeflaterOutputStream} which writes either {@code gzip} or {@code zlib} data with a
+ * given {@link Deflater}, unlike {@link java.util.zip.GZIPOutputStream}, and keeps track of the
+ * time spent compressing.
+ * <p/>
+ * On runtimes which support it (Java 7 and later), flushing the stream sync-flushes the deflater,
+ * so everything written so far reaches the client; otherwise, only whatever the deflater has
+ * already compressed is flushed.
+ */
+class CompressingOutputStream extends DeflaterOutputStream {
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b,  // magic number
+            Deflater.DEFLATED,  // compression method
+            0,                  // flags
+            0, 0, 0, 0,         // modification time
+            0,                  // extra flags
+            0                   // operating system
+    };
+
+    // Deflater.SYNC_FLUSH, which was added in Java 7
+    private static final int SYNC_FLUSH = 2;
+    private static final Method DEFLATE_WITH_FLUSH = findDeflateWithFlush();
+
+    private static Method findDeflateWithFlush() {
+        try {
+            // Deflater#deflate(byte[], int, int, int), for runtimes which have it
+            return Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private final boolean gzip;
+    private final Clock clock;
+    private final CRC32 crc = new CRC32();
+    private long compressionTime;
+
+    /**
+     * Creates a new {@link CompressingOutputStream}.
+     *
+     * @param out           the underlying output stream
+     * @param deflater      the deflater, which must produce raw deflate data if {@code gzip} is
+     *                      {@code true}
+     * @param bufferSize    the size of the output buffer
+     * @param gzip          if {@code true}, the deflate data is wrapped in a {@code gzip} header
+     *                      and trailer
+     * @param clock         the clock used to time compression
+     * @throws IOException if the {@code gzip} header can't be written
+     */
+    CompressingOutputStream(OutputStream out,
+                            Deflater deflater,
+                            int bufferSize,
+                            boolean gzip,
+                            Clock clock) throws IOException {
+        super(out, deflater, bufferSize);
+        this.gzip = gzip;
+        this.clock = clock;
+        if (gzip) {
+            out.write(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        if (gzip) {
+            crc.update(b, off, len);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!def.finished()) {
+            super.finish();
+            if (gzip) {
+                writeInt((int) crc.getValue());
+                writeInt((int) def.getBytesRead());
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if ((DEFLATE_WITH_FLUSH != null) && !def.finished()) {
+            final long start = clock.tick();
+            try {
+                int length;
+                do {
+                    length = syncFlush();
+                    out.write(buf, 0, length);
+                } while (length == buf.length);
+            } finally {
+                compressionTime += clock.tick() - start;
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    protected void deflate() throws IOException {
+        final long start = clock.tick();
+        try {
+            super.deflate();
+        } finally {
+            compressionTime += clock.tick() - start;
+        }
+    }
+
+    Deflater getDeflater() {
+        return def;
+    }
+
+    boolean isFinished() {
+        return def.finished();
+    }
+
+    long getUncompressedSize() {
+        return def.getBytesRead();
+    }
+
+    long getCompressedSize() {
+        return def.getBytesWritten();
+    }
+
+    long getCompressionTime() {
+        return compressionTime;
+    }
+
+    private int syncFlush() throws IOException {
+        try {
+            return (Integer) DEFLATE_WITH_FLUSH.invoke(def, buf, 0, buf.length, SYNC_FLUSH);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void writeInt(int i) throws IOException {
+        out.write(i & 0xff);
+        out.write((i >> 8) & 0xff);
+        out.write((i >> 16) & 0xff);
+        out.write((i >> 24) & 0xff);
+    }
+}
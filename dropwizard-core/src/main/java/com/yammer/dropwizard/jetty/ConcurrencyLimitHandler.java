@@ -0,0 +1,140 @@
+package com.yammer.dropwizard.jetty;
+
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty {@link Handler} which limits the number of requests in flight to a
+ * {@link GradientConcurrencyLimit}, responding to requests over the limit with a
+ * {@code 503 Service Unavailable} and a {@code Retry-After} header.
+ * <p/>
+ * Requests are only admitted or rejected on their first dispatch; a suspended request which resumes
+ * has already been admitted. The latency of each admitted request, from its first dispatch until
+ * the end of its last, is fed back into the limit. Requests are counted while they're being
+ * dispatched. Requests which have already been handled, such as admin requests, are passed on
+ * without being counted.
+ */
+public class ConcurrencyLimitHandler extends HandlerWrapper {
+    private static final String ADMISSION = ConcurrencyLimitHandler.class.getName() + ".admission";
+
+    private static class Admission {
+        private final long admittedAt;
+        private final int inFlight;
+
+        private Admission(long admittedAt, int inFlight) {
+            this.admittedAt = admittedAt;
+            this.inFlight = inFlight;
+        }
+    }
+
+    private final GradientConcurrencyLimit limit;
+    private final ServiceUnavailable unavailable;
+    private final Clock clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Meter rejectedRequests;
+
+    /**
+     * Creates a new {@link ConcurrencyLimitHandler}.
+     *
+     * @param handler       the handler for requests within the limit
+     * @param limit         the concurrency limit
+     * @param retryAfter    how long clients should wait before retrying rejected requests
+     */
+    public ConcurrencyLimitHandler(Handler handler, GradientConcurrencyLimit limit, Duration retryAfter) {
+        this(Metrics.defaultRegistry(), Clock.defaultClock(), handler, limit, retryAfter);
+    }
+
+    /**
+     * Creates a new {@link ConcurrencyLimitHandler}.
+     *
+     * @param registry      the registry for the handler's metrics
+     * @param clock         the clock used to measure latencies
+     * @param handler       the handler for requests within the limit
+     * @param limit         the concurrency limit
+     * @param retryAfter    how long clients should wait before retrying rejected requests
+     */
+    public ConcurrencyLimitHandler(MetricsRegistry registry,
+                                   Clock clock,
+                                   Handler handler,
+                                   final GradientConcurrencyLimit limit,
+                                   Duration retryAfter) {
+        this.limit = limit;
+        this.unavailable = new ServiceUnavailable(retryAfter);
+        this.clock = clock;
+        this.rejectedRequests = registry.newMeter(ConcurrencyLimitHandler.class,
+                                                  "rejected-requests",
+                                                  "requests",
+                                                  TimeUnit.SECONDS);
+        registry.newGauge(ConcurrencyLimitHandler.class, "limit", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return limit.getLimit();
+            }
+        });
+        registry.newGauge(ConcurrencyLimitHandler.class, "in-flight-requests", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return inFlight.get();
+            }
+        });
+        setHandler(handler);
+    }
+
+    @Override
+    public void handle(String target,
+                       Request baseRequest,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException, ServletException {
+        if (baseRequest.isHandled()) {
+            // e.g. an admin request, answered by an earlier handler
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        final Admission admission;
+        if (baseRequest.getAsyncContinuation().isInitial()) {
+            final int current = inFlight.incrementAndGet();
+            if (current > limit.getLimit()) {
+                inFlight.decrementAndGet();
+                rejectedRequests.mark();
+                unavailable.send(baseRequest, response);
+                return;
+            }
+            admission = new Admission(clock.tick(), current);
+            request.setAttribute(ADMISSION, admission);
+        } else {
+            admission = (Admission) request.getAttribute(ADMISSION);
+            if (admission == null) {
+                // not admitted by this handler
+                super.handle(target, baseRequest, request, response);
+                return;
+            }
+            inFlight.incrementAndGet();
+        }
+
+        boolean completed = false;
+        try {
+            super.handle(target, baseRequest, request, response);
+            completed = !request.isAsyncStarted();
+        } finally {
+            inFlight.decrementAndGet();
+            if (completed) {
+                limit.update(clock.tick() - admission.admittedAt, admission.inFlight);
+            }
+        }
+    }
+}
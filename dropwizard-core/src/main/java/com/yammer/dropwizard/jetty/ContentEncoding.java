@@ -0,0 +1,33 @@
+package com.yammer.dropwizard.jetty;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * The content-encodings which {@link BiDiGzipHandler} can compress responses and decompress
+ * requests with.
+ */
+public enum ContentEncoding {
+    /**
+     * The {@code gzip} file format (RFC 1952).
+     */
+    GZIP,
+
+    /**
+     * The {@code zlib} format (RFC 1950), which HTTP calls {@code deflate}.
+     */
+    DEFLATE;
+
+    @Override
+    @JsonValue
+    public String toString() {
+        return super.toString().toLowerCase(Locale.ENGLISH);
+    }
+
+    @JsonCreator
+    public static ContentEncoding parse(String encoding) {
+        return valueOf(encoding.trim().toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,148 @@
+package com.yammer.dropwizard.jetty;
+
+import com.yammer.metrics.core.Clock;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * An {@link InflaterInputStream} which reads either {@code gzip} or {@code zlib} data with a given
+ * {@link Inflater}, unlike {@link java.util.zip.GZIPInputStream}, and keeps track of the time
+ * spent decompressing.
+ * <p/>
+ * Only the first member of a multi-member {@code gzip} stream is read.
+ */
+class DecompressingInputStream extends InflaterInputStream {
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final boolean gzip;
+    private final Clock clock;
+    private final CRC32 crc = new CRC32();
+    private boolean trailerRead;
+    private long decompressionTime;
+
+    /**
+     * Creates a new {@link DecompressingInputStream}.
+     *
+     * @param in            the underlying input stream
+     * @param inflater      the inflater, which must expect raw deflate data if {@code gzip} is
+     *                      {@code true}
+     * @param bufferSize    the size of the input buffer
+     * @param gzip          if {@code true}, the deflate data is expected to be wrapped in a
+     *                      {@code gzip} header and trailer
+     * @param clock         the clock used to time decompression
+     * @throws IOException if the {@code gzip} header can't be read or is malformed
+     */
+    DecompressingInputStream(InputStream in,
+                             Inflater inflater,
+                             int bufferSize,
+                             boolean gzip,
+                             Clock clock) throws IOException {
+        super(in, inflater, bufferSize);
+        this.gzip = gzip;
+        this.clock = clock;
+        if (gzip) {
+            readHeader();
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final long start = clock.tick();
+        try {
+            final int n = super.read(b, off, len);
+            if (gzip) {
+                if (n > 0) {
+                    crc.update(b, off, n);
+                } else if ((n < 0) && !trailerRead) {
+                    readTrailer();
+                }
+            }
+            return n;
+        } finally {
+            decompressionTime += clock.tick() - start;
+        }
+    }
+
+    Inflater getInflater() {
+        return inf;
+    }
+
+    long getDecompressionTime() {
+        return decompressionTime;
+    }
+
+    private void readHeader() throws IOException {
+        if (readUShort(in) != 0x8b1f) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readUByte(in) != Deflater.DEFLATED) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flags = readUByte(in);
+        skipBytes(in, 6); // modification time, extra flags, and operating system
+        if ((flags & FEXTRA) != 0) {
+            skipBytes(in, readUShort(in));
+        }
+        if ((flags & FNAME) != 0) {
+            skipString(in);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            skipString(in);
+        }
+        if ((flags & FHCRC) != 0) {
+            skipBytes(in, 2);
+        }
+    }
+
+    private void readTrailer() throws IOException {
+        trailerRead = true;
+        // the inflater may have read past the end of the deflate data into the trailer
+        final int remaining = inf.getRemaining();
+        final InputStream trailer = new SequenceInputStream(
+                new ByteArrayInputStream(buf, len - remaining, remaining), in);
+        if ((readUInt(trailer) != crc.getValue()) ||
+                (readUInt(trailer) != (inf.getBytesWritten() & 0xffffffffL))) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    private static long readUInt(InputStream input) throws IOException {
+        return ((long) readUShort(input)) | (((long) readUShort(input)) << 16);
+    }
+
+    private static int readUShort(InputStream input) throws IOException {
+        return readUByte(input) | (readUByte(input) << 8);
+    }
+
+    private static int readUByte(InputStream input) throws IOException {
+        final int b = input.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of GZIP stream");
+        }
+        return b;
+    }
+
+    private static void skipString(InputStream input) throws IOException {
+        while (readUByte(input) != 0) {
+            // skip to the terminating zero
+        }
+    }
+
+    private static void skipBytes(InputStream input, int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            readUByte(input);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.yammer.dropwizard.jetty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A pool of {@link Deflater}s with the same compression level and strategy.
+ * <p/>
+ * Each {@link Deflater} holds a sizable native buffer which is only freed when it's
+ * {@link Deflater#end() ended} or finalized, so reusing them saves both the allocation and the
+ * garbage of one per compressed response.
+ */
+public class DeflaterPool {
+    private final int level;
+    private final int strategy;
+    private final boolean nowrap;
+    private final BlockingQueue<Deflater> idle;
+
+    /**
+     * Creates a new {@link DeflaterPool}.
+     *
+     * @param level       the compression level, from {@link Deflater#BEST_SPEED} to
+     *                    {@link Deflater#BEST_COMPRESSION}, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param strategy    the compression strategy, e.g. {@link Deflater#DEFAULT_STRATEGY}
+     * @param nowrap      if {@code true}, the deflaters produce raw deflate data, as used by
+     *                    {@code gzip}, instead of {@code zlib} data
+     * @param capacity    the most idle deflaters to keep
+     */
+    public DeflaterPool(int level, int strategy, boolean nowrap, int capacity) {
+        this.level = level;
+        this.strategy = strategy;
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<Deflater>(capacity);
+    }
+
+    /**
+     * Returns an idle deflater, or a new one if there are none. The caller must
+     * {@link #release(Deflater) release} it once it's done with it.
+     *
+     * @return a deflater
+     */
+    public Deflater acquire() {
+        final Deflater deflater = idle.poll();
+        if (deflater != null) {
+            return deflater;
+        }
+        final Deflater created = new Deflater(level, nowrap);
+        created.setStrategy(strategy);
+        return created;
+    }
+
+    /**
+     * Resets the given deflater and returns it to the pool, or ends it if the pool is full.
+     *
+     * @param deflater    a deflater from {@link #acquire()}
+     */
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!idle.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Ends all idle deflaters.
+     */
+    public void clear() {
+        Deflater deflater;
+        while ((deflater = idle.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of idle deflaters in the pool.
+     *
+     * @return the number of idle deflaters
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
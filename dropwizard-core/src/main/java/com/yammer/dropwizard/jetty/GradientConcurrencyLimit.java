@@ -0,0 +1,112 @@
+package com.yammer.dropwizard.jetty;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A concurrency limit which adapts to the latency of the requests it admits.
+ * <p/>
+ * Latencies are averaged over windows of a fixed number of requests. Each window's average is
+ * compared with a long-term average of previous windows: while latency stays within the tolerated
+ * ratio of the long-term average, the limit grows by roughly its square root; as latency rises past
+ * it, the limit shrinks in proportion (by at most half per window). Changes are smoothed, and the
+ * limit doesn't grow while less than half of it is in use, since latencies measured then say
+ * nothing about a higher limit.
+ */
+public class GradientConcurrencyLimit {
+    // the number of windows the long-term average roughly covers
+    private static final int LONG_WINDOWS = 20;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double tolerance;
+    private final double smoothing;
+
+    private double estimate;
+    private volatile int limit;
+    private double longLatency;
+    private long windowLatency;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    /**
+     * Creates a new {@link GradientConcurrencyLimit}.
+     *
+     * @param initialLimit    the limit to start with
+     * @param minLimit        the lowest the limit may fall
+     * @param maxLimit        the highest the limit may rise
+     * @param windowSize      the number of requests averaged before the limit is adjusted
+     * @param tolerance       how many times longer than the long-term average latency may get
+     *                        before the limit shrinks
+     * @param smoothing       the weight of each adjustment, from {@code 0} (none) to {@code 1}
+     */
+    public GradientConcurrencyLimit(int initialLimit,
+                                    int minLimit,
+                                    int maxLimit,
+                                    int windowSize,
+                                    double tolerance,
+                                    double smoothing) {
+        checkArgument((minLimit > 0) && (minLimit <= initialLimit) && (initialLimit <= maxLimit),
+                      "limits must satisfy 0 < min <= initial <= max");
+        checkArgument(windowSize > 0, "windowSize must be positive");
+        checkArgument(tolerance >= 1, "tolerance must be at least 1");
+        checkArgument((smoothing > 0) && (smoothing <= 1), "smoothing must be in (0, 1]");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.estimate = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the number of requests which may be in flight at once
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the latency of a request, adjusting the limit at the end of each window.
+     *
+     * @param latency     the request's latency, in nanoseconds
+     * @param inFlight    the number of requests in flight when the request started, including it
+     */
+    public synchronized void update(long latency, int inFlight) {
+        windowLatency += latency;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        if (windowCount < windowSize) {
+            return;
+        }
+
+        final double shortLatency = Math.max(1, (double) windowLatency / windowCount);
+        final int maxInFlight = windowMaxInFlight;
+        windowLatency = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        if (longLatency == 0) {
+            longLatency = shortLatency;
+        } else {
+            longLatency += (shortLatency - longLatency) * 2 / (LONG_WINDOWS + 1);
+            // when latency falls sharply, let the baseline follow it quickly
+            if (longLatency > shortLatency * 2) {
+                longLatency = shortLatency * 2;
+            }
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+        final double target = estimate * gradient + Math.sqrt(estimate);
+        if ((target > estimate) && (maxInFlight < estimate / 2)) {
+            return;
+        }
+
+        estimate = estimate * (1 - smoothing) + target * smoothing;
+        estimate = Math.max(minLimit, Math.min(maxLimit, estimate));
+        limit = (int) estimate;
+    }
+}
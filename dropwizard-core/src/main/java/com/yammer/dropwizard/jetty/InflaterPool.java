@@ -0,0 +1,67 @@
+package com.yammer.dropwizard.jetty;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Inflater;
+
+/**
+ * A pool of {@link Inflater}s, the decompressing counterpart of {@link DeflaterPool}.
+ */
+public class InflaterPool {
+    private final boolean nowrap;
+    private final BlockingQueue<Inflater> idle;
+
+    /**
+     * Creates a new {@link InflaterPool}.
+     *
+     * @param nowrap      if {@code true}, the inflaters expect raw deflate data, as used by
+     *                    {@code gzip}, instead of {@code zlib} data
+     * @param capacity    the most idle inflaters to keep
+     */
+    public InflaterPool(boolean nowrap, int capacity) {
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<Inflater>(capacity);
+    }
+
+    /**
+     * Returns an idle inflater, or a new one if there are none. The caller must
+     * {@link #release(Inflater) release} it once it's done with it.
+     *
+     * @return an inflater
+     */
+    public Inflater acquire() {
+        final Inflater inflater = idle.poll();
+        return (inflater == null) ? new Inflater(nowrap) : inflater;
+    }
+
+    /**
+     * Resets the given inflater and returns it to the pool, or ends it if the pool is full.
+     *
+     * @param inflater    an inflater from {@link #acquire()}
+     */
+    public void release(Inflater inflater) {
+        inflater.reset();
+        if (!idle.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Ends all idle inflaters.
+     */
+    public void clear() {
+        Inflater inflater;
+        while ((inflater = idle.poll()) != null) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of idle inflaters in the pool.
+     *
+     * @return the number of idle inflaters
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,56 @@
+package com.yammer.dropwizard.jetty;
+
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Meter;
+import org.eclipse.jetty.http.HttpHeaderValues;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Jetty {@link Handler} which responds to requests shed by a {@link BoundedQueuedThreadPool} with
+ * a {@code 503 Service Unavailable} and a {@code Retry-After} header, without passing them on to
+ * the wrapped handler.
+ */
+public class LoadSheddingHandler extends HandlerWrapper {
+    private final ServiceUnavailable unavailable;
+    private final Meter shedRequests;
+
+    /**
+     * Creates a new {@link LoadSheddingHandler}.
+     *
+     * @param handler       the handler for requests which aren't shed
+     * @param retryAfter    how long clients should wait before retrying shed requests
+     */
+    public LoadSheddingHandler(Handler handler, Duration retryAfter) {
+        this.unavailable = new ServiceUnavailable(retryAfter);
+        this.shedRequests = Metrics.newMeter(LoadSheddingHandler.class,
+                                             "shed-requests",
+                                             "requests",
+                                             TimeUnit.SECONDS);
+        setHandler(handler);
+    }
+
+    @Override
+    public void handle(String target,
+                       Request baseRequest,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException, ServletException {
+        if (BoundedQueuedThreadPool.shouldShedCurrentRequest()) {
+            shedRequests.mark();
+            unavailable.send(baseRequest, response);
+            // close the connection so that a shed connection doesn't keep serving requests
+            response.setHeader(HttpHeaders.CONNECTION, HttpHeaderValues.CLOSE);
+            return;
+        }
+        super.handle(target, baseRequest, request, response);
+    }
+}
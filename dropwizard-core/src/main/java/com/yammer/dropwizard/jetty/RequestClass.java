@@ -0,0 +1,232 @@
+package com.yammer.dropwizard.jetty;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.eclipse.jetty.util.URIUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * A class of requests which share a bulkhead: at most a fixed number of them are served at once,
+ * a few more may wait in a fair queue, and the rest are rejected.
+ * <p/>
+ * Capping a class of expensive requests keeps the rest of the server's threads free for other
+ * requests. Each class exports {@code active-requests} and {@code queued-requests} gauges, a
+ * {@code queue-wait} timer, and a {@code rejected-requests} meter, scoped by its name.
+ */
+public class RequestClass {
+    private static final Pattern PATH_PARAMETERS = Pattern.compile(";[^/]*");
+
+    /**
+     * Returns a predicate which matches requests whose paths start with the given prefix.
+     * <p/>
+     * Paths are matched as they're served: without path parameters, percent-decoded, and with
+     * empty, {@code .} and {@code ..} segments resolved, so that e.g. {@code //batch/},
+     * {@code /x/../batch/} and {@code /%62atch/} all match {@code /batch/}.
+     *
+     * @param prefix    a path prefix, e.g. {@code /batch/}
+     * @return a predicate matching requests under {@code prefix}
+     */
+    public static Predicate<HttpServletRequest> pathPrefix(final String prefix) {
+        return new Predicate<HttpServletRequest>() {
+            @Override
+            public boolean apply(HttpServletRequest request) {
+                final String path = canonicalPath(request.getRequestURI());
+                return (path != null) && path.startsWith(prefix);
+            }
+
+            @Override
+            public String toString() {
+                return "pathPrefix(" + prefix + ')';
+            }
+        };
+    }
+
+    private static String canonicalPath(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        final String decoded = URIUtil.decodePath(PATH_PARAMETERS.matcher(uri).replaceAll(""));
+        // null if the path escapes the root, which Jetty refuses to serve anyway
+        return URIUtil.canonicalPath(URIUtil.compactPath(decoded));
+    }
+
+    /**
+     * Returns a predicate which matches requests with the given header, and optionally the given
+     * value.
+     *
+     * @param name     the name of the header
+     * @param value    the header's value, or {@link Optional#absent()} to match any value
+     * @return a predicate matching requests with the header
+     */
+    public static Predicate<HttpServletRequest> header(final String name, final Optional<String> value) {
+        return new Predicate<HttpServletRequest>() {
+            @Override
+            public boolean apply(HttpServletRequest request) {
+                final String actual = request.getHeader(name);
+                return (actual != null) && (!value.isPresent() || value.get().equalsIgnoreCase(actual));
+            }
+
+            @Override
+            public String toString() {
+                return "header(" + name + (value.isPresent() ? ": " + value.get() : "") + ')';
+            }
+        };
+    }
+
+    private final String name;
+    private final Predicate<HttpServletRequest> predicate;
+    private final int maxQueued;
+    private final long maxQueueWait;
+    private final Clock clock;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer queueWait;
+    private final Meter rejectedRequests;
+
+    /**
+     * Creates a new {@link RequestClass}.
+     *
+     * @param name              the name of the class
+     * @param predicate         the requests in the class
+     * @param maxConcurrency    the number of requests in the class which may be served at once
+     * @param maxQueued         the number of requests in the class which may wait to be served
+     * @param maxQueueWait      the longest a request may wait before it's rejected, if any
+     */
+    public RequestClass(String name,
+                        Predicate<HttpServletRequest> predicate,
+                        int maxConcurrency,
+                        int maxQueued,
+                        Optional<Duration> maxQueueWait) {
+        this(Metrics.defaultRegistry(), Clock.defaultClock(), name, predicate,
+             maxConcurrency, maxQueued, maxQueueWait);
+    }
+
+    /**
+     * Creates a new {@link RequestClass}.
+     *
+     * @param registry          the registry for the class's metrics
+     * @param clock             the clock used to measure queue waits
+     * @param name              the name of the class
+     * @param predicate         the requests in the class
+     * @param maxConcurrency    the number of requests in the class which may be served at once
+     * @param maxQueued         the number of requests in the class which may wait to be served
+     * @param maxQueueWait      the longest a request may wait before it's rejected, if any
+     */
+    public RequestClass(MetricsRegistry registry,
+                        Clock clock,
+                        String name,
+                        Predicate<HttpServletRequest> predicate,
+                        final int maxConcurrency,
+                        int maxQueued,
+                        Optional<Duration> maxQueueWait) {
+        this.name = name;
+        this.predicate = predicate;
+        this.maxQueued = maxQueued;
+        this.maxQueueWait = maxQueueWait.isPresent() ? maxQueueWait.get().toNanoseconds() : 0;
+        this.clock = clock;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.queueWait = registry.newTimer(RequestClass.class,
+                                           "queue-wait",
+                                           name,
+                                           TimeUnit.MILLISECONDS,
+                                           TimeUnit.SECONDS);
+        this.rejectedRequests = registry.newMeter(RequestClass.class,
+                                                  "rejected-requests",
+                                                  name,
+                                                  "requests",
+                                                  TimeUnit.SECONDS);
+        registry.newGauge(RequestClass.class, "active-requests", name, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return maxConcurrency - permits.availablePermits();
+            }
+        });
+        registry.newGauge(RequestClass.class, "queued-requests", name, new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return queued.get();
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns {@code true} if the given request belongs to this class.
+     *
+     * @param request    a request
+     * @return whether or not {@code request} belongs to this class
+     */
+    public boolean matches(HttpServletRequest request) {
+        return predicate.apply(request);
+    }
+
+    /**
+     * Waits for a turn to serve a request in this class. If this returns {@code true}, the caller
+     * must call {@link #release()} once the request has been served.
+     *
+     * @return {@code true} if the request may be served, or {@code false} if it should be rejected
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean acquire() throws InterruptedException {
+        // unlike tryAcquire(), a timed tryAcquire doesn't barge ahead of waiting requests
+        if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            queueWait.update(0, TimeUnit.NANOSECONDS);
+            return true;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejectedRequests.mark();
+            return false;
+        }
+
+        final long start = clock.tick();
+        try {
+            final boolean acquired;
+            if (maxQueueWait > 0) {
+                acquired = permits.tryAcquire(maxQueueWait, TimeUnit.NANOSECONDS);
+            } else {
+                permits.acquire();
+                acquired = true;
+            }
+            queueWait.update(clock.tick() - start, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                rejectedRequests.mark();
+            }
+            return acquired;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Ends a turn begun by a successful {@link #acquire()}.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                      .add("name", name)
+                      .add("predicate", predicate)
+                      .toString();
+    }
+}
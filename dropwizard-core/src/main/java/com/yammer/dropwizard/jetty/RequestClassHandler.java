@@ -0,0 +1,91 @@
+package com.yammer.dropwizard.jetty;
+
+import com.google.common.collect.ImmutableList;
+import com.yammer.dropwizard.util.Duration;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * A Jetty {@link Handler} which serves each request within the first {@link RequestClass} it
+ * matches, responding to requests which their class rejects with a
+ * {@code 503 Service Unavailable} and a {@code Retry-After} header. Requests which match no class
+ * are passed on as-is, and may be classified later by the resource methods which serve them.
+ */
+public class RequestClassHandler extends HandlerWrapper {
+    private static final ThreadLocal<Boolean> CLASSIFIED = new ThreadLocal<Boolean>();
+
+    /**
+     * Returns {@code true} if the request being handled on the current thread has already been
+     * served within a {@link RequestClass}.
+     *
+     * @return whether or not the current request has been classified
+     */
+    public static boolean isCurrentRequestClassified() {
+        return CLASSIFIED.get() != null;
+    }
+
+    private final ImmutableList<RequestClass> classes;
+    private final ServiceUnavailable unavailable;
+
+    /**
+     * Creates a new {@link RequestClassHandler}.
+     *
+     * @param handler       the handler for requests which aren't rejected
+     * @param classes       the request classes, in order of precedence
+     * @param retryAfter    how long clients should wait before retrying rejected requests
+     */
+    public RequestClassHandler(Handler handler, Iterable<RequestClass> classes, Duration retryAfter) {
+        this.classes = ImmutableList.copyOf(classes);
+        this.unavailable = new ServiceUnavailable(retryAfter);
+        setHandler(handler);
+    }
+
+    @Override
+    public void handle(String target,
+                       Request baseRequest,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException, ServletException {
+        final RequestClass requestClass = baseRequest.isHandled() ? null : find(request);
+        if (requestClass == null) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        if (!acquire(requestClass)) {
+            unavailable.send(baseRequest, response);
+            return;
+        }
+
+        CLASSIFIED.set(Boolean.TRUE);
+        try {
+            super.handle(target, baseRequest, request, response);
+        } finally {
+            CLASSIFIED.remove();
+            requestClass.release();
+        }
+    }
+
+    private RequestClass find(HttpServletRequest request) {
+        for (RequestClass requestClass : classes) {
+            if (requestClass.matches(request)) {
+                return requestClass;
+            }
+        }
+        return null;
+    }
+
+    private static boolean acquire(RequestClass requestClass) {
+        try {
+            return requestClass.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.yammer.dropwizard.jetty;
+
+import com.yammer.dropwizard.util.Duration;
+import org.eclipse.jetty.http.HttpHeaders;
+import org.eclipse.jetty.server.Request;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Response;
+
+/**
+ * A {@code 503 Service Unavailable} response with a {@code Retry-After} header, as sent to requests
+ * which are shed or rejected.
+ */
+public class ServiceUnavailable {
+    private final String retryAfter;
+
+    /**
+     * Creates a new {@link ServiceUnavailable}.
+     *
+     * @param retryAfter    how long clients should wait before retrying
+     */
+    public ServiceUnavailable(Duration retryAfter) {
+        // Retry-After is in whole seconds, and zero would invite an immediate retry
+        this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    /**
+     * Responds to the given request, marking it as handled.
+     *
+     * @param baseRequest    the request
+     * @param response       the response
+     */
+    public void send(Request baseRequest, HttpServletResponse response) {
+        baseRequest.setHandled(true);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+    }
+
+    /**
+     * Returns the response for a resource method to send.
+     *
+     * @return a {@code 503 Service Unavailable} response
+     */
+    public Response toResponse() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                       .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                       .build();
+    }
+}
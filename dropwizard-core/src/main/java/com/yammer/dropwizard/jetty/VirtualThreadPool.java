@@ -0,0 +1,288 @@
+package com.yammer.dropwizard.jetty;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Sets;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.util.RatioGauge;
+import org.eclipse.jetty.io.nio.SelectorManager;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty {@link ThreadPool} which runs each job on a new thread, typically a virtual thread, and
+ * limits the number of jobs which run at once.
+ * <p/>
+ * Jobs over the limit wait for a permit on their own thread, which is cheap when that thread is
+ * virtual. Like {@link BoundedQueuedThreadPool}, this records how long jobs wait and marks them for
+ * shedding by a {@link LoadSheddingHandler} if too many are waiting or one waits too long; shed jobs
+ * don't wait for a permit at all. It exports the same metrics as {@link BoundedQueuedThreadPool},
+ * with the permits which aren't in use counted as idle threads, and a {@code rejected-jobs} meter
+ * of the jobs which were interrupted (e.g., by stopping the pool) while waiting for a permit.
+ * <p/>
+ * Jetty's own acceptor and selector loops, which run for the life of their connectors, run without
+ * a permit, so that every permit is left for handling requests.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    /**
+     * Returns a factory for virtual threads, if the runtime supports them.
+     *
+     * @param prefix    the prefix of the threads' names
+     * @return a factory for virtual threads, or {@link Optional#absent()} if the runtime doesn't
+     *         support them
+     */
+    public static Optional<ThreadFactory> virtualThreadFactory(String prefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory(), for runtimes which have it
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Method name = builderClass.getMethod("name", String.class, long.class);
+            final Method factory = builderClass.getMethod("factory");
+            final Object builder = name.invoke(ofVirtual.invoke(null), prefix, 0L);
+            return Optional.of((ThreadFactory) factory.invoke(builder));
+        } catch (Exception e) {
+            return Optional.absent();
+        }
+    }
+
+    private final ThreadFactory threadFactory;
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final long maxQueueWait;
+    private final Clock clock;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Set<Thread> threads = Sets.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    private final Timer queueWait;
+    private final Meter rejectedJobs;
+    private volatile CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Creates a new {@link VirtualThreadPool}.
+     *
+     * @param threadFactory     the factory for the threads which run jobs
+     * @param maxConcurrency    the number of jobs which may run at once
+     * @param maxQueued         the number of jobs which may wait for a permit before new jobs are
+     *                          shed, or {@code -1} for no limit
+     * @param maxQueueWait      the longest a job may wait before it's shed, if any
+     */
+    public VirtualThreadPool(ThreadFactory threadFactory,
+                             int maxConcurrency,
+                             int maxQueued,
+                             Optional<Duration> maxQueueWait) {
+        this(Metrics.defaultRegistry(), Clock.defaultClock(), threadFactory,
+             maxConcurrency, maxQueued, maxQueueWait);
+    }
+
+    /**
+     * Creates a new {@link VirtualThreadPool}.
+     *
+     * @param registry          the registry for the pool's metrics
+     * @param clock             the clock used to measure queue waits
+     * @param threadFactory     the factory for the threads which run jobs
+     * @param maxConcurrency    the number of jobs which may run at once
+     * @param maxQueued         the number of jobs which may wait for a permit before new jobs are
+     *                          shed, or {@code -1} for no limit
+     * @param maxQueueWait      the longest a job may wait before it's shed, if any
+     */
+    public VirtualThreadPool(MetricsRegistry registry,
+                             Clock clock,
+                             ThreadFactory threadFactory,
+                             int maxConcurrency,
+                             int maxQueued,
+                             Optional<Duration> maxQueueWait) {
+        this.threadFactory = threadFactory;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.maxQueueWait = maxQueueWait.isPresent() ? maxQueueWait.get().toNanoseconds() : 0;
+        this.clock = clock;
+        this.permits = new Semaphore(maxConcurrency);
+        this.queueWait = registry.newTimer(QueuedThreadPool.class,
+                                           "queue-wait",
+                                           TimeUnit.MILLISECONDS,
+                                           TimeUnit.SECONDS);
+        this.rejectedJobs = registry.newMeter(QueuedThreadPool.class,
+                                              "rejected-jobs",
+                                              "jobs",
+                                              TimeUnit.SECONDS);
+        registry.newGauge(QueuedThreadPool.class, "percent-idle", new RatioGauge() {
+            @Override
+            protected double getNumerator() {
+                return getIdleThreads();
+            }
+
+            @Override
+            protected double getDenominator() {
+                return getThreads();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "active-threads", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getThreads() - getIdleThreads();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "idle-threads", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return getIdleThreads();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "queued-jobs", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return waiting.get();
+            }
+        });
+    }
+
+    @Override
+    public boolean dispatch(final Runnable job) {
+        if (!isRunning()) {
+            return false;
+        }
+        if (isConnectorLoop(job)) {
+            return start(job);
+        }
+        final long queuedAt = clock.tick();
+        final boolean overflowed = (maxQueued >= 0) && (waiting.get() >= maxQueued);
+        return start(new Runnable() {
+            @Override
+            public void run() {
+                if (overflowed) {
+                    runShed(job);
+                } else {
+                    runWithPermit(job, queuedAt);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return job.toString();
+            }
+        });
+    }
+
+    private boolean start(final Runnable job) {
+        final Thread thread = threadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                threads.add(Thread.currentThread());
+                try {
+                    job.run();
+                } finally {
+                    threads.remove(Thread.currentThread());
+                }
+            }
+
+            @Override
+            public String toString() {
+                return job.toString();
+            }
+        });
+        if (thread == null) {
+            return false;
+        }
+        thread.start();
+        return true;
+    }
+
+    private static boolean isConnectorLoop(Runnable job) {
+        // AbstractConnector's Acceptor and SelectorManager's selector loop
+        final Class<?> enclosing = job.getClass().getEnclosingClass();
+        return (enclosing == AbstractConnector.class) || (enclosing == SelectorManager.class);
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public int getThreads() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return (permits.availablePermits() == 0) && (waiting.get() > 0);
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        this.stopped = new CountDownLatch(1);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        stopped.countDown();
+    }
+
+    private void runShed(Runnable job) {
+        // shed jobs don't need a permit; they're answered at once and their connections closed
+        BoundedQueuedThreadPool.markCurrentRequest(true);
+        try {
+            job.run();
+        } finally {
+            BoundedQueuedThreadPool.clearCurrentRequest();
+        }
+    }
+
+    private void runWithPermit(Runnable job, long queuedAt) {
+        waiting.incrementAndGet();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedJobs.mark();
+            LOGGER.warn("Interrupted while waiting to run {}; rejecting it", job);
+            return;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!isRunning()) {
+            // the pool stopped while this job was waiting, and a stopping job released its permit
+            permits.release();
+            rejectedJobs.mark();
+            LOGGER.warn("Stopped while waiting to run {}; rejecting it", job);
+            return;
+        }
+        try {
+            final long waited = clock.tick() - queuedAt;
+            queueWait.update(waited, TimeUnit.NANOSECONDS);
+            BoundedQueuedThreadPool.markCurrentRequest((maxQueueWait > 0) && (waited > maxQueueWait));
+            job.run();
+        } finally {
+            BoundedQueuedThreadPool.clearCurrentRequest();
+            permits.release();
+        }
+    }
+}
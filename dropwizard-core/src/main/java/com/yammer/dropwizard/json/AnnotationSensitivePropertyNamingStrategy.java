@@ -3,30 +3,57 @@ package com.yammer.dropwizard.json;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
 import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
 import com.fasterxml.jackson.databind.introspect.AnnotatedParameter;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
  * A {@link PropertyNamingStrategy} implementation which, if the declaring class of a property is
  * annotated with {@link JsonSnakeCase}, uses a {@link LowerCaseWithUnderscoresStrategy}, and uses
  * the default {@link PropertyNamingStrategy} otherwise.
+ * <p/>
+ * Whether or not a class is annotated, and the {@code snake_case} form of each name, are cached
+ * and shared by all instances, since Jackson asks for every property of every type each new
+ * {@link com.fasterxml.jackson.databind.ObjectMapper} serializes or deserializes.
  */
 public class AnnotationSensitivePropertyNamingStrategy extends PropertyNamingStrategy {
     private static final long serialVersionUID = -1372862028366311230L;
 
-    private final LowerCaseWithUnderscoresStrategy snakeCase;
+    private static final int MAX_CACHED_NAMES = 10000;
 
-    public AnnotationSensitivePropertyNamingStrategy() {
-        super();
-        this.snakeCase = new LowerCaseWithUnderscoresStrategy();
-    }
+    // weakly keyed, so as not to keep classes from being unloaded
+    private static final LoadingCache<Class<?>, Boolean> SNAKE_CASE_CLASSES =
+            CacheBuilder.newBuilder()
+                        .weakKeys()
+                        .build(new CacheLoader<Class<?>, Boolean>() {
+                            @Override
+                            public Boolean load(Class<?> klass) throws Exception {
+                                return klass.isAnnotationPresent(JsonSnakeCase.class);
+                            }
+                        });
+
+    private static final LoadingCache<String, String> SNAKE_CASE_NAMES =
+            CacheBuilder.newBuilder()
+                        .maximumSize(MAX_CACHED_NAMES)
+                        .build(new CacheLoader<String, String>() {
+                            private final LowerCaseWithUnderscoresStrategy snakeCase =
+                                    new LowerCaseWithUnderscoresStrategy();
+
+                            @Override
+                            public String load(String name) throws Exception {
+                                return snakeCase.translate(name);
+                            }
+                        });
 
     @Override
     public String nameForConstructorParameter(MapperConfig<?> config,
                                               AnnotatedParameter ctorParam,
                                               String defaultName) {
-        if (ctorParam.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
-            return snakeCase.nameForConstructorParameter(config, ctorParam, defaultName);
+        if (isSnakeCase(ctorParam)) {
+            return snakeCase(defaultName);
         }
         return super.nameForConstructorParameter(config, ctorParam, defaultName);
     }
@@ -35,8 +62,8 @@ public class AnnotationSensitivePropertyNamingStrategy extends PropertyNamingStr
     public String nameForField(MapperConfig<?> config,
                                AnnotatedField field,
                                String defaultName) {
-        if (field.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
-            return snakeCase.nameForField(config, field, defaultName);
+        if (isSnakeCase(field)) {
+            return snakeCase(defaultName);
         }
 
         return super.nameForField(config, field, defaultName);
@@ -46,8 +73,8 @@ public class AnnotationSensitivePropertyNamingStrategy extends PropertyNamingStr
     public String nameForGetterMethod(MapperConfig<?> config,
                                       AnnotatedMethod method,
                                       String defaultName) {
-        if (method.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
-            return snakeCase.nameForGetterMethod(config, method, defaultName);
+        if (isSnakeCase(method)) {
+            return snakeCase(defaultName);
         }
         return super.nameForGetterMethod(config, method, defaultName);
     }
@@ -56,9 +83,20 @@ public class AnnotationSensitivePropertyNamingStrategy extends PropertyNamingStr
     public String nameForSetterMethod(MapperConfig<?> config,
                                       AnnotatedMethod method,
                                       String defaultName) {
-        if (method.getDeclaringClass().isAnnotationPresent(JsonSnakeCase.class)) {
-            return snakeCase.nameForSetterMethod(config, method, defaultName);
+        if (isSnakeCase(method)) {
+            return snakeCase(defaultName);
         }
         return super.nameForSetterMethod(config, method, defaultName);
     }
+
+    private static boolean isSnakeCase(AnnotatedMember member) {
+        return SNAKE_CASE_CLASSES.getUnchecked(member.getDeclaringClass());
+    }
+
+    private static String snakeCase(String name) {
+        if (name == null) {
+            return null;
+        }
+        return SNAKE_CASE_NAMES.getUnchecked(name);
+    }
 }
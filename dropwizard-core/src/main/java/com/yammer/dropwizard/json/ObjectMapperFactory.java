@@ -18,6 +18,7 @@ import com.fasterxml.jackson.databind.ser.SerializerFactory;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -38,9 +39,20 @@ import java.util.TimeZone;
  *         classes annotated with {@link JsonSnakeCase}.</li>
  *     <li>Support Guava and Logback types.</li>
  * </ul>
+ *
+ * <p>If <a href="https://github.com/FasterXML/jackson-module-afterburner">Afterburner</a> is on the
+ * classpath, it can be {@link #setAfterburnerEnabled(boolean) enabled} to replace reflective
+ * property access and object creation with generated bytecode.</p>
  */
 @SuppressWarnings("UnusedDeclaration")
 public class ObjectMapperFactory {
+    // Afterburner is an optional dependency, so it's only referenced once it's enabled
+    private static class Afterburner {
+        private static Module createModule() {
+            return new AfterburnerModule();
+        }
+    }
+
     private final List<Module> modules;
     private final Map<MapperFeature, Boolean> mapperFeatures;
     private final Map<DeserializationFeature, Boolean> deserializationFeatures;
@@ -67,7 +79,7 @@ public class ObjectMapperFactory {
     private TimeZone timeZone;
     private TypeFactory typeFactory;
     private VisibilityChecker<?> visibilityChecker;
-
+    private boolean afterburnerEnabled;
 
     /**
      * Create a new ObjectMapperFactory.
@@ -229,6 +241,22 @@ public class ObjectMapperFactory {
         visibilityRules.put(accessor, visibility);
     }
 
+    public boolean isAfterburnerEnabled() {
+        return afterburnerEnabled;
+    }
+
+    /**
+     * If enabled, registers Jackson's Afterburner module with the mappers built by this factory,
+     * after all other modules. Afterburner generates bytecode to access the properties of and
+     * create beans, which is considerably cheaper than reflection. It must be on the classpath
+     * (as {@code com.fasterxml.jackson.module:jackson-module-afterburner}).
+     *
+     * @param afterburnerEnabled whether or not to use Afterburner
+     */
+    public void setAfterburnerEnabled(boolean afterburnerEnabled) {
+        this.afterburnerEnabled = afterburnerEnabled;
+    }
+
     public VisibilityChecker<?> getVisibilityChecker() {
         return visibilityChecker;
     }
@@ -495,6 +523,10 @@ public class ObjectMapperFactory {
             mapper.registerModule(module);
         }
 
+        if (afterburnerEnabled) {
+            mapper.registerModule(createAfterburnerModule());
+        }
+
         for (Map.Entry<MapperFeature, Boolean> entry : mapperFeatures.entrySet()) {
             mapper.configure(entry.getKey(), entry.getValue());
         }
@@ -637,7 +669,18 @@ public class ObjectMapperFactory {
         factory.subtypeResolver = subtypeResolver;
         factory.timeZone = timeZone;
         factory.visibilityChecker = visibilityChecker;
+        factory.afterburnerEnabled = afterburnerEnabled;
 
         return factory;
     }
+
+    private static Module createAfterburnerModule() {
+        try {
+            return Afterburner.createModule();
+        } catch (NoClassDefFoundError e) {
+            throw new IllegalStateException("Afterburner is enabled but " +
+                                                    "com.fasterxml.jackson.module.afterburner.AfterburnerModule" +
+                                                    " is not on the classpath", e);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package com.yammer.dropwizard.servlets;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.util.Deadline;
+import com.yammer.dropwizard.util.Duration;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * A servlet filter which gives each request a {@link Deadline}, from the number of milliseconds
+ * its caller passes in a header or else from a default timeout, for the duration of the request.
+ * <p/>
+ * Requests whose time has already run out are answered with a {@code 504 Gateway Timeout} without
+ * being served.
+ */
+public class DeadlineFilter implements Filter {
+    private final String header;
+    private final Optional<Duration> defaultTimeout;
+    private final Optional<Duration> maxTimeout;
+
+    /**
+     * Creates a new {@link DeadlineFilter}.
+     *
+     * @param header            the header holding the time the caller allows, in milliseconds
+     * @param defaultTimeout    the time allowed requests without the header, if any
+     * @param maxTimeout        the most time allowed any request, if any
+     */
+    public DeadlineFilter(String header, Optional<Duration> defaultTimeout, Optional<Duration> maxTimeout) {
+        this.header = header;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException { /* unused */ }
+
+    @Override
+    public void destroy() { /* unused */ }
+
+    @Override
+    public void doFilter(ServletRequest request,
+                         ServletResponse response,
+                         FilterChain chain) throws IOException, ServletException {
+        final Optional<Duration> timeout = timeout((HttpServletRequest) request);
+        if (!timeout.isPresent()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (timeout.get().getQuantity() <= 0) {
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+            return;
+        }
+
+        final Optional<Deadline> outer = Deadline.current();
+        Deadline.setCurrent(Deadline.after(timeout.get()));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (outer.isPresent()) {
+                Deadline.setCurrent(outer.get());
+            } else {
+                Deadline.clearCurrent();
+            }
+        }
+    }
+
+    private Optional<Duration> timeout(HttpServletRequest request) {
+        Optional<Duration> timeout = defaultTimeout;
+        final String value = request.getHeader(header);
+        if (value != null) {
+            try {
+                timeout = Optional.of(Duration.milliseconds(Long.parseLong(value.trim())));
+            } catch (NumberFormatException ignored) {
+                // fall back to the default
+            }
+        }
+        if (timeout.isPresent() && maxTimeout.isPresent() &&
+                (timeout.get().toNanoseconds() > maxTimeout.get().toNanoseconds())) {
+            return maxTimeout;
+        }
+        return timeout;
+    }
+}
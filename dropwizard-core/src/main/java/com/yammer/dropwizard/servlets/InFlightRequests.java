@@ -0,0 +1,95 @@
+package com.yammer.dropwizard.servlets;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A registry of the requests being served right now.
+ * <p/>
+ * Requests are tracked by their threads' {@link RequestDescriptor}s, each held in one of a fixed
+ * number of slots. A thread claims a slot with a single compare-and-set, starting at a slot picked
+ * by its ID so that concurrent threads rarely contend for the same one, and releases it with a
+ * plain write. If every slot is taken, the request is counted as untracked rather than waited for.
+ */
+public class InFlightRequests {
+    private final AtomicReferenceArray<RequestDescriptor> slots;
+    private final int mask;
+    private final AtomicLong untracked = new AtomicLong();
+
+    /**
+     * Creates a new {@link InFlightRequests} which can track at least the given number of
+     * concurrent requests.
+     *
+     * @param capacity    the number of concurrent requests to track
+     */
+    public InFlightRequests(int capacity) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        // at least twice as many slots as requests, so a free one is usually close by
+        final int size = Integer.highestOneBit(capacity * 4 - 1);
+        this.slots = new AtomicReferenceArray<RequestDescriptor>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Tracks the request described by the given descriptor until it's
+     * {@link #remove(int) removed}.
+     *
+     * @param descriptor    the current thread's descriptor
+     * @return the slot holding {@code descriptor}, or {@code -1} if every slot is taken
+     */
+    public int add(RequestDescriptor descriptor) {
+        final int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= mask; i++) {
+            final int slot = (start + i) & mask;
+            if ((slots.get(slot) == null) && slots.compareAndSet(slot, null, descriptor)) {
+                return slot;
+            }
+        }
+        untracked.incrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Stops tracking the request in the given slot.
+     *
+     * @param slot    a slot returned by {@link #add(RequestDescriptor)}
+     */
+    public void remove(int slot) {
+        if (slot >= 0) {
+            slots.lazySet(slot, null);
+        }
+    }
+
+    /**
+     * Returns snapshots of the tracked requests.
+     *
+     * @return the requests in progress
+     */
+    public ImmutableList<RequestDescriptor.Snapshot> getRequests() {
+        final ImmutableList.Builder<RequestDescriptor.Snapshot> requests = ImmutableList.builder();
+        for (int i = 0; i <= mask; i++) {
+            final RequestDescriptor descriptor = slots.get(i);
+            if (descriptor != null) {
+                final Optional<RequestDescriptor.Snapshot> snapshot = descriptor.snapshot();
+                if (snapshot.isPresent()) {
+                    requests.add(snapshot.get());
+                }
+            }
+        }
+        return requests.build();
+    }
+
+    /**
+     * Returns the number of requests which weren't tracked because every slot was taken.
+     *
+     * @return the number of untracked requests
+     */
+    public long getUntrackedCount() {
+        return untracked.get();
+    }
+}
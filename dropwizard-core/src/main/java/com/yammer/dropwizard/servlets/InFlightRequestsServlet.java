@@ -0,0 +1,122 @@
+package com.yammer.dropwizard.servlets;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.base.Optional;
+import com.google.common.collect.Ordering;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.MediaType;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A servlet which lists the requests in an {@link InFlightRequests} as JSON, oldest first, with
+ * the thread serving each and how long it has been running. Requests which have been running for
+ * longer than a threshold also include a sample of their threads' stack traces, taken as the list
+ * is written.
+ */
+public class InFlightRequestsServlet extends HttpServlet {
+    private static final long serialVersionUID = -4218533207367460541L;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Ordering<RequestDescriptor.Snapshot> OLDEST_FIRST = new Ordering<RequestDescriptor.Snapshot>() {
+        @Override
+        public int compare(RequestDescriptor.Snapshot left, RequestDescriptor.Snapshot right) {
+            // start times are nanoTime-style ticks, so compare their difference
+            final long diff = left.getStartTime() - right.getStartTime();
+            return (diff < 0) ? -1 : ((diff > 0) ? 1 : 0);
+        }
+    };
+
+    private final transient InFlightRequests requests;
+    private final transient Clock clock;
+    private final long stackTraceThreshold;
+
+    /**
+     * Creates a new {@link InFlightRequestsServlet}.
+     *
+     * @param requests               the requests to list
+     * @param stackTraceThreshold    how long a request must have been running for its stack
+     *                               trace to be included
+     */
+    public InFlightRequestsServlet(InFlightRequests requests, Duration stackTraceThreshold) {
+        this(requests, stackTraceThreshold, Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link InFlightRequestsServlet}.
+     *
+     * @param requests               the requests to list
+     * @param stackTraceThreshold    how long a request must have been running for its stack
+     *                               trace to be included
+     * @param clock                  the clock requests were timestamped with
+     */
+    public InFlightRequestsServlet(InFlightRequests requests, Duration stackTraceThreshold, Clock clock) {
+        this.requests = requests;
+        this.stackTraceThreshold = stackTraceThreshold.toNanoseconds();
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req,
+                         HttpServletResponse resp) throws ServletException, IOException {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(MediaType.APPLICATION_JSON);
+        resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+
+        final List<RequestDescriptor.Snapshot> inFlight = OLDEST_FIRST.sortedCopy(requests.getRequests());
+        final long now = clock.tick();
+
+        final JsonGenerator json = JSON_FACTORY.createJsonGenerator(resp.getOutputStream(), JsonEncoding.UTF8);
+        try {
+            if (Boolean.parseBoolean(req.getParameter("pretty"))) {
+                json.useDefaultPrettyPrinter();
+            }
+            json.writeStartObject();
+            json.writeNumberField("untracked", requests.getUntrackedCount());
+            json.writeArrayFieldStart("requests");
+            for (RequestDescriptor.Snapshot request : inFlight) {
+                final long elapsed = now - request.getStartTime();
+                json.writeStartObject();
+                json.writeStringField("thread", request.getThread().getName());
+                json.writeStringField("method", request.getMethod());
+                json.writeStringField("uri", request.getUri());
+                if (request.getQuery().isPresent()) {
+                    json.writeStringField("query", request.getQuery().get());
+                }
+                json.writeNumberField("elapsed", TimeUnit.NANOSECONDS.toMillis(elapsed));
+                if (elapsed >= stackTraceThreshold) {
+                    final StackTraceElement[] stackTrace = request.getThread().getStackTrace();
+                    if (isStillServing(request)) {
+                        json.writeArrayFieldStart("stackTrace");
+                        for (StackTraceElement element : stackTrace) {
+                            json.writeString(element.toString());
+                        }
+                        json.writeEndArray();
+                    }
+                }
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } finally {
+            json.close();
+        }
+    }
+
+    private static boolean isStillServing(RequestDescriptor.Snapshot request) {
+        final Optional<RequestDescriptor> descriptor = RequestDescriptor.forThread(request.getThread());
+        if (descriptor.isPresent()) {
+            final Optional<RequestDescriptor.Snapshot> current = descriptor.get().snapshot();
+            return current.isPresent() && (current.get().getStartTime() == request.getStartTime());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,201 @@
+package com.yammer.dropwizard.servlets;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A description of the request a thread is serving, which other threads can read.
+ * <p/>
+ * Each thread has a single descriptor which is updated in place as it begins and ends requests,
+ * so describing a request costs a handful of field writes rather than the string building and
+ * {@link Thread#setName(String)} calls of {@link ThreadNameFilter}. Readers such as thread dumps
+ * take a consistent {@link Snapshot} of it, retrying if the thread moves on to another request
+ * mid-read.
+ */
+public class RequestDescriptor {
+    /**
+     * An immutable copy of a {@link RequestDescriptor}.
+     */
+    public static class Snapshot {
+        private final Thread thread;
+        private final String method;
+        private final String uri;
+        private final String query;
+        private final long startTime;
+
+        private Snapshot(Thread thread, String method, String uri, String query, long startTime) {
+            this.thread = thread;
+            this.method = method;
+            this.uri = uri;
+            this.query = query;
+            this.startTime = startTime;
+        }
+
+        public Thread getThread() {
+            return thread;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public Optional<String> getQuery() {
+            return Optional.fromNullable(query);
+        }
+
+        /**
+         * Returns the time the request began, per {@link System#nanoTime()} or the clock of the
+         * code which began it.
+         *
+         * @return the time the request began, in nanoseconds
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public String toString() {
+            return method + ' ' + ((query == null) ? uri : uri + '?' + query);
+        }
+    }
+
+    private static final ConcurrentMap<Thread, RequestDescriptor> DESCRIPTORS =
+            new MapMaker().weakKeys().makeMap();
+
+    private static final ThreadLocal<RequestDescriptor> CURRENT = new ThreadLocal<RequestDescriptor>() {
+        @Override
+        protected RequestDescriptor initialValue() {
+            final RequestDescriptor descriptor = new RequestDescriptor(Thread.currentThread());
+            DESCRIPTORS.put(descriptor.thread, descriptor);
+            return descriptor;
+        }
+    };
+
+    /**
+     * Returns the descriptor of the current thread.
+     *
+     * @return the current thread's descriptor
+     */
+    public static RequestDescriptor current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the descriptor of the given thread, if it has ever served a request.
+     *
+     * @param thread    a thread
+     * @return {@code thread}'s descriptor, or {@link Optional#absent()}
+     */
+    public static Optional<RequestDescriptor> forThread(Thread thread) {
+        return Optional.fromNullable(DESCRIPTORS.get(thread));
+    }
+
+    /**
+     * Returns snapshots of the requests all threads are serving right now.
+     *
+     * @return the requests in progress
+     */
+    public static ImmutableList<Snapshot> inProgress() {
+        final ImmutableList.Builder<Snapshot> requests = ImmutableList.builder();
+        for (RequestDescriptor descriptor : DESCRIPTORS.values()) {
+            final Optional<Snapshot> snapshot = descriptor.snapshot();
+            if (snapshot.isPresent()) {
+                requests.add(snapshot.get());
+            }
+        }
+        return requests.build();
+    }
+
+    private final Thread thread;
+
+    // written only by the owning thread; odd while it's changing the fields below
+    private volatile long version;
+    private volatile String method;
+    private volatile String uri;
+    private volatile String query;
+    private volatile long startTime;
+
+    private RequestDescriptor(Thread thread) {
+        this.thread = thread;
+    }
+
+    /**
+     * Describes the request the current thread has begun serving. Must be called by the
+     * descriptor's own thread.
+     *
+     * @param method       the request method
+     * @param uri          the request URI, without the query string
+     * @param query        the query string, or {@code null}
+     * @param startTime    the time the request began, in nanoseconds
+     */
+    public void begin(String method, String uri, String query, long startTime) {
+        version++;
+        this.method = method;
+        this.uri = uri;
+        this.query = query;
+        this.startTime = startTime;
+        version++;
+    }
+
+    /**
+     * Marks the current thread as no longer serving a request. Must be called by the descriptor's
+     * own thread.
+     */
+    public void end() {
+        version++;
+        this.method = null;
+        this.uri = null;
+        this.query = null;
+        version++;
+    }
+
+    /**
+     * Returns {@code true} if the thread is serving a request.
+     *
+     * @return whether or not the thread is serving a request
+     */
+    public boolean isActive() {
+        return method != null;
+    }
+
+    /**
+     * Returns a consistent copy of the request the thread is serving, if any.
+     *
+     * @return the request in progress, or {@link Optional#absent()}
+     */
+    public Optional<Snapshot> snapshot() {
+        while (true) {
+            final long before = version;
+            if ((before & 1) == 0) {
+                final String currentMethod = method;
+                final String currentUri = uri;
+                final String currentQuery = query;
+                final long currentStartTime = startTime;
+                if (version == before) {
+                    if (currentMethod == null) {
+                        return Optional.absent();
+                    }
+                    return Optional.of(new Snapshot(thread, currentMethod, currentUri,
+                                                    currentQuery, currentStartTime));
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                      .add("thread", thread.getName())
+                      .add("request", snapshot().orNull())
+                      .toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.yammer.dropwizard.servlets;
+
+import com.google.common.base.Optional;
+import com.yammer.metrics.core.Clock;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * A servlet filter which records the request method and URI in the serving thread's
+ * {@link RequestDescriptor} for the duration of the request, optionally tracking it in an
+ * {@link InFlightRequests}.
+ */
+public class RequestDescriptorFilter implements Filter {
+    private final Optional<InFlightRequests> inFlight;
+    private final Clock clock;
+
+    /**
+     * Creates a new {@link RequestDescriptorFilter}.
+     */
+    public RequestDescriptorFilter() {
+        this(Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link RequestDescriptorFilter}.
+     *
+     * @param clock    the clock used to timestamp requests
+     */
+    public RequestDescriptorFilter(Clock clock) {
+        this(Optional.<InFlightRequests>absent(), clock);
+    }
+
+    /**
+     * Creates a new {@link RequestDescriptorFilter}.
+     *
+     * @param inFlight    the registry to track requests in, if any
+     * @param clock       the clock used to timestamp requests
+     */
+    public RequestDescriptorFilter(Optional<InFlightRequests> inFlight, Clock clock) {
+        this.inFlight = inFlight;
+        this.clock = clock;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException { /* unused */ }
+
+    @Override
+    public void destroy() { /* unused */ }
+
+    @Override
+    public void doFilter(ServletRequest request,
+                         ServletResponse response,
+                         FilterChain chain) throws IOException, ServletException {
+        final HttpServletRequest req = (HttpServletRequest) request;
+        final RequestDescriptor descriptor = RequestDescriptor.current();
+        if (descriptor.isActive()) {
+            // already described, e.g. by a filter on an enclosing context
+            chain.doFilter(request, response);
+            return;
+        }
+
+        descriptor.begin(req.getMethod(), req.getRequestURI(), req.getQueryString(), clock.tick());
+        final int slot = inFlight.isPresent() ? inFlight.get().add(descriptor) : -1;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (inFlight.isPresent()) {
+                inFlight.get().remove(slot);
+            }
+            descriptor.end();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.yammer.dropwizard.servlets;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.VirtualMachineMetrics;
+import com.yammer.metrics.reporting.ThreadDumpServlet;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Charsets.UTF_8;
+
+/**
+ * A {@link ThreadDumpServlet} which follows the thread dump with the requests each thread is
+ * serving, per its {@link RequestDescriptor}.
+ */
+public class RequestThreadDumpServlet extends ThreadDumpServlet {
+    private static final long serialVersionUID = -2690343532336103046L;
+
+    private final transient VirtualMachineMetrics vm;
+    private final transient Clock clock;
+
+    /**
+     * Creates a new {@link RequestThreadDumpServlet}.
+     */
+    public RequestThreadDumpServlet() {
+        this(VirtualMachineMetrics.getInstance(), Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link RequestThreadDumpServlet}.
+     *
+     * @param vm       the source of the thread dump
+     * @param clock    the clock requests were timestamped with
+     */
+    public RequestThreadDumpServlet(VirtualMachineMetrics vm, Clock clock) {
+        super(vm);
+        this.vm = vm;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req,
+                         HttpServletResponse resp) throws ServletException, IOException {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("text/plain");
+        resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+        final OutputStream output = resp.getOutputStream();
+        try {
+            vm.threadDump(output);
+
+            final PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, UTF_8));
+            writer.println("Requests in progress:");
+            final long now = clock.tick();
+            for (RequestDescriptor.Snapshot request : RequestDescriptor.inProgress()) {
+                writer.printf("    %s: %s (%dms)%n",
+                              request.getThread().getName(),
+                              request,
+                              TimeUnit.NANOSECONDS.toMillis(now - request.getStartTime()));
+            }
+            writer.flush();
+        } finally {
+            output.close();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.yammer.dropwizard.servlets;
 
+import com.google.common.base.Optional;
 import com.yammer.dropwizard.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,6 +15,9 @@ import static com.yammer.dropwizard.util.Servlets.getFullUrl;
 /**
  * A servlet filter which logs the methods and URIs of requests which take longer than a given
  * duration of time to complete.
+ * <p/>
+ * If the request has been described by a {@link RequestDescriptorFilter}, its duration is measured
+ * from the time it was described.
  */
 @SuppressWarnings("UnusedDeclaration")
 public class SlowRequestFilter implements Filter {
@@ -33,7 +37,7 @@ public class SlowRequestFilter implements Filter {
      * @param threshold    the threshold for considering a request slow
      */
     public SlowRequestFilter(Duration threshold) {
-        this.threshold = threshold.toNanoseconds();
+        this.threshold = threshold.toMilliseconds();
     }
 
     @Override
@@ -47,7 +51,8 @@ public class SlowRequestFilter implements Filter {
                          ServletResponse response,
                          FilterChain chain) throws IOException, ServletException {
         final HttpServletRequest req = (HttpServletRequest) request;
-        final long startTime = System.nanoTime();
+        final Optional<RequestDescriptor.Snapshot> described = RequestDescriptor.current().snapshot();
+        final long startTime = described.isPresent() ? described.get().getStartTime() : System.nanoTime();
         try {
             chain.doFilter(request, response);
         } finally {
@@ -9,6 +9,10 @@ import static com.yammer.dropwizard.util.Servlets.getFullUrl;
 /**
  * A servlet filter which adds the request method and URI to the thread name processing the request
  * for the duration of the request.
+ * <p/>
+ * Renaming a thread is relatively expensive, so this is only installed when
+ * {@code http.useRequestThreadNames} is enabled; {@link RequestDescriptorFilter} records the same
+ * information more cheaply.
  */
 public class ThreadNameFilter implements Filter {
     @Override
@@ -0,0 +1,119 @@
+package com.yammer.dropwizard.util;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.yammer.metrics.core.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which a request must be answered.
+ * <p/>
+ * The deadline of the request being served on the current thread is available via
+ * {@link #current()}, so that database queries and outbound HTTP calls made on its behalf can be
+ * given no more time than the request has left.
+ */
+public class Deadline {
+    /**
+     * The default header in which the time a request has left, in milliseconds, is passed between
+     * services.
+     */
+    public static final String DEFAULT_HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+    /**
+     * Returns the deadline of the request being served on the current thread, if it has one.
+     *
+     * @return the current deadline, or {@link Optional#absent()}
+     */
+    public static Optional<Deadline> current() {
+        return Optional.fromNullable(CURRENT.get());
+    }
+
+    /**
+     * Sets the deadline of the request being served on the current thread. Callers must
+     * {@link #clearCurrent() clear it} once the request has been served.
+     *
+     * @param deadline    the current request's deadline
+     */
+    public static void setCurrent(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    /**
+     * Clears the deadline of the request being served on the current thread.
+     */
+    public static void clearCurrent() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns a deadline the given amount of time from now.
+     *
+     * @param timeout    the time until the deadline
+     * @return a new {@link Deadline}
+     */
+    public static Deadline after(Duration timeout) {
+        return after(timeout, Clock.defaultClock());
+    }
+
+    /**
+     * Returns a deadline the given amount of time from now, per the given clock.
+     *
+     * @param timeout    the time until the deadline
+     * @param clock      the clock to measure the time left with
+     * @return a new {@link Deadline}
+     */
+    public static Deadline after(Duration timeout, Clock clock) {
+        return new Deadline(clock.tick() + timeout.toNanoseconds(), clock);
+    }
+
+    private final long expiresAt;
+    private final Clock clock;
+
+    private Deadline(long expiresAt, Clock clock) {
+        this.expiresAt = expiresAt;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the time left until the deadline, which is zero once it has passed.
+     *
+     * @param unit    the unit of the result
+     * @return the time left, in {@code unit}, rounded down
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, expiresAt - clock.tick()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the whole seconds left until the deadline, rounded up, for APIs such as
+     * {@link java.sql.Statement#setQueryTimeout(int)} which treat zero as no limit.
+     *
+     * @return the seconds left, or zero if the deadline has passed
+     */
+    public int remainingSeconds() {
+        final long nanos = expiresAt - clock.tick();
+        if (nanos <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns {@code true} if the deadline has passed.
+     *
+     * @return whether or not the deadline has passed
+     */
+    public boolean isExpired() {
+        return expiresAt - clock.tick() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                      .add("remaining", remaining(TimeUnit.MILLISECONDS) + "ms")
+                      .toString();
+    }
+}
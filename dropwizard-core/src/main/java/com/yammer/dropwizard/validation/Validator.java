@@ -18,14 +18,14 @@ import static java.lang.String.format;
  * A simple façade for Hibernate Validator.
  */
 public class Validator {
-    private final ValidatorFactory factory;
+    private final javax.validation.Validator validator;
 
     public Validator() {
         this(Validation.buildDefaultValidatorFactory());
     }
 
     public Validator(ValidatorFactory factory) {
-        this.factory = factory;
+        this.validator = factory.getValidator();
     }
 
     /**
@@ -50,7 +50,7 @@ public class Validator {
     */
     public <T> ImmutableList<String> validate(T o, Class<?>... groups) {
         final Set<String> errors = Sets.newHashSet();
-        final Set<ConstraintViolation<T>> violations = factory.getValidator().validate(o,groups);
+        final Set<ConstraintViolation<T>> violations = validator.validate(o, groups);
         for (ConstraintViolation<T> v : violations) {
             if (v.getConstraintDescriptor().getAnnotation() instanceof ValidationMethod) {
                 final ImmutableList<Path.Node> nodes = ImmutableList.copyOf(v.getPropertyPath());
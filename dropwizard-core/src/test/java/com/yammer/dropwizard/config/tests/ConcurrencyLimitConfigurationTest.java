@@ -0,0 +1,70 @@
+package com.yammer.dropwizard.config.tests;
+
+import com.google.common.io.Resources;
+import com.yammer.dropwizard.config.ConcurrencyLimitConfiguration;
+import com.yammer.dropwizard.config.ConfigurationFactory;
+import com.yammer.dropwizard.validation.Validator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class ConcurrencyLimitConfigurationTest {
+    private ConcurrencyLimitConfiguration limit;
+
+    @Before
+    public void setUp() throws Exception {
+        this.limit = ConfigurationFactory.forClass(ConcurrencyLimitConfiguration.class,
+                                                   new Validator())
+                                         .build(new File(Resources.getResource("yaml/concurrencyLimit.yml").toURI()));
+    }
+
+    @Test
+    public void canBeEnabled() throws Exception {
+        assertThat(limit.isEnabled())
+                .isTrue();
+
+        assertThat(new ConcurrencyLimitConfiguration().isEnabled())
+                .isFalse();
+    }
+
+    @Test
+    public void hasLimits() throws Exception {
+        assertThat(limit.getInitialLimit())
+                .isEqualTo(50);
+
+        assertThat(limit.getMinLimit())
+                .isEqualTo(10);
+
+        assertThat(limit.getMaxLimit())
+                .isEqualTo(200);
+    }
+
+    @Test
+    public void hasAWindowSize() throws Exception {
+        assertThat(limit.getWindowSize())
+                .isEqualTo(25);
+    }
+
+    @Test
+    public void hasALatencyTolerance() throws Exception {
+        assertThat(limit.getLatencyTolerance())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    public void hasASmoothingFactor() throws Exception {
+        assertThat(limit.getSmoothing())
+                .isEqualTo(0.5);
+    }
+
+    @Test
+    public void requiresTheInitialLimitToBeWithinBounds() throws Exception {
+        limit.setInitialLimit(5);
+
+        assertThat(limit.isLimitOrdered())
+                .isFalse();
+    }
+}
@@ -5,6 +5,7 @@ import com.google.common.io.Resources;
 import com.yammer.dropwizard.config.ConfigurationException;
 import com.yammer.dropwizard.config.ConfigurationFactory;
 import com.yammer.dropwizard.validation.Validator;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -12,6 +13,7 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Locale;
 
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -24,9 +26,36 @@ public class ConfigurationFactoryTest {
         @Pattern(regexp = "[\\w]+[\\s]+[\\w]+")
         private String name;
 
+        private Address address;
+
+        private List<String> tags;
+
         public String getName() {
             return name;
         }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+
+    @SuppressWarnings("UnusedDeclaration")
+    public static class Address {
+        private String city;
+
+        private String zip;
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getZip() {
+            return zip;
+        }
     }
 
     private final Validator validator = new Validator();
@@ -35,12 +64,25 @@ public class ConfigurationFactoryTest {
     private File malformedFile;
     private File invalidFile;
     private File validFile;
+    private File nestedFile;
+    private File emptyFile;
 
     @Before
     public void setUp() throws Exception {
         this.malformedFile = new File(Resources.getResource("factory-test-malformed.yml").toURI());
         this.invalidFile = new File(Resources.getResource("factory-test-invalid.yml").toURI());
         this.validFile = new File(Resources.getResource("factory-test-valid.yml").toURI());
+        this.nestedFile = new File(Resources.getResource("factory-test-nested.yml").toURI());
+        this.emptyFile = new File(Resources.getResource("empty.yml").toURI());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("dw.")) {
+                System.clearProperty(name);
+            }
+        }
     }
 
     @Test
@@ -73,4 +115,107 @@ public class ConfigurationFactoryTest {
             }
         }
     }
+
+    @Test
+    public void overridesExistingValues() throws Exception {
+        System.setProperty("dw.name", "Dropwizard Hale");
+
+        assertThat(factory.build(validFile).getName())
+                .isEqualTo("Dropwizard Hale");
+    }
+
+    @Test
+    public void overridesNestedValues() throws Exception {
+        System.setProperty("dw.address.city", "Oakland");
+        final Example example = factory.build(nestedFile);
+
+        assertThat(example.getAddress().getCity())
+                .isEqualTo("Oakland");
+
+        assertThat(example.getAddress().getZip())
+                .isEqualTo("94107");
+
+        assertThat(example.getTags())
+                .containsExactly("one", "two");
+    }
+
+    @Test
+    public void addsMissingValues() throws Exception {
+        System.setProperty("dw.address.zip", "94612");
+        final Example example = factory.build(nestedFile);
+
+        assertThat(example.getAddress().getCity())
+                .isEqualTo("San Francisco");
+
+        assertThat(example.getAddress().getZip())
+                .isEqualTo("94612");
+    }
+
+    @Test
+    public void addsMissingObjects() throws Exception {
+        System.setProperty("dw.address.city", "Oakland");
+        final Example example = factory.build(validFile);
+
+        assertThat(example.getName())
+                .isEqualTo("Coda Hale");
+
+        assertThat(example.getAddress().getCity())
+                .isEqualTo("Oakland");
+    }
+
+    @Test
+    public void appliesOverridesToTheDefaultConfiguration() throws Exception {
+        System.setProperty("dw.name", "Coda Hale");
+        System.setProperty("dw.address.city", "Oakland");
+        final Example example = factory.build();
+
+        assertThat(example.getName())
+                .isEqualTo("Coda Hale");
+
+        assertThat(example.getAddress().getCity())
+                .isEqualTo("Oakland");
+    }
+
+    @Test
+    public void appliesOverridesToEmptyFiles() throws Exception {
+        System.setProperty("dw.name", "Coda Hale");
+
+        assertThat(factory.build(emptyFile).getName())
+                .isEqualTo("Coda Hale");
+    }
+
+    @Test
+    public void validatesEmptyFiles() throws Exception {
+        try {
+            factory.build(emptyFile);
+            failBecauseExceptionWasNotThrown(ConfigurationException.class);
+        } catch (ConfigurationException e) {
+            assertThat(e.getMessage())
+                    .contains("empty.yml has the following errors");
+        }
+    }
+
+    @Test
+    public void throwsAnExceptionOnOverridesThroughValues() throws Exception {
+        System.setProperty("dw.name.first", "Coda");
+        try {
+            factory.build(validFile);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("Unable to override name.first; it's not a valid path.");
+        }
+    }
+
+    @Test
+    public void throwsAnExceptionOnOverridesThroughArrays() throws Exception {
+        System.setProperty("dw.tags.first", "zero");
+        try {
+            factory.build(nestedFile);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("Unable to override tags.first; it's not a valid path.");
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package com.yammer.dropwizard.config.tests;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
 import com.yammer.dropwizard.config.Configuration;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.json.ObjectMapperFactory;
@@ -7,6 +11,9 @@ import com.yammer.dropwizard.validation.Validator;
 import org.junit.Test;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
+import javax.ws.rs.core.MediaType;
+
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 public class EnvironmentTest {
@@ -32,4 +39,25 @@ public class EnvironmentTest {
                         mock(ObjectMapperFactory.class),
                         new Validator()).scanPackagesForResourcesAndProviders((Class<?>[]) null);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void addsJacksonFormats() {
+        final Environment environment = new Environment("",
+                                                        mock(Configuration.class),
+                                                        mock(ObjectMapperFactory.class),
+                                                        new Validator());
+        final MediaType mediaType = new MediaType("application", "x-yaml");
+        final Supplier<JsonFactory> factories = new Supplier<JsonFactory>() {
+            @Override
+            public JsonFactory get() {
+                return new YAMLFactory();
+            }
+        };
+
+        environment.addJacksonFormat(mediaType, factories);
+
+        assertThat(environment.getJacksonFormats())
+                .isEqualTo(ImmutableMap.<MediaType, Supplier<? extends JsonFactory>>of(mediaType, factories));
+    }
 }
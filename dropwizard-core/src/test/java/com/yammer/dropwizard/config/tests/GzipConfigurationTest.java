@@ -1,9 +1,11 @@
 package com.yammer.dropwizard.config.tests;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Resources;
 import com.yammer.dropwizard.config.ConfigurationFactory;
 import com.yammer.dropwizard.config.GzipConfiguration;
+import com.yammer.dropwizard.jetty.ContentEncoding;
 import com.yammer.dropwizard.util.Size;
 import com.yammer.dropwizard.validation.Validator;
 import org.junit.Before;
@@ -52,4 +54,28 @@ public class GzipConfigurationTest {
         assertThat(gzip.getCompressedMimeTypes())
                 .isEqualTo(ImmutableSet.of("text/plain"));
     }
+
+    @Test
+    public void hasEncodings() throws Exception {
+        assertThat(gzip.getEncodings())
+                .isEqualTo(ImmutableList.of(ContentEncoding.DEFLATE, ContentEncoding.GZIP));
+    }
+
+    @Test
+    public void hasACompressionLevel() throws Exception {
+        assertThat(gzip.getCompressionLevel())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void hasACompressionStrategy() throws Exception {
+        assertThat(gzip.getCompressionStrategy())
+                .isEqualTo(GzipConfiguration.CompressionStrategy.HUFFMAN_ONLY);
+    }
+
+    @Test
+    public void hasACodecPoolSize() throws Exception {
+        assertThat(gzip.getCodecPoolSize())
+                .isEqualTo(8);
+    }
 }
@@ -1,10 +1,12 @@
 package com.yammer.dropwizard.config.tests;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Resources;
 import com.yammer.dropwizard.config.ConfigurationFactory;
 import com.yammer.dropwizard.config.HttpConfiguration;
+import com.yammer.dropwizard.config.RequestClassConfiguration;
 import com.yammer.dropwizard.util.Duration;
 import com.yammer.dropwizard.util.Size;
 import com.yammer.dropwizard.validation.Validator;
@@ -61,6 +63,99 @@ public class HttpConfigurationTest {
                 .isEqualTo(89);
     }
 
+    @Test
+    public void hasAThreadType() throws Exception {
+        assertThat(http.getThreadType())
+                .isEqualTo(HttpConfiguration.ThreadType.VIRTUAL);
+
+        assertThat(new HttpConfiguration().getThreadType())
+                .isEqualTo(HttpConfiguration.ThreadType.PLATFORM);
+    }
+
+    @Test
+    public void hasAMaximumNumberOfQueuedRequests() throws Exception {
+        assertThat(http.getMaxQueuedRequests())
+                .isEqualTo(Optional.of(500));
+    }
+
+    @Test
+    public void hasAMaximumQueueWait() throws Exception {
+        assertThat(http.getMaxQueueWait())
+                .isEqualTo(Optional.of(Duration.milliseconds(250)));
+    }
+
+    @Test
+    public void hasALoadSheddingRetryAfter() throws Exception {
+        assertThat(http.getLoadSheddingRetryAfter())
+                .isEqualTo(Duration.seconds(3));
+    }
+
+    @Test
+    public void shedsLoadWhenTheQueueIsBounded() throws Exception {
+        assertThat(http.isLoadSheddingEnabled())
+                .isTrue();
+
+        assertThat(new HttpConfiguration().isLoadSheddingEnabled())
+                .isFalse();
+    }
+
+    @Test
+    public void hasRequestClasses() throws Exception {
+        assertThat(http.getRequestClasses())
+                .hasSize(1);
+
+        final RequestClassConfiguration batch = http.getRequestClasses().get(0);
+
+        assertThat(batch.getName())
+                .isEqualTo("batch");
+
+        assertThat(batch.getPathPrefix())
+                .isEqualTo(Optional.of("/batch/"));
+
+        assertThat(batch.getHeader())
+                .isEqualTo(Optional.of("X-Batch"));
+
+        assertThat(batch.getHeaderValue())
+                .isEqualTo(Optional.<String>absent());
+
+        assertThat(batch.getMaxConcurrency())
+                .isEqualTo(16);
+
+        assertThat(batch.getMaxQueued())
+                .isEqualTo(4);
+
+        assertThat(batch.getMaxQueueWait())
+                .isEqualTo(Optional.of(Duration.milliseconds(100)));
+    }
+
+    @Test
+    public void requiresUniqueRequestClassNames() throws Exception {
+        final RequestClassConfiguration other = new RequestClassConfiguration();
+        other.setName("batch");
+        http.setRequestClasses(ImmutableList.of(http.getRequestClasses().get(0), other));
+
+        assertThat(http.isRequestClassNamesUnique())
+                .isFalse();
+    }
+
+    @Test
+    public void hasRequestTimeouts() throws Exception {
+        assertThat(http.getRequestTimeoutHeader())
+                .isEqualTo("X-Budget");
+
+        assertThat(http.getDefaultRequestTimeout())
+                .isEqualTo(Optional.of(Duration.seconds(2)));
+
+        assertThat(http.getMaxRequestTimeout())
+                .isEqualTo(Optional.of(Duration.seconds(30)));
+    }
+
+    @Test
+    public void hasAnInFlightStackTraceThreshold() throws Exception {
+        assertThat(http.getInFlightStackTraceThreshold())
+                .isEqualTo(Duration.milliseconds(500));
+    }
+
     @Test
     public void hasARootPath() throws Exception {
         assertThat(http.getRootPath())
@@ -127,6 +222,12 @@ public class HttpConfigurationTest {
                 .isEqualTo(Size.kilobytes(19));
     }
 
+    @Test
+    public void hasAStreamingFlushInterval() throws Exception {
+        assertThat(http.getStreamingFlushInterval())
+                .isEqualTo(Size.kilobytes(20));
+    }
+
     @Test
     public void canReuseAddresses() throws Exception {
         assertThat(http.isReuseAddressEnabled())
@@ -181,6 +282,15 @@ public class HttpConfigurationTest {
                 .isFalse();
     }
 
+    @Test
+    public void canUseRequestThreadNames() throws Exception {
+        assertThat(http.useRequestThreadNames())
+                .isTrue();
+
+        assertThat(new HttpConfiguration().useRequestThreadNames())
+                .isFalse();
+    }
+
     @Test
     public void hasABindHost() throws Exception {
         assertThat(http.getBindHost())
@@ -0,0 +1,36 @@
+package com.yammer.dropwizard.config.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.yammer.dropwizard.config.RequestClassConfiguration;
+import com.yammer.dropwizard.validation.Validator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class RequestClassConfigurationTest {
+    private final Validator validator = new Validator();
+    private final RequestClassConfiguration requestClass = new RequestClassConfiguration();
+
+    @Before
+    public void setUp() throws Exception {
+        requestClass.setName("batch");
+    }
+
+    @Test
+    public void allowsAHeaderWithAValue() throws Exception {
+        requestClass.setHeader("X-Batch");
+        requestClass.setHeaderValue("true");
+
+        assertThat(validator.validate(requestClass))
+                .isEmpty();
+    }
+
+    @Test
+    public void requiresAHeaderForAHeaderValue() throws Exception {
+        requestClass.setHeaderValue("true");
+
+        assertThat(validator.validate(requestClass))
+                .isEqualTo(ImmutableList.of("must have a header if it has a headerValue"));
+    }
+}
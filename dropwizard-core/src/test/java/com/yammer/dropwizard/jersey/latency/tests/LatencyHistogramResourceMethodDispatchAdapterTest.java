@@ -0,0 +1,117 @@
+package com.yammer.dropwizard.jersey.latency.tests;
+
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.test.framework.AppDescriptor;
+import com.sun.jersey.test.framework.JerseyTest;
+import com.sun.jersey.test.framework.LowLevelAppDescriptor;
+import com.yammer.dropwizard.jersey.DropwizardResourceConfig;
+import com.yammer.dropwizard.jersey.latency.LatencyHistogramResourceMethodDispatchAdapter;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class LatencyHistogramResourceMethodDispatchAdapterTest extends JerseyTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    @Path("/test/")
+    @Produces(MediaType.TEXT_PLAIN)
+    public static class ExampleResource {
+        @GET
+        @Path("/found")
+        public String showFound() {
+            return "found";
+        }
+
+        @GET
+        @Path("/missing")
+        public String showMissing() {
+            throw new WebApplicationException(404);
+        }
+    }
+
+    private static class ManualClock extends Clock {
+        private final AtomicLong ticks = new AtomicLong();
+
+        @Override
+        public long tick() {
+            return ticks.get();
+        }
+    }
+
+    // configure() is called by JerseyTest's constructor, before any instance fields are set
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+    private static final ManualClock CLOCK = new ManualClock();
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected AppDescriptor configure() {
+        final DropwizardResourceConfig config = new DropwizardResourceConfig(true);
+        config.getSingletons().add(new LatencyHistogramResourceMethodDispatchAdapter(REGISTRY, CLOCK));
+        config.getSingletons().add(new ExampleResource());
+        return new LowLevelAppDescriptor.Builder(config).build();
+    }
+
+    @Test
+    public void recordsTheLatencyOfSuccessfulRequests() throws Exception {
+        client().resource("/test/found").get(String.class);
+        client().resource("/test/found").get(String.class);
+
+        final Map<String, Object> latency = latency("showFound", "2xx");
+
+        assertThat(latency.get("count"))
+                .isEqualTo(2L);
+
+        assertThat(latency)
+                .containsKey("p999");
+    }
+
+    @Test
+    public void recordsTheLatencyOfFailedRequestsSeparately() throws Exception {
+        assertThat(client().resource("/test/missing").get(ClientResponse.class).getStatus())
+                .isEqualTo(404);
+
+        assertThat(latency("showMissing", "4xx").get("count"))
+                .isEqualTo(1L);
+
+        assertThat(REGISTRY.allMetrics().containsKey(name("showMissing", "2xx")))
+                .isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> latency(String method, String scope) {
+        // the gauges report the last complete minute
+        CLOCK.ticks.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        final Metric metric = REGISTRY.allMetrics().get(name(method, scope));
+        assertThat(metric)
+                .isInstanceOf(Gauge.class);
+        return ((Gauge<Map<String, Object>>) metric).value();
+    }
+
+    private static MetricName name(String method, String scope) {
+        return new MetricName(ExampleResource.class, method + "-latency", scope);
+    }
+}
@@ -0,0 +1,172 @@
+package com.yammer.dropwizard.jersey.latency.tests;
+
+import com.yammer.dropwizard.jersey.latency.LatencyHistogram;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.offset;
+
+public class LatencyHistogramTest {
+    private static class ManualClock extends Clock {
+        private final AtomicLong ticks = new AtomicLong();
+
+        @Override
+        public long tick() {
+            return ticks.get();
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private final LatencyHistogram histogram = new LatencyHistogram(clock,
+                                                                    Duration.minutes(1),
+                                                                    Duration.minutes(35));
+
+    @Test
+    public void isEmptyByDefault() throws Exception {
+        final LatencyHistogram.Snapshot snapshot = snapshot();
+
+        assertThat(snapshot.getCount())
+                .isZero();
+
+        assertThat(snapshot.getMean(TimeUnit.MICROSECONDS))
+                .isEqualTo(0.0);
+
+        assertThat(snapshot.getValue(0.99, TimeUnit.MICROSECONDS))
+                .isEqualTo(0.0);
+    }
+
+    @Test
+    public void recordsSmallValuesExactly() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            histogram.update(i, TimeUnit.MICROSECONDS);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = snapshot();
+
+        assertThat(snapshot.getCount())
+                .isEqualTo(100);
+
+        assertThat(snapshot.getValue(0.5, TimeUnit.MICROSECONDS))
+                .isEqualTo(50.0);
+
+        assertThat(snapshot.getValue(0.99, TimeUnit.MICROSECONDS))
+                .isEqualTo(99.0);
+
+        assertThat(snapshot.getMax(TimeUnit.MICROSECONDS))
+                .isEqualTo(100.0);
+
+        assertThat(snapshot.getMean(TimeUnit.MICROSECONDS))
+                .isEqualTo(50.5);
+    }
+
+    @Test
+    public void recordsLargeValuesWithinOnePercent() throws Exception {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.update(i, TimeUnit.MILLISECONDS);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = snapshot();
+
+        assertThat(snapshot.getValue(0.5, TimeUnit.MILLISECONDS))
+                .isEqualTo(500.0, offset(5.0));
+
+        assertThat(snapshot.getValue(0.99, TimeUnit.MILLISECONDS))
+                .isEqualTo(990.0, offset(9.9));
+
+        assertThat(snapshot.getValue(0.999, TimeUnit.MILLISECONDS))
+                .isEqualTo(999.0, offset(9.99));
+
+        assertThat(snapshot.getMax(TimeUnit.MILLISECONDS))
+                .isEqualTo(1000.0);
+    }
+
+    @Test
+    public void findsTheTailOfSkewedDistributions() throws Exception {
+        for (int i = 0; i < 999; i++) {
+            histogram.update(1, TimeUnit.MILLISECONDS);
+        }
+        histogram.update(2, TimeUnit.SECONDS);
+
+        final LatencyHistogram.Snapshot snapshot = snapshot();
+
+        assertThat(snapshot.getValue(0.99, TimeUnit.MILLISECONDS))
+                .isEqualTo(1.0, offset(0.01));
+
+        assertThat(snapshot.getValue(1.0, TimeUnit.MILLISECONDS))
+                .isEqualTo(2000.0);
+    }
+
+    @Test
+    public void clampsVeryLongDurations() throws Exception {
+        histogram.update(2, TimeUnit.DAYS);
+
+        assertThat(snapshot().getMax(TimeUnit.MINUTES))
+                .isEqualTo(35.0);
+    }
+
+    @Test
+    public void reportsTheLastCompleteInterval() throws Exception {
+        histogram.update(5, TimeUnit.SECONDS);
+        clock.ticks.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        histogram.update(10, TimeUnit.MILLISECONDS);
+
+        // the slow request was in the last complete interval
+        assertThat(histogram.getSnapshot().getMax(TimeUnit.MILLISECONDS))
+                .isEqualTo(5000.0);
+
+        clock.ticks.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertThat(histogram.getSnapshot().getMax(TimeUnit.MILLISECONDS))
+                .isEqualTo(10.0);
+
+        assertThat(histogram.getCount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void reportsAnEmptyIntervalIfNothingWasRecorded() throws Exception {
+        histogram.update(5, TimeUnit.SECONDS);
+        clock.ticks.addAndGet(TimeUnit.MINUTES.toNanos(3));
+
+        assertThat(histogram.getSnapshot().getCount())
+                .isZero();
+    }
+
+    @Test
+    public void clearsIntervalsBeforeReusingThem() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            histogram.update(5, TimeUnit.SECONDS);
+            clock.ticks.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        }
+        clock.ticks.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        histogram.update(10, TimeUnit.MILLISECONDS);
+
+        final LatencyHistogram.Snapshot snapshot = snapshot();
+
+        assertThat(snapshot.getCount())
+                .isEqualTo(1);
+
+        assertThat(snapshot.getMax(TimeUnit.MILLISECONDS))
+                .isEqualTo(10.0);
+    }
+
+    @Test
+    public void sizesItsBucketsToTheHighestTrackableLatency() throws Exception {
+        final LatencyHistogram oneSecond = new LatencyHistogram(clock, Duration.minutes(1), Duration.seconds(1));
+        oneSecond.update(5, TimeUnit.SECONDS);
+        clock.ticks.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+        assertThat(oneSecond.getSnapshot().getValue(1.0, TimeUnit.MILLISECONDS))
+                .isEqualTo(1000.0);
+    }
+
+    private LatencyHistogram.Snapshot snapshot() {
+        clock.ticks.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        return histogram.getSnapshot();
+    }
+}
@@ -0,0 +1,168 @@
+package com.yammer.dropwizard.jersey.scheduling.tests;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.test.framework.AppDescriptor;
+import com.sun.jersey.test.framework.JerseyTest;
+import com.sun.jersey.test.framework.LowLevelAppDescriptor;
+import com.yammer.dropwizard.jersey.DropwizardResourceConfig;
+import com.yammer.dropwizard.jersey.scheduling.InRequestClass;
+import com.yammer.dropwizard.jersey.scheduling.RequestClassResourceMethodDispatchAdapter;
+import com.yammer.dropwizard.jetty.RequestClass;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class RequestClassResourceMethodDispatchAdapterTest extends JerseyTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    @Path("/test/")
+    @Produces(MediaType.TEXT_PLAIN)
+    public static class ExampleResource {
+        @GET
+        @Path("/batch")
+        @InRequestClass("batch")
+        public String showBatch() {
+            return "batch";
+        }
+
+        @GET
+        @Path("/streaming")
+        @InRequestClass("batch")
+        public StreamingOutput showStreaming() {
+            return new StreamingOutput() {
+                @Override
+                public void write(OutputStream output) throws IOException {
+                    try {
+                        if (BATCH.acquire()) {
+                            BATCH.release();
+                            output.write("released".getBytes("UTF-8"));
+                        } else {
+                            output.write("held".getBytes("UTF-8"));
+                        }
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+            };
+        }
+
+        @GET
+        @Path("/interactive")
+        public String showInteractive() {
+            return "interactive";
+        }
+    }
+
+    @Path("/batch/")
+    @Produces(MediaType.TEXT_PLAIN)
+    @InRequestClass("batch")
+    public static class BatchResource {
+        @GET
+        public String show() {
+            return "batch";
+        }
+    }
+
+    // configure() is called by JerseyTest's constructor, before any instance fields are set
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+    private static final RequestClass BATCH = new RequestClass(REGISTRY,
+                                                               Clock.defaultClock(),
+                                                               "batch",
+                                                               Predicates.<HttpServletRequest>alwaysFalse(),
+                                                               1,
+                                                               0,
+                                                               Optional.<Duration>absent());
+
+    // registered as a class rather than a singleton, since the in-memory test container copies
+    // provider singletons into its client, which can't inject a CloseableService
+    public static class BatchAdapter extends RequestClassResourceMethodDispatchAdapter {
+        public BatchAdapter() {
+            super(ImmutableList.of(BATCH), Duration.seconds(3));
+        }
+    }
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @Override
+    protected AppDescriptor configure() {
+        final DropwizardResourceConfig config = new DropwizardResourceConfig(true);
+        config.getClasses().add(BatchAdapter.class);
+        config.getSingletons().add(new ExampleResource());
+        config.getSingletons().add(new BatchResource());
+        return new LowLevelAppDescriptor.Builder(config).build();
+    }
+
+    @Test
+    public void servesAnnotatedMethodsWithinTheirClass() throws Exception {
+        assertThat(client().resource("/test/batch").get(String.class))
+                .isEqualTo("batch");
+
+        BATCH.acquire();
+        try {
+            final ClientResponse response = client().resource("/test/batch").get(ClientResponse.class);
+
+            assertThat(response.getStatus())
+                    .isEqualTo(503);
+
+            assertThat(response.getHeaders().getFirst("Retry-After"))
+                    .isEqualTo("3");
+        } finally {
+            BATCH.release();
+        }
+    }
+
+    @Test
+    public void servesMethodsOfAnnotatedClassesWithinTheirClass() throws Exception {
+        BATCH.acquire();
+        try {
+            assertThat(client().resource("/batch").get(ClientResponse.class).getStatus())
+                    .isEqualTo(503);
+        } finally {
+            BATCH.release();
+        }
+    }
+
+    @Test
+    public void holdsTheTurnUntilTheResponseIsWritten() throws Exception {
+        assertThat(client().resource("/test/streaming").get(String.class))
+                .isEqualTo("held");
+
+        assertThat(client().resource("/test/batch").get(String.class))
+                .isEqualTo("batch");
+    }
+
+    @Test
+    public void leavesOtherMethodsAlone() throws Exception {
+        BATCH.acquire();
+        try {
+            assertThat(client().resource("/test/interactive").get(String.class))
+                    .isEqualTo("interactive");
+        } finally {
+            BATCH.release();
+        }
+    }
+}
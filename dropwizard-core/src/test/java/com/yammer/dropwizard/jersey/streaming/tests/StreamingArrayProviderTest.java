@@ -0,0 +1,205 @@
+package com.yammer.dropwizard.jersey.streaming.tests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.sun.jersey.core.util.StringKeyObjectValueIgnoreCaseMultivaluedMap;
+import com.yammer.dropwizard.jersey.streaming.StreamingArray;
+import com.yammer.dropwizard.jersey.streaming.StreamingArrayProvider;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.util.Size;
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class StreamingArrayProviderTest {
+    private static final Annotation[] NONE = new Annotation[0];
+
+    public static class Example {
+        @JsonProperty
+        int id;
+
+        @JsonProperty
+        String text;
+
+        public Example(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    public abstract static class Shape {
+    }
+
+    public static class Square extends Shape {
+        @JsonProperty
+        int side = 2;
+    }
+
+    private static class CloseableIterator implements Iterator<String>, Closeable {
+        private final Iterator<String> elements = ImmutableList.of("one", "two").iterator();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        @Override
+        public boolean hasNext() {
+            return elements.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return elements.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed.set(true);
+        }
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() throws IOException {
+            super.flush();
+            flushes++;
+        }
+    }
+
+    private final StreamingArrayProvider provider = provider(Size.kilobytes(16));
+
+    @Test
+    public void writesStreamingArrays() throws Exception {
+        assertThat(provider.isWriteable(StreamingArray.class, null, NONE, MediaType.APPLICATION_JSON_TYPE))
+                .isTrue();
+
+        assertThat(provider.isWriteable(List.class, null, NONE, MediaType.APPLICATION_JSON_TYPE))
+                .isFalse();
+    }
+
+    @Test
+    public void writesElementsAsAJsonArray() throws Exception {
+        final StreamingArray<Example> array = new StreamingArray<Example>() {
+            @Override
+            public void produce(Sink<? super Example> sink) throws Exception {
+                sink.write(new Example(1, "one"));
+                sink.write(new Example(2, "two"));
+            }
+        };
+
+        assertThat(write(provider, array).toString())
+                .isEqualTo("[{\"id\":1,\"text\":\"one\"},{\"id\":2,\"text\":\"two\"}]");
+    }
+
+    @Test
+    public void writesElementsAsTheDeclaredElementType() throws Exception {
+        final ObjectMapper mapper = new ObjectMapperFactory().build();
+        mapper.enableDefaultTyping(ObjectMapper.DefaultTyping.OBJECT_AND_NON_CONCRETE);
+        final StreamingArrayProvider typing = new StreamingArrayProvider(mapper, Size.kilobytes(16));
+
+        final StreamingArray<Shape> array = new StreamingArray<Shape>() {
+            @Override
+            public void produce(Sink<? super Shape> sink) throws Exception {
+                sink.write(new Square());
+            }
+        };
+
+        // only the abstract declared type carries type information
+        assertThat(write(typing, array).toString())
+                .isEqualTo("[[\"" + Square.class.getName() + "\",{\"side\":2}]]");
+    }
+
+    @Test
+    public void writesEmptyArrays() throws Exception {
+        assertThat(write(provider, StreamingArray.of(Iterators.emptyIterator())).toString())
+                .isEqualTo("[]");
+    }
+
+    @Test
+    public void closesCloseableIterators() throws Exception {
+        final CloseableIterator elements = new CloseableIterator();
+
+        assertThat(write(provider, StreamingArray.of(elements)).toString())
+                .isEqualTo("[\"one\",\"two\"]");
+
+        assertThat(elements.closed.get())
+                .isTrue();
+    }
+
+    @Test
+    public void flushesAtTheGivenInterval() throws Exception {
+        final List<Example> examples = Lists.newArrayList();
+        for (int i = 0; i < 1000; i++) {
+            examples.add(new Example(i, Strings.repeat("x", 100)));
+        }
+
+        final FlushCountingOutputStream rarely = write(provider(Size.megabytes(1)),
+                                                       StreamingArray.of(examples.iterator()));
+        final FlushCountingOutputStream often = write(provider(Size.kilobytes(16)),
+                                                      StreamingArray.of(examples.iterator()));
+
+        // only the final flush
+        assertThat(rarely.flushes)
+                .isEqualTo(1);
+
+        // about 110KB of elements
+        assertThat(often.flushes)
+                .isGreaterThanOrEqualTo(6);
+
+        assertThat(often.toString())
+                .isEqualTo(rarely.toString());
+    }
+
+    @Test
+    public void wrapsCheckedExceptions() throws Exception {
+        final Exception cause = new Exception("nope");
+        try {
+            write(provider, new StreamingArray<Object>() {
+                @Override
+                public void produce(Sink<? super Object> sink) throws Exception {
+                    throw cause;
+                }
+            });
+            failBecauseExceptionWasNotThrown(WebApplicationException.class);
+        } catch (WebApplicationException e) {
+            assertThat(e.getCause())
+                    .isSameAs(cause);
+        }
+    }
+
+    private static StreamingArrayProvider provider(Size flushInterval) {
+        return new StreamingArrayProvider(new ObjectMapperFactory().build(), flushInterval);
+    }
+
+    private static FlushCountingOutputStream write(StreamingArrayProvider provider,
+                                                   StreamingArray<?> array) throws IOException {
+        final FlushCountingOutputStream output = new FlushCountingOutputStream();
+        provider.writeTo(array,
+                         array.getClass(),
+                         array.getClass(),
+                         NONE,
+                         MediaType.APPLICATION_JSON_TYPE,
+                         new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                         output);
+        return output;
+    }
+}
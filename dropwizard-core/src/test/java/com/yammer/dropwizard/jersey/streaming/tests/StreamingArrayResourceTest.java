@@ -0,0 +1,60 @@
+package com.yammer.dropwizard.jersey.streaming.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.test.framework.AppDescriptor;
+import com.sun.jersey.test.framework.JerseyTest;
+import com.sun.jersey.test.framework.LowLevelAppDescriptor;
+import com.yammer.dropwizard.jersey.DropwizardResourceConfig;
+import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
+import com.yammer.dropwizard.jersey.streaming.StreamingArray;
+import com.yammer.dropwizard.jersey.streaming.StreamingArrayProvider;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.util.Size;
+import com.yammer.dropwizard.validation.Validator;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class StreamingArrayResourceTest extends JerseyTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    @Path("/names/")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class ExampleResource {
+        @GET
+        public StreamingArray<String> list() {
+            return StreamingArray.of(ImmutableList.of("Coda", "Kris").iterator());
+        }
+    }
+
+    @Override
+    protected AppDescriptor configure() {
+        final ObjectMapperFactory factory = new ObjectMapperFactory();
+        final DropwizardResourceConfig config = new DropwizardResourceConfig(true);
+        config.getSingletons().add(new JacksonMessageBodyProvider(factory.build(), new Validator()));
+        config.getSingletons().add(new StreamingArrayProvider(factory.build(), Size.kilobytes(16)));
+        config.getSingletons().add(new ExampleResource());
+        return new LowLevelAppDescriptor.Builder(config).build();
+    }
+
+    @Test
+    public void streamsReturnedArrays() throws Exception {
+        final ClientResponse response = client().resource("/names").get(ClientResponse.class);
+
+        assertThat(response.getType())
+                .isEqualTo(MediaType.APPLICATION_JSON_TYPE);
+
+        assertThat(response.getEntity(String.class))
+                .isEqualTo("[\"Coda\",\"Kris\"]");
+    }
+}
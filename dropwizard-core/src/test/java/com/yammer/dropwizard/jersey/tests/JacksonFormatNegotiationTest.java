@@ -0,0 +1,123 @@
+package com.yammer.dropwizard.jersey.tests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.test.framework.AppDescriptor;
+import com.sun.jersey.test.framework.JerseyTest;
+import com.sun.jersey.test.framework.LowLevelAppDescriptor;
+import com.yammer.dropwizard.jersey.DropwizardResourceConfig;
+import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.validation.InvalidEntityException;
+import com.yammer.dropwizard.validation.Validator;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class JacksonFormatNegotiationTest extends JerseyTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    private static final String YAML = "application/x-yaml";
+
+    public static class Example {
+        @Min(0)
+        @JsonProperty
+        int id;
+    }
+
+    @Path("/example/")
+    @Produces({ MediaType.APPLICATION_JSON, YAML })
+    @Consumes({ MediaType.APPLICATION_JSON, YAML })
+    public static class ExampleResource {
+        @GET
+        public Example show() {
+            final Example example = new Example();
+            example.id = 500;
+            return example;
+        }
+
+        @POST
+        public Example echo(@Valid Example example) {
+            return example;
+        }
+    }
+
+    // InvalidEntityExceptionMapper needs a servlet request, which the in-memory container lacks
+    public static class ExampleExceptionMapper implements ExceptionMapper<InvalidEntityException> {
+        @Override
+        public Response toResponse(InvalidEntityException exception) {
+            return Response.status(422).build();
+        }
+    }
+
+    @Override
+    protected AppDescriptor configure() {
+        final ObjectMapperFactory factory = new ObjectMapperFactory();
+        final DropwizardResourceConfig config = new DropwizardResourceConfig(true);
+        config.getSingletons().add(new JacksonMessageBodyProvider(factory.build(), new Validator()));
+        config.getSingletons().add(new JacksonMessageBodyProvider(factory.build(new YAMLFactory()),
+                                                                  new Validator(),
+                                                                  MediaType.valueOf(YAML)));
+        config.getSingletons().add(new ExampleExceptionMapper());
+        config.getSingletons().add(new ExampleResource());
+        return new LowLevelAppDescriptor.Builder(config).build();
+    }
+
+    @Test
+    public void writesTheAcceptedFormat() throws Exception {
+        final ClientResponse json = client().resource("/example")
+                                            .accept(MediaType.APPLICATION_JSON)
+                                            .get(ClientResponse.class);
+
+        assertThat(json.getType())
+                .isEqualTo(MediaType.APPLICATION_JSON_TYPE);
+
+        assertThat(json.getEntity(String.class))
+                .isEqualTo("{\"id\":500}");
+
+        final ClientResponse yaml = client().resource("/example")
+                                            .accept(YAML + ", " + MediaType.APPLICATION_JSON + ";q=0.9")
+                                            .get(ClientResponse.class);
+
+        assertThat(yaml.getType())
+                .isEqualTo(MediaType.valueOf(YAML));
+
+        assertThat(yaml.getEntity(String.class))
+                .contains("id: 500");
+    }
+
+    @Test
+    public void readsAndValidatesTheGivenFormat() throws Exception {
+        final ClientResponse valid = client().resource("/example")
+                                             .type(YAML)
+                                             .accept(MediaType.APPLICATION_JSON)
+                                             .post(ClientResponse.class, "id: 1\n");
+
+        assertThat(valid.getEntity(String.class))
+                .isEqualTo("{\"id\":1}");
+
+        final ClientResponse invalid = client().resource("/example")
+                                               .type(YAML)
+                                               .accept(MediaType.APPLICATION_JSON)
+                                               .post(ClientResponse.class, "id: -1\n");
+
+        assertThat(invalid.getStatus())
+                .isEqualTo(422);
+    }
+}
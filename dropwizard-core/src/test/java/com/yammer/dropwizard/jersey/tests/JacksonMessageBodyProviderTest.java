@@ -4,9 +4,14 @@ import com.fasterxml.jackson.annotation.JsonIgnoreType;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.collect.ImmutableList;
 import com.sun.jersey.core.util.MultivaluedMapImpl;
 import com.sun.jersey.core.util.StringKeyObjectValueIgnoreCaseMultivaluedMap;
 import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
+import com.yammer.dropwizard.jersey.caching.CacheSerialized;
+import com.yammer.dropwizard.jersey.caching.CacheableEntity;
 import com.yammer.dropwizard.json.ObjectMapperFactory;
 import com.yammer.dropwizard.validation.InvalidEntityException;
 import com.yammer.dropwizard.validation.Validated;
@@ -17,10 +22,14 @@ import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
@@ -49,6 +58,43 @@ public class JacksonMessageBodyProviderTest {
         String text;
     }
 
+    public static class VersionedExample implements CacheableEntity {
+        @JsonProperty
+        int id;
+
+        @JsonProperty
+        int version;
+
+        @JsonProperty
+        String text;
+
+        @Override
+        public Object getCacheKey() {
+            return id + ":" + version;
+        }
+    }
+
+    public static class OtherVersionedExample implements CacheableEntity {
+        @JsonProperty
+        String name;
+
+        @Override
+        public Object getCacheKey() {
+            return "1:2";
+        }
+    }
+
+    public static class ExampleResource {
+        @CacheSerialized
+        public Example show() {
+            return new Example();
+        }
+
+        public List<Example> list() {
+            return ImmutableList.of();
+        }
+    }
+
     @JsonIgnoreType
     public static interface Ignorable {
 
@@ -59,6 +105,8 @@ public class JacksonMessageBodyProviderTest {
 
     }
 
+    private static final MediaType YAML_TYPE = new MediaType("application", "x-yaml");
+
     private final ObjectMapper mapper = spy(new ObjectMapperFactory().build());
     private final JacksonMessageBodyProvider provider = new JacksonMessageBodyProvider(mapper,
                                                                                        new Validator());
@@ -99,6 +147,18 @@ public class JacksonMessageBodyProviderTest {
                 .isTrue();
     }
 
+    @Test
+    public void doesNotReadOrWriteOtherMediaTypes() throws Exception {
+        assertThat(provider.isReadable(Example.class, null, null, MediaType.TEXT_PLAIN_TYPE))
+                .isFalse();
+
+        assertThat(provider.isWriteable(Example.class, null, null, MediaType.TEXT_PLAIN_TYPE))
+                .isFalse();
+
+        assertThat(provider.isWriteable(Example.class, null, null, MediaType.APPLICATION_JSON_TYPE))
+                .isTrue();
+    }
+
     @Test
     public void isChunked() throws Exception {
         assertThat(provider.getSize(null, null, null, null, null))
@@ -275,4 +335,265 @@ public class JacksonMessageBodyProviderTest {
         assertThat(output.toString())
                 .isEqualTo("{\"id\":500}");
     }
+
+    @Test
+    public void cachesTheSerializedFormOfEntitiesFromAnnotatedMethods() throws Exception {
+        final Annotation[] annotations = ExampleResource.class.getMethod("show").getAnnotations();
+
+        final Example example = new Example();
+        example.id = 500;
+
+        final MultivaluedMap<String, Object> headers = new StringKeyObjectValueIgnoreCaseMultivaluedMap();
+        assertThat(write(example, annotations, headers))
+                .isEqualTo("{\"id\":500}");
+
+        final EntityTag entityTag = (EntityTag) headers.getFirst("ETag");
+        assertThat(entityTag.isWeak())
+                .isFalse();
+
+        // the cache is keyed by identity, so the change goes unnoticed
+        example.id = 501;
+
+        final MultivaluedMap<String, Object> cachedHeaders = new StringKeyObjectValueIgnoreCaseMultivaluedMap();
+        assertThat(write(example, annotations, cachedHeaders))
+                .isEqualTo("{\"id\":500}");
+
+        assertThat(cachedHeaders.getFirst("ETag"))
+                .isEqualTo(entityTag);
+    }
+
+    @Test
+    public void cachesTheSerializedFormOfCacheableEntitiesByKey() throws Exception {
+        final VersionedExample example = new VersionedExample();
+        example.id = 1;
+        example.version = 2;
+        example.text = "two";
+
+        assertThat(write(example, NONE, new StringKeyObjectValueIgnoreCaseMultivaluedMap()))
+                .isEqualTo("{\"id\":1,\"version\":2,\"text\":\"two\"}");
+
+        // a copy with the same key is assumed to be identical
+        final VersionedExample copy = new VersionedExample();
+        copy.id = 1;
+        copy.version = 2;
+        copy.text = "changed";
+
+        assertThat(write(copy, NONE, new StringKeyObjectValueIgnoreCaseMultivaluedMap()))
+                .isEqualTo("{\"id\":1,\"version\":2,\"text\":\"two\"}");
+
+        copy.version = 3;
+
+        assertThat(write(copy, NONE, new StringKeyObjectValueIgnoreCaseMultivaluedMap()))
+                .isEqualTo("{\"id\":1,\"version\":3,\"text\":\"changed\"}");
+    }
+
+    @Test
+    public void cachesCacheableEntitiesOfDifferentClassesSeparately() throws Exception {
+        final VersionedExample example = new VersionedExample();
+        example.id = 1;
+        example.version = 2;
+        example.text = "two";
+        write(example, NONE, new StringKeyObjectValueIgnoreCaseMultivaluedMap());
+
+        // the keys are equal, but the classes aren't
+        final OtherVersionedExample other = new OtherVersionedExample();
+        other.name = "other";
+
+        assertThat(write(other, NONE, new StringKeyObjectValueIgnoreCaseMultivaluedMap()))
+                .isEqualTo("{\"name\":\"other\"}");
+    }
+
+    @Test
+    public void doesNotCacheOtherEntities() throws Exception {
+        final Example example = new Example();
+        example.id = 500;
+
+        final MultivaluedMap<String, Object> headers = new StringKeyObjectValueIgnoreCaseMultivaluedMap();
+        write(example, NONE, headers);
+
+        example.id = 501;
+
+        assertThat(write(example, NONE, headers))
+                .isEqualTo("{\"id\":501}");
+
+        assertThat(headers.containsKey("ETag"))
+                .isFalse();
+    }
+
+    private String write(Object entity,
+                         Annotation[] annotations,
+                         MultivaluedMap<String, Object> headers) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        provider.writeTo(entity,
+                         entity.getClass(),
+                         entity.getClass(),
+                         annotations,
+                         MediaType.APPLICATION_JSON_TYPE,
+                         headers,
+                         output);
+        return output.toString();
+    }
+
+    @Test
+    public void preparesReadersAndWritersOncePerEndpoint() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            provider.readFrom((Class<Object>) (Class<?>) Example.class,
+                              Example.class,
+                              NONE,
+                              MediaType.APPLICATION_JSON_TYPE,
+                              new MultivaluedMapImpl(),
+                              new ByteArrayInputStream("{\"id\":1}".getBytes()));
+
+            write(new Example(), NONE, new StringKeyObjectValueIgnoreCaseMultivaluedMap());
+        }
+
+        verify(mapper, times(1)).reader();
+        verify(mapper, times(1)).writer();
+    }
+
+    @Test
+    public void preparesWritersForEachMediaType() throws Exception {
+        final ObjectMapper indenting = new ObjectMapperFactory().build();
+        indenting.enable(SerializationFeature.INDENT_OUTPUT);
+        final MediaType pretty = new MediaType("application", "vnd.example+json");
+        final JacksonMessageBodyProvider resolving = new JacksonMessageBodyProvider(mapper,
+                                                                                    new Validator()) {
+            @Override
+            public ObjectMapper locateMapper(Class<?> type, MediaType mediaType) {
+                return pretty.equals(mediaType) ? indenting : super.locateMapper(type, mediaType);
+            }
+        };
+
+        final Example example = new Example();
+        example.id = 500;
+
+        final ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        resolving.writeTo(example,
+                          Example.class,
+                          Example.class,
+                          NONE,
+                          MediaType.APPLICATION_JSON_TYPE,
+                          new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                          compact);
+
+        final ByteArrayOutputStream indented = new ByteArrayOutputStream();
+        resolving.writeTo(example,
+                          Example.class,
+                          Example.class,
+                          NONE,
+                          pretty,
+                          new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                          indented);
+
+        assertThat(compact.toString())
+                .isEqualTo("{\"id\":500}");
+
+        assertThat(indented.toString())
+                .isNotEqualTo(compact.toString())
+                .contains("\"id\" : 500");
+    }
+
+    @Test
+    public void readsAndWritesGenericEntities() throws Exception {
+        final Type listType = ExampleResource.class.getMethod("list").getGenericReturnType();
+
+        final Object entities = provider.readFrom((Class<Object>) (Class<?>) List.class,
+                                                  listType,
+                                                  NONE,
+                                                  MediaType.APPLICATION_JSON_TYPE,
+                                                  new MultivaluedMapImpl(),
+                                                  new ByteArrayInputStream("[{\"id\":1}]".getBytes()));
+
+        assertThat((List<Object>) entities)
+                .hasSize(1);
+
+        assertThat(((List<Object>) entities).get(0))
+                .isInstanceOf(Example.class);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        provider.writeTo(entities,
+                         entities.getClass(),
+                         listType,
+                         NONE,
+                         MediaType.APPLICATION_JSON_TYPE,
+                         new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                         output);
+
+        assertThat(output.toString())
+                .isEqualTo("[{\"id\":1}]");
+    }
+
+    @Test
+    public void readsAndWritesOtherJacksonFormats() throws Exception {
+        final JacksonMessageBodyProvider yaml =
+                new JacksonMessageBodyProvider(new ObjectMapperFactory().build(new YAMLFactory()),
+                                               new Validator(),
+                                               YAML_TYPE);
+
+        assertThat(yaml.isReadable(Example.class, null, NONE, YAML_TYPE))
+                .isTrue();
+
+        assertThat(yaml.isWriteable(Example.class, null, NONE, YAML_TYPE))
+                .isTrue();
+
+        assertThat(yaml.isReadable(Example.class, null, NONE, MediaType.APPLICATION_JSON_TYPE))
+                .isFalse();
+
+        assertThat(yaml.isWriteable(Example.class, null, NONE, MediaType.APPLICATION_JSON_TYPE))
+                .isFalse();
+
+        assertThat(provider.isWriteable(Example.class, null, NONE, YAML_TYPE))
+                .isFalse();
+
+        assertThat(yaml.isWriteable(Example.class, null, NONE, MediaType.WILDCARD_TYPE))
+                .isFalse();
+
+        assertThat(yaml.isWriteable(Example.class, null, NONE, null))
+                .isFalse();
+
+        final Object obj = yaml.readFrom((Class<Object>) (Class<?>) Example.class,
+                                         Example.class,
+                                         NONE,
+                                         YAML_TYPE,
+                                         new MultivaluedMapImpl(),
+                                         new ByteArrayInputStream("id: 1\n".getBytes()));
+
+        assertThat(((Example) obj).id)
+                .isEqualTo(1);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        yaml.writeTo(obj,
+                     Example.class,
+                     Example.class,
+                     NONE,
+                     YAML_TYPE,
+                     new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                     output);
+
+        assertThat(output.toString())
+                .contains("id: 1");
+    }
+
+    @Test
+    public void validatesEntitiesInOtherJacksonFormats() throws Exception {
+        final JacksonMessageBodyProvider yaml =
+                new JacksonMessageBodyProvider(new ObjectMapperFactory().build(new YAMLFactory()),
+                                               new Validator(),
+                                               YAML_TYPE);
+        final Annotation valid = mock(Annotation.class);
+        doReturn(Valid.class).when(valid).annotationType();
+
+        try {
+            yaml.readFrom((Class<Object>) (Class<?>) Example.class,
+                          Example.class,
+                          new Annotation[]{ valid },
+                          YAML_TYPE,
+                          new MultivaluedMapImpl(),
+                          new ByteArrayInputStream("id: -1\n".getBytes()));
+            failBecauseExceptionWasNotThrown(InvalidEntityException.class);
+        } catch (InvalidEntityException e) {
+            assertThat(e.getErrors())
+                    .containsOnly("id must be greater than or equal to 0 (was -1)");
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package com.yammer.dropwizard.jersey.tests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.test.framework.AppDescriptor;
+import com.sun.jersey.test.framework.JerseyTest;
+import com.sun.jersey.test.framework.LowLevelAppDescriptor;
+import com.yammer.dropwizard.jersey.DropwizardResourceConfig;
+import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
+import com.yammer.dropwizard.jersey.caching.CacheSerialized;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.validation.Validator;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class SerializedEntityTagTest extends JerseyTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    public static class Example {
+        @JsonProperty
+        int id = 500;
+    }
+
+    @Path("/example/")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class ExampleResource {
+        private final Example example = new Example();
+
+        @GET
+        @CacheSerialized
+        public Example show() {
+            return example;
+        }
+    }
+
+    @Override
+    protected AppDescriptor configure() {
+        final DropwizardResourceConfig config = new DropwizardResourceConfig(true);
+        config.getSingletons().add(new JacksonMessageBodyProvider(new ObjectMapperFactory().build(),
+                                                                  new Validator()));
+        config.getSingletons().add(new ExampleResource());
+        return new LowLevelAppDescriptor.Builder(config).build();
+    }
+
+    @Test
+    public void answersMatchingConditionalRequestsWithNotModified() throws Exception {
+        final ClientResponse response = client().resource("/example").get(ClientResponse.class);
+        final String entityTag = response.getHeaders().getFirst("ETag");
+
+        assertThat(response.getEntity(String.class))
+                .isEqualTo("{\"id\":500}");
+
+        final ClientResponse conditional = client().resource("/example")
+                                                   .header("If-None-Match", entityTag)
+                                                   .get(ClientResponse.class);
+
+        assertThat(conditional.getStatus())
+                .isEqualTo(304);
+
+        assertThat(conditional.getEntity(String.class))
+                .isEmpty();
+    }
+
+    @Test
+    public void servesTheEntityIfTheTagDoesNotMatch() throws Exception {
+        final ClientResponse response = client().resource("/example")
+                                                .header("If-None-Match", "\"nope\"")
+                                                .get(ClientResponse.class);
+
+        assertThat(response.getStatus())
+                .isEqualTo(200);
+
+        assertThat(response.getEntity(String.class))
+                .isEqualTo("{\"id\":500}");
+    }
+}
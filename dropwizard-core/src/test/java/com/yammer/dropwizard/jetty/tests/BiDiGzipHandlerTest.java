@@ -0,0 +1,244 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import com.yammer.dropwizard.jetty.BiDiGzipHandler;
+import com.yammer.dropwizard.jetty.ContentEncoding;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class BiDiGzipHandlerTest {
+    private static final String ENTITY = Strings.repeat("Hello, world! ", 1000);
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final CountDownLatch flushedEntityRead = new CountDownLatch(1);
+    private final AtomicBoolean readBeforeResponseEnded = new AtomicBoolean();
+    private final Server server = new Server();
+    private final SelectChannelConnector connector = new SelectChannelConnector();
+    private final BiDiGzipHandler handler = new BiDiGzipHandler(registry, Clock.defaultClock(), new AbstractHandler() {
+        @Override
+        public void handle(String target,
+                           Request baseRequest,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+            baseRequest.setHandled(true);
+            response.setContentType("text/plain");
+            if (request.getHeader("X-Flush") != null) {
+                response.getOutputStream().write(ENTITY.getBytes(Charsets.ISO_8859_1));
+                response.getOutputStream().flush();
+                try {
+                    readBeforeResponseEnded.set(flushedEntityRead.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                response.getOutputStream().write('!');
+                return;
+            }
+            final String entity = "POST".equals(request.getMethod()) ?
+                    CharStreams.toString(request.getReader()) : ENTITY;
+            response.getWriter().print(entity);
+        }
+    });
+
+    @Before
+    public void setUp() throws Exception {
+        connector.setPort(0);
+        server.addConnector(connector);
+        handler.setEncodings(ImmutableList.of(ContentEncoding.GZIP, ContentEncoding.DEFLATE));
+        server.setHandler(handler);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        registry.shutdown();
+    }
+
+    @Test
+    public void compressesResponsesWithGzip() throws Exception {
+        final HttpURLConnection connection = get("gzip");
+
+        assertThat(connection.getHeaderField("Content-Encoding"))
+                .isEqualTo("gzip");
+
+        assertThat(read(new GZIPInputStream(connection.getInputStream())))
+                .isEqualTo(ENTITY);
+    }
+
+    @Test
+    public void compressesResponsesWithDeflate() throws Exception {
+        final HttpURLConnection connection = get("deflate");
+
+        assertThat(connection.getHeaderField("Content-Encoding"))
+                .isEqualTo("deflate");
+
+        assertThat(read(new InflaterInputStream(connection.getInputStream())))
+                .isEqualTo(ENTITY);
+    }
+
+    @Test
+    public void prefersTheFirstConfiguredEncoding() throws Exception {
+        assertThat(get("deflate, gzip").getHeaderField("Content-Encoding"))
+                .isEqualTo("gzip");
+
+        assertThat(get("*;q=1, gzip;q=0").getHeaderField("Content-Encoding"))
+                .isEqualTo("deflate");
+    }
+
+    @Test
+    public void doesNotCompressResponsesInUnacceptableEncodings() throws Exception {
+        final HttpURLConnection connection = get("br, gzip;q=0");
+
+        assertThat(connection.getHeaderField("Content-Encoding"))
+                .isNull();
+
+        assertThat(read(connection.getInputStream()))
+                .isEqualTo(ENTITY);
+    }
+
+    @Test
+    public void decompressesGzipRequests() throws Exception {
+        final ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        final GZIPOutputStream output = new GZIPOutputStream(entity);
+        output.write(ENTITY.getBytes(Charsets.UTF_8));
+        output.close();
+
+        assertThat(post("gzip", entity.toByteArray()))
+                .isEqualTo(ENTITY);
+    }
+
+    @Test
+    public void decompressesDeflateRequests() throws Exception {
+        final ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        final DeflaterOutputStream output = new DeflaterOutputStream(entity);
+        output.write(ENTITY.getBytes(Charsets.UTF_8));
+        output.close();
+
+        assertThat(post("deflate", entity.toByteArray()))
+                .isEqualTo(ENTITY);
+    }
+
+    @Test
+    public void passesRequestsInUnconfiguredEncodingsAsIs() throws Exception {
+        server.stop();
+        handler.setEncodings(ImmutableList.of(ContentEncoding.GZIP));
+        server.start();
+
+        final ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        final DeflaterOutputStream output = new DeflaterOutputStream(entity);
+        output.write(ENTITY.getBytes(Charsets.UTF_8));
+        output.close();
+
+        assertThat(post("deflate", entity.toByteArray()))
+                .isNotEqualTo(ENTITY);
+    }
+
+    @Test
+    public void sendsEverythingWrittenWhenFlushed() throws Exception {
+        final HttpURLConnection connection = get("gzip");
+        connection.setRequestProperty("X-Flush", "true");
+        final DataInputStream input = new DataInputStream(new GZIPInputStream(connection.getInputStream()));
+        final byte[] flushed = new byte[ENTITY.length()];
+        input.readFully(flushed);
+        flushedEntityRead.countDown();
+
+        assertThat(new String(flushed, Charsets.ISO_8859_1))
+                .isEqualTo(ENTITY);
+
+        assertThat(read(input))
+                .isEqualTo("!");
+
+        assertThat(readBeforeResponseEnded.get())
+                .isTrue();
+    }
+
+    @Test
+    public void measuresCompression() throws Exception {
+        read(new GZIPInputStream(get("gzip").getInputStream()));
+
+        final Timer compressionTime = (Timer) registry.allMetrics()
+                                                      .get(metric("compression-time", "gzip"));
+        final Histogram ratio = (Histogram) registry.allMetrics()
+                                                    .get(metric("compression-ratio", "gzip"));
+        // the metrics are updated after the response has been sent
+        for (int i = 0; (i < 100) && (ratio.count() == 0); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(compressionTime.count())
+                .isEqualTo(1);
+
+        assertThat(ratio.count())
+                .isEqualTo(1);
+        // the entity is highly repetitive
+        assertThat(ratio.max())
+                .isLessThan(10);
+    }
+
+    private HttpURLConnection get(String acceptEncoding) throws IOException {
+        final HttpURLConnection connection = open();
+        connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        return connection;
+    }
+
+    private String post(String contentEncoding, byte[] entity) throws IOException {
+        final HttpURLConnection connection = open();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "text/plain; charset=UTF-8");
+        connection.setRequestProperty("Content-Encoding", contentEncoding);
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        connection.setDoOutput(true);
+        final OutputStream output = connection.getOutputStream();
+        output.write(entity);
+        output.close();
+        return read(connection.getInputStream());
+    }
+
+    private HttpURLConnection open() throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + connector.getLocalPort() + '/').openConnection();
+    }
+
+    private static MetricName metric(String name, String scope) {
+        return new MetricName(BiDiGzipHandler.class, name, scope);
+    }
+
+    private static String read(InputStream input) throws IOException {
+        try {
+            return new String(ByteStreams.toByteArray(input), Charsets.ISO_8859_1);
+        } finally {
+            input.close();
+        }
+    }
+}
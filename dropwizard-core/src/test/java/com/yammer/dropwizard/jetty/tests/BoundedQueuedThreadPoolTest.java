@@ -0,0 +1,196 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.yammer.dropwizard.jetty.BoundedQueuedThreadPool;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class BoundedQueuedThreadPoolTest {
+    private static class ManualClock extends Clock {
+        private final AtomicLong ticks = new AtomicLong();
+
+        @Override
+        public long tick() {
+            return ticks.get();
+        }
+    }
+
+    private class RecordingJob implements Runnable {
+        private final String name;
+
+        private RecordingJob(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            runs.add(name + (BoundedQueuedThreadPool.shouldShedCurrentRequest() ? ":shed" : ":ok"));
+            finished.countDown();
+        }
+    }
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final ManualClock clock = new ManualClock();
+    private final List<String> runs = Collections.synchronizedList(Lists.<String>newArrayList());
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CountDownLatch finished;
+    private BoundedQueuedThreadPool pool;
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (pool != null) {
+            pool.stop();
+        }
+        registry.shutdown();
+    }
+
+    @Test
+    public void runsJobsNormallyWhenTheQueueIsShort() throws Exception {
+        start(2, Optional.<Duration>absent());
+        finished = new CountDownLatch(2);
+
+        pool.dispatch(new RecordingJob("a"));
+        pool.dispatch(new RecordingJob("b"));
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("a:ok", "b:ok");
+    }
+
+    @Test
+    public void shedsJobsWhichArriveWhenTheQueueIsFullWithoutQueueingThem() throws Exception {
+        start(1, Optional.<Duration>absent());
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        pool.dispatch(new RecordingJob("b"));
+
+        // the only thread is still busy and "a" is still queued, but "b" has been answered
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("b:shed");
+
+        assertThat(gauge("queued-jobs"))
+                .isEqualTo(1);
+
+        finished = new CountDownLatch(1);
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("b:shed", "a:ok");
+    }
+
+    @Test
+    public void startsThreadsForJobsWhenBelowTheMaximum() throws Exception {
+        start(0, Optional.<Duration>absent(), 2);
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+
+        // the first thread is still busy, so the job needs a thread of its own
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("a:ok");
+    }
+
+    @Test
+    public void shedsJobsWhichWaitTooLong() throws Exception {
+        start(-1, Optional.of(Duration.milliseconds(100)));
+        finished = new CountDownLatch(2);
+
+        pool.dispatch(new RecordingJob("a"));
+        clock.ticks.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        pool.dispatch(new RecordingJob("b"));
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("a:shed", "b:ok");
+    }
+
+    @Test
+    public void recordsQueueWaits() throws Exception {
+        start(-1, Optional.<Duration>absent());
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        clock.ticks.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        final Timer timer = (Timer) registry.allMetrics()
+                                            .get(new MetricName(QueuedThreadPool.class, "queue-wait"));
+        // the blocking job and the recorded job
+        assertThat(timer.count())
+                .isEqualTo(2);
+
+        assertThat(timer.max())
+                .isEqualTo(20.0);
+    }
+
+    private void start(int maxQueued, Optional<Duration> maxQueueWait) throws Exception {
+        start(maxQueued, maxQueueWait, 1);
+    }
+
+    private void start(int maxQueued, Optional<Duration> maxQueueWait, int maxThreads) throws Exception {
+        this.pool = new BoundedQueuedThreadPool(registry, clock, maxQueued, maxQueueWait);
+        pool.setMinThreads(1);
+        pool.setMaxThreads(maxThreads);
+        pool.start();
+        // wait for the thread to start polling, so that it takes the next job
+        for (int i = 0; (i < 500) && (pool.getIdleThreads() == 0); i++) {
+            Thread.sleep(10);
+        }
+
+        // occupy the only thread so that later jobs are queued
+        pool.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS))
+                .isTrue();
+    }
+
+    private Object gauge(String name) {
+        return ((Gauge<?>) registry.allMetrics().get(new MetricName(QueuedThreadPool.class, name))).value();
+    }
+}
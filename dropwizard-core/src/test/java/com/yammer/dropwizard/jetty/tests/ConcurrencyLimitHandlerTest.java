@@ -0,0 +1,178 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.yammer.dropwizard.jetty.ConcurrencyLimitHandler;
+import com.yammer.dropwizard.jetty.GradientConcurrencyLimit;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.eclipse.jetty.server.AsyncContinuation;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ConcurrencyLimitHandlerTest {
+    private static class ManualClock extends Clock {
+        private final AtomicLong ticks = new AtomicLong();
+
+        @Override
+        public long tick() {
+            return ticks.get();
+        }
+    }
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Handler underlying = mock(Handler.class);
+    private final ConcurrencyLimitHandler handler =
+            new ConcurrencyLimitHandler(registry,
+                                        Clock.defaultClock(),
+                                        underlying,
+                                        new GradientConcurrencyLimit(1, 1, 1, 10, 1.5, 0.2),
+                                        Duration.seconds(2));
+    private final Request baseRequest = mock(Request.class);
+    private final AsyncContinuation continuation = mock(AsyncContinuation.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    @Before
+    public void setUp() throws Exception {
+        when(baseRequest.getAsyncContinuation()).thenReturn(continuation);
+        when(continuation.isInitial()).thenReturn(true);
+        handler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        handler.stop();
+        registry.shutdown();
+    }
+
+    @Test
+    public void passesRequestsWithinTheLimit() throws Exception {
+        handler.handle("/", baseRequest, request, response);
+
+        verify(underlying).handle("/", baseRequest, request, response);
+        verify(response, never()).setStatus(anyInt());
+
+        assertThat(gauge("in-flight-requests"))
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void rejectsRequestsOverTheLimitWithAServiceUnavailable() throws Exception {
+        final HttpServletResponse nestedResponse = mock(HttpServletResponse.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(gauge("in-flight-requests"))
+                        .isEqualTo(1);
+
+                // a second request while the first is in flight
+                handler.handle("/", baseRequest, request, nestedResponse);
+                return null;
+            }
+        }).when(underlying).handle("/", baseRequest, request, response);
+
+        handler.handle("/", baseRequest, request, response);
+
+        verify(nestedResponse).setStatus(503);
+        verify(nestedResponse).setHeader("Retry-After", "2");
+        verify(underlying, never()).handle("/", baseRequest, request, nestedResponse);
+
+        assertThat(((Meter) registry.allMetrics()
+                                    .get(new MetricName(ConcurrencyLimitHandler.class,
+                                                        "rejected-requests"))).count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void passesHandledRequestsWithoutCountingThem() throws Exception {
+        when(baseRequest.isHandled()).thenReturn(true);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(gauge("in-flight-requests"))
+                        .isEqualTo(0);
+                return null;
+            }
+        }).when(underlying).handle("/", baseRequest, request, response);
+
+        handler.handle("/", baseRequest, request, response);
+
+        verify(underlying).handle("/", baseRequest, request, response);
+        verify(response, never()).setStatus(anyInt());
+    }
+
+    @Test
+    public void admitsResumedRequestsAndMeasuresThemFromTheirFirstDispatch() throws Exception {
+        final ManualClock clock = new ManualClock();
+        final GradientConcurrencyLimit limit = mock(GradientConcurrencyLimit.class);
+        when(limit.getLimit()).thenReturn(1);
+        final ConcurrencyLimitHandler limited = new ConcurrencyLimitHandler(registry,
+                                                                            clock,
+                                                                            underlying,
+                                                                            limit,
+                                                                            Duration.seconds(2));
+        limited.start();
+        try {
+            // the first dispatch suspends the request
+            when(request.isAsyncStarted()).thenReturn(true);
+            limited.handle("/", baseRequest, request, response);
+
+            final ArgumentCaptor<Object> admission = ArgumentCaptor.forClass(Object.class);
+            verify(request).setAttribute(anyString(), admission.capture());
+            when(request.getAttribute(anyString())).thenReturn(admission.getValue());
+
+            // another request takes the only slot while this one resumes
+            final Request otherBaseRequest = mock(Request.class);
+            final AsyncContinuation otherContinuation = mock(AsyncContinuation.class);
+            final HttpServletRequest otherRequest = mock(HttpServletRequest.class);
+            when(otherBaseRequest.getAsyncContinuation()).thenReturn(otherContinuation);
+            when(otherContinuation.isInitial()).thenReturn(true);
+            doAnswer(new Answer<Void>() {
+                @Override
+                public Void answer(InvocationOnMock invocation) throws Throwable {
+                    when(continuation.isInitial()).thenReturn(false);
+                    when(request.isAsyncStarted()).thenReturn(false);
+                    clock.ticks.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+                    limited.handle("/", baseRequest, request, response);
+                    return null;
+                }
+            }).when(underlying).handle("/", otherBaseRequest, otherRequest, response);
+
+            clock.ticks.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+            limited.handle("/", otherBaseRequest, otherRequest, response);
+
+            verify(underlying, times(2)).handle("/", baseRequest, request, response);
+            verify(response, never()).setStatus(503);
+            verify(limit).update(TimeUnit.MILLISECONDS.toNanos(150), 1);
+        } finally {
+            limited.stop();
+        }
+    }
+
+    @Test
+    public void exportsTheLimit() throws Exception {
+        assertThat(gauge("limit"))
+                .isEqualTo(1);
+    }
+
+    private Object gauge(String name) {
+        return ((Gauge<?>) registry.allMetrics().get(new MetricName(ConcurrencyLimitHandler.class, name))).value();
+    }
+}
@@ -0,0 +1,65 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.yammer.dropwizard.jetty.DeflaterPool;
+import org.junit.Test;
+
+import java.util.zip.Deflater;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class DeflaterPoolTest {
+    private final DeflaterPool pool = new DeflaterPool(Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY, true, 1);
+
+    @Test
+    public void reusesReleasedDeflaters() throws Exception {
+        final Deflater deflater = pool.acquire();
+        deflate(deflater);
+        pool.release(deflater);
+
+        assertThat(pool.getIdleCount())
+                .isEqualTo(1);
+
+        final Deflater reused = pool.acquire();
+        assertThat(reused)
+                .isSameAs(deflater);
+
+        assertThat(reused.getBytesRead())
+                .isZero();
+    }
+
+    @Test
+    public void endsDeflatersReleasedToAFullPool() throws Exception {
+        final Deflater first = pool.acquire();
+        final Deflater second = pool.acquire();
+
+        assertThat(second)
+                .isNotSameAs(first);
+
+        pool.release(first);
+        pool.release(second);
+
+        assertThat(pool.getIdleCount())
+                .isEqualTo(1);
+
+        assertThat(pool.acquire())
+                .isSameAs(first);
+    }
+
+    @Test
+    public void endsIdleDeflatersWhenCleared() throws Exception {
+        pool.release(pool.acquire());
+        pool.clear();
+
+        assertThat(pool.getIdleCount())
+                .isZero();
+    }
+
+    private static void deflate(Deflater deflater) {
+        deflater.setInput(new byte[]{1, 2, 3});
+        deflater.finish();
+        final byte[] output = new byte[64];
+        while (!deflater.finished()) {
+            deflater.deflate(output);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.yammer.dropwizard.jetty.GradientConcurrencyLimit;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class GradientConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 5, 12, 10, 1.5, 1.0);
+
+    @Test
+    public void startsAtTheInitialLimit() throws Exception {
+        assertThat(limit.getLimit())
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void onlyAdjustsAtTheEndOfAWindow() throws Exception {
+        for (int i = 0; i < 9; i++) {
+            limit.update(FAST, 10);
+        }
+
+        assertThat(limit.getLimit())
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void growsWhileLatencyIsSteady() throws Exception {
+        window(FAST, 10);
+
+        assertThat(limit.getLimit())
+                .isGreaterThan(10);
+    }
+
+    @Test
+    public void doesNotGrowWhileMostOfTheLimitIsUnused() throws Exception {
+        window(FAST, 2);
+        window(FAST, 2);
+
+        assertThat(limit.getLimit())
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void shrinksWhenLatencyRises() throws Exception {
+        window(FAST, 10);
+        window(SLOW, 10);
+        window(SLOW, 10);
+
+        assertThat(limit.getLimit())
+                .isLessThan(10);
+    }
+
+    @Test
+    public void staysWithinItsBounds() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            window(FAST, 12);
+        }
+
+        assertThat(limit.getLimit())
+                .isEqualTo(12);
+
+        for (int i = 0; i < 10; i++) {
+            window(SLOW * (i + 2), 12);
+        }
+
+        assertThat(limit.getLimit())
+                .isEqualTo(5);
+    }
+
+    private void window(long latency, int inFlight) {
+        for (int i = 0; i < 10; i++) {
+            limit.update(latency, inFlight);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.jetty.BoundedQueuedThreadPool;
+import com.yammer.dropwizard.jetty.LoadSheddingHandler;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class LoadSheddingHandlerTest {
+    private final Handler underlying = mock(Handler.class);
+    private final LoadSheddingHandler handler = new LoadSheddingHandler(underlying, Duration.seconds(5));
+    private final Request baseRequest = mock(Request.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final BoundedQueuedThreadPool pool =
+            new BoundedQueuedThreadPool(registry, Clock.defaultClock(), 0, Optional.<Duration>absent());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        handler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        handler.stop();
+        pool.stop();
+        registry.shutdown();
+    }
+
+    @Test
+    public void passesRequestsWhichArentShed() throws Exception {
+        handler.handle("/", baseRequest, request, response);
+
+        verify(underlying).handle("/", baseRequest, request, response);
+        verify(response, never()).setStatus(anyInt());
+    }
+
+    @Test
+    public void respondsToShedRequestsWithAServiceUnavailable() throws Exception {
+        saturatePool();
+        // with no idle threads and no room in the queue, every job is shed
+        handleInPool();
+
+        verify(baseRequest).setHandled(true);
+        verify(response).setStatus(503);
+        verify(response).setHeader("Retry-After", "5");
+        verify(response).setHeader("Connection", "close");
+        verify(underlying, never()).handle("/", baseRequest, request, response);
+    }
+
+    @Test
+    public void onlyShedsTheFirstRequestOfAJob() throws Exception {
+        saturatePool();
+        handleInPool(2);
+
+        verify(response, times(1)).setStatus(503);
+        verify(underlying, times(1)).handle("/", baseRequest, request, response);
+    }
+
+    private void saturatePool() throws Exception {
+        pool.setMinThreads(1);
+        pool.setMaxThreads(1);
+        pool.start();
+        // wait for the thread to start polling, so that it takes the next job
+        for (int i = 0; (i < 500) && (pool.getIdleThreads() == 0); i++) {
+            Thread.sleep(10);
+        }
+
+        final CountDownLatch started = new CountDownLatch(1);
+        pool.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        started.await(5, TimeUnit.SECONDS);
+    }
+
+    private void handleInPool() throws Exception {
+        handleInPool(1);
+    }
+
+    private void handleInPool(final int requests) throws Exception {
+        final FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (int i = 0; i < requests; i++) {
+                    handler.handle("/", baseRequest, request, response);
+                }
+                return null;
+            }
+        });
+        pool.dispatch(task);
+        task.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,101 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.yammer.dropwizard.jetty.RequestClass;
+import com.yammer.dropwizard.jetty.RequestClassHandler;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.Request;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class RequestClassHandlerTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final RequestClass batch = new RequestClass(registry,
+                                                        Clock.defaultClock(),
+                                                        "batch",
+                                                        RequestClass.pathPrefix("/batch/"),
+                                                        1,
+                                                        0,
+                                                        Optional.<Duration>absent());
+    private final Handler underlying = mock(Handler.class);
+    private final RequestClassHandler handler =
+            new RequestClassHandler(underlying, ImmutableList.of(batch), Duration.seconds(4));
+    private final Request baseRequest = mock(Request.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    @Before
+    public void setUp() throws Exception {
+        handler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        handler.stop();
+        registry.shutdown();
+    }
+
+    @Test
+    public void servesMatchingRequestsWithinTheirClass() throws Exception {
+        when(request.getRequestURI()).thenReturn("/batch/report");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(RequestClassHandler.isCurrentRequestClassified())
+                        .isTrue();
+
+                // the class's only slot is taken
+                assertThat(batch.acquire())
+                        .isFalse();
+                return null;
+            }
+        }).when(underlying).handle("/batch/report", baseRequest, request, response);
+
+        handler.handle("/batch/report", baseRequest, request, response);
+
+        verify(underlying).handle("/batch/report", baseRequest, request, response);
+
+        assertThat(RequestClassHandler.isCurrentRequestClassified())
+                .isFalse();
+
+        assertThat(batch.acquire())
+                .isTrue();
+    }
+
+    @Test
+    public void rejectsRequestsWhichTheirClassRejects() throws Exception {
+        when(request.getRequestURI()).thenReturn("/batch/report");
+        batch.acquire();
+
+        handler.handle("/batch/report", baseRequest, request, response);
+
+        verify(baseRequest).setHandled(true);
+        verify(response).setStatus(503);
+        verify(response).setHeader("Retry-After", "4");
+        verify(underlying, never()).handle("/batch/report", baseRequest, request, response);
+    }
+
+    @Test
+    public void passesUnmatchedRequests() throws Exception {
+        when(request.getRequestURI()).thenReturn("/search");
+        batch.acquire();
+
+        handler.handle("/search", baseRequest, request, response);
+
+        verify(underlying).handle("/search", baseRequest, request, response);
+        verify(response, never()).setStatus(anyInt());
+    }
+}
@@ -0,0 +1,172 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
+import com.yammer.dropwizard.jetty.RequestClass;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RequestClassTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        registry.shutdown();
+    }
+
+    @Test
+    public void matchesRequestsByPathPrefix() throws Exception {
+        when(request.getRequestURI()).thenReturn("/batch/reports");
+
+        assertThat(RequestClass.pathPrefix("/batch/").apply(request))
+                .isTrue();
+
+        assertThat(RequestClass.pathPrefix("/search/").apply(request))
+                .isFalse();
+    }
+
+    @Test
+    public void matchesPathPrefixesAgainstTheServedPath() throws Exception {
+        for (String uri : new String[]{ "//batch/reports", "/x/../batch/reports", "/%62atch/reports",
+                                        "/batch;v=1/reports", "/./batch/reports" }) {
+            when(request.getRequestURI()).thenReturn(uri);
+
+            assertThat(RequestClass.pathPrefix("/batch/").apply(request))
+                    .as(uri)
+                    .isTrue();
+        }
+    }
+
+    @Test
+    public void doesNotMatchPathsWhichEscapeTheRoot() throws Exception {
+        when(request.getRequestURI()).thenReturn("/../batch/reports");
+
+        assertThat(RequestClass.pathPrefix("/batch/").apply(request))
+                .isFalse();
+    }
+
+    @Test
+    public void matchesRequestsByHeader() throws Exception {
+        when(request.getHeader("X-Priority")).thenReturn("Low");
+
+        assertThat(RequestClass.header("X-Priority", Optional.<String>absent()).apply(request))
+                .isTrue();
+
+        assertThat(RequestClass.header("X-Priority", Optional.of("low")).apply(request))
+                .isTrue();
+
+        assertThat(RequestClass.header("X-Priority", Optional.of("high")).apply(request))
+                .isFalse();
+
+        assertThat(RequestClass.header("X-Batch", Optional.<String>absent()).apply(request))
+                .isFalse();
+    }
+
+    @Test
+    public void rejectsRequestsOverItsShareWhenItHasNoQueue() throws Exception {
+        final RequestClass batch = requestClass(1, 0, Optional.<Duration>absent());
+
+        assertThat(batch.acquire())
+                .isTrue();
+
+        assertThat(gauge("active-requests"))
+                .isEqualTo(1);
+
+        assertThat(batch.acquire())
+                .isFalse();
+
+        assertThat(((Meter) metric("rejected-requests")).count())
+                .isEqualTo(1);
+
+        batch.release();
+
+        assertThat(batch.acquire())
+                .isTrue();
+    }
+
+    @Test
+    public void queuesRequestsOverItsShare() throws Exception {
+        final RequestClass batch = requestClass(1, 1, Optional.<Duration>absent());
+        batch.acquire();
+
+        final Future<Boolean> queued = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return batch.acquire();
+            }
+        });
+        awaitQueued(1);
+
+        // the queue is full
+        assertThat(batch.acquire())
+                .isFalse();
+
+        batch.release();
+
+        assertThat(queued.get(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(((Timer) metric("queue-wait")).count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void rejectsRequestsWhichWaitTooLong() throws Exception {
+        final RequestClass batch = requestClass(1, 1, Optional.of(Duration.milliseconds(10)));
+        batch.acquire();
+
+        assertThat(batch.acquire())
+                .isFalse();
+
+        assertThat(gauge("queued-requests"))
+                .isEqualTo(0);
+    }
+
+    private RequestClass requestClass(int maxConcurrency, int maxQueued, Optional<Duration> maxQueueWait) {
+        return new RequestClass(registry,
+                                Clock.defaultClock(),
+                                "batch",
+                                Predicates.<HttpServletRequest>alwaysTrue(),
+                                maxConcurrency,
+                                maxQueued,
+                                maxQueueWait);
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!gauge("queued-requests").equals(count) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertThat(gauge("queued-requests"))
+                .isEqualTo(count);
+    }
+
+    private Object metric(String name) {
+        return registry.allMetrics().get(new MetricName(RequestClass.class, name, "batch"));
+    }
+
+    private Object gauge(String name) {
+        return ((Gauge<?>) metric(name)).value();
+    }
+}
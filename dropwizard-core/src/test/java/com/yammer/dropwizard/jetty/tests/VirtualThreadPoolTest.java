@@ -0,0 +1,246 @@
+package com.yammer.dropwizard.jetty.tests;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.yammer.dropwizard.jetty.BoundedQueuedThreadPool;
+import com.yammer.dropwizard.jetty.VirtualThreadPool;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class VirtualThreadPoolTest {
+    private static class ManualClock extends Clock {
+        private final AtomicLong ticks = new AtomicLong();
+
+        @Override
+        public long tick() {
+            return ticks.get();
+        }
+    }
+
+    private class RecordingJob implements Runnable {
+        private final String name;
+
+        private RecordingJob(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            runs.add(name + (BoundedQueuedThreadPool.shouldShedCurrentRequest() ? ":shed" : ":ok"));
+            finished.countDown();
+        }
+    }
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final ManualClock clock = new ManualClock();
+    private final List<String> runs = Collections.synchronizedList(Lists.<String>newArrayList());
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CountDownLatch finished;
+    private VirtualThreadPool pool;
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        if (pool != null) {
+            pool.stop();
+        }
+        registry.shutdown();
+    }
+
+    @Test
+    public void providesAVirtualThreadFactoryOnlyWhenTheRuntimeSupportsIt() throws Exception {
+        boolean supported;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            supported = true;
+        } catch (NoSuchMethodException e) {
+            supported = false;
+        }
+
+        assertThat(VirtualThreadPool.virtualThreadFactory("test-").isPresent())
+                .isEqualTo(supported);
+    }
+
+    @Test
+    public void limitsTheNumberOfJobsWhichRunAtOnce() throws Exception {
+        start(-1, Optional.<Duration>absent());
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        awaitQueuedJobs(1);
+
+        assertThat(gauge("idle-threads"))
+                .isEqualTo(0);
+
+        assertThat(runs)
+                .isEmpty();
+
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("a:ok");
+    }
+
+    @Test
+    public void shedsJobsWhichArriveWhenTooManyAreWaiting() throws Exception {
+        start(1, Optional.<Duration>absent());
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        awaitQueuedJobs(1);
+        pool.dispatch(new RecordingJob("b"));
+
+        // the shed job doesn't wait for a permit
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("b:shed");
+    }
+
+    @Test
+    public void shedsJobsWhichWaitTooLong() throws Exception {
+        start(-1, Optional.of(Duration.milliseconds(100)));
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        awaitQueuedJobs(1);
+        clock.ticks.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        assertThat(runs)
+                .containsExactly("a:shed");
+    }
+
+    @Test
+    public void recordsQueueWaits() throws Exception {
+        start(-1, Optional.<Duration>absent());
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        awaitQueuedJobs(1);
+        clock.ticks.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        release.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS))
+                .isTrue();
+
+        final Timer timer = (Timer) registry.allMetrics()
+                                            .get(new MetricName(QueuedThreadPool.class, "queue-wait"));
+        // the blocking job and the recorded job
+        assertThat(timer.count())
+                .isEqualTo(2);
+
+        assertThat(timer.max())
+                .isEqualTo(20.0);
+    }
+
+    @Test
+    public void rejectsJobsWhichAreInterruptedWhileWaiting() throws Exception {
+        start(-1, Optional.<Duration>absent());
+        finished = new CountDownLatch(1);
+
+        pool.dispatch(new RecordingJob("a"));
+        awaitQueuedJobs(1);
+        pool.stop();
+        awaitQueuedJobs(0);
+
+        final Meter meter = (Meter) registry.allMetrics()
+                                            .get(new MetricName(QueuedThreadPool.class, "rejected-jobs"));
+        assertThat(meter.count())
+                .isEqualTo(1);
+
+        assertThat(runs)
+                .isEmpty();
+    }
+
+    @Test
+    public void runsConnectorLoopsWithoutAPermit() throws Exception {
+        this.pool = new VirtualThreadPool(registry,
+                                          clock,
+                                          Executors.defaultThreadFactory(),
+                                          1,
+                                          -1,
+                                          Optional.<Duration>absent());
+        final Server server = new Server();
+        final SelectChannelConnector connector = new SelectChannelConnector();
+        connector.setPort(0);
+        connector.setAcceptors(2);
+        server.addConnector(connector);
+        server.setThreadPool(pool);
+        server.start();
+        try {
+            assertThat(pool.getIdleThreads())
+                    .isEqualTo(1);
+
+            assertThat(gauge("queued-jobs"))
+                    .isEqualTo(0);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private void start(int maxQueued, Optional<Duration> maxQueueWait) throws Exception {
+        this.pool = new VirtualThreadPool(registry,
+                                          clock,
+                                          Executors.defaultThreadFactory(),
+                                          1,
+                                          maxQueued,
+                                          maxQueueWait);
+        pool.start();
+
+        // occupy the only permit so that later jobs have to wait
+        pool.dispatch(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS))
+                .isTrue();
+    }
+
+    private void awaitQueuedJobs(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!gauge("queued-jobs").equals(count) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertThat(gauge("queued-jobs"))
+                .isEqualTo(count);
+    }
+
+    private Object gauge(String name) {
+        return ((Gauge<?>) registry.allMetrics().get(new MetricName(QueuedThreadPool.class, name))).value();
+    }
+}
@@ -36,6 +36,28 @@ public class AnnotationSensitivePropertyNamingStrategyTest {
         }
     }
 
+    @JsonSnakeCase
+    public static class SnakeCaseBean {
+        private String firstName;
+        private String lastName;
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public void setLastName(String lastName) {
+            this.lastName = lastName;
+        }
+    }
+
     private final PropertyNamingStrategy strategy = new AnnotationSensitivePropertyNamingStrategy();
     private final ObjectMapper mapper = new ObjectMapper();
 
@@ -67,4 +89,31 @@ public class AnnotationSensitivePropertyNamingStrategyTest {
         assertThat(mapper.readValue("{\"first_name\":\"woo\"}", SnakeCaseExample.class).firstName)
                 .isEqualTo("woo");
     }
+
+    @Test
+    public void namesSnakeCaseAccessors() throws Exception {
+        final SnakeCaseBean bean = mapper.readValue("{\"first_name\":\"Coda\",\"last_name\":\"Hale\"}",
+                                                    SnakeCaseBean.class);
+
+        assertThat(bean.getFirstName())
+                .isEqualTo("Coda");
+
+        assertThat(bean.getLastName())
+                .isEqualTo("Hale");
+
+        assertThat(mapper.writeValueAsString(bean))
+                .isEqualTo("{\"first_name\":\"Coda\",\"last_name\":\"Hale\"}");
+    }
+
+    @Test
+    public void namesPropertiesConsistentlyAcrossMappers() throws Exception {
+        final ObjectMapper other = new ObjectMapper();
+        other.setPropertyNamingStrategy(new AnnotationSensitivePropertyNamingStrategy());
+
+        assertThat(other.writeValueAsString(new SnakeCaseExample("woo")))
+                .isEqualTo(mapper.writeValueAsString(new SnakeCaseExample("woo")));
+
+        assertThat(other.writeValueAsString(new RegularExample("woo")))
+                .isEqualTo("{\"firstName\":\"woo\"}");
+    }
 }
@@ -113,5 +113,62 @@ public class ObjectMapperFactoryTest {
         assertThat(mapper.readValue("-200203200000", Date.class))
                 .isEqualTo(date);
     }
-}
 
+    @Test
+    public void doesNotUseAfterburnerByDefault() throws Exception {
+        assertThat(factory.isAfterburnerEnabled())
+                .isFalse();
+    }
+
+    @Test
+    public void copiesTheAfterburnerSwitch() throws Exception {
+        factory.setAfterburnerEnabled(true);
+
+        assertThat(factory.copy().isAfterburnerEnabled())
+                .isTrue();
+    }
+
+    @Test
+    public void roundTripsObjectsWithAfterburner() throws Exception {
+        factory.setAfterburnerEnabled(true);
+        final ObjectMapper mapper = factory.build();
+
+        final Bean bean = new Bean();
+        bean.setName("Coda");
+        bean.setAge(33);
+
+        final String json = mapper.writeValueAsString(bean);
+
+        assertThat(json)
+                .isEqualTo("{\"name\":\"Coda\",\"age\":33}");
+
+        final Bean read = mapper.readValue(json, Bean.class);
+
+        assertThat(read.getName())
+                .isEqualTo("Coda");
+
+        assertThat(read.getAge())
+                .isEqualTo(33);
+    }
+
+    public static class Bean {
+        private String name;
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.yammer.dropwizard.servlets.tests;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.servlets.DeadlineFilter;
+import com.yammer.dropwizard.util.Deadline;
+import com.yammer.dropwizard.util.Duration;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class DeadlineFilterTest {
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final FilterChain chain = mock(FilterChain.class);
+    private final AtomicLong remaining = new AtomicLong(-1);
+    private final DeadlineFilter filter = new DeadlineFilter("X-Request-Timeout",
+                                                             Optional.of(Duration.seconds(5)),
+                                                             Optional.of(Duration.seconds(10)));
+
+    public DeadlineFilterTest() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                final Optional<Deadline> deadline = Deadline.current();
+                if (deadline.isPresent()) {
+                    remaining.set(deadline.get().remaining(TimeUnit.MILLISECONDS));
+                }
+                return null;
+            }
+        }).when(chain).doFilter(request, response);
+    }
+
+    @Test
+    public void setsTheDeadlineFromTheHeader() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("2000");
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(remaining.get())
+                .isGreaterThan(1000)
+                .isLessThanOrEqualTo(2000);
+
+        assertThat(Deadline.current().isPresent())
+                .isFalse();
+    }
+
+    @Test
+    public void usesTheDefaultTimeoutWithoutAHeader() throws Exception {
+        filter.doFilter(request, response, chain);
+
+        assertThat(remaining.get())
+                .isGreaterThan(4000)
+                .isLessThanOrEqualTo(5000);
+    }
+
+    @Test
+    public void usesTheDefaultTimeoutForMalformedHeaders() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("soon");
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(remaining.get())
+                .isGreaterThan(4000)
+                .isLessThanOrEqualTo(5000);
+    }
+
+    @Test
+    public void capsTheTimeout() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("60000");
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(remaining.get())
+                .isGreaterThan(9000)
+                .isLessThanOrEqualTo(10000);
+    }
+
+    @Test
+    public void rejectsRequestsWithNoTimeLeft() throws Exception {
+        when(request.getHeader("X-Request-Timeout")).thenReturn("0");
+
+        filter.doFilter(request, response, chain);
+
+        verify(response).sendError(504);
+        verify(chain, never()).doFilter(request, response);
+    }
+
+    @Test
+    public void setsNoDeadlineWithoutAHeaderOrDefault() throws Exception {
+        new DeadlineFilter("X-Request-Timeout",
+                           Optional.<Duration>absent(),
+                           Optional.<Duration>absent()).doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+
+        assertThat(remaining.get())
+                .isEqualTo(-1);
+    }
+}
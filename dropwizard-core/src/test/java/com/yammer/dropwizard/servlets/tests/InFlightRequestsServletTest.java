@@ -0,0 +1,94 @@
+package com.yammer.dropwizard.servlets.tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yammer.dropwizard.servlets.InFlightRequests;
+import com.yammer.dropwizard.servlets.InFlightRequestsServlet;
+import com.yammer.dropwizard.servlets.RequestDescriptor;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class InFlightRequestsServletTest {
+    private final RequestDescriptor descriptor = RequestDescriptor.current();
+    private final InFlightRequests requests = new InFlightRequests(4);
+    private final Clock clock = mock(Clock.class);
+    private final InFlightRequestsServlet servlet =
+            new InFlightRequestsServlet(requests, Duration.seconds(1), clock);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        when(request.getMethod()).thenReturn("GET");
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                output.write(b);
+            }
+        });
+        descriptor.begin("POST", "/things", "q=1", 0);
+        requests.add(descriptor);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        descriptor.end();
+    }
+
+    @Test
+    public void listsRequestsInProgress() throws Exception {
+        when(clock.tick()).thenReturn(TimeUnit.MILLISECONDS.toNanos(200));
+
+        final JsonNode node = get();
+
+        verify(response).setContentType("application/json");
+
+        assertThat(node.get("untracked").asLong())
+                .isZero();
+
+        final JsonNode inFlight = node.get("requests").get(0);
+        assertThat(inFlight.get("thread").asText())
+                .isEqualTo(Thread.currentThread().getName());
+        assertThat(inFlight.get("method").asText())
+                .isEqualTo("POST");
+        assertThat(inFlight.get("uri").asText())
+                .isEqualTo("/things");
+        assertThat(inFlight.get("query").asText())
+                .isEqualTo("q=1");
+        assertThat(inFlight.get("elapsed").asLong())
+                .isEqualTo(200);
+        assertThat(inFlight.has("stackTrace"))
+                .isFalse();
+    }
+
+    @Test
+    public void includesStackTracesOfOldRequests() throws Exception {
+        when(clock.tick()).thenReturn(TimeUnit.SECONDS.toNanos(2));
+
+        final JsonNode stackTrace = get().get("requests").get(0).get("stackTrace");
+
+        assertThat(stackTrace.size())
+                .isGreaterThan(0);
+        assertThat(stackTrace.toString())
+                .contains(InFlightRequestsServletTest.class.getName());
+    }
+
+    private JsonNode get() throws Exception {
+        servlet.service(request, response);
+        return new ObjectMapper().readTree(output.toByteArray());
+    }
+}
@@ -0,0 +1,61 @@
+package com.yammer.dropwizard.servlets.tests;
+
+import com.yammer.dropwizard.servlets.InFlightRequests;
+import com.yammer.dropwizard.servlets.RequestDescriptor;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class InFlightRequestsTest {
+    private final RequestDescriptor descriptor = RequestDescriptor.current();
+    private final InFlightRequests requests = new InFlightRequests(1);
+
+    @After
+    public void tearDown() throws Exception {
+        descriptor.end();
+    }
+
+    @Test
+    public void tracksRequestsUntilTheyAreRemoved() throws Exception {
+        descriptor.begin("GET", "/things", null, 1);
+        final int slot = requests.add(descriptor);
+
+        assertThat(requests.getRequests())
+                .hasSize(1);
+
+        assertThat(requests.getRequests().get(0).toString())
+                .isEqualTo("GET /things");
+
+        requests.remove(slot);
+
+        assertThat(requests.getRequests())
+                .isEmpty();
+    }
+
+    @Test
+    public void omitsDescriptorsWhichHaveEnded() throws Exception {
+        descriptor.begin("GET", "/things", null, 1);
+        requests.add(descriptor);
+        descriptor.end();
+
+        assertThat(requests.getRequests())
+                .isEmpty();
+    }
+
+    @Test
+    public void countsRequestsWhichDoNotFit() throws Exception {
+        descriptor.begin("GET", "/things", null, 1);
+
+        // a capacity of one means two slots
+        assertThat(requests.add(descriptor))
+                .isGreaterThanOrEqualTo(0);
+        assertThat(requests.add(descriptor))
+                .isGreaterThanOrEqualTo(0);
+        assertThat(requests.add(descriptor))
+                .isEqualTo(-1);
+
+        assertThat(requests.getUntrackedCount())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,70 @@
+package com.yammer.dropwizard.servlets.tests;
+
+import com.yammer.dropwizard.servlets.RequestDescriptor;
+import com.yammer.dropwizard.servlets.RequestDescriptorFilter;
+import com.yammer.metrics.core.Clock;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class RequestDescriptorFilterTest {
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final FilterChain chain = mock(FilterChain.class);
+    private final Clock clock = mock(Clock.class);
+    private final RequestDescriptorFilter filter = new RequestDescriptorFilter(clock);
+    private final AtomicReference<RequestDescriptor.Snapshot> described =
+            new AtomicReference<RequestDescriptor.Snapshot>();
+
+    public RequestDescriptorFilterTest() throws Exception {
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/things");
+        when(request.getQueryString()).thenReturn("q=1");
+        when(clock.tick()).thenReturn(100L);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                described.set(RequestDescriptor.current().snapshot().orNull());
+                return null;
+            }
+        }).when(chain).doFilter(request, response);
+    }
+
+    @Test
+    public void describesRequestsWhileTheyAreServed() throws Exception {
+        filter.doFilter(request, response, chain);
+
+        assertThat(described.get().toString())
+                .isEqualTo("GET /things?q=1");
+
+        assertThat(described.get().getStartTime())
+                .isEqualTo(100);
+
+        assertThat(RequestDescriptor.current().isActive())
+                .isFalse();
+    }
+
+    @Test
+    public void keepsAnExistingDescription() throws Exception {
+        RequestDescriptor.current().begin("POST", "/outer", null, 50);
+        try {
+            filter.doFilter(request, response, chain);
+
+            assertThat(described.get().toString())
+                    .isEqualTo("POST /outer");
+
+            assertThat(RequestDescriptor.current().isActive())
+                    .isTrue();
+        } finally {
+            RequestDescriptor.current().end();
+        }
+    }
+}
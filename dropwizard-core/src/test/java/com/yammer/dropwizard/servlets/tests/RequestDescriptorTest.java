@@ -0,0 +1,112 @@
+package com.yammer.dropwizard.servlets.tests;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.servlets.RequestDescriptor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class RequestDescriptorTest {
+    private final RequestDescriptor descriptor = RequestDescriptor.current();
+
+    @After
+    public void tearDown() throws Exception {
+        descriptor.end();
+    }
+
+    @Test
+    public void isInactiveByDefault() throws Exception {
+        assertThat(descriptor.isActive())
+                .isFalse();
+
+        assertThat(descriptor.snapshot())
+                .isEqualTo(Optional.<RequestDescriptor.Snapshot>absent());
+    }
+
+    @Test
+    public void describesTheCurrentRequest() throws Exception {
+        descriptor.begin("GET", "/things", "q=1", 1234);
+
+        assertThat(descriptor.isActive())
+                .isTrue();
+
+        final RequestDescriptor.Snapshot snapshot = descriptor.snapshot().get();
+
+        assertThat(snapshot.getThread())
+                .isSameAs(Thread.currentThread());
+
+        assertThat(snapshot.getMethod())
+                .isEqualTo("GET");
+
+        assertThat(snapshot.getUri())
+                .isEqualTo("/things");
+
+        assertThat(snapshot.getQuery())
+                .isEqualTo(Optional.of("q=1"));
+
+        assertThat(snapshot.getStartTime())
+                .isEqualTo(1234);
+
+        assertThat(snapshot.toString())
+                .isEqualTo("GET /things?q=1");
+    }
+
+    @Test
+    public void isInactiveOnceTheRequestEnds() throws Exception {
+        descriptor.begin("GET", "/things", null, 1234);
+        descriptor.end();
+
+        assertThat(descriptor.isActive())
+                .isFalse();
+    }
+
+    @Test
+    public void isReusedForEachRequestOnAThread() throws Exception {
+        assertThat(RequestDescriptor.current())
+                .isSameAs(descriptor);
+    }
+
+    @Test
+    public void isVisibleToOtherThreads() throws Exception {
+        final CountDownLatch begun = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        final Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+                RequestDescriptor.current().begin("POST", "/other", null, 1);
+                begun.countDown();
+                try {
+                    done.await();
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    RequestDescriptor.current().end();
+                }
+            }
+        });
+        other.start();
+        try {
+            begun.await();
+
+            final RequestDescriptor descriptor = RequestDescriptor.forThread(thread.get()).get();
+            assertThat(descriptor.snapshot().get().toString())
+                    .isEqualTo("POST /other");
+
+            boolean inProgress = false;
+            for (RequestDescriptor.Snapshot request : RequestDescriptor.inProgress()) {
+                inProgress |= request.getThread() == thread.get();
+            }
+            assertThat(inProgress)
+                    .isTrue();
+        } finally {
+            done.countDown();
+            other.join();
+        }
+    }
+}
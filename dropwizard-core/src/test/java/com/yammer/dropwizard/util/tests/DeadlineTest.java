@@ -0,0 +1,83 @@
+package com.yammer.dropwizard.util.tests;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.util.Deadline;
+import com.yammer.dropwizard.util.Duration;
+import com.yammer.metrics.core.Clock;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+public class DeadlineTest {
+    private static class ManualClock extends Clock {
+        private long ticks;
+
+        @Override
+        public long tick() {
+            return ticks;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private final Deadline deadline = Deadline.after(Duration.milliseconds(1500), clock);
+
+    @After
+    public void tearDown() throws Exception {
+        Deadline.clearCurrent();
+    }
+
+    @Test
+    public void hasTheTimeLeft() throws Exception {
+        clock.ticks = TimeUnit.MILLISECONDS.toNanos(500);
+
+        assertThat(deadline.remaining(TimeUnit.MILLISECONDS))
+                .isEqualTo(1000);
+
+        assertThat(deadline.isExpired())
+                .isFalse();
+    }
+
+    @Test
+    public void roundsTheSecondsLeftUp() throws Exception {
+        assertThat(deadline.remainingSeconds())
+                .isEqualTo(2);
+
+        clock.ticks = TimeUnit.MILLISECONDS.toNanos(1499);
+
+        assertThat(deadline.remainingSeconds())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void hasNoTimeLeftOnceItHasPassed() throws Exception {
+        clock.ticks = TimeUnit.SECONDS.toNanos(2);
+
+        assertThat(deadline.isExpired())
+                .isTrue();
+
+        assertThat(deadline.remaining(TimeUnit.MILLISECONDS))
+                .isEqualTo(0);
+
+        assertThat(deadline.remainingSeconds())
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void isBoundToTheCurrentThread() throws Exception {
+        assertThat(Deadline.current())
+                .isEqualTo(Optional.<Deadline>absent());
+
+        Deadline.setCurrent(deadline);
+
+        assertThat(Deadline.current())
+                .isEqualTo(Optional.of(deadline));
+
+        Deadline.clearCurrent();
+
+        assertThat(Deadline.current())
+                .isEqualTo(Optional.<Deadline>absent());
+    }
+}
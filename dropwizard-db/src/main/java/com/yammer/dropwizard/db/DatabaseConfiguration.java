@@ -15,6 +15,12 @@ import java.util.Map;
 
 @SuppressWarnings("UnusedDeclaration")
 public class DatabaseConfiguration {
+    /**
+     * The number of writes which bulk operations make between flushes if neither
+     * {@link #getBatchSize()} nor the database's dialect enables JDBC batching.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
     @NotNull
     @JsonProperty
     private String driverClass = null;
@@ -72,6 +78,13 @@ public class DatabaseConfiguration {
     @JsonProperty
     private boolean autoCommentsEnabled = true;
 
+    @JsonProperty
+    private int streamingFetchSize = 1000;
+
+    @Min(0)
+    @JsonProperty
+    private int batchSize = 0;
+
     public boolean isAutoCommentsEnabled() {
         return autoCommentsEnabled;
     }
@@ -80,6 +93,22 @@ public class DatabaseConfiguration {
         this.autoCommentsEnabled = autoCommentsEnabled;
     }
 
+    public int getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    public void setStreamingFetchSize(int streamingFetchSize) {
+        this.streamingFetchSize = streamingFetchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     public String getDriverClass() {
         return driverClass;
     }
@@ -208,6 +237,8 @@ public class DatabaseConfiguration {
                 !((checkConnectionHealthWhenIdleFor != null) ? !checkConnectionHealthWhenIdleFor.equals(that.checkConnectionHealthWhenIdleFor) : (that.checkConnectionHealthWhenIdleFor != null)) &&
                 !((closeConnectionIfIdleFor != null) ? !closeConnectionIfIdleFor.equals(that.closeConnectionIfIdleFor) : (that.closeConnectionIfIdleFor != null)) &&
                 (defaultReadOnly == that.defaultReadOnly) &&
+                (streamingFetchSize == that.streamingFetchSize) &&
+                (batchSize == that.batchSize) &&
                 !((driverClass != null) ? !driverClass.equals(that.driverClass) : (that.driverClass != null)) &&
                 !((maxWaitForConnection != null) ? !maxWaitForConnection.equals(that.maxWaitForConnection) : (that.maxWaitForConnection != null)) &&
                 !((password != null) ? !password.equals(that.password) : (that.password != null)) &&
@@ -233,6 +264,8 @@ public class DatabaseConfiguration {
         result = (31 * result) + ((checkConnectionHealthWhenIdleFor != null) ? checkConnectionHealthWhenIdleFor.hashCode() : 0);
         result = (31 * result) + ((closeConnectionIfIdleFor != null) ? closeConnectionIfIdleFor.hashCode() : 0);
         result = (31 * result) + (defaultReadOnly ? 1 : 0);
+        result = (31 * result) + streamingFetchSize;
+        result = (31 * result) + batchSize;
         result = (31 * result) + ((connectionInitializationStatements != null) ? connectionInitializationStatements.hashCode() : 0);
         return result;
     }
@@ -253,6 +286,8 @@ public class DatabaseConfiguration {
                       .add("checkConnectionHealthWhenIdleFor", checkConnectionHealthWhenIdleFor)
                       .add("closeConnectionIfIdleFor", closeConnectionIfIdleFor)
                       .add("defaultReadOnly", defaultReadOnly)
+                      .add("streamingFetchSize", streamingFetchSize)
+                      .add("batchSize", batchSize)
                       .add("connectionInitializationStatements", connectionInitializationStatements)
                       .toString();
     }
@@ -0,0 +1,90 @@
+package com.yammer.dropwizard.db;
+
+import com.yammer.dropwizard.util.Deadline;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Limits the statements of a {@link Connection} to the time left before a {@link Deadline}, by
+ * giving each a query timeout as it's created.
+ */
+class DeadlineConnection implements InvocationHandler {
+    /**
+     * Wraps a connection so that its statements time out by the given deadline.
+     *
+     * @param connection    a newly-borrowed connection
+     * @param deadline      the deadline of the request it was borrowed for
+     * @return the wrapped connection
+     */
+    static Connection wrap(Connection connection, Deadline deadline) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                   new Class<?>[]{ Connection.class },
+                                                   new DeadlineConnection(connection, deadline));
+    }
+
+    /**
+     * Throws an exception if the given deadline has passed.
+     *
+     * @param deadline    a deadline
+     * @throws SQLTimeoutException if {@code deadline} has passed
+     */
+    static void check(Deadline deadline) throws SQLTimeoutException {
+        if (deadline.isExpired()) {
+            throw new SQLTimeoutException("Request deadline exceeded");
+        }
+    }
+
+    private final Connection connection;
+    private final Deadline deadline;
+
+    private DeadlineConnection(Connection connection, Deadline deadline) {
+        this.connection = connection;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String name = method.getName();
+        if ("equals".equals(name) && (args != null) && (args.length == 1)) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(name) && (args == null)) {
+            return System.identityHashCode(proxy);
+        }
+
+        final boolean createsStatement = "createStatement".equals(name) ||
+                "prepareStatement".equals(name) || "prepareCall".equals(name);
+        if (createsStatement) {
+            check(deadline);
+        }
+        final Object result = invokeConnection(method, args);
+        if (createsStatement) {
+            limit((Statement) result);
+        }
+        return result;
+    }
+
+    private void limit(Statement statement) throws SQLException {
+        // a query timeout of zero means no limit, so give expired deadlines the shortest one
+        final int remaining = Math.max(1, deadline.remainingSeconds());
+        final int current = statement.getQueryTimeout();
+        if ((current == 0) || (current > remaining)) {
+            statement.setQueryTimeout(remaining);
+        }
+    }
+
+    private Object invokeConnection(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
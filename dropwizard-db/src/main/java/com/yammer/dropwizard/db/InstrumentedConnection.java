@@ -0,0 +1,91 @@
+package com.yammer.dropwizard.db;
+
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetrics;
+import com.yammer.metrics.core.Clock;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how long a {@link Connection} is held, and how long its commits take.
+ */
+class InstrumentedConnection implements InvocationHandler {
+    /**
+     * Wraps a connection so that it updates the given metrics.
+     *
+     * @param connection      a newly-borrowed connection
+     * @param metrics         the metrics to update
+     * @param borrowedAt      when the connection was borrowed, per {@code clock}
+     * @param clock           the clock with which to time the connection
+     * @return the instrumented connection
+     */
+    static Connection wrap(Connection connection,
+                           ConnectionMetrics metrics,
+                           long borrowedAt,
+                           Clock clock) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                   new Class<?>[]{ Connection.class },
+                                                   new InstrumentedConnection(connection,
+                                                                              metrics,
+                                                                              borrowedAt,
+                                                                              clock));
+    }
+
+    private final Connection connection;
+    private final ConnectionMetrics metrics;
+    private final long borrowedAt;
+    private final Clock clock;
+    private boolean closed;
+
+    private InstrumentedConnection(Connection connection,
+                                   ConnectionMetrics metrics,
+                                   long borrowedAt,
+                                   Clock clock) {
+        this.connection = connection;
+        this.metrics = metrics;
+        this.borrowedAt = borrowedAt;
+        this.clock = clock;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String name = method.getName();
+        if ("commit".equals(name)) {
+            final long start = clock.tick();
+            try {
+                return invokeConnection(method, args);
+            } finally {
+                metrics.getCommitTimer().update(clock.tick() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        if ("close".equals(name)) {
+            try {
+                return invokeConnection(method, args);
+            } finally {
+                if (!closed) {
+                    this.closed = true;
+                    metrics.getHoldTimer().update(clock.tick() - borrowedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if ("equals".equals(name) && (args != null) && (args.length == 1)) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(name) && (args == null)) {
+            return System.identityHashCode(proxy);
+        }
+        return invokeConnection(method, args);
+    }
+
+    private Object invokeConnection(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,16 +1,31 @@
 package com.yammer.dropwizard.db;
 
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetrics;
+import com.yammer.dropwizard.util.Deadline;
+import com.yammer.metrics.core.Clock;
 import org.apache.tomcat.dbcp.dbcp.PoolingDataSource;
 import org.apache.tomcat.dbcp.pool.ObjectPool;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * A {@link PoolingDataSource} which is also {@link ManagedDataSource}.
+ * <p/>
+ * If a resource method's {@link ConnectionMetrics} are bound to the current thread, they're updated
+ * with the time spent waiting for each connection, how long the connection is held, and how long
+ * its commits take.
+ * <p/>
+ * If a request {@link Deadline} is bound to the current thread, no connection is handed out once
+ * it has passed, and each statement is given a query timeout no longer than the time left.
  */
 public class ManagedPooledDataSource extends PoolingDataSource implements ManagedDataSource {
     private final ObjectPool pool;
+    private final Clock clock = Clock.defaultClock();
 
     /**
      * Create a new data source with the given connection pool.
@@ -22,6 +37,29 @@ public class ManagedPooledDataSource extends PoolingDataSource implements Manage
         this.pool = pool;
     }
 
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Optional<Deadline> deadline = Deadline.current();
+        if (deadline.isPresent()) {
+            DeadlineConnection.check(deadline.get());
+            return DeadlineConnection.wrap(borrowConnection(), deadline.get());
+        }
+        return borrowConnection();
+    }
+
+    private Connection borrowConnection() throws SQLException {
+        final ConnectionMetrics metrics = ConnectionMetrics.current();
+        if (metrics == null) {
+            return super.getConnection();
+        }
+
+        final long start = clock.tick();
+        final Connection connection = super.getConnection();
+        final long borrowedAt = clock.tick();
+        metrics.getAcquireWaitTimer().update(borrowedAt - start, TimeUnit.NANOSECONDS);
+        return InstrumentedConnection.wrap(connection, metrics, borrowedAt, clock);
+    }
+
     // JDK6 has JDBC 4.0 which doesn't have this -- don't add @Override
     @SuppressWarnings("override")
     public Logger getParentLogger() throws SQLFeatureNotSupportedException {
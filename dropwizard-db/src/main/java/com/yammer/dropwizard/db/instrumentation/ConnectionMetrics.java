@@ -0,0 +1,111 @@
+package com.yammer.dropwizard.db.instrumentation;
+
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for how long a resource method waits for pooled connections, how long it holds them, and
+ * how long its commits take.
+ * <p/>
+ * A resource method's metrics are bound to the thread handling its request (see
+ * {@link ConnectionMetricsRequestDispatcher}), and are updated by the
+ * {@link com.yammer.dropwizard.db.ManagedPooledDataSource} which lends it connections. The timers are
+ * only registered once a connection is actually used, so resource methods which never touch the
+ * database don't produce empty timers.
+ */
+public class ConnectionMetrics {
+    private static final ThreadLocal<ConnectionMetrics> CURRENT = new ThreadLocal<ConnectionMetrics>();
+
+    /**
+     * Returns the metrics bound to the current thread, or {@code null}.
+     *
+     * @return the current metrics, or {@code null}
+     */
+    public static ConnectionMetrics current() {
+        return CURRENT.get();
+    }
+
+    private final Class<?> klass;
+    private final String name;
+    private volatile Timer acquireWait;
+    private volatile Timer hold;
+    private volatile Timer commit;
+
+    /**
+     * Creates a new {@link ConnectionMetrics} named after a resource method.
+     *
+     * @param method    a resource method
+     */
+    public ConnectionMetrics(AbstractResourceMethod method) {
+        this(method.getMethod().getDeclaringClass(), method.getMethod().getName());
+    }
+
+    /**
+     * Creates a new {@link ConnectionMetrics}.
+     *
+     * @param klass    the class to which the metrics belong
+     * @param name     the prefix of the metrics' names
+     */
+    public ConnectionMetrics(Class<?> klass, String name) {
+        this.klass = klass;
+        this.name = name;
+    }
+
+    /**
+     * Binds these metrics to the current thread.
+     *
+     * @return the previously bound metrics, to be passed to {@link #restore(ConnectionMetrics)}
+     */
+    public ConnectionMetrics bind() {
+        final ConnectionMetrics previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    /**
+     * Restores the metrics which were bound before {@link #bind()} was called.
+     *
+     * @param previous    the value returned by {@link #bind()}
+     */
+    public static void restore(ConnectionMetrics previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public Timer getAcquireWaitTimer() {
+        Timer timer = acquireWait;
+        if (timer == null) {
+            this.acquireWait = timer = timer("connection-wait");
+        }
+        return timer;
+    }
+
+    public Timer getHoldTimer() {
+        Timer timer = hold;
+        if (timer == null) {
+            this.hold = timer = timer("connection-hold");
+        }
+        return timer;
+    }
+
+    public Timer getCommitTimer() {
+        Timer timer = commit;
+        if (timer == null) {
+            this.commit = timer = timer("commit");
+        }
+        return timer;
+    }
+
+    private Timer timer(String suffix) {
+        return Metrics.defaultRegistry().newTimer(new MetricName(klass, name + '-' + suffix),
+                                                  TimeUnit.MILLISECONDS,
+                                                  TimeUnit.SECONDS);
+    }
+}
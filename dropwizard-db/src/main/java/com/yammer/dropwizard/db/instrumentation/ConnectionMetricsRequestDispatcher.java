@@ -0,0 +1,36 @@
+package com.yammer.dropwizard.db.instrumentation;
+
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+/**
+ * A {@link RequestDispatcher} which binds a resource method's {@link ConnectionMetrics} to the
+ * current thread while the method is dispatched.
+ */
+public class ConnectionMetricsRequestDispatcher implements RequestDispatcher {
+    private final ConnectionMetrics metrics;
+    private final RequestDispatcher dispatcher;
+
+    public ConnectionMetricsRequestDispatcher(ConnectionMetrics metrics, RequestDispatcher dispatcher) {
+        this.metrics = metrics;
+        this.dispatcher = dispatcher;
+    }
+
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public RequestDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    @Override
+    public void dispatch(Object resource, HttpContext context) {
+        final ConnectionMetrics previous = metrics.bind();
+        try {
+            dispatcher.dispatch(resource, context);
+        } finally {
+            ConnectionMetrics.restore(previous);
+        }
+    }
+}
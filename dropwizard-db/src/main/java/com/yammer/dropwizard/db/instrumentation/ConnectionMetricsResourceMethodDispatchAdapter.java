@@ -0,0 +1,36 @@
+package com.yammer.dropwizard.db.instrumentation;
+
+import com.sun.jersey.api.model.AbstractResourceMethod;
+import com.sun.jersey.spi.container.ResourceMethodDispatchAdapter;
+import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Binds each resource method's {@link ConnectionMetrics} to the thread handling its requests.
+ */
+@Provider
+public class ConnectionMetricsResourceMethodDispatchAdapter implements ResourceMethodDispatchAdapter {
+    private static class ConnectionMetricsResourceMethodDispatchProvider implements ResourceMethodDispatchProvider {
+        private final ResourceMethodDispatchProvider provider;
+
+        private ConnectionMetricsResourceMethodDispatchProvider(ResourceMethodDispatchProvider provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public RequestDispatcher create(AbstractResourceMethod method) {
+            final RequestDispatcher dispatcher = provider.create(method);
+            if (dispatcher == null) {
+                return null;
+            }
+            return new ConnectionMetricsRequestDispatcher(new ConnectionMetrics(method), dispatcher);
+        }
+    }
+
+    @Override
+    public ResourceMethodDispatchProvider adapt(ResourceMethodDispatchProvider provider) {
+        return new ConnectionMetricsResourceMethodDispatchProvider(provider);
+    }
+}
@@ -0,0 +1,71 @@
+package com.yammer.dropwizard.db.instrumentation.tests;
+
+import com.sun.jersey.api.core.HttpContext;
+import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetrics;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetricsRequestDispatcher;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class ConnectionMetricsRequestDispatcherTest {
+    private final ConnectionMetrics metrics = new ConnectionMetrics(ConnectionMetricsRequestDispatcherTest.class,
+                                                                    "example");
+    private final RequestDispatcher underlying = mock(RequestDispatcher.class);
+    private final ConnectionMetricsRequestDispatcher dispatcher =
+            new ConnectionMetricsRequestDispatcher(metrics, underlying);
+
+    private final Object resource = new Object();
+    private final HttpContext context = mock(HttpContext.class);
+
+    @Test
+    public void bindsTheMetricsWhileDispatching() throws Exception {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(ConnectionMetrics.current())
+                        .isSameAs(metrics);
+                return null;
+            }
+        }).when(underlying).dispatch(resource, context);
+
+        dispatcher.dispatch(resource, context);
+
+        assertThat(ConnectionMetrics.current())
+                .isNull();
+    }
+
+    @Test
+    public void restoresTheOuterMetrics() throws Exception {
+        final ConnectionMetrics outer = new ConnectionMetrics(ConnectionMetricsRequestDispatcherTest.class,
+                                                              "outer");
+        final ConnectionMetrics previous = outer.bind();
+        try {
+            dispatcher.dispatch(resource, context);
+
+            assertThat(ConnectionMetrics.current())
+                    .isSameAs(outer);
+        } finally {
+            ConnectionMetrics.restore(previous);
+        }
+    }
+
+    @Test
+    public void unbindsTheMetricsIfTheDispatchFails() throws Exception {
+        doThrow(new RuntimeException("OH NO")).when(underlying).dispatch(resource, context);
+
+        try {
+            dispatcher.dispatch(resource, context);
+            failBecauseExceptionWasNotThrown(RuntimeException.class);
+        } catch (RuntimeException e) {
+            assertThat(ConnectionMetrics.current())
+                    .isNull();
+        }
+    }
+}
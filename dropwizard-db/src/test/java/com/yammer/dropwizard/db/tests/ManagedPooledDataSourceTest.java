@@ -1,10 +1,18 @@
 package com.yammer.dropwizard.db.tests;
 
 import com.yammer.dropwizard.db.ManagedPooledDataSource;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetrics;
+import com.yammer.dropwizard.util.Deadline;
+import com.yammer.dropwizard.util.Duration;
 import org.apache.tomcat.dbcp.pool.ObjectPool;
 import org.junit.Test;
 
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
@@ -28,6 +36,94 @@ public class ManagedPooledDataSourceTest {
         verify(pool).close();
     }
 
+    @Test
+    public void doesNotInstrumentConnectionsOutsideOfResourceMethods() throws Exception {
+        when(pool.borrowObject()).thenReturn(mock(Connection.class));
+
+        assertThat(Proxy.isProxyClass(dataSource.getConnection().getClass()))
+                .isFalse();
+    }
+
+    @Test
+    public void recordsConnectionMetricsForTheCurrentResourceMethod() throws Exception {
+        final Connection underlying = mock(Connection.class);
+        when(pool.borrowObject()).thenReturn(underlying);
+
+        final ConnectionMetrics metrics = new ConnectionMetrics(ManagedPooledDataSourceTest.class,
+                                                                "example" + System.nanoTime());
+        final ConnectionMetrics previous = metrics.bind();
+        try {
+            final Connection connection = dataSource.getConnection();
+            connection.commit();
+            connection.close();
+            connection.close();
+        } finally {
+            ConnectionMetrics.restore(previous);
+        }
+
+        verify(underlying).commit();
+
+        assertThat(metrics.getAcquireWaitTimer().count())
+                .isEqualTo(1);
+
+        assertThat(metrics.getHoldTimer().count())
+                .isEqualTo(1);
+
+        assertThat(metrics.getCommitTimer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void limitsStatementsToTheCurrentDeadline() throws Exception {
+        final Connection underlying = mock(Connection.class);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        when(pool.borrowObject()).thenReturn(underlying);
+        when(underlying.prepareStatement("SELECT 1")).thenReturn(statement);
+
+        Deadline.setCurrent(Deadline.after(Duration.milliseconds(2500)));
+        try {
+            dataSource.getConnection().prepareStatement("SELECT 1");
+        } finally {
+            Deadline.clearCurrent();
+        }
+
+        verify(statement).setQueryTimeout(3);
+    }
+
+    @Test
+    public void keepsShorterQueryTimeouts() throws Exception {
+        final Connection underlying = mock(Connection.class);
+        final Statement statement = mock(Statement.class);
+        when(pool.borrowObject()).thenReturn(underlying);
+        when(underlying.createStatement()).thenReturn(statement);
+        when(statement.getQueryTimeout()).thenReturn(1);
+
+        Deadline.setCurrent(Deadline.after(Duration.seconds(10)));
+        try {
+            dataSource.getConnection().createStatement();
+        } finally {
+            Deadline.clearCurrent();
+        }
+
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    public void refusesConnectionsOnceTheDeadlineHasPassed() throws Exception {
+        Deadline.setCurrent(Deadline.after(Duration.milliseconds(0)));
+        try {
+            dataSource.getConnection();
+            failBecauseExceptionWasNotThrown(SQLTimeoutException.class);
+        } catch (SQLTimeoutException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("Request deadline exceeded");
+        } finally {
+            Deadline.clearCurrent();
+        }
+
+        verifyZeroInteractions(pool);
+    }
+
     @Test
     public void hasNoParentLogger() throws Exception {
         try {
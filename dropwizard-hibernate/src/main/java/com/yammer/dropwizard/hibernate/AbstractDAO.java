@@ -1,11 +1,28 @@
 package com.yammer.dropwizard.hibernate;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.yammer.dropwizard.db.DatabaseConfiguration;
+import com.yammer.dropwizard.jersey.streaming.StreamingArray;
 import com.yammer.dropwizard.util.Generics;
 import org.hibernate.*;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.StringRepresentableType;
+import org.hibernate.type.Type;
+import org.joda.time.DateTime;
+import org.joda.time.ReadableInstant;
 
 import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -14,6 +31,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * @param <E> the class which this DAO manages
  */
 public class AbstractDAO<E> {
+    private static final int DEFAULT_FETCH_SIZE = 100;
+    private static final int NANOS_PER_MILLI = 1000000;
+
     private final SessionFactory sessionFactory;
     private final Class<?> entityClass;
 
@@ -36,6 +56,21 @@ public class AbstractDAO<E> {
         return sessionFactory.getCurrentSession();
     }
 
+    /**
+     * Returns the current {@link StatelessSession}, bound by a {@link UnitOfWork#stateless()
+     * stateless} unit of work.
+     *
+     * @return the current stateless session
+     * @throws HibernateException if no stateless session is bound to the current thread
+     */
+    protected StatelessSession currentStatelessSession() throws HibernateException {
+        final StatelessSession session = ManagedStatelessSessionContext.get(sessionFactory);
+        if (session == null) {
+            throw new HibernateException("No stateless session currently bound to execution context");
+        }
+        return session;
+    }
+
     /**
      * Creates a new {@link Criteria} query for {@code <E>}.
      *
@@ -119,6 +154,150 @@ public class AbstractDAO<E> {
         return checkNotNull(query).list();
     }
 
+    /**
+     * Get a page of the results of a {@link Criteria} query, ordered by the given key and starting
+     * after the row marked by the given token.
+     * <p/>
+     * Unlike paging with {@link Criteria#setFirstResult(int)}, which makes the database read and
+     * discard the rows of every earlier page, this seeks directly to the first row of the page, so
+     * deep pages are as cheap as the first one. The criteria must not have an ordering of its own,
+     * and should not join-fetch collections: Hibernate applies the page size in memory to such
+     * queries.
+     *
+     * @param criteria the {@link Criteria} query to run
+     * @param keyset   the ordering key
+     * @param after    the token returned with the previous page, or {@link Optional#absent()} for
+     *                 the first page
+     * @param pageSize the maximum number of results on the page
+     * @return a page of matched query results and the token for the next page, if any
+     * @throws InvalidPageTokenException if {@code after} wasn't produced by a query with the same
+     *                                   key
+     * @see Keyset
+     */
+    @SuppressWarnings("unchecked")
+    protected Page<E> page(Criteria criteria,
+                           Keyset keyset,
+                           Optional<PageToken> after,
+                           int pageSize) throws HibernateException {
+        checkArgument(pageSize > 0, "pageSize must be positive");
+        seek(checkNotNull(criteria), keyset, after);
+        // fetch one more row than needed to find out whether there's a next page
+        final List<E> results = criteria.setMaxResults(pageSize + 1).list();
+        if (results.size() <= pageSize) {
+            return new Page<E>(results, Optional.<PageToken>absent());
+        }
+        final List<E> items = results.subList(0, pageSize);
+        return new Page<E>(items, Optional.of(pageToken(items.get(pageSize - 1), keyset)));
+    }
+
+    /**
+     * Scroll forward through the results of a {@link Criteria} query, ordered by the given key and
+     * starting after the row marked by the given token. Use this instead of
+     * {@link #page(Criteria, Keyset, Optional, int)} to stream large result sets without holding
+     * them in memory; {@link #pageToken(Object, Keyset)} returns a token for resuming after any row.
+     *
+     * @param criteria the {@link Criteria} query to run
+     * @param keyset   the ordering key
+     * @param after    a token marking the row to start after, or {@link Optional#absent()} to start
+     *                 at the beginning
+     * @return forward-only {@link ScrollableResults} over the matched query results
+     * @throws InvalidPageTokenException if {@code after} wasn't produced by a query with the same
+     *                                   key
+     * @see Criteria#scroll(ScrollMode)
+     */
+    protected ScrollableResults scroll(Criteria criteria,
+                                       Keyset keyset,
+                                       Optional<PageToken> after) throws HibernateException {
+        seek(checkNotNull(criteria), keyset, after);
+        return criteria.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * Creates a new {@link DetachedCriteria} query for {@code <E>}, which can be built without a
+     * session and run later.
+     *
+     * @return a new {@link DetachedCriteria} query
+     * @see #stream(DetachedCriteria)
+     */
+    protected DetachedCriteria detachedCriteria() {
+        return DetachedCriteria.forClass(entityClass);
+    }
+
+    /**
+     * Returns the results of a {@link DetachedCriteria} query as a {@link StreamingArray}, which
+     * writes each row to the response as it's read instead of holding them all in memory.
+     * <p/>
+     * The query is only run once the response is being written, after the resource method's unit
+     * of work has ended, so it runs in a read-only session and transaction of its own. Rows are
+     * read forward-only with {@code hibernate.jdbc.fetch_size} rows per round trip, and the
+     * session is cleared as often so that its first-level cache doesn't grow with the results.
+     * Use a new {@link DetachedCriteria} for each call.
+     *
+     * @param criteria the {@link DetachedCriteria} query to run
+     * @return a {@link StreamingArray} of the matched query results
+     * @see #detachedCriteria()
+     */
+    protected StreamingArray<E> stream(final DetachedCriteria criteria) {
+        checkNotNull(criteria);
+        return new StreamingArray<E>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void produce(Sink<? super E> sink) throws Exception {
+                final int fetchSize = fetchSize();
+                final Session session = sessionFactory.openSession();
+                try {
+                    session.setDefaultReadOnly(true);
+                    session.setFlushMode(FlushMode.MANUAL);
+                    session.beginTransaction();
+                    final ScrollableResults results = criteria.getExecutableCriteria(session)
+                                                              .setFetchSize(fetchSize)
+                                                              .setReadOnly(true)
+                                                              .scroll(ScrollMode.FORWARD_ONLY);
+                    try {
+                        int count = 0;
+                        while (results.next()) {
+                            sink.write((E) results.get(0));
+                            if (++count % fetchSize == 0) {
+                                session.clear();
+                            }
+                        }
+                    } finally {
+                        results.close();
+                    }
+                    session.getTransaction().commit();
+                } finally {
+                    if (session.getTransaction().isActive()) {
+                        session.getTransaction().rollback();
+                    }
+                    session.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a token which marks the position of the given instance in the given ordering.
+     *
+     * @param entity a persistent instance
+     * @param keyset the ordering key
+     * @return a token for the results following {@code entity}
+     * @throws IllegalArgumentException if a key property is null or can't be represented as a
+     *                                  string
+     */
+    protected PageToken pageToken(E entity, Keyset keyset) throws HibernateException {
+        checkNotNull(entity);
+        final ClassMetadata metadata = classMetadata();
+        final List<String> values = Lists.newArrayListWithCapacity(keyset.getProperties().size());
+        for (String property : keyset.getProperties()) {
+            final Object value = isIdentifier(metadata, property) ?
+                    metadata.getIdentifier(entity, (SessionImplementor) currentSession()) :
+                    metadata.getPropertyValue(entity, property);
+            checkArgument(value != null, "key property %s is null", property);
+            values.add(encodeKey(keyType(metadata, property), value));
+        }
+        return new PageToken(values);
+    }
+
     /**
      * Return the persistent instance of {@code <E>} with the given identifier, or {@code null} if
      * there is no such persistent instance. (If the instance, or a proxy for the instance, is
@@ -150,6 +329,112 @@ public class AbstractDAO<E> {
         return entity;
     }
 
+    /**
+     * Either save or update each of the given instances, flushing and clearing the session after
+     * every {@code hibernate.jdbc.batch_size} instances (or every
+     * {@link DatabaseConfiguration#DEFAULT_BATCH_SIZE} instances, if JDBC batching is disabled)
+     * so that the writes are sent to the database in JDBC batches and the session's first-level
+     * cache doesn't grow without bound.
+     * <p/>
+     * <b>N.B.:</b> clearing the session detaches <i>all</i> of its instances, including any which
+     * were loaded before this was called.
+     * <p/>
+     * In a {@link UnitOfWork#stateless() stateless} unit of work, each instance is <i>inserted</i>
+     * via the current {@link StatelessSession} instead, so all of them must be transient.
+     *
+     * @param entities transient or detached instances containing new or updated state
+     * @throws HibernateException
+     * @see #persist(Object)
+     * @see StatelessSession#insert(Object)
+     */
+    protected void persistAll(Iterable<E> entities) throws HibernateException {
+        persistAll(entities, 0);
+    }
+
+    /**
+     * Either save or update each of the given instances, flushing and clearing the session after
+     * every {@code batchSize} instances. In a {@link UnitOfWork#stateless() stateless} unit of
+     * work, each instance is inserted instead.
+     *
+     * @param entities  transient or detached instances containing new or updated state
+     * @param batchSize the number of instances to write between flushes, or {@code 0} to use
+     *                  {@code hibernate.jdbc.batch_size}
+     * @throws HibernateException
+     * @see #persistAll(Iterable)
+     */
+    protected void persistAll(Iterable<E> entities, int batchSize) throws HibernateException {
+        checkNotNull(entities);
+        final StatelessSession statelessSession = ManagedStatelessSessionContext.get(sessionFactory);
+        if (statelessSession != null) {
+            for (E entity : entities) {
+                statelessSession.insert(checkNotNull(entity));
+            }
+            return;
+        }
+
+        final Session session = currentSession();
+        final int size = batchSize(session, batchSize);
+        int count = 0;
+        for (E entity : entities) {
+            session.saveOrUpdate(checkNotNull(entity));
+            if (++count % size == 0) {
+                session.flush();
+                session.clear();
+            }
+        }
+    }
+
+    /**
+     * Update each of the given detached instances, flushing and clearing the session after every
+     * {@code hibernate.jdbc.batch_size} instances.
+     * <p/>
+     * <b>N.B.:</b> clearing the session detaches <i>all</i> of its instances, including any which
+     * were loaded before this was called.
+     * <p/>
+     * In a {@link UnitOfWork#stateless() stateless} unit of work, each instance is updated via the
+     * current {@link StatelessSession} instead.
+     *
+     * @param entities detached instances containing updated state
+     * @throws HibernateException
+     * @see Session#update(Object)
+     * @see StatelessSession#update(Object)
+     */
+    protected void updateAll(Iterable<E> entities) throws HibernateException {
+        updateAll(entities, 0);
+    }
+
+    /**
+     * Update each of the given detached instances, flushing and clearing the session after every
+     * {@code batchSize} instances.
+     *
+     * @param entities  detached instances containing updated state
+     * @param batchSize the number of instances to write between flushes, or {@code 0} to use
+     *                  {@code hibernate.jdbc.batch_size}
+     * @throws HibernateException
+     * @see #updateAll(Iterable)
+     */
+    protected void updateAll(Iterable<E> entities, int batchSize) throws HibernateException {
+        checkNotNull(entities);
+        final StatelessSession statelessSession = ManagedStatelessSessionContext.get(sessionFactory);
+        if (statelessSession != null) {
+            for (E entity : entities) {
+                statelessSession.update(checkNotNull(entity));
+            }
+            return;
+        }
+
+        final Session session = currentSession();
+        final int size = batchSize(session, batchSize);
+        int count = 0;
+        for (E entity : entities) {
+            session.update(checkNotNull(entity));
+            if (++count % size == 0) {
+                session.flush();
+                session.clear();
+            }
+        }
+    }
+
     /**
      * Force initialization of a proxy or persistent collection.
      * <p/>
@@ -165,4 +450,123 @@ public class AbstractDAO<E> {
         }
         return proxy;
     }
+
+    private static int batchSize(Session session, int batchSize) {
+        checkArgument(batchSize >= 0, "batchSize must be non-negative");
+        if (batchSize > 0) {
+            return batchSize;
+        }
+        if (session instanceof SessionImplementor) {
+            final int configured = ((SessionImplementor) session).getFactory()
+                                                                 .getSettings()
+                                                                 .getJdbcBatchSize();
+            if (configured > 0) {
+                return configured;
+            }
+        }
+        return DatabaseConfiguration.DEFAULT_BATCH_SIZE;
+    }
+
+    private int fetchSize() {
+        if (sessionFactory instanceof SessionFactoryImplementor) {
+            final Integer configured = ((SessionFactoryImplementor) sessionFactory).getSettings()
+                                                                                   .getJdbcFetchSize();
+            if ((configured != null) && (configured > 0)) {
+                return configured;
+            }
+        }
+        return DEFAULT_FETCH_SIZE;
+    }
+
+    private void seek(Criteria criteria, Keyset keyset, Optional<PageToken> after) {
+        checkNotNull(keyset);
+        if (after.isPresent()) {
+            final ClassMetadata metadata = classMetadata();
+            final ImmutableList<String> properties = keyset.getProperties();
+            final ImmutableList<String> strings = after.get().getValues();
+            if (strings.size() != properties.size()) {
+                throw new InvalidPageTokenException(after.get());
+            }
+            final List<Object> values = Lists.newArrayListWithCapacity(strings.size());
+            for (int i = 0; i < strings.size(); i++) {
+                final Type type = keyType(metadata, properties.get(i));
+                try {
+                    values.add(decodeKey(type, strings.get(i)));
+                } catch (RuntimeException e) {
+                    throw new InvalidPageTokenException(after.get(), e);
+                }
+            }
+            criteria.add(keyset.after(values));
+        }
+        keyset.order(criteria);
+    }
+
+    private ClassMetadata classMetadata() {
+        final ClassMetadata metadata = currentSession().getSessionFactory().getClassMetadata(entityClass);
+        if (metadata == null) {
+            throw new HibernateException(entityClass.getName() + " is not a mapped entity");
+        }
+        return metadata;
+    }
+
+    private static boolean isIdentifier(ClassMetadata metadata, String property) {
+        return property.equals(metadata.getIdentifierPropertyName());
+    }
+
+    private static Type keyType(ClassMetadata metadata, String property) {
+        final Type type = isIdentifier(metadata, property) ? metadata.getIdentifierType() :
+                metadata.getPropertyType(property);
+        checkArgument(isInstant(type) || (type instanceof StringRepresentableType),
+                      "key property %s has type %s, which can't be used in a page token",
+                      property, type.getName());
+        return type;
+    }
+
+    private static boolean isInstant(Type type) {
+        final Class<?> klass = type.getReturnedClass();
+        return Date.class.isAssignableFrom(klass) ||
+                Calendar.class.isAssignableFrom(klass) ||
+                (ReadableInstant.class.isAssignableFrom(klass) && klass.isAssignableFrom(DateTime.class));
+    }
+
+    // Hibernate's string forms of dates and times are truncated to seconds, so instants are
+    // encoded as epoch milliseconds, followed by the rest of a timestamp's nanoseconds
+    @SuppressWarnings("unchecked")
+    private static String encodeKey(Type type, Object value) {
+        if (value instanceof Timestamp) {
+            final Timestamp timestamp = (Timestamp) value;
+            return timestamp.getTime() + ":" + (timestamp.getNanos() % NANOS_PER_MILLI);
+        } else if (value instanceof Date) {
+            return Long.toString(((Date) value).getTime());
+        } else if (value instanceof Calendar) {
+            return Long.toString(((Calendar) value).getTimeInMillis());
+        } else if (value instanceof ReadableInstant) {
+            return Long.toString(((ReadableInstant) value).getMillis());
+        }
+        return ((StringRepresentableType<Object>) type).toString(value);
+    }
+
+    private static Object decodeKey(Type type, String value) {
+        if (!isInstant(type)) {
+            return ((StringRepresentableType<?>) type).fromStringValue(value);
+        }
+
+        final int separator = value.indexOf(':');
+        final long millis = Long.parseLong((separator < 0) ? value : value.substring(0, separator));
+        final int nanos = (separator < 0) ? 0 : Integer.parseInt(value.substring(separator + 1));
+        checkArgument((nanos >= 0) && (nanos < NANOS_PER_MILLI), "invalid nanoseconds: %s", nanos);
+
+        final Class<?> klass = type.getReturnedClass();
+        if (Calendar.class.isAssignableFrom(klass)) {
+            final Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(millis);
+            return calendar;
+        } else if (ReadableInstant.class.isAssignableFrom(klass)) {
+            return new DateTime(millis);
+        }
+        // a Timestamp is a Date, and keeps the nanoseconds for timestamp columns
+        final Timestamp timestamp = new Timestamp(millis);
+        timestamp.setNanos(timestamp.getNanos() + nanos);
+        return timestamp;
+    }
 }
@@ -1,6 +1,7 @@
 package com.yammer.dropwizard.hibernate;
 
 import com.fasterxml.jackson.datatype.hibernate4.Hibernate4Module;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.yammer.dropwizard.ConfiguredBundle;
 import com.yammer.dropwizard.config.Bootstrap;
@@ -10,6 +11,8 @@ import com.yammer.dropwizard.db.ConfigurationStrategy;
 import com.yammer.dropwizard.db.DatabaseConfiguration;
 import org.hibernate.SessionFactory;
 
+import java.io.File;
+
 public abstract class HibernateBundle<T extends Configuration> implements ConfiguredBundle<T>, ConfigurationStrategy<T> {
     private SessionFactory sessionFactory;
 
@@ -34,13 +37,39 @@ public abstract class HibernateBundle<T extends Configuration> implements Config
     @Override
     public final void run(T configuration, Environment environment) throws Exception {
         final DatabaseConfiguration dbConfig = getDatabaseConfiguration(configuration);
-        this.sessionFactory = sessionFactoryFactory.build(environment, dbConfig, entities);
+        this.sessionFactory = sessionFactoryFactory.build(environment,
+                                                          dbConfig,
+                                                          getSecondLevelCacheConfiguration(configuration),
+                                                          getMetadataCacheDirectory(configuration),
+                                                          entities);
         environment.addProvider(new UnitOfWorkResourceMethodDispatchAdapter(sessionFactory));
         environment.addHealthCheck(new SessionFactoryHealthCheck("hibernate",
                                                                  sessionFactory,
                                                                  dbConfig.getValidationQuery()));
     }
 
+    /**
+     * Returns the configuration of the second-level cache and query cache. Both are disabled unless
+     * this is overridden.
+     *
+     * @param configuration    the service's configuration
+     * @return the second-level cache configuration
+     */
+    public SecondLevelCacheConfiguration getSecondLevelCacheConfiguration(T configuration) {
+        return new SecondLevelCacheConfiguration();
+    }
+
+    /**
+     * Returns the directory in which to cache the built entity mappings between boots. Mappings
+     * aren't cached unless this is overridden.
+     *
+     * @param configuration    the service's configuration
+     * @return the metadata cache directory, if any
+     */
+    public Optional<File> getMetadataCacheDirectory(T configuration) {
+        return Optional.absent();
+    }
+
     public SessionFactory getSessionFactory() {
         return sessionFactory;
     }
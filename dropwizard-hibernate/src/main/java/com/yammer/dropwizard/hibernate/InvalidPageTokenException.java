@@ -0,0 +1,36 @@
+package com.yammer.dropwizard.hibernate;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * An exception thrown when a {@link PageToken} can be parsed but doesn't match the {@link Keyset}
+ * of the query it's used with. Like a malformed {@link PageTokenParam}, it results in a
+ * {@code 400 Bad Request} response.
+ */
+public class InvalidPageTokenException extends WebApplicationException {
+    private static final long serialVersionUID = -3194702716410297543L;
+
+    /**
+     * Creates a new {@link InvalidPageTokenException}.
+     *
+     * @param token    the token which doesn't match the key
+     */
+    public InvalidPageTokenException(PageToken token) {
+        this(token, new IllegalArgumentException("page token does not match the key"));
+    }
+
+    /**
+     * Creates a new {@link InvalidPageTokenException}.
+     *
+     * @param token    the token which doesn't match the key
+     * @param cause    the error from decoding the token's values
+     */
+    public InvalidPageTokenException(PageToken token, Throwable cause) {
+        super(cause, Response.status(Response.Status.BAD_REQUEST)
+                             .entity(PageTokenParam.errorMessage(token.toString()))
+                             .type(MediaType.TEXT_PLAIN_TYPE)
+                             .build());
+    }
+}
@@ -0,0 +1,130 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import org.hibernate.Criteria;
+import org.hibernate.criterion.Conjunction;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Disjunction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An ordering key for keyset (or "seek") pagination: a list of entity properties, all sorted in
+ * the same direction, whose values uniquely identify each row.
+ * <p/>
+ * Instead of skipping the rows of earlier pages with an {@code OFFSET}, each page selects the rows
+ * whose keys come after the last row of the previous page, which an index on the key properties
+ * can answer as quickly for the thousandth page as for the first. The last property should be
+ * unique (e.g., the identifier), and none of the properties may be {@code null}:
+ * <pre>{@code
+ * private static final Keyset NEWEST_FIRST = Keyset.descending("createdAt", "id");
+ * }</pre>
+ *
+ * @see AbstractDAO#page(Criteria, Keyset, com.google.common.base.Optional, int)
+ */
+public class Keyset {
+    /**
+     * Returns a key which sorts the given properties in ascending order.
+     *
+     * @param properties    the names of the key properties, the last of which should be unique
+     * @return an ascending key
+     */
+    public static Keyset ascending(String... properties) {
+        return new Keyset(true, properties);
+    }
+
+    /**
+     * Returns a key which sorts the given properties in descending order.
+     *
+     * @param properties    the names of the key properties, the last of which should be unique
+     * @return a descending key
+     */
+    public static Keyset descending(String... properties) {
+        return new Keyset(false, properties);
+    }
+
+    private final boolean ascending;
+    private final ImmutableList<String> properties;
+
+    private Keyset(boolean ascending, String... properties) {
+        checkArgument(properties.length > 0, "a keyset needs at least one property");
+        this.ascending = ascending;
+        this.properties = ImmutableList.copyOf(properties);
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public ImmutableList<String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Orders the given criteria by this key.
+     *
+     * @param criteria    a {@link Criteria} query
+     */
+    void order(Criteria criteria) {
+        for (String property : properties) {
+            criteria.addOrder(ascending ? Order.asc(property) : Order.desc(property));
+        }
+    }
+
+    /**
+     * Returns a criterion which matches the rows whose keys come after the given key values.
+     * <p/>
+     * For a key {@code (a, b)}, this is {@code a >= ?1 and (a > ?1 or (a = ?1 and b > ?2))}; the
+     * redundant leading comparison lets the database use a range scan over an index on {@code a}.
+     *
+     * @param values    the key values of the last row of the previous page
+     * @return a criterion matching the following rows
+     */
+    Criterion after(List<?> values) {
+        checkArgument(values.size() == properties.size(),
+                      "expected %s key values but got %s", properties.size(), values.size());
+        final Disjunction following = Restrictions.disjunction();
+        for (int i = 0; i < properties.size(); i++) {
+            final Conjunction tied = Restrictions.conjunction();
+            for (int j = 0; j < i; j++) {
+                tied.add(Restrictions.eq(properties.get(j), checkNotNull(values.get(j))));
+            }
+            tied.add(ascending ? Restrictions.gt(properties.get(i), checkNotNull(values.get(i))) :
+                             Restrictions.lt(properties.get(i), checkNotNull(values.get(i))));
+            following.add(tied);
+        }
+        if (properties.size() == 1) {
+            return following;
+        }
+        final Criterion leading = ascending ? Restrictions.ge(properties.get(0), values.get(0)) :
+                Restrictions.le(properties.get(0), values.get(0));
+        return Restrictions.and(leading, following);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+        final Keyset that = (Keyset) obj;
+        return (ascending == that.ascending) && properties.equals(that.properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * (ascending ? 1 : 0)) + properties.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                      .add("ascending", ascending)
+                      .add("properties", properties)
+                      .toString();
+    }
+}
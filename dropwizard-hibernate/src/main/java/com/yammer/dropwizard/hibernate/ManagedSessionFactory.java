@@ -27,6 +27,10 @@ public class ManagedSessionFactory implements SessionFactory, Managed {
         this.dataSource = dataSource;
     }
 
+    SessionFactory getFactory() {
+        return factory;
+    }
+
     @Override
     public SessionFactoryOptions getSessionFactoryOptions() {
         return factory.getSessionFactoryOptions();
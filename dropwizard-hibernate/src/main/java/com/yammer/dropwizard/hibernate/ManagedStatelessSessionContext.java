@@ -0,0 +1,71 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.google.common.collect.Maps;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.util.Map;
+
+/**
+ * Binds {@link StatelessSession}s to the current thread, the way
+ * {@link org.hibernate.context.internal.ManagedSessionContext} binds {@link org.hibernate.Session}s.
+ *
+ * @see UnitOfWork#stateless()
+ */
+public final class ManagedStatelessSessionContext {
+    private static final ThreadLocal<Map<SessionFactory, StatelessSession>> SESSIONS =
+            new ThreadLocal<Map<SessionFactory, StatelessSession>>() {
+                @Override
+                protected Map<SessionFactory, StatelessSession> initialValue() {
+                    return Maps.newHashMap();
+                }
+            };
+
+    private ManagedStatelessSessionContext() { /* singleton */ }
+
+    /**
+     * Binds the given stateless session to the current thread.
+     *
+     * @param sessionFactory    the session factory which opened the session
+     * @param session           the stateless session
+     * @return the previously bound session, if any
+     */
+    public static StatelessSession bind(SessionFactory sessionFactory, StatelessSession session) {
+        return SESSIONS.get().put(sessionFactory, session);
+    }
+
+    /**
+     * Unbinds the stateless session, if any, from the current thread.
+     *
+     * @param sessionFactory    the session factory which opened the session
+     * @return the previously bound session, if any
+     */
+    public static StatelessSession unbind(SessionFactory sessionFactory) {
+        final Map<SessionFactory, StatelessSession> sessions = SESSIONS.get();
+        final StatelessSession session = sessions.remove(sessionFactory);
+        if (sessions.isEmpty()) {
+            SESSIONS.remove();
+        }
+        return session;
+    }
+
+    /**
+     * Returns {@code true} if a stateless session is bound to the current thread.
+     *
+     * @param sessionFactory    the session factory which opened the session
+     * @return whether or not a stateless session is bound to the current thread
+     */
+    public static boolean hasBind(SessionFactory sessionFactory) {
+        return SESSIONS.get().containsKey(sessionFactory);
+    }
+
+    /**
+     * Returns the stateless session bound to the current thread, or {@code null}.
+     *
+     * @param sessionFactory    the session factory which opened the session
+     * @return the bound stateless session, or {@code null}
+     */
+    public static StatelessSession get(SessionFactory sessionFactory) {
+        return SESSIONS.get().get(sessionFactory);
+    }
+}
@@ -0,0 +1,450 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import org.hibernate.Version;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.MappedSuperclass;
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * A directory of serialized Hibernate {@link Configuration}s, whose mappings have already been
+ * built, keyed by a hash of everything which goes into building them.
+ * <p/>
+ * The hash covers the Hibernate version, the settings, Hibernate's global properties, any
+ * {@code hibernate.properties} and {@code META-INF/orm.xml} resources, and the bytecode of every
+ * class the mappings refer to: each entity class, its superclasses, the {@code package-info} of
+ * each mapped package, and the types of the mapped classes' fields and properties (including
+ * collection element types), recursing into embeddable classes, along with any classes named by
+ * their annotations (e.g., custom user types and generators). Any change to those produces a new
+ * key, and storing a new configuration removes the stale ones.
+ * <p/>
+ * The directory should only be writable by the service. Files are only read from the directory
+ * itself, a file must start with the key it was stored under, and only the JDK's, Hibernate's, and
+ * the hashed classes may be deserialized from it. Anything else means the mappings are rebuilt.
+ */
+class MetadataCache {
+    /**
+     * The key of a cached configuration, and the classes which may be deserialized from it.
+     */
+    static class Key {
+        private final String hash;
+        private final ImmutableSet<String> classes;
+
+        private Key(String hash, ImmutableSet<String> classes) {
+            this.hash = hash;
+            this.classes = classes;
+        }
+
+        @Override
+        public String toString() {
+            return hash;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataCache.class);
+    private static final String PREFIX = "hibernate-metadata-";
+    private static final String SUFFIX = ".ser";
+    private static final int MAGIC = 0x44574843;
+    private static final ImmutableList<String> RESOURCES = ImmutableList.of("hibernate.properties",
+                                                                            "META-INF/orm.xml");
+    // the packages of the classes which a serialized Configuration holds, besides the mapped ones
+    private static final ImmutableList<String> TRUSTED_PACKAGES = ImmutableList.of("java.lang.",
+                                                                                   "java.math.",
+                                                                                   "java.sql.",
+                                                                                   "java.util.",
+                                                                                   "javax.persistence.",
+                                                                                   "org.dom4j.",
+                                                                                   "org.hibernate.");
+    private static final ImmutableSet<String> TRUSTED_CLASSES = ImmutableSet.of("java.io.Serializable",
+                                                                                "java.net.URL");
+
+    private final File directory;
+
+    MetadataCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the key for the given settings and entities, or {@link Optional#absent()} if the
+     * bytecode of any of the mapped classes or any of the mapping resources can't be read.
+     */
+    Optional<Key> key(SortedMap<String, String> settings, List<Class<?>> entities) {
+        final Hasher hasher = Hashing.sha1().newHasher();
+        hasher.putString(Version.getVersionString(), Charsets.UTF_8);
+        hashProperties(hasher, settings);
+        hashProperties(hasher, globalProperties());
+
+        final ClassLoader loader = classLoader(entities);
+        final Set<Class<?>> classes = Sets.newLinkedHashSet();
+        try {
+            for (String resource : RESOURCES) {
+                hashResources(hasher, loader, resource);
+            }
+            final Deque<Class<?>> pending = Lists.newLinkedList();
+            for (Class<?> entity : entities) {
+                reference(entity, classes, pending);
+            }
+            while (!pending.isEmpty()) {
+                hashClass(hasher, pending.removeFirst(), classes, pending);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the Hibernate mappings; not caching Hibernate metadata", e);
+            return Optional.absent();
+        }
+
+        final ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (Class<?> klass : classes) {
+            names.add(klass.getName());
+        }
+        return Optional.of(new Key(hasher.hash().toString(), names.build()));
+    }
+
+    /**
+     * Returns the configuration stored under the given key, if there is one and it can be read.
+     */
+    Optional<Configuration> load(Key key) {
+        final File file = file(key);
+        if (!file.exists()) {
+            return Optional.absent();
+        }
+        try {
+            if (!file.getCanonicalFile().getParentFile().equals(directory.getCanonicalFile())) {
+                throw new IOException(file + " is not in " + directory);
+            }
+            final ObjectInputStream input = new TrustedObjectInputStream(new BufferedInputStream(new FileInputStream(file)),
+                                                                         key.classes);
+            try {
+                if ((input.readInt() != MAGIC) || !key.hash.equals(input.readUTF())) {
+                    throw new IOException(file + " was not stored under its key");
+                }
+                return Optional.of((Configuration) input.readObject());
+            } finally {
+                Closeables.closeQuietly(input);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Unable to read cached Hibernate metadata from {}; rebuilding it", file, e);
+        } catch (LinkageError e) {
+            LOGGER.warn("Unable to read cached Hibernate metadata from {}; rebuilding it", file, e);
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Stores the given configuration under the given key, replacing any other stored
+     * configurations.
+     */
+    void store(Key key, Configuration configuration) {
+        final File file = file(key);
+        try {
+            if (!directory.isDirectory()) {
+                if (!directory.mkdirs()) {
+                    throw new IOException("Unable to create " + directory);
+                }
+                restrictToOwner(directory);
+            }
+            // write to a temporary file first so that a concurrent boot never reads a partial file
+            final File temp = File.createTempFile(PREFIX, ".tmp", directory);
+            try {
+                restrictToOwner(temp);
+                final ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+                try {
+                    output.writeInt(MAGIC);
+                    output.writeUTF(key.hash);
+                    output.writeObject(configuration);
+                } finally {
+                    output.close();
+                }
+                Files.move(temp, file);
+            } finally {
+                if (temp.exists() && !temp.delete()) {
+                    LOGGER.debug("Unable to delete {}", temp);
+                }
+            }
+            deleteStaleFiles(file);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to cache Hibernate metadata in {}", file, e);
+        }
+    }
+
+    File file(Key key) {
+        return new File(directory, PREFIX + key.hash + SUFFIX);
+    }
+
+    private void deleteStaleFiles(File current) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith(PREFIX) && file.getName().endsWith(SUFFIX) &&
+                        !file.equals(current) && !file.delete()) {
+                    LOGGER.debug("Unable to delete stale Hibernate metadata {}", file);
+                }
+            }
+        }
+    }
+
+    private static void restrictToOwner(File file) {
+        // best effort: File can't express "no access for anyone but the owner" any more directly
+        file.setReadable(false, false);
+        file.setWritable(false, false);
+        file.setExecutable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(true, true);
+        if (file.isDirectory()) {
+            file.setExecutable(true, true);
+        }
+    }
+
+    private static SortedMap<String, String> globalProperties() {
+        // new Configuration() starts with these, which include hibernate.* system properties
+        final SortedMap<String, String> properties = Maps.newTreeMap();
+        for (Map.Entry<Object, Object> property : Environment.getProperties().entrySet()) {
+            properties.put(String.valueOf(property.getKey()), String.valueOf(property.getValue()));
+        }
+        return properties;
+    }
+
+    private static void hashProperties(Hasher hasher, SortedMap<String, String> properties) {
+        for (Map.Entry<String, String> property : ImmutableSortedMap.copyOfSorted(properties).entrySet()) {
+            hasher.putString(property.getKey(), Charsets.UTF_8)
+                  .putByte((byte) 0)
+                  .putString(property.getValue(), Charsets.UTF_8)
+                  .putByte((byte) 0);
+        }
+        hasher.putByte((byte) 1);
+    }
+
+    private static void hashResources(Hasher hasher, ClassLoader loader, String name) throws IOException {
+        final Enumeration<URL> resources = loader.getResources(name);
+        while (resources.hasMoreElements()) {
+            final URL resource = resources.nextElement();
+            final InputStream input = resource.openStream();
+            try {
+                hasher.putString(resource.toString(), Charsets.UTF_8)
+                      .putBytes(ByteStreams.toByteArray(input));
+            } finally {
+                Closeables.closeQuietly(input);
+            }
+        }
+    }
+
+    private static ClassLoader classLoader(List<Class<?>> entities) {
+        for (Class<?> entity : entities) {
+            if (entity.getClassLoader() != null) {
+                return entity.getClassLoader();
+            }
+        }
+        return ClassLoader.getSystemClassLoader();
+    }
+
+    private static void hashClass(Hasher hasher,
+                                  Class<?> klass,
+                                  Set<Class<?>> classes,
+                                  Deque<Class<?>> pending) throws IOException {
+        hasher.putString(klass.getName(), Charsets.UTF_8).putBytes(bytecode(klass));
+        referenceAnnotations(klass.getAnnotations(), klass.getClassLoader(), classes, pending);
+        if (!isMapped(klass)) {
+            // e.g., a user type or a generator: its bytecode is enough
+            return;
+        }
+
+        reference(klass.getSuperclass(), classes, pending);
+        if (klass.getPackage() != null) {
+            referencePackageInfo(klass, classes, pending);
+        }
+        for (Field field : klass.getDeclaredFields()) {
+            referenceType(field.getGenericType(), classes, pending);
+            referenceAnnotations(field.getAnnotations(), klass.getClassLoader(), classes, pending);
+        }
+        for (Method method : klass.getDeclaredMethods()) {
+            referenceType(method.getGenericReturnType(), classes, pending);
+            referenceAnnotations(method.getAnnotations(), klass.getClassLoader(), classes, pending);
+        }
+    }
+
+    private static boolean isMapped(Class<?> klass) {
+        return klass.isAnnotationPresent(Entity.class) ||
+                klass.isAnnotationPresent(Embeddable.class) ||
+                klass.isAnnotationPresent(MappedSuperclass.class) ||
+                klass.getName().endsWith(".package-info");
+    }
+
+    private static void referencePackageInfo(Class<?> klass, Set<Class<?>> classes, Deque<Class<?>> pending) {
+        try {
+            reference(Class.forName(klass.getPackage().getName() + ".package-info", false, klass.getClassLoader()),
+                      classes,
+                      pending);
+        } catch (ClassNotFoundException ignored) {
+            // the package has no annotations
+        }
+    }
+
+    private static void referenceType(Type type, Set<Class<?>> classes, Deque<Class<?>> pending) {
+        if (type instanceof Class) {
+            reference((Class<?>) type, classes, pending);
+        } else if (type instanceof ParameterizedType) {
+            referenceType(((ParameterizedType) type).getRawType(), classes, pending);
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                referenceType(argument, classes, pending);
+            }
+        } else if (type instanceof GenericArrayType) {
+            referenceType(((GenericArrayType) type).getGenericComponentType(), classes, pending);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                referenceType(bound, classes, pending);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+                referenceType(bound, classes, pending);
+            }
+        }
+    }
+
+    private static void referenceAnnotations(Annotation[] annotations,
+                                             ClassLoader loader,
+                                             Set<Class<?>> classes,
+                                             Deque<Class<?>> pending) {
+        for (Annotation annotation : annotations) {
+            for (Method attribute : annotation.annotationType().getDeclaredMethods()) {
+                try {
+                    referenceValue(attribute.invoke(annotation), loader, classes, pending);
+                } catch (IllegalAccessException ignored) {
+                    // not an attribute we can read
+                } catch (InvocationTargetException ignored) {
+                    // not an attribute we can read
+                }
+            }
+        }
+    }
+
+    private static void referenceValue(Object value,
+                                       ClassLoader loader,
+                                       Set<Class<?>> classes,
+                                       Deque<Class<?>> pending) {
+        if (value instanceof Class) {
+            reference((Class<?>) value, classes, pending);
+        } else if (value instanceof String) {
+            // e.g., @Type(type = "com.example.MoneyType") or @GenericGenerator(strategy = ...)
+            final String name = (String) value;
+            if ((loader != null) && (name.indexOf('.') > 0) && (name.indexOf(' ') < 0)) {
+                try {
+                    reference(Class.forName(name, false, loader), classes, pending);
+                } catch (ClassNotFoundException ignored) {
+                    // not a class name
+                } catch (LinkageError ignored) {
+                    // not a usable class
+                }
+            }
+        } else if (value instanceof Annotation) {
+            referenceAnnotations(new Annotation[]{ (Annotation) value }, loader, classes, pending);
+        } else if ((value != null) && value.getClass().isArray() &&
+                !value.getClass().getComponentType().isPrimitive()) {
+            for (Object element : (Object[]) value) {
+                referenceValue(element, loader, classes, pending);
+            }
+        }
+    }
+
+    private static void reference(Class<?> klass, Set<Class<?>> classes, Deque<Class<?>> pending) {
+        Class<?> type = klass;
+        while ((type != null) && type.isArray()) {
+            type = type.getComponentType();
+        }
+        // the JDK's classes, and Hibernate's, are covered by the Hibernate version
+        if ((type == null) || type.isPrimitive() || (type.getClassLoader() == null) ||
+                type.getName().startsWith("org.hibernate.") ||
+                type.getName().startsWith("javax.persistence.")) {
+            return;
+        }
+        if (classes.add(type)) {
+            pending.addLast(type);
+        }
+    }
+
+    private static byte[] bytecode(Class<?> klass) throws IOException {
+        final ClassLoader loader = (klass.getClassLoader() == null) ?
+                ClassLoader.getSystemClassLoader() : klass.getClassLoader();
+        final InputStream input = loader.getResourceAsStream(klass.getName().replace('.', '/') + ".class");
+        if (input == null) {
+            throw new FileNotFoundException("No class file for " + klass.getName());
+        }
+        try {
+            return ByteStreams.toByteArray(input);
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+    }
+
+    private static class TrustedObjectInputStream extends ObjectInputStream {
+        private final ImmutableSet<String> classes;
+
+        private TrustedObjectInputStream(InputStream input, ImmutableSet<String> classes) throws IOException {
+            super(input);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isTrusted(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "not a Hibernate metadata class");
+            }
+            final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            if (loader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, loader);
+                } catch (ClassNotFoundException ignored) {
+                    // fall back to the default resolution
+                }
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("proxy classes are not Hibernate metadata classes");
+        }
+
+        private boolean isTrusted(String name) {
+            String type = name;
+            while (type.startsWith("[")) {
+                type = type.substring(1);
+            }
+            if (type.startsWith("L") && type.endsWith(";")) {
+                type = type.substring(1, type.length() - 1);
+            } else if (type.length() == 1) {
+                // an array of primitives
+                return true;
+            }
+            if (classes.contains(type) || TRUSTED_CLASSES.contains(type)) {
+                return true;
+            }
+            for (String trusted : TRUSTED_PACKAGES) {
+                if (type.startsWith(trusted)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * A page of results from a {@link Keyset keyset}-paginated query, along with the token for the
+ * next page, if there is one.
+ *
+ * @param <E> the type of the results
+ */
+public class Page<E> {
+    @JsonProperty
+    private final ImmutableList<E> items;
+
+    @JsonProperty
+    private final Optional<PageToken> next;
+
+    /**
+     * Creates a new {@link Page}.
+     *
+     * @param items    the results on this page
+     * @param next     the token for the next page, or {@link Optional#absent()} if this is the last
+     *                 page
+     */
+    public Page(List<E> items, Optional<PageToken> next) {
+        this.items = ImmutableList.copyOf(items);
+        this.next = next;
+    }
+
+    public ImmutableList<E> getItems() {
+        return items;
+    }
+
+    public Optional<PageToken> getNext() {
+        return next;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+        final Page<?> that = (Page<?>) obj;
+        return items.equals(that.items) && next.equals(that.next);
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * items.hashCode()) + next.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                      .add("items", items)
+                      .add("next", next)
+                      .toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.google.common.collect.ImmutableList;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.*;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * An opaque continuation token which marks where the next page of a {@link Keyset keyset}-paginated
+ * query starts.
+ * <p/>
+ * A token holds the string forms of the last row's key values, encoded so that it can be passed
+ * around as a URL-safe string. Clients should treat it as opaque; use {@link PageTokenParam} to
+ * accept one as a request parameter.
+ */
+public class PageToken {
+    private static final int VERSION = 1;
+
+    /**
+     * Parses a token previously returned by {@link #toString()}.
+     *
+     * @param token    an encoded token
+     * @return the decoded token
+     * @throws IllegalArgumentException if {@code token} is not a valid token
+     */
+    @JsonCreator
+    public static PageToken parse(String token) throws IllegalArgumentException {
+        final byte[] bytes;
+        try {
+            bytes = DatatypeConverter.parseBase64Binary(pad(token.replace('-', '+').replace('_', '/')));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("malformed page token", e);
+        }
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            checkArgument(input.readUnsignedByte() == VERSION, "unsupported page token version");
+            final int count = input.readUnsignedByte();
+            final ImmutableList.Builder<String> values = ImmutableList.builder();
+            for (int i = 0; i < count; i++) {
+                values.add(input.readUTF());
+            }
+            checkArgument(input.read() < 0, "malformed page token");
+            return new PageToken(values.build());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed page token", e);
+        }
+    }
+
+    private static String pad(String token) {
+        final StringBuilder padded = new StringBuilder(token);
+        while (padded.length() % 4 != 0) {
+            padded.append('=');
+        }
+        return padded.toString();
+    }
+
+    private final ImmutableList<String> values;
+
+    /**
+     * Creates a new {@link PageToken}.
+     *
+     * @param values    the string forms of the last row's key values
+     */
+    public PageToken(List<String> values) {
+        checkArgument(values.size() <= 255, "too many key values");
+        this.values = ImmutableList.copyOf(values);
+    }
+
+    /**
+     * Returns the string forms of the last row's key values.
+     *
+     * @return the key values of the last row
+     */
+    public ImmutableList<String> getValues() {
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+        final PageToken that = (PageToken) obj;
+        return values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    /**
+     * Returns the encoded, URL-safe form of this token.
+     *
+     * @return the encoded token
+     */
+    @Override
+    @JsonValue
+    public String toString() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            output.writeByte(VERSION);
+            output.writeByte(values.size());
+            for (String value : values) {
+                output.writeUTF(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final String encoded = DatatypeConverter.printBase64Binary(bytes.toByteArray());
+        return stripPadding(encoded).replace('+', '-').replace('/', '_');
+    }
+
+    private static String stripPadding(String encoded) {
+        int end = encoded.length();
+        while ((end > 0) && (encoded.charAt(end - 1) == '=')) {
+            end--;
+        }
+        return encoded.substring(0, end);
+    }
+}
@@ -0,0 +1,28 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.yammer.dropwizard.jersey.params.AbstractParam;
+
+/**
+ * A parameter encapsulating {@link PageToken} values. All non-parsable values will return a
+ * {@code 400 Bad Request} response, as will tokens which don't match the query's {@link Keyset}
+ * (see {@link InvalidPageTokenException}).
+ */
+public class PageTokenParam extends AbstractParam<PageToken> {
+    static String errorMessage(String input) {
+        return '"' + input + "\" is not a page token.";
+    }
+
+    public PageTokenParam(String input) {
+        super(input);
+    }
+
+    @Override
+    protected String errorMessage(String input, Exception e) {
+        return errorMessage(input);
+    }
+
+    @Override
+    protected PageToken parse(String input) throws Exception {
+        return PageToken.parse(input);
+    }
+}
@@ -0,0 +1,109 @@
+package com.yammer.dropwizard.hibernate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilderSpec;
+import com.google.common.collect.ImmutableMap;
+import com.yammer.dropwizard.validation.ValidationMethod;
+
+import javax.validation.constraints.NotNull;
+import java.util.Map;
+
+/**
+ * The configuration of Hibernate's second-level cache and query cache.
+ * <p/>
+ * Each cache region is an in-process, bounded cache whose size and expiration policy are given as a
+ * {@link CacheBuilderSpec} (e.g., {@code maximumSize=1000, expireAfterWrite=10m}). Regions without
+ * their own specification use {@link #getDefaultRegion()}.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class SecondLevelCacheConfiguration {
+    @JsonProperty
+    private boolean enabled = false;
+
+    @JsonProperty
+    private boolean queryCacheEnabled = false;
+
+    @NotNull
+    @JsonProperty
+    private String defaultRegion = "maximumSize=10000";
+
+    @NotNull
+    @JsonProperty
+    private ImmutableMap<String, String> regions = ImmutableMap.of();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isQueryCacheEnabled() {
+        return queryCacheEnabled;
+    }
+
+    public void setQueryCacheEnabled(boolean queryCacheEnabled) {
+        this.queryCacheEnabled = queryCacheEnabled;
+    }
+
+    public String getDefaultRegion() {
+        return defaultRegion;
+    }
+
+    public void setDefaultRegion(String defaultRegion) {
+        this.defaultRegion = defaultRegion;
+    }
+
+    public ImmutableMap<String, String> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, String> regions) {
+        this.regions = ImmutableMap.copyOf(regions);
+    }
+
+    @ValidationMethod(message = "contains an invalid cache region specification")
+    public boolean isRegionSpecValid() {
+        try {
+            CacheBuilderSpec.parse(defaultRegion);
+            for (String spec : regions.values()) {
+                CacheBuilderSpec.parse(spec);
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) { return true; }
+        if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+        final SecondLevelCacheConfiguration that = (SecondLevelCacheConfiguration) obj;
+        return (enabled == that.enabled) &&
+                (queryCacheEnabled == that.queryCacheEnabled) &&
+                !((defaultRegion != null) ? !defaultRegion.equals(that.defaultRegion) : (that.defaultRegion != null)) &&
+                !((regions != null) ? !regions.equals(that.regions) : (that.regions != null));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (enabled ? 1 : 0);
+        result = (31 * result) + (queryCacheEnabled ? 1 : 0);
+        result = (31 * result) + ((defaultRegion != null) ? defaultRegion.hashCode() : 0);
+        result = (31 * result) + ((regions != null) ? regions.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this)
+                      .add("enabled", enabled)
+                      .add("queryCacheEnabled", queryCacheEnabled)
+                      .add("defaultRegion", defaultRegion)
+                      .add("regions", regions)
+                      .toString();
+    }
+}
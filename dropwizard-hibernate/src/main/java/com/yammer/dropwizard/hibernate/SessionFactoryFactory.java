@@ -1,11 +1,21 @@
 package com.yammer.dropwizard.hibernate;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.db.DatabaseConfiguration;
 import com.yammer.dropwizard.db.ManagedDataSource;
 import com.yammer.dropwizard.db.ManagedDataSourceFactory;
+import com.yammer.dropwizard.hibernate.caching.InProcessRegionFactory;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
+import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
@@ -13,13 +23,18 @@ import org.hibernate.service.ServiceRegistry;
 import org.hibernate.service.ServiceRegistryBuilder;
 import org.hibernate.service.jdbc.connections.internal.DatasourceConnectionProviderImpl;
 import org.hibernate.service.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.stat.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.io.File;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.concurrent.*;
 
 public class SessionFactoryFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(SessionFactoryFactory.class);
@@ -29,15 +44,63 @@ public class SessionFactoryFactory {
     public SessionFactory build(Environment environment,
                                 DatabaseConfiguration dbConfig,
                                 List<Class<?>> entities) throws ClassNotFoundException {
+        return build(environment, dbConfig, new SecondLevelCacheConfiguration(), entities);
+    }
+
+    public SessionFactory build(Environment environment,
+                                DatabaseConfiguration dbConfig,
+                                SecondLevelCacheConfiguration cacheConfig,
+                                List<Class<?>> entities) throws ClassNotFoundException {
+        return build(environment, dbConfig, cacheConfig, Optional.<File>absent(), entities);
+    }
+
+    /**
+     * Builds a session factory for the given entities.
+     * <p/>
+     * The entity mappings are built on a separate thread while the connection pool is started. If
+     * a metadata cache directory is given, the built mappings are stored there and reused by later
+     * boots with the same settings and entity classes. The time taken by each phase is logged.
+     *
+     * @param environment            the service's environment
+     * @param dbConfig               the database configuration
+     * @param cacheConfig            the second-level cache configuration
+     * @param metadataCacheDirectory the directory in which to cache the built mappings, if any
+     * @param entities               the entity classes
+     * @return a managed session factory
+     * @throws ClassNotFoundException if the database driver class can't be found
+     */
+    public SessionFactory build(Environment environment,
+                                DatabaseConfiguration dbConfig,
+                                SecondLevelCacheConfiguration cacheConfig,
+                                Optional<File> metadataCacheDirectory,
+                                List<Class<?>> entities) throws ClassNotFoundException {
+        final Stopwatch total = new Stopwatch().start();
+        final SortedMap<String, String> settings = buildSettings(dbConfig, cacheConfig);
+        final Future<Metadata> metadata = buildConfigurationAsync(settings,
+                                                                  metadataCacheDirectory,
+                                                                  entities);
+
+        final Stopwatch pool = new Stopwatch().start();
         final ManagedDataSource dataSource = dataSourceFactory.build(dbConfig);
         final ConnectionProvider provider = buildConnectionProvider(dataSource,
                                                                     dbConfig.getProperties());
-        final SessionFactory factory = buildSessionFactory(dbConfig,
+        warmUp(dataSource);
+        LOGGER.info("Started the connection pool in {}ms", pool.elapsedMillis());
+
+        final Stopwatch sessionFactory = new Stopwatch().start();
+        final SessionFactory factory = buildSessionFactory(awaitConfiguration(metadata),
+                                                           settings,
+                                                           entities,
                                                            provider,
-                                                           dbConfig.getProperties(),
-                                                           entities);
+                                                           dbConfig.getProperties());
+        LOGGER.info("Built the session factory in {}ms", sessionFactory.elapsedMillis());
+
+        if (cacheConfig.isEnabled()) {
+            registerCacheGauges(factory);
+        }
         final ManagedSessionFactory managedFactory = new ManagedSessionFactory(factory, dataSource);
         environment.manage(managedFactory);
+        LOGGER.info("Started Hibernate in {}ms", total.elapsedMillis());
         return managedFactory;
     }
 
@@ -49,26 +112,136 @@ public class SessionFactoryFactory {
         return connectionProvider;
     }
 
-    private SessionFactory buildSessionFactory(DatabaseConfiguration dbConfig,
-                                               ConnectionProvider connectionProvider,
-                                               ImmutableMap<String, String> properties,
-                                               List<Class<?>> entities) {
+    private SortedMap<String, String> buildSettings(DatabaseConfiguration dbConfig,
+                                                    SecondLevelCacheConfiguration cacheConfig) {
+        final SortedMap<String, String> settings = Maps.newTreeMap();
+        settings.put(AvailableSettings.CURRENT_SESSION_CONTEXT_CLASS, "managed");
+        settings.put(AvailableSettings.USE_SQL_COMMENTS, Boolean.toString(dbConfig.isAutoCommentsEnabled()));
+        settings.put(AvailableSettings.USE_GET_GENERATED_KEYS, "true");
+        settings.put(AvailableSettings.GENERATE_STATISTICS, "true");
+        settings.put(AvailableSettings.USE_REFLECTION_OPTIMIZER, "true");
+        settings.put(AvailableSettings.ORDER_UPDATES, "true");
+        settings.put(AvailableSettings.ORDER_INSERTS, "true");
+        if (dbConfig.getBatchSize() > 0) {
+            settings.put(AvailableSettings.STATEMENT_BATCH_SIZE, Integer.toString(dbConfig.getBatchSize()));
+            settings.put(AvailableSettings.BATCH_VERSIONED_DATA, "true");
+        }
+        settings.put(AvailableSettings.USE_NEW_ID_GENERATOR_MAPPINGS, "true");
+        settings.put("jadira.usertype.autoRegisterUserTypes", "true");
+        if (cacheConfig.isEnabled()) {
+            configureCache(settings, cacheConfig);
+        }
+        settings.putAll(dbConfig.getProperties());
+        return settings;
+    }
+
+    private Future<Metadata> buildConfigurationAsync(final SortedMap<String, String> settings,
+                                                     final Optional<File> metadataCacheDirectory,
+                                                     final List<Class<?>> entities) {
+        final ExecutorService executor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("hibernate-metadata-%d")
+                                          .setDaemon(true)
+                                          .build());
+        try {
+            return executor.submit(new Callable<Metadata>() {
+                @Override
+                public Metadata call() throws Exception {
+                    return buildConfiguration(settings, metadataCacheDirectory, entities);
+                }
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Metadata buildConfiguration(SortedMap<String, String> settings,
+                                        Optional<File> metadataCacheDirectory,
+                                        List<Class<?>> entities) {
+        final Stopwatch stopwatch = new Stopwatch().start();
+        logEntityClasses(entities);
+
+        Optional<MetadataCache.Key> key = Optional.absent();
+        if (metadataCacheDirectory.isPresent()) {
+            final MetadataCache cache = new MetadataCache(metadataCacheDirectory.get());
+            key = cache.key(settings, entities);
+            if (key.isPresent()) {
+                final Optional<Configuration> cached = cache.load(key.get());
+                if (cached.isPresent()) {
+                    LOGGER.info("Loaded cached Hibernate metadata from {} in {}ms",
+                                cache.file(key.get()), stopwatch.elapsedMillis());
+                    return new Metadata(cached.get(), Optional.of(cache), key);
+                }
+            }
+        }
+
         final Configuration configuration = new Configuration();
-        configuration.setProperty(AvailableSettings.CURRENT_SESSION_CONTEXT_CLASS, "managed");
-        configuration.setProperty(AvailableSettings.USE_SQL_COMMENTS, Boolean.toString(dbConfig.isAutoCommentsEnabled()));
-        configuration.setProperty(AvailableSettings.USE_GET_GENERATED_KEYS, "true");
-        configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
-        configuration.setProperty(AvailableSettings.USE_REFLECTION_OPTIMIZER, "true");
-        configuration.setProperty(AvailableSettings.ORDER_UPDATES, "true");
-        configuration.setProperty(AvailableSettings.ORDER_INSERTS, "true");
-        configuration.setProperty(AvailableSettings.USE_NEW_ID_GENERATOR_MAPPINGS, "true");
-        configuration.setProperty("jadira.usertype.autoRegisterUserTypes", "true");
-        for (Map.Entry<String, String> property : properties.entrySet()) {
-            configuration.setProperty(property.getKey(), property.getValue());
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            configuration.setProperty(setting.getKey(), setting.getValue());
+        }
+        for (Class<?> klass : entities) {
+            configuration.addAnnotatedClass(klass);
         }
+        configuration.buildMappings();
+        LOGGER.info("Built Hibernate metadata for {} entities in {}ms",
+                    entities.size(), stopwatch.elapsedMillis());
 
-        addAnnotatedClasses(configuration, entities);
+        if (key.isPresent()) {
+            final Stopwatch store = new Stopwatch().start();
+            final MetadataCache cache = new MetadataCache(metadataCacheDirectory.get());
+            cache.store(key.get(), configuration);
+            LOGGER.info("Cached Hibernate metadata in {} in {}ms",
+                        cache.file(key.get()), store.elapsedMillis());
+        }
+        return new Metadata(configuration, Optional.<MetadataCache>absent(), key);
+    }
+
+    private static Metadata awaitConfiguration(Future<Metadata> metadata) {
+        try {
+            return metadata.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HibernateException("Interrupted while building the Hibernate metadata", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause());
+            throw new HibernateException("Unable to build the Hibernate metadata", e.getCause());
+        }
+    }
+
+    private static void warmUp(DataSource dataSource) {
+        // opening the first connection overlaps with building the mappings; Hibernate needs one
+        // to inspect the database anyway
+        try {
+            dataSource.getConnection().close();
+        } catch (SQLException e) {
+            LOGGER.debug("Unable to open a connection while starting the pool", e);
+        }
+    }
+
+    private SessionFactory buildSessionFactory(Metadata metadata,
+                                               SortedMap<String, String> settings,
+                                               List<Class<?>> entities,
+                                               ConnectionProvider connectionProvider,
+                                               ImmutableMap<String, String> properties) {
+        if (!metadata.cache.isPresent()) {
+            return buildSessionFactory(metadata.configuration, connectionProvider, properties);
+        }
+
+        try {
+            return buildSessionFactory(metadata.configuration, connectionProvider, properties);
+        } catch (RuntimeException e) {
+            // the cached mappings are unusable, e.g. because of a change the key didn't cover
+            LOGGER.warn("Unable to build a session factory from cached Hibernate metadata; rebuilding it", e);
+            final Metadata rebuilt = buildConfiguration(settings,
+                                                        Optional.<File>absent(),
+                                                        entities);
+            metadata.cache.get().store(metadata.key.get(), rebuilt.configuration);
+            return buildSessionFactory(rebuilt.configuration, connectionProvider, properties);
+        }
+    }
 
+    private SessionFactory buildSessionFactory(Configuration configuration,
+                                               ConnectionProvider connectionProvider,
+                                               ImmutableMap<String, String> properties) {
         final ServiceRegistry registry = new ServiceRegistryBuilder()
                 .addService(ConnectionProvider.class, connectionProvider)
                 .applySettings(properties)
@@ -77,13 +250,77 @@ public class SessionFactoryFactory {
         return configuration.buildSessionFactory(registry);
     }
 
-    private void addAnnotatedClasses(Configuration configuration,
-                                     Iterable<Class<?>> entities) {
+    private void configureCache(Map<String, String> settings,
+                                SecondLevelCacheConfiguration cacheConfig) {
+        settings.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+        settings.put(AvailableSettings.USE_QUERY_CACHE,
+                     Boolean.toString(cacheConfig.isQueryCacheEnabled()));
+        settings.put(AvailableSettings.CACHE_REGION_FACTORY,
+                     InProcessRegionFactory.class.getName());
+        settings.put(InProcessRegionFactory.DEFAULT_REGION_SPEC,
+                     cacheConfig.getDefaultRegion());
+        for (Map.Entry<String, String> region : cacheConfig.getRegions().entrySet()) {
+            settings.put(InProcessRegionFactory.REGION_SPEC_PREFIX + region.getKey(),
+                         region.getValue());
+        }
+    }
+
+    private void registerCacheGauges(final SessionFactory factory) {
+        final Statistics statistics = factory.getStatistics();
+        for (final String region : statistics.getSecondLevelCacheRegionNames()) {
+            Metrics.defaultRegistry().newGauge(cacheMetricName("hits", region), new Gauge<Long>() {
+                @Override
+                public Long value() {
+                    return statistics.getSecondLevelCacheStatistics(region).getHitCount();
+                }
+            });
+            Metrics.defaultRegistry().newGauge(cacheMetricName("misses", region), new Gauge<Long>() {
+                @Override
+                public Long value() {
+                    return statistics.getSecondLevelCacheStatistics(region).getMissCount();
+                }
+            });
+            Metrics.defaultRegistry().newGauge(cacheMetricName("puts", region), new Gauge<Long>() {
+                @Override
+                public Long value() {
+                    return statistics.getSecondLevelCacheStatistics(region).getPutCount();
+                }
+            });
+            Metrics.defaultRegistry().newGauge(cacheMetricName("size", region), new Gauge<Long>() {
+                @Override
+                public Long value() {
+                    return statistics.getSecondLevelCacheStatistics(region).getElementCountInMemory();
+                }
+            });
+        }
+    }
+
+    private static MetricName cacheMetricName(String name, String region) {
+        return new MetricName("org.hibernate", "second-level-cache", name, region);
+    }
+
+    private void logEntityClasses(Iterable<Class<?>> entities) {
         final SortedSet<String> entityClasses = Sets.newTreeSet();
         for (Class<?> klass : entities) {
-            configuration.addAnnotatedClass(klass);
             entityClasses.add(klass.getCanonicalName());
         }
         LOGGER.info("Entity classes: {}", entityClasses);
     }
+
+    /**
+     * Built or cached mappings, along with the cache they were loaded from, if any.
+     */
+    private static class Metadata {
+        private final Configuration configuration;
+        private final Optional<MetadataCache> cache;
+        private final Optional<MetadataCache.Key> key;
+
+        private Metadata(Configuration configuration,
+                         Optional<MetadataCache> cache,
+                         Optional<MetadataCache.Key> key) {
+            this.configuration = configuration;
+            this.cache = cache;
+            this.key = key;
+        }
+    }
 }
@@ -47,4 +47,22 @@ public @interface UnitOfWork {
      * @see org.hibernate.Session#setFlushMode(org.hibernate.FlushMode)
      */
     FlushMode flushMode() default FlushMode.AUTO;
+
+    /**
+     * If {@code true}, a {@link org.hibernate.StatelessSession} will be bound to the
+     * {@link ManagedStatelessSessionContext} instead of a regular session, for bulk reads and
+     * writes. {@link #readOnly()}, {@link #cacheMode()}, and {@link #flushMode()} are ignored.
+     *
+     * @see AbstractDAO#currentStatelessSession()
+     */
+    boolean stateless() default false;
+
+    /**
+     * If {@code true}, the session won't be opened, and the transaction won't be started, until the
+     * resource method first uses the current session. Resource methods which sometimes don't touch
+     * the database (e.g., because they're served from a cache) then don't hold a pooled
+     * connection. Units of work which never use their session are metered as
+     * {@code unused-lazy-sessions}.
+     */
+    boolean lazy() default false;
 }
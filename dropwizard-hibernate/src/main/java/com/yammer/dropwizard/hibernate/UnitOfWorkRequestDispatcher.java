@@ -2,12 +2,91 @@ package com.yammer.dropwizard.hibernate;
 
 import com.sun.jersey.api.core.HttpContext;
 import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Meter;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 import org.hibernate.context.internal.ManagedSessionContext;
+import org.hibernate.event.spi.EventSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
 
 public class UnitOfWorkRequestDispatcher implements RequestDispatcher {
+    /**
+     * A {@link Session} proxy which doesn't open a session, borrow a connection, or begin a
+     * transaction until it's first used.
+     */
+    private class LazySession implements InvocationHandler {
+        private final SessionFactory contextFactory;
+        private final Session proxy;
+        private Session session;
+
+        private LazySession(SessionFactory contextFactory) {
+            this.contextFactory = contextFactory;
+            // implement EventSource, since Hibernate casts the current session to it
+            this.proxy = (Session) Proxy.newProxyInstance(EventSource.class.getClassLoader(),
+                                                          new Class<?>[]{ EventSource.class },
+                                                          this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("equals".equals(name) && (args != null) && (args.length == 1)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name) && (args == null)) {
+                return System.identityHashCode(proxy);
+            }
+            if ((session == null) && (args == null)) {
+                if ("getSessionFactory".equals(name)) {
+                    // the managed session context is keyed by this, so it mustn't open the session
+                    return contextFactory;
+                }
+                if ("isOpen".equals(name)) {
+                    return true;
+                }
+                if ("toString".equals(name)) {
+                    return "LazySession(unopened)";
+                }
+            }
+
+            try {
+                return method.invoke(open(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Session open() {
+            if (session == null) {
+                final Session opened = sessionFactory.openSession();
+                try {
+                    configureSession(opened);
+                    beginTransaction(opened);
+                } catch (RuntimeException e) {
+                    opened.close();
+                    throw e;
+                }
+                this.session = opened;
+            }
+            return session;
+        }
+    }
+
+    private static final Meter UNUSED_SESSIONS =
+            Metrics.defaultRegistry().newMeter(UnitOfWorkRequestDispatcher.class,
+                                               "unused-lazy-sessions",
+                                               "units-of-work",
+                                               TimeUnit.SECONDS);
+
     private final UnitOfWork unitOfWork;
     private final RequestDispatcher dispatcher;
     private final SessionFactory sessionFactory;
@@ -34,6 +113,16 @@ public class UnitOfWorkRequestDispatcher implements RequestDispatcher {
 
     @Override
     public void dispatch(Object resource, HttpContext context) {
+        if (unitOfWork.stateless()) {
+            dispatchStateless(resource, context);
+            return;
+        }
+
+        if (unitOfWork.lazy()) {
+            dispatchLazily(resource, context);
+            return;
+        }
+
         final Session session = sessionFactory.openSession();
         try {
             configureSession(session);
@@ -52,7 +141,61 @@ public class UnitOfWorkRequestDispatcher implements RequestDispatcher {
         }
     }
 
-    private void beginTransaction(Session session) {
+    private void dispatchLazily(Object resource, HttpContext context) {
+        final SessionFactory contextFactory = contextFactory();
+        final LazySession lazySession = new LazySession(contextFactory);
+        ManagedSessionContext.bind(lazySession.proxy);
+        try {
+            dispatcher.dispatch(resource, context);
+            if (lazySession.session != null) {
+                commitTransaction(lazySession.session);
+            }
+        } catch (Exception e) {
+            if (lazySession.session != null) {
+                rollbackTransaction(lazySession.session);
+            }
+            this.<RuntimeException>rethrow(e);
+        } finally {
+            ManagedSessionContext.unbind(contextFactory);
+            if (lazySession.session == null) {
+                UNUSED_SESSIONS.mark();
+            } else {
+                lazySession.session.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the session factory which Hibernate's {@link ManagedSessionContext} uses to look up
+     * the current session. If we've been given a {@link ManagedSessionFactory}, that's the factory
+     * it wraps.
+     */
+    private SessionFactory contextFactory() {
+        if (sessionFactory instanceof ManagedSessionFactory) {
+            return ((ManagedSessionFactory) sessionFactory).getFactory();
+        }
+        return sessionFactory;
+    }
+
+    private void dispatchStateless(Object resource, HttpContext context) {
+        final StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            ManagedStatelessSessionContext.bind(sessionFactory, session);
+            beginTransaction(session);
+            try {
+                dispatcher.dispatch(resource, context);
+                commitTransaction(session);
+            } catch (Exception e) {
+                rollbackTransaction(session);
+                this.<RuntimeException>rethrow(e);
+            }
+        } finally {
+            session.close();
+            ManagedStatelessSessionContext.unbind(sessionFactory);
+        }
+    }
+
+    private void beginTransaction(SharedSessionContract session) {
         if (unitOfWork.transactional()) {
             session.beginTransaction();
         }
@@ -64,7 +207,7 @@ public class UnitOfWorkRequestDispatcher implements RequestDispatcher {
         session.setFlushMode(unitOfWork.flushMode());
     }
 
-    private void rollbackTransaction(Session session) {
+    private void rollbackTransaction(SharedSessionContract session) {
         if (unitOfWork.transactional()) {
             final Transaction txn = session.getTransaction();
             if (txn != null && txn.isActive()) {
@@ -73,7 +216,7 @@ public class UnitOfWorkRequestDispatcher implements RequestDispatcher {
         }
     }
 
-    private void commitTransaction(Session session) {
+    private void commitTransaction(SharedSessionContract session) {
         if (unitOfWork.transactional()) {
             final Transaction txn = session.getTransaction();
             if (txn != null && txn.isActive()) {
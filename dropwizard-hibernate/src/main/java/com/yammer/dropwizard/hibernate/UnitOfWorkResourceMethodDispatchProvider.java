@@ -3,6 +3,8 @@ package com.yammer.dropwizard.hibernate;
 import com.sun.jersey.api.model.AbstractResourceMethod;
 import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
 import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetrics;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetricsRequestDispatcher;
 import org.hibernate.SessionFactory;
 
 public class UnitOfWorkResourceMethodDispatchProvider implements ResourceMethodDispatchProvider {
@@ -28,7 +30,11 @@ public class UnitOfWorkResourceMethodDispatchProvider implements ResourceMethodD
         final RequestDispatcher dispatcher = provider.create(abstractResourceMethod);
         final UnitOfWork unitOfWork = abstractResourceMethod.getMethod().getAnnotation(UnitOfWork.class);
         if (unitOfWork != null) {
-            return new UnitOfWorkRequestDispatcher(unitOfWork, dispatcher, sessionFactory);
+            // bind the connection metrics outside the unit of work, which borrows the connection
+            return new ConnectionMetricsRequestDispatcher(new ConnectionMetrics(abstractResourceMethod),
+                                                          new UnitOfWorkRequestDispatcher(unitOfWork,
+                                                                                          dispatcher,
+                                                                                          sessionFactory));
         }
         return dispatcher;
     }
@@ -0,0 +1,79 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.Maps;
+import org.hibernate.cache.spi.Region;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The base class for the regions of an {@link InProcessRegionFactory}.
+ */
+abstract class CacheRegion implements Region {
+    private final InProcessRegionFactory factory;
+    private final String name;
+    private final Cache<Object, Object> cache;
+
+    protected CacheRegion(InProcessRegionFactory factory, String name, Cache<Object, Object> cache) {
+        this.factory = factory;
+        this.name = name;
+        this.cache = cache;
+    }
+
+    ConcurrentMap<Object, Object> entries() {
+        return cache.asMap();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void destroy() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.asMap().containsKey(key);
+    }
+
+    @Override
+    public long getSizeInMemory() {
+        return -1;
+    }
+
+    @Override
+    public long getElementCountInMemory() {
+        return cache.size();
+    }
+
+    @Override
+    public long getElementCountOnDisk() {
+        return 0;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Map toMap() {
+        final Map<Object, Object> map = Maps.newHashMap();
+        for (Map.Entry<Object, Object> entry : cache.asMap().entrySet()) {
+            if (!(entry.getValue() instanceof ItemLock)) {
+                map.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return factory.nextTimestamp();
+    }
+
+    @Override
+    public int getTimeout() {
+        return factory.getLockTimeout();
+    }
+}
@@ -0,0 +1,16 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+
+class CollectionAccess extends ItemAccess implements CollectionRegionAccessStrategy {
+    CollectionAccess(CollectionCacheRegion region, AccessType accessType) {
+        super(region, accessType);
+    }
+
+    @Override
+    public CollectionRegion getRegion() {
+        return (CollectionRegion) region();
+    }
+}
@@ -0,0 +1,24 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+
+/**
+ * A collection region.
+ */
+class CollectionCacheRegion extends DataCacheRegion implements CollectionRegion {
+    CollectionCacheRegion(InProcessRegionFactory factory,
+                          String name,
+                          Cache<Object, Object> cache,
+                          CacheDataDescription metadata) {
+        super(factory, name, cache, metadata);
+    }
+
+    @Override
+    public CollectionRegionAccessStrategy buildAccessStrategy(AccessType accessType) {
+        return new CollectionAccess(this, accessType);
+    }
+}
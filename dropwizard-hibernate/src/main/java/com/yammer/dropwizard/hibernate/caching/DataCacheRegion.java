@@ -0,0 +1,30 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.TransactionalDataRegion;
+
+/**
+ * The base class for entity, natural ID, and collection regions.
+ */
+abstract class DataCacheRegion extends CacheRegion implements TransactionalDataRegion {
+    private final CacheDataDescription metadata;
+
+    protected DataCacheRegion(InProcessRegionFactory factory,
+                              String name,
+                              Cache<Object, Object> cache,
+                              CacheDataDescription metadata) {
+        super(factory, name, cache);
+        this.metadata = metadata;
+    }
+
+    @Override
+    public boolean isTransactionAware() {
+        return false;
+    }
+
+    @Override
+    public CacheDataDescription getCacheDataDescription() {
+        return metadata;
+    }
+}
@@ -0,0 +1,41 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+class EntityAccess extends ItemAccess implements EntityRegionAccessStrategy {
+    EntityAccess(EntityCacheRegion region, AccessType accessType) {
+        super(region, accessType);
+    }
+
+    @Override
+    public EntityRegion getRegion() {
+        return (EntityRegion) region();
+    }
+
+    @Override
+    public boolean insert(Object key, Object value, Object version) {
+        return insertItem(key, value);
+    }
+
+    @Override
+    public boolean afterInsert(Object key, Object value, Object version) {
+        return afterInsertItem(key, value);
+    }
+
+    @Override
+    public boolean update(Object key, Object value, Object currentVersion, Object previousVersion) {
+        return updateItem(key, value);
+    }
+
+    @Override
+    public boolean afterUpdate(Object key,
+                               Object value,
+                               Object currentVersion,
+                               Object previousVersion,
+                               SoftLock lock) {
+        return afterUpdateItem(key, value, lock);
+    }
+}
@@ -0,0 +1,24 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+
+/**
+ * An entity region.
+ */
+class EntityCacheRegion extends DataCacheRegion implements EntityRegion {
+    EntityCacheRegion(InProcessRegionFactory factory,
+                      String name,
+                      Cache<Object, Object> cache,
+                      CacheDataDescription metadata) {
+        super(factory, name, cache, metadata);
+    }
+
+    @Override
+    public EntityRegionAccessStrategy buildAccessStrategy(AccessType accessType) {
+        return new EntityAccess(this, accessType);
+    }
+}
@@ -0,0 +1,34 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.TimestampsRegion;
+
+/**
+ * A query results or update timestamps region.
+ */
+class GeneralCacheRegion extends CacheRegion implements QueryResultsRegion, TimestampsRegion {
+    GeneralCacheRegion(InProcessRegionFactory factory, String name, Cache<Object, Object> cache) {
+        super(factory, name, cache);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return entries().get(key);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        entries().put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        entries().remove(key);
+    }
+
+    @Override
+    public void evictAll() {
+        entries().clear();
+    }
+}
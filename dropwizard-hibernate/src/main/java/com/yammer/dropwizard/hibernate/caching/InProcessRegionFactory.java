@@ -0,0 +1,152 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheBuilderSpec;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.*;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cfg.Settings;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Hibernate {@link RegionFactory} which keeps each cache region in a bounded, in-process Guava
+ * cache.
+ * <p/>
+ * Each region is built from the {@link CacheBuilderSpec} in the
+ * {@code dropwizard.cache.region.<region name>} property, or from the
+ * {@code dropwizard.cache.default_region} property if the region has no specification of its own.
+ * The update timestamps region is never bounded, since evicting a table's last update time would
+ * make stale query results look fresh.
+ * <p/>
+ * Entity, natural ID, and collection regions support the {@link AccessType#READ_ONLY},
+ * {@link AccessType#NONSTRICT_READ_WRITE}, and {@link AccessType#READ_WRITE} strategies. Read-write
+ * regions soft-lock entries while they are being written and invalidate them once the transaction
+ * completes, so a transaction which started before the write can never re-cache the old state.
+ */
+public class InProcessRegionFactory implements RegionFactory {
+    private static final long serialVersionUID = 4309227046813325151L;
+
+    /**
+     * The property containing the specification for regions without one of their own.
+     */
+    public static final String DEFAULT_REGION_SPEC = "dropwizard.cache.default_region";
+
+    /**
+     * The prefix of the properties containing each region's specification.
+     */
+    public static final String REGION_SPEC_PREFIX = "dropwizard.cache.region.";
+
+    private static final String DEFAULT_SPEC = "maximumSize=10000";
+
+    // the same resolution as Hibernate's other region factories: 4096 timestamps per millisecond
+    private static final int TIMESTAMP_BITS = 12;
+    private static final int LOCK_TIMEOUT = (1 << TIMESTAMP_BITS) * 60000;
+
+    private final AtomicLong lastTimestamp = new AtomicLong();
+    private final Properties properties = new Properties();
+    private volatile String regionPrefix;
+
+    /**
+     * Creates a new {@link InProcessRegionFactory}. Hibernate calls this with its configuration
+     * properties when it builds a session factory.
+     *
+     * @param properties    the Hibernate configuration properties
+     */
+    public InProcessRegionFactory(Properties properties) {
+        this.properties.putAll(properties);
+    }
+
+    @Override
+    public void start(Settings settings, Properties properties) throws CacheException {
+        this.regionPrefix = (settings == null) ? null : settings.getCacheRegionPrefix();
+        this.properties.putAll(properties);
+    }
+
+    @Override
+    public void stop() {
+        // nothing to release; the regions are destroyed by Hibernate
+    }
+
+    @Override
+    public boolean isMinimalPutsEnabledByDefault() {
+        return false;
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    public long nextTimestamp() {
+        final long now = System.currentTimeMillis() << TIMESTAMP_BITS;
+        while (true) {
+            final long last = lastTimestamp.get();
+            final long next = (now > last) ? now : last + 1;
+            if (lastTimestamp.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public EntityRegion buildEntityRegion(String regionName,
+                                          Properties properties,
+                                          CacheDataDescription metadata) throws CacheException {
+        return new EntityCacheRegion(this, regionName, buildCache(regionName), metadata);
+    }
+
+    @Override
+    public NaturalIdRegion buildNaturalIdRegion(String regionName,
+                                                Properties properties,
+                                                CacheDataDescription metadata) throws CacheException {
+        return new NaturalIdCacheRegion(this, regionName, buildCache(regionName), metadata);
+    }
+
+    @Override
+    public CollectionRegion buildCollectionRegion(String regionName,
+                                                  Properties properties,
+                                                  CacheDataDescription metadata) throws CacheException {
+        return new CollectionCacheRegion(this, regionName, buildCache(regionName), metadata);
+    }
+
+    @Override
+    public QueryResultsRegion buildQueryResultsRegion(String regionName,
+                                                      Properties properties) throws CacheException {
+        return new GeneralCacheRegion(this, regionName, buildCache(regionName));
+    }
+
+    @Override
+    public TimestampsRegion buildTimestampsRegion(String regionName,
+                                                  Properties properties) throws CacheException {
+        return new GeneralCacheRegion(this, regionName, CacheBuilder.newBuilder().build());
+    }
+
+    int getLockTimeout() {
+        return LOCK_TIMEOUT;
+    }
+
+    private Cache<Object, Object> buildCache(String regionName) {
+        final String spec = regionSpec(regionName);
+        try {
+            return CacheBuilder.from(CacheBuilderSpec.parse(spec)).build();
+        } catch (IllegalArgumentException e) {
+            throw new CacheException("Invalid specification for cache region " + regionName + ": " + spec, e);
+        }
+    }
+
+    private String regionSpec(String regionName) {
+        String spec = properties.getProperty(REGION_SPEC_PREFIX + regionName);
+        if ((spec == null) && (regionPrefix != null) && regionName.startsWith(regionPrefix + '.')) {
+            final String unprefixed = regionName.substring(regionPrefix.length() + 1);
+            spec = properties.getProperty(REGION_SPEC_PREFIX + unprefixed);
+        }
+        if (spec == null) {
+            spec = properties.getProperty(DEFAULT_REGION_SPEC, DEFAULT_SPEC);
+        }
+        return spec;
+    }
+}
@@ -0,0 +1,169 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.RegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The access strategy shared by entity, natural ID, and collection regions.
+ */
+class ItemAccess implements RegionAccessStrategy {
+    private final DataCacheRegion region;
+    private final AccessType accessType;
+    private final ConcurrentMap<Object, Object> entries;
+
+    ItemAccess(DataCacheRegion region, AccessType accessType) {
+        if ((accessType != AccessType.READ_ONLY) &&
+                (accessType != AccessType.NONSTRICT_READ_WRITE) &&
+                (accessType != AccessType.READ_WRITE)) {
+            throw new CacheException(accessType.getExternalName() + " caching is not supported " +
+                                             "by the in-process cache (region " + region.getName() + ')');
+        }
+        this.region = region;
+        this.accessType = accessType;
+        this.entries = region.entries();
+    }
+
+    DataCacheRegion region() {
+        return region;
+    }
+
+    @Override
+    public Object get(Object key, long txTimestamp) {
+        final Object value = entries.get(key);
+        return (value instanceof ItemLock) ? null : value;
+    }
+
+    @Override
+    public boolean putFromLoad(Object key, Object value, long txTimestamp, Object version) {
+        return putFromLoad(key, value, txTimestamp, version, false);
+    }
+
+    @Override
+    public boolean putFromLoad(Object key,
+                               Object value,
+                               long txTimestamp,
+                               Object version,
+                               boolean minimalPutOverride) {
+        final Object existing = entries.get(key);
+        if (existing == null) {
+            return entries.putIfAbsent(key, value) == null;
+        }
+        if (existing instanceof ItemLock) {
+            return ((ItemLock) existing).isReleasedBefore(txTimestamp) &&
+                    entries.replace(key, existing, value);
+        }
+        return !minimalPutOverride && entries.replace(key, existing, value);
+    }
+
+    @Override
+    public SoftLock lockItem(Object key, Object version) {
+        if (accessType != AccessType.READ_WRITE) {
+            return null;
+        }
+        final long timeout = region.nextTimestamp() + region.getTimeout();
+        while (true) {
+            final Object existing = entries.get(key);
+            if (existing instanceof ItemLock) {
+                final ItemLock lock = ((ItemLock) existing).acquire(timeout);
+                if (entries.replace(key, existing, lock)) {
+                    return lock;
+                }
+            } else {
+                final ItemLock lock = new ItemLock(timeout);
+                if ((existing == null) ? (entries.putIfAbsent(key, lock) == null) :
+                        entries.replace(key, existing, lock)) {
+                    return lock;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unlockItem(Object key, SoftLock softLock) {
+        if (accessType != AccessType.READ_WRITE) {
+            evict(key);
+            return;
+        }
+        final long timestamp = region.nextTimestamp();
+        while (true) {
+            final Object existing = entries.get(key);
+            if (existing instanceof ItemLock) {
+                if (entries.replace(key, existing, ((ItemLock) existing).release(timestamp))) {
+                    return;
+                }
+            } else {
+                // the lock was evicted; guard against loads which began while it was held
+                final ItemLock lock = ItemLock.released(timestamp);
+                if ((existing == null) ? (entries.putIfAbsent(key, lock) == null) :
+                        entries.replace(key, existing, lock)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public SoftLock lockRegion() {
+        evictAll();
+        return null;
+    }
+
+    @Override
+    public void unlockRegion(SoftLock lock) {
+        evictAll();
+    }
+
+    @Override
+    public void remove(Object key) {
+        // read-write entries are locked before they're removed, and invalidated when unlocked
+        if (accessType != AccessType.READ_WRITE) {
+            evict(key);
+        }
+    }
+
+    @Override
+    public void removeAll() {
+        evictAll();
+    }
+
+    @Override
+    public void evict(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void evictAll() {
+        entries.clear();
+    }
+
+    boolean insertItem(Object key, Object value) {
+        return false;
+    }
+
+    boolean afterInsertItem(Object key, Object value) {
+        return (accessType != AccessType.NONSTRICT_READ_WRITE) &&
+                (entries.putIfAbsent(key, value) == null);
+    }
+
+    boolean updateItem(Object key, Object value) {
+        if (accessType == AccessType.READ_ONLY) {
+            throw new UnsupportedOperationException("Can't write to a read-only object");
+        }
+        if (accessType == AccessType.NONSTRICT_READ_WRITE) {
+            evict(key);
+        }
+        return false;
+    }
+
+    boolean afterUpdateItem(Object key, Object value, SoftLock lock) {
+        if (accessType == AccessType.READ_ONLY) {
+            throw new UnsupportedOperationException("Can't write to a read-only object");
+        }
+        unlockItem(key, lock);
+        return false;
+    }
+}
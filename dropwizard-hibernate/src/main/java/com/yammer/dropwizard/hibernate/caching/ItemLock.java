@@ -0,0 +1,50 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import org.hibernate.cache.spi.access.SoftLock;
+
+/**
+ * A soft lock on an entry in a read-write region, stored in place of the entry's value.
+ * <p/>
+ * While a lock is held, reads miss and loads are not cached. Once every holder has released it, the
+ * lock remains until it is replaced by a load which began after the lock was released.
+ */
+class ItemLock implements SoftLock {
+    private final int holders;
+    private final long timeout;
+    private final long releasedAt;
+
+    ItemLock(long timeout) {
+        this(1, timeout, 0);
+    }
+
+    private ItemLock(int holders, long timeout, long releasedAt) {
+        this.holders = holders;
+        this.timeout = timeout;
+        this.releasedAt = releasedAt;
+    }
+
+    ItemLock acquire(long timeout) {
+        return new ItemLock(holders + 1, Math.max(this.timeout, timeout), releasedAt);
+    }
+
+    ItemLock release(long timestamp) {
+        final int remaining = Math.max(holders - 1, 0);
+        return new ItemLock(remaining, timeout, (remaining == 0) ? timestamp : releasedAt);
+    }
+
+    static ItemLock released(long timestamp) {
+        return new ItemLock(0, timestamp, timestamp);
+    }
+
+    /**
+     * Returns {@code true} if a load which began at {@code txTimestamp} is newer than every write
+     * this lock has guarded.
+     */
+    boolean isReleasedBefore(long txTimestamp) {
+        if (holders > 0) {
+            // an abandoned lock expires rather than disabling caching of the entry forever
+            return timeout < txTimestamp;
+        }
+        return releasedAt < txTimestamp;
+    }
+}
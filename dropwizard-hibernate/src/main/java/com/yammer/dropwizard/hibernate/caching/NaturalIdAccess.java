@@ -0,0 +1,37 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+
+class NaturalIdAccess extends ItemAccess implements NaturalIdRegionAccessStrategy {
+    NaturalIdAccess(NaturalIdCacheRegion region, AccessType accessType) {
+        super(region, accessType);
+    }
+
+    @Override
+    public NaturalIdRegion getRegion() {
+        return (NaturalIdRegion) region();
+    }
+
+    @Override
+    public boolean insert(Object key, Object value) {
+        return insertItem(key, value);
+    }
+
+    @Override
+    public boolean afterInsert(Object key, Object value) {
+        return afterInsertItem(key, value);
+    }
+
+    @Override
+    public boolean update(Object key, Object value) {
+        return updateItem(key, value);
+    }
+
+    @Override
+    public boolean afterUpdate(Object key, Object value, SoftLock lock) {
+        return afterUpdateItem(key, value, lock);
+    }
+}
@@ -0,0 +1,24 @@
+package com.yammer.dropwizard.hibernate.caching;
+
+import com.google.common.cache.Cache;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+
+/**
+ * A natural ID region.
+ */
+class NaturalIdCacheRegion extends DataCacheRegion implements NaturalIdRegion {
+    NaturalIdCacheRegion(InProcessRegionFactory factory,
+                         String name,
+                         Cache<Object, Object> cache,
+                         CacheDataDescription metadata) {
+        super(factory, name, cache, metadata);
+    }
+
+    @Override
+    public NaturalIdRegionAccessStrategy buildAccessStrategy(AccessType accessType) {
+        return new NaturalIdAccess(this, accessType);
+    }
+}
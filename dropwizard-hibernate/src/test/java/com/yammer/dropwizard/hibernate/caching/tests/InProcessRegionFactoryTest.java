@@ -0,0 +1,116 @@
+package com.yammer.dropwizard.hibernate.caching.tests;
+
+import com.yammer.dropwizard.hibernate.caching.InProcessRegionFactory;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.internal.CacheDataDescriptionImpl;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class InProcessRegionFactoryTest {
+    private final Properties properties = new Properties();
+    private InProcessRegionFactory factory;
+    private EntityRegion region;
+    private EntityRegionAccessStrategy access;
+
+    @Before
+    public void setUp() throws Exception {
+        properties.setProperty(InProcessRegionFactory.REGION_SPEC_PREFIX + "people", "maximumSize=1");
+
+        this.factory = new InProcessRegionFactory(properties);
+        factory.start(null, new Properties());
+
+        this.region = factory.buildEntityRegion("people",
+                                                properties,
+                                                new CacheDataDescriptionImpl(true, false, null));
+        this.access = region.buildAccessStrategy(AccessType.READ_WRITE);
+    }
+
+    @Test
+    public void boundsRegionsByTheirSpecification() throws Exception {
+        access.putFromLoad("one", "1", factory.nextTimestamp(), null);
+        access.putFromLoad("two", "2", factory.nextTimestamp(), null);
+
+        assertThat(region.getElementCountInMemory())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void usesTheDefaultSpecificationForOtherRegions() throws Exception {
+        final EntityRegion other = factory.buildEntityRegion("other",
+                                                             properties,
+                                                             new CacheDataDescriptionImpl(true, false, null));
+        final EntityRegionAccessStrategy otherAccess = other.buildAccessStrategy(AccessType.READ_WRITE);
+        otherAccess.putFromLoad("one", "1", factory.nextTimestamp(), null);
+        otherAccess.putFromLoad("two", "2", factory.nextTimestamp(), null);
+
+        assertThat(other.getElementCountInMemory())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void servesLoadedEntries() throws Exception {
+        assertThat(access.putFromLoad("one", "1", factory.nextTimestamp(), null))
+                .isTrue();
+
+        assertThat(access.get("one", factory.nextTimestamp()))
+                .isEqualTo("1");
+    }
+
+    @Test
+    public void doesNotServeOrCacheLockedEntries() throws Exception {
+        access.putFromLoad("one", "1", factory.nextTimestamp(), null);
+        access.lockItem("one", null);
+
+        assertThat(access.get("one", factory.nextTimestamp()))
+                .isNull();
+
+        assertThat(access.putFromLoad("one", "1", factory.nextTimestamp(), null))
+                .isFalse();
+    }
+
+    @Test
+    public void doesNotCacheLoadsWhichBeganBeforeAnEntryWasUnlocked() throws Exception {
+        final long staleLoad = factory.nextTimestamp();
+        final SoftLock lock = access.lockItem("one", null);
+        access.afterUpdate("one", "2", null, null, lock);
+
+        assertThat(access.putFromLoad("one", "1", staleLoad, null))
+                .isFalse();
+
+        assertThat(access.putFromLoad("one", "2", factory.nextTimestamp(), null))
+                .isTrue();
+
+        assertThat(access.get("one", factory.nextTimestamp()))
+                .isEqualTo("2");
+    }
+
+    @Test
+    public void evictsNonstrictEntriesWhenTheyAreUpdated() throws Exception {
+        final EntityRegionAccessStrategy nonstrict = region.buildAccessStrategy(AccessType.NONSTRICT_READ_WRITE);
+        nonstrict.putFromLoad("one", "1", factory.nextTimestamp(), null);
+        nonstrict.update("one", "2", null, null);
+
+        assertThat(nonstrict.get("one", factory.nextTimestamp()))
+                .isNull();
+    }
+
+    @Test
+    public void doesNotSupportTransactionalAccess() throws Exception {
+        try {
+            region.buildAccessStrategy(AccessType.TRANSACTIONAL);
+            failBecauseExceptionWasNotThrown(CacheException.class);
+        } catch (CacheException e) {
+            assertThat(e.getMessage())
+                    .contains("transactional");
+        }
+    }
+}
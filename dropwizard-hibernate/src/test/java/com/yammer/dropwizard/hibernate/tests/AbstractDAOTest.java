@@ -2,11 +2,13 @@ package com.yammer.dropwizard.hibernate.tests;
 
 import com.google.common.collect.ImmutableList;
 import com.yammer.dropwizard.hibernate.AbstractDAO;
+import com.yammer.dropwizard.hibernate.ManagedStatelessSessionContext;
 import org.hibernate.*;
 import org.hibernate.proxy.HibernateProxy;
 import org.hibernate.proxy.LazyInitializer;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import java.io.Serializable;
 import java.util.List;
@@ -71,6 +73,21 @@ public class AbstractDAOTest {
             return super.persist(entity);
         }
 
+        @Override
+        public StatelessSession currentStatelessSession() throws HibernateException {
+            return super.currentStatelessSession();
+        }
+
+        @Override
+        public void persistAll(Iterable<String> entities, int batchSize) throws HibernateException {
+            super.persistAll(entities, batchSize);
+        }
+
+        @Override
+        public void updateAll(Iterable<String> entities, int batchSize) throws HibernateException {
+            super.updateAll(entities, batchSize);
+        }
+
         @Override
         public <T> T initialize(T proxy) {
             return super.initialize(proxy);
@@ -169,6 +186,70 @@ public class AbstractDAOTest {
         verify(session).saveOrUpdate("woo");
     }
 
+    @Test
+    public void persistsEntitiesInBatches() throws Exception {
+        dao.persistAll(ImmutableList.of("one", "two", "three", "four", "five"), 2);
+
+        final InOrder inOrder = inOrder(session);
+        inOrder.verify(session).saveOrUpdate("one");
+        inOrder.verify(session).saveOrUpdate("two");
+        inOrder.verify(session).flush();
+        inOrder.verify(session).clear();
+        inOrder.verify(session).saveOrUpdate("three");
+        inOrder.verify(session).saveOrUpdate("four");
+        inOrder.verify(session).flush();
+        inOrder.verify(session).clear();
+        inOrder.verify(session).saveOrUpdate("five");
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void updatesEntitiesInBatches() throws Exception {
+        dao.updateAll(ImmutableList.of("one", "two", "three"), 2);
+
+        final InOrder inOrder = inOrder(session);
+        inOrder.verify(session).update("one");
+        inOrder.verify(session).update("two");
+        inOrder.verify(session).flush();
+        inOrder.verify(session).clear();
+        inOrder.verify(session).update("three");
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void insertsEntitiesWithAStatelessSessionIfOneIsBound() throws Exception {
+        final StatelessSession statelessSession = mock(StatelessSession.class);
+        ManagedStatelessSessionContext.bind(factory, statelessSession);
+        try {
+            dao.persistAll(ImmutableList.of("one", "two"), 0);
+            dao.updateAll(ImmutableList.of("three"), 0);
+        } finally {
+            ManagedStatelessSessionContext.unbind(factory);
+        }
+
+        verify(statelessSession).insert("one");
+        verify(statelessSession).insert("two");
+        verify(statelessSession).update("three");
+        verifyZeroInteractions(session);
+    }
+
+    @Test
+    public void getsTheBoundStatelessSession() throws Exception {
+        final StatelessSession statelessSession = mock(StatelessSession.class);
+        ManagedStatelessSessionContext.bind(factory, statelessSession);
+        try {
+            assertThat(dao.currentStatelessSession())
+                    .isSameAs(statelessSession);
+        } finally {
+            ManagedStatelessSessionContext.unbind(factory);
+        }
+    }
+
+    @Test(expected = HibernateException.class)
+    public void requiresABoundStatelessSession() throws Exception {
+        dao.currentStatelessSession();
+    }
+
     @Test
     public void initializesProxies() throws Exception {
         final LazyInitializer initializer = mock(LazyInitializer.class);
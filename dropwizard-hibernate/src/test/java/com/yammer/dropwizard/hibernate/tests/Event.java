@@ -0,0 +1,32 @@
+package com.yammer.dropwizard.hibernate.tests;
+
+import javax.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "events")
+@SuppressWarnings("UnusedDeclaration")
+public class Event {
+    @Id
+    private long id;
+
+    @Column(name = "created_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date createdAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
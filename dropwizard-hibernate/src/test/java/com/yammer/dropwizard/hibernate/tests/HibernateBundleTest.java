@@ -2,12 +2,14 @@ package com.yammer.dropwizard.hibernate.tests;
 
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.datatype.hibernate4.Hibernate4Module;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.yammer.dropwizard.config.Bootstrap;
 import com.yammer.dropwizard.config.Configuration;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.db.DatabaseConfiguration;
 import com.yammer.dropwizard.hibernate.HibernateBundle;
+import com.yammer.dropwizard.hibernate.SecondLevelCacheConfiguration;
 import com.yammer.dropwizard.hibernate.SessionFactoryFactory;
 import com.yammer.dropwizard.hibernate.SessionFactoryHealthCheck;
 import com.yammer.dropwizard.hibernate.UnitOfWorkResourceMethodDispatchAdapter;
@@ -17,6 +19,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.File;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -39,6 +43,8 @@ public class HibernateBundleTest {
     public void setUp() throws Exception {
         when(factory.build(any(Environment.class),
                            any(DatabaseConfiguration.class),
+                           any(SecondLevelCacheConfiguration.class),
+                           any(Optional.class),
                            anyList())).thenReturn(sessionFactory);
     }
 
@@ -61,7 +67,58 @@ public class HibernateBundleTest {
     public void buildsASessionFactory() throws Exception {
         bundle.run(configuration, environment);
 
-        verify(factory).build(environment, dbConfig, entities);
+        verify(factory).build(environment,
+                              dbConfig,
+                              new SecondLevelCacheConfiguration(),
+                              Optional.<File>absent(),
+                              entities);
+    }
+
+    @Test
+    public void buildsASessionFactoryWithASecondLevelCache() throws Exception {
+        final SecondLevelCacheConfiguration cacheConfig = new SecondLevelCacheConfiguration();
+        cacheConfig.setEnabled(true);
+
+        final HibernateBundle<Configuration> cachingBundle = new HibernateBundle<Configuration>(entities, factory) {
+            @Override
+            public DatabaseConfiguration getDatabaseConfiguration(Configuration configuration) {
+                return dbConfig;
+            }
+
+            @Override
+            public SecondLevelCacheConfiguration getSecondLevelCacheConfiguration(Configuration configuration) {
+                return cacheConfig;
+            }
+        };
+
+        cachingBundle.run(configuration, environment);
+
+        verify(factory).build(environment, dbConfig, cacheConfig, Optional.<File>absent(), entities);
+    }
+
+    @Test
+    public void buildsASessionFactoryWithAMetadataCache() throws Exception {
+        final File directory = new File("/tmp/metadata");
+
+        final HibernateBundle<Configuration> cachingBundle = new HibernateBundle<Configuration>(entities, factory) {
+            @Override
+            public DatabaseConfiguration getDatabaseConfiguration(Configuration configuration) {
+                return dbConfig;
+            }
+
+            @Override
+            public Optional<File> getMetadataCacheDirectory(Configuration configuration) {
+                return Optional.of(directory);
+            }
+        };
+
+        cachingBundle.run(configuration, environment);
+
+        verify(factory).build(environment,
+                              dbConfig,
+                              new SecondLevelCacheConfiguration(),
+                              Optional.of(directory),
+                              entities);
     }
 
     @Test
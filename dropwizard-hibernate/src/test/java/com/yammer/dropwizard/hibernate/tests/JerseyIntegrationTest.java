@@ -11,11 +11,16 @@ import com.yammer.dropwizard.db.DatabaseConfiguration;
 import com.yammer.dropwizard.hibernate.AbstractDAO;
 import com.yammer.dropwizard.hibernate.SessionFactoryFactory;
 import com.yammer.dropwizard.hibernate.UnitOfWork;
+import com.yammer.dropwizard.hibernate.UnitOfWorkRequestDispatcher;
 import com.yammer.dropwizard.hibernate.UnitOfWorkResourceMethodDispatchAdapter;
 import com.yammer.dropwizard.jersey.DropwizardResourceConfig;
 import com.yammer.dropwizard.jersey.JacksonMessageBodyProvider;
 import com.yammer.dropwizard.json.ObjectMapperFactory;
 import com.yammer.dropwizard.validation.Validator;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.Timer;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.joda.time.DateTime;
@@ -26,6 +31,7 @@ import org.slf4j.bridge.SLF4JBridgeHandler;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import java.util.concurrent.TimeUnit;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
@@ -74,6 +80,27 @@ public class JerseyIntegrationTest extends JerseyTest {
         }
     }
 
+    @Path("/lazy-people/{name}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public static class LazyPersonResource {
+        private final PersonDAO dao;
+
+        public LazyPersonResource(PersonDAO dao) {
+            this.dao = dao;
+        }
+
+        @GET
+        @UnitOfWork(readOnly = true, lazy = true)
+        public Optional<Person> find(@PathParam("name") String name) {
+            if ("Cached".equals(name)) {
+                final Person person = new Person();
+                person.setName(name);
+                return Optional.of(person);
+            }
+            return dao.findByName(name);
+        }
+    }
+
     private SessionFactory sessionFactory;
 
     @Override
@@ -117,6 +144,7 @@ public class JerseyIntegrationTest extends JerseyTest {
         final DropwizardResourceConfig config = new DropwizardResourceConfig(true);
         config.getSingletons().add(new UnitOfWorkResourceMethodDispatchAdapter(sessionFactory));
         config.getSingletons().add(new PersonResource(new PersonDAO(sessionFactory)));
+        config.getSingletons().add(new LazyPersonResource(new PersonDAO(sessionFactory)));
         config.getSingletons().add(new JacksonMessageBodyProvider(new ObjectMapperFactory().build(),
                                                                   new Validator()));
         return new LowLevelAppDescriptor.Builder(config).build();
@@ -178,4 +206,62 @@ public class JerseyIntegrationTest extends JerseyTest {
         assertThat(hank.getBirthday())
                 .isEqualTo(person.getBirthday());
     }
+
+    @Test
+    public void findsExistingDataWithALazySession() throws Exception {
+        final Person coda = client().resource("/lazy-people/Coda")
+                .accept(MediaType.APPLICATION_JSON)
+                .get(Person.class);
+
+        assertThat(coda.getEmail())
+                .isEqualTo("coda@example.com");
+    }
+
+    @Test
+    public void metersLazySessionsWhichAreNeverUsed() throws Exception {
+        final Meter unused = Metrics.defaultRegistry().newMeter(UnitOfWorkRequestDispatcher.class,
+                                                                "unused-lazy-sessions",
+                                                                "units-of-work",
+                                                                TimeUnit.SECONDS);
+        final long before = unused.count();
+
+        client().resource("/lazy-people/Cached")
+                .accept(MediaType.APPLICATION_JSON)
+                .get(Person.class);
+
+        assertThat(unused.count())
+                .isEqualTo(before + 1);
+
+        client().resource("/lazy-people/Coda")
+                .accept(MediaType.APPLICATION_JSON)
+                .get(Person.class);
+
+        assertThat(unused.count())
+                .isEqualTo(before + 1);
+    }
+
+    @Test
+    public void recordsConnectionMetricsForEachResourceMethod() throws Exception {
+        final Timer hold = Metrics.defaultRegistry().newTimer(new MetricName(PersonResource.class,
+                                                                             "save-connection-hold"),
+                                                              TimeUnit.MILLISECONDS,
+                                                              TimeUnit.SECONDS);
+        final Timer commit = Metrics.defaultRegistry().newTimer(new MetricName(PersonResource.class,
+                                                                               "save-commit"),
+                                                                TimeUnit.MILLISECONDS,
+                                                                TimeUnit.SECONDS);
+        final long holds = hold.count();
+        final long commits = commit.count();
+
+        final Person person = new Person();
+        person.setName("Hank");
+        person.setEmail("hank@example.com");
+        client().resource("/people/Hank").type(MediaType.APPLICATION_JSON).put(person);
+
+        assertThat(hold.count())
+                .isEqualTo(holds + 1);
+
+        assertThat(commit.count())
+                .isEqualTo(commits + 1);
+    }
 }
@@ -0,0 +1,245 @@
+package com.yammer.dropwizard.hibernate.tests;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.yammer.dropwizard.config.Environment;
+import com.yammer.dropwizard.db.DatabaseConfiguration;
+import com.yammer.dropwizard.hibernate.AbstractDAO;
+import com.yammer.dropwizard.hibernate.InvalidPageTokenException;
+import com.yammer.dropwizard.hibernate.Keyset;
+import com.yammer.dropwizard.hibernate.Page;
+import com.yammer.dropwizard.hibernate.PageToken;
+import com.yammer.dropwizard.hibernate.SessionFactoryFactory;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.hibernate.criterion.Restrictions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import java.util.List;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Mockito.mock;
+
+public class KeysetPaginationTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    private static final Keyset BY_NAME = Keyset.ascending("name");
+    private static final Keyset BY_EMAIL = Keyset.descending("email", "name");
+    private static final Keyset NEWEST_FIRST = Keyset.descending("createdAt", "id");
+
+    public static class PersonDAO extends AbstractDAO<Person> {
+        public PersonDAO(SessionFactory sessionFactory) {
+            super(sessionFactory);
+        }
+
+        public Page<Person> findAll(Keyset keyset, Optional<PageToken> after, int pageSize) {
+            return page(criteria(), keyset, after, pageSize);
+        }
+
+        public Page<Person> findByEmail(String email, Optional<PageToken> after, int pageSize) {
+            return page(criteria().add(Restrictions.eq("email", email)), BY_NAME, after, pageSize);
+        }
+
+        public List<String> scrollNames(Optional<PageToken> after) {
+            final List<String> names = Lists.newArrayList();
+            final ScrollableResults results = scroll(criteria(), BY_NAME, after);
+            try {
+                while (results.next()) {
+                    names.add(((Person) results.get(0)).getName());
+                }
+            } finally {
+                results.close();
+            }
+            return names;
+        }
+
+        public PageToken tokenFor(String name) {
+            return pageToken(get(name), BY_NAME);
+        }
+    }
+
+    public static class EventDAO extends AbstractDAO<Event> {
+        public EventDAO(SessionFactory sessionFactory) {
+            super(sessionFactory);
+        }
+
+        public Page<Event> findAll(Optional<PageToken> after, int pageSize) {
+            return page(criteria(), NEWEST_FIRST, after, pageSize);
+        }
+    }
+
+    private final DatabaseConfiguration config = new DatabaseConfiguration();
+
+    private SessionFactory sessionFactory;
+    private Session session;
+    private PersonDAO dao;
+
+    @Before
+    public void setUp() throws Exception {
+        config.setUrl("jdbc:hsqldb:mem:DbTest-" + System.nanoTime());
+        config.setUser("sa");
+        config.setDriverClass("org.hsqldb.jdbcDriver");
+        config.setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+
+        this.sessionFactory = new SessionFactoryFactory().build(mock(Environment.class),
+                                                                config,
+                                                                ImmutableList.<Class<?>>of(Person.class, Event.class));
+        this.session = sessionFactory.openSession();
+        session.createSQLQuery("DROP TABLE people IF EXISTS").executeUpdate();
+        session.createSQLQuery("CREATE TABLE people (name varchar(100) primary key, email varchar(100), birthday timestamp)").executeUpdate();
+        session.createSQLQuery("INSERT INTO people VALUES ('Alice', 'a@example.com', NULL)").executeUpdate();
+        session.createSQLQuery("INSERT INTO people VALUES ('Bob', 'b@example.com', NULL)").executeUpdate();
+        session.createSQLQuery("INSERT INTO people VALUES ('Carol', 'b@example.com', NULL)").executeUpdate();
+        session.createSQLQuery("INSERT INTO people VALUES ('Dave', 'b@example.com', NULL)").executeUpdate();
+        session.createSQLQuery("INSERT INTO people VALUES ('Eve', 'c@example.com', NULL)").executeUpdate();
+        session.createSQLQuery("DROP TABLE events IF EXISTS").executeUpdate();
+        session.createSQLQuery("CREATE TABLE events (id bigint primary key, created_at timestamp)").executeUpdate();
+        session.createSQLQuery("INSERT INTO events VALUES (1, '2012-12-01 10:00:00.100')").executeUpdate();
+        session.createSQLQuery("INSERT INTO events VALUES (2, '2012-12-01 10:00:00.200')").executeUpdate();
+        session.createSQLQuery("INSERT INTO events VALUES (3, '2012-12-01 10:00:00.200')").executeUpdate();
+        session.createSQLQuery("INSERT INTO events VALUES (4, '2012-12-01 10:00:00.300')").executeUpdate();
+        session.createSQLQuery("INSERT INTO events VALUES (5, '2012-12-01 10:00:00.300001')").executeUpdate();
+        ManagedSessionContext.bind(session);
+
+        this.dao = new PersonDAO(sessionFactory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ManagedSessionContext.unbind(sessionFactory);
+        session.close();
+        sessionFactory.close();
+    }
+
+    @Test
+    public void pagesThroughResultsInKeyOrder() throws Exception {
+        final Page<Person> first = dao.findAll(BY_NAME, Optional.<PageToken>absent(), 2);
+        assertThat(names(first))
+                .containsExactly("Alice", "Bob");
+
+        final Page<Person> second = dao.findAll(BY_NAME, first.getNext(), 2);
+        assertThat(names(second))
+                .containsExactly("Carol", "Dave");
+
+        final Page<Person> third = dao.findAll(BY_NAME, second.getNext(), 2);
+        assertThat(names(third))
+                .containsExactly("Eve");
+
+        assertThat(third.getNext().isPresent())
+                .isFalse();
+    }
+
+    @Test
+    public void hasNoNextPageWhenTheResultsFitExactly() throws Exception {
+        final Page<Person> page = dao.findAll(BY_NAME, Optional.<PageToken>absent(), 5);
+
+        assertThat(page.getItems())
+                .hasSize(5);
+
+        assertThat(page.getNext().isPresent())
+                .isFalse();
+    }
+
+    @Test
+    public void breaksTiesWithTheLaterKeyProperties() throws Exception {
+        final Page<Person> first = dao.findAll(BY_EMAIL, Optional.<PageToken>absent(), 2);
+        assertThat(names(first))
+                .containsExactly("Eve", "Dave");
+
+        final Page<Person> second = dao.findAll(BY_EMAIL, first.getNext(), 2);
+        assertThat(names(second))
+                .containsExactly("Carol", "Bob");
+
+        final Page<Person> third = dao.findAll(BY_EMAIL, second.getNext(), 2);
+        assertThat(names(third))
+                .containsExactly("Alice");
+    }
+
+    @Test
+    public void combinesTheKeyWithTheQueryRestrictions() throws Exception {
+        final Page<Person> first = dao.findByEmail("b@example.com", Optional.<PageToken>absent(), 2);
+        final Page<Person> second = dao.findByEmail("b@example.com", first.getNext(), 2);
+
+        assertThat(names(second))
+                .containsExactly("Dave");
+    }
+
+    @Test
+    public void acceptsTokensWhichHaveBeenEncoded() throws Exception {
+        final Page<Person> first = dao.findAll(BY_NAME, Optional.<PageToken>absent(), 3);
+        final PageToken token = PageToken.parse(first.getNext().get().toString());
+
+        assertThat(names(dao.findAll(BY_NAME, Optional.of(token), 3)))
+                .containsExactly("Dave", "Eve");
+    }
+
+    @Test
+    public void scrollsForwardFromAToken() throws Exception {
+        assertThat(dao.scrollNames(Optional.of(dao.tokenFor("Carol"))))
+                .containsExactly("Dave", "Eve");
+    }
+
+    @Test
+    public void rejectsTokensForADifferentKey() throws Exception {
+        final Page<Person> first = dao.findAll(BY_NAME, Optional.<PageToken>absent(), 2);
+
+        try {
+            dao.findAll(BY_EMAIL, first.getNext(), 2);
+            failBecauseExceptionWasNotThrown(InvalidPageTokenException.class);
+        } catch (InvalidPageTokenException e) {
+            assertThat(e.getResponse().getStatus())
+                    .isEqualTo(400);
+
+            assertThat((String) e.getResponse().getEntity())
+                    .isEqualTo('"' + first.getNext().get().toString() + "\" is not a page token.");
+        }
+    }
+
+    @Test
+    public void rejectsTokensWithUnreadableValues() throws Exception {
+        final PageToken token = new PageToken(ImmutableList.of("yesterday", "1"));
+
+        try {
+            new EventDAO(sessionFactory).findAll(Optional.of(token), 2);
+            failBecauseExceptionWasNotThrown(InvalidPageTokenException.class);
+        } catch (InvalidPageTokenException e) {
+            assertThat(e.getResponse().getStatus())
+                    .isEqualTo(400);
+        }
+    }
+
+    @Test
+    public void pagesThroughTimestampKeysWithoutLosingPrecision() throws Exception {
+        final EventDAO events = new EventDAO(sessionFactory);
+        final List<Long> ids = Lists.newArrayList();
+        Optional<PageToken> after = Optional.absent();
+        do {
+            final Page<Event> page = events.findAll(after, 1);
+            for (Event event : page.getItems()) {
+                ids.add(event.getId());
+            }
+            after = page.getNext();
+        } while (after.isPresent());
+
+        assertThat(ids)
+                .containsExactly(5L, 4L, 3L, 2L, 1L);
+    }
+
+    private static List<String> names(Page<Person> page) {
+        final List<String> names = Lists.newArrayList();
+        for (Person person : page.getItems()) {
+            names.add(person.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,40 @@
+package com.yammer.dropwizard.hibernate.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.yammer.dropwizard.hibernate.PageToken;
+import com.yammer.dropwizard.hibernate.PageTokenParam;
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class PageTokenParamTest {
+    @Test
+    public void aTokenStringReturnsAPageToken() throws Exception {
+        final PageToken token = new PageToken(ImmutableList.of("Coda"));
+
+        final PageTokenParam param = new PageTokenParam(token.toString());
+        assertThat(param.get())
+                .isEqualTo(token);
+    }
+
+    @Test
+    @SuppressWarnings("ResultOfObjectAllocationIgnored")
+    public void aNonTokenThrowsAnException() throws Exception {
+        try {
+            new PageTokenParam("foo");
+            failBecauseExceptionWasNotThrown(WebApplicationException.class);
+        } catch (WebApplicationException e) {
+            final Response response = e.getResponse();
+
+            assertThat(response.getStatus())
+                    .isEqualTo(400);
+
+            assertThat((String) response.getEntity())
+                    .isEqualTo("\"foo\" is not a page token.");
+        }
+    }
+}
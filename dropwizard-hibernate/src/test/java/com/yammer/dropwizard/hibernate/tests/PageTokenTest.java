@@ -0,0 +1,46 @@
+package com.yammer.dropwizard.hibernate.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.yammer.dropwizard.hibernate.PageToken;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class PageTokenTest {
+    private final PageToken token = new PageToken(ImmutableList.of("2012-12-01 12:00:00", "Coda Hale?"));
+
+    @Test
+    public void roundTripsThroughItsEncodedForm() throws Exception {
+        assertThat(PageToken.parse(token.toString()))
+                .isEqualTo(token);
+    }
+
+    @Test
+    public void isUrlSafe() throws Exception {
+        assertThat(token.toString())
+                .matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    public void rejectsMalformedTokens() throws Exception {
+        try {
+            PageToken.parse("AQ");
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("malformed page token");
+        }
+    }
+
+    @Test
+    public void rejectsTokensWithTrailingData() throws Exception {
+        try {
+            PageToken.parse(token.toString() + "AAAA");
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("malformed page token");
+        }
+    }
+}
@@ -1,19 +1,42 @@
 package com.yammer.dropwizard.hibernate.tests;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.db.DatabaseConfiguration;
+import com.yammer.dropwizard.hibernate.AbstractDAO;
 import com.yammer.dropwizard.hibernate.ManagedSessionFactory;
+import com.yammer.dropwizard.hibernate.ManagedStatelessSessionContext;
+import com.yammer.dropwizard.hibernate.SecondLevelCacheConfiguration;
 import com.yammer.dropwizard.hibernate.SessionFactoryFactory;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.SecondLevelCacheStatistics;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -23,6 +46,9 @@ public class SessionFactoryFactoryTest {
         SLF4JBridgeHandler.install();
     }
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     private final SessionFactoryFactory factory = new SessionFactoryFactory();
 
     private final Environment environment = mock(Environment.class);
@@ -77,9 +103,259 @@ public class SessionFactoryFactoryTest {
         }
     }
 
+    @Test
+    public void cachesEntitiesInTheSecondLevelCache() throws Exception {
+        final String prefix = buildWithSecondLevelCache();
+        createPeople();
+
+        assertThat(emailOf("Coda")).isEqualTo("coda@example.com");
+        assertThat(emailOf("Coda")).isEqualTo("coda@example.com");
+
+        final SecondLevelCacheStatistics statistics = sessionFactory.getStatistics()
+                                                                    .getSecondLevelCacheStatistics(prefix + '.' + Person.class.getName());
+        assertThat(statistics.getPutCount())
+                .isEqualTo(1);
+
+        assertThat(statistics.getHitCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void invalidatesCachedEntitiesWhenTheyAreUpdated() throws Exception {
+        buildWithSecondLevelCache();
+        createPeople();
+
+        assertThat(emailOf("Coda")).isEqualTo("coda@example.com");
+
+        final Session session = sessionFactory.openSession();
+        try {
+            final Transaction transaction = session.beginTransaction();
+            final Person person = (Person) session.get(Person.class, "Coda");
+            person.setEmail("coda@yammer-inc.com");
+            transaction.commit();
+        } finally {
+            session.close();
+        }
+
+        assertThat(emailOf("Coda")).isEqualTo("coda@yammer-inc.com");
+    }
+
+    @Test
+    public void exportsRegionStatisticsAsGauges() throws Exception {
+        final String prefix = buildWithSecondLevelCache();
+        createPeople();
+
+        emailOf("Coda");
+        emailOf("Coda");
+
+        final Metric hits = Metrics.defaultRegistry()
+                                   .allMetrics()
+                                   .get(new MetricName("org.hibernate",
+                                                       "second-level-cache",
+                                                       "hits",
+                                                       prefix + '.' + Person.class.getName()));
+        assertThat(((Gauge<?>) hits).value())
+                .isEqualTo(1L);
+    }
+
+    @Test
+    public void leavesTheBatchSizeToTheDialectByDefault() throws Exception {
+        build();
+
+        // HSQLDialect's default
+        assertThat(jdbcBatchSize())
+                .isEqualTo(15);
+    }
+
+    @Test
+    public void batchesStatementsIfConfigured() throws Exception {
+        config.setBatchSize(25);
+        build();
+
+        assertThat(jdbcBatchSize())
+                .isEqualTo(25);
+    }
+
+    @Test
+    public void insertsEntitiesInBulkWithAStatelessSession() throws Exception {
+        config.setBatchSize(2);
+        build();
+        createPeople();
+
+        final PersonDAO dao = new PersonDAO(sessionFactory);
+        final StatelessSession statelessSession = sessionFactory.openStatelessSession();
+        ManagedStatelessSessionContext.bind(sessionFactory, statelessSession);
+        try {
+            final Transaction transaction = statelessSession.beginTransaction();
+            final List<Person> people = Lists.newArrayList();
+            for (int i = 0; i < 5; i++) {
+                final Person person = new Person();
+                person.setName("Person " + i);
+                person.setEmail(i + "@example.com");
+                people.add(person);
+            }
+            dao.persistAll(people);
+            transaction.commit();
+        } finally {
+            ManagedStatelessSessionContext.unbind(sessionFactory);
+            statelessSession.close();
+        }
+
+        assertThat(emailOf("Person 4")).isEqualTo("4@example.com");
+    }
+
+    private static class PersonDAO extends AbstractDAO<Person> {
+        private PersonDAO(SessionFactory sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void persistAll(Iterable<Person> entities) {
+            super.persistAll(entities);
+        }
+    }
+
+    @Test
+    public void cachesTheEntityMetadataBetweenBoots() throws Exception {
+        buildWithMetadataCache();
+        sessionFactory.close();
+
+        final File[] cached = folder.getRoot().listFiles();
+        assertThat(cached)
+                .hasSize(1);
+        final long lastModified = cached[0].lastModified();
+
+        buildWithMetadataCache();
+        createPeople();
+
+        assertThat(emailOf("Coda"))
+                .isEqualTo("coda@example.com");
+
+        assertThat(folder.getRoot().listFiles())
+                .containsOnly(cached[0]);
+
+        assertThat(cached[0].lastModified())
+                .isEqualTo(lastModified);
+    }
+
+    @Test
+    public void replacesTheCachedMetadataWhenTheSettingsChange() throws Exception {
+        buildWithMetadataCache();
+        sessionFactory.close();
+        final File[] cached = folder.getRoot().listFiles();
+
+        config.setBatchSize(10);
+        buildWithMetadataCache();
+
+        final File[] replaced = folder.getRoot().listFiles();
+        assertThat(replaced)
+                .hasSize(1);
+
+        assertThat(replaced[0])
+                .isNotEqualTo(cached[0]);
+    }
+
+    @Test
+    public void rebuildsCorruptCachedMetadata() throws Exception {
+        buildWithMetadataCache();
+        sessionFactory.close();
+        final File cached = folder.getRoot().listFiles()[0];
+        Files.write("corrupt", cached, Charsets.UTF_8);
+
+        buildWithMetadataCache();
+        createPeople();
+
+        assertThat(emailOf("Coda"))
+                .isEqualTo("coda@example.com");
+    }
+
+    @Test
+    public void refusesToDeserializeClassesWhichAreNotMetadata() throws Exception {
+        buildWithMetadataCache();
+        sessionFactory.close();
+        final File cached = folder.getRoot().listFiles()[0];
+        final String key = cached.getName().replace("hibernate-metadata-", "").replace(".ser", "");
+
+        final ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(cached));
+        try {
+            output.writeInt(0x44574843);
+            output.writeUTF(key);
+            output.writeObject(new File("not-metadata"));
+        } finally {
+            output.close();
+        }
+        final long length = cached.length();
+
+        buildWithMetadataCache();
+        createPeople();
+
+        assertThat(emailOf("Coda"))
+                .isEqualTo("coda@example.com");
+
+        assertThat(cached.length())
+                .isNotEqualTo(length);
+    }
+
+    private void buildWithMetadataCache() throws ClassNotFoundException {
+        this.sessionFactory = factory.build(environment,
+                                            config,
+                                            new SecondLevelCacheConfiguration(),
+                                            Optional.of(folder.getRoot()),
+                                            ImmutableList.<Class<?>>of(Person.class));
+    }
+
     private void build() throws ClassNotFoundException {
         this.sessionFactory = factory.build(environment,
                                             config,
                                             ImmutableList.<Class<?>>of(Person.class));
     }
+
+    private String buildWithSecondLevelCache() throws ClassNotFoundException {
+        // a unique prefix keeps each session factory's regions and gauges apart
+        final String prefix = "test" + System.nanoTime();
+        config.setProperties(ImmutableMap.of("javax.persistence.sharedCache.mode", "ALL",
+                                             "hibernate.cache.region_prefix", prefix));
+
+        final SecondLevelCacheConfiguration cacheConfig = new SecondLevelCacheConfiguration();
+        cacheConfig.setEnabled(true);
+        cacheConfig.setRegions(ImmutableMap.of(Person.class.getName(), "maximumSize=100"));
+
+        this.sessionFactory = factory.build(environment,
+                                            config,
+                                            cacheConfig,
+                                            ImmutableList.<Class<?>>of(Person.class));
+        return prefix;
+    }
+
+    private void createPeople() {
+        final Session session = sessionFactory.openSession();
+        try {
+            session.createSQLQuery("DROP TABLE people IF EXISTS").executeUpdate();
+            session.createSQLQuery("CREATE TABLE people (name varchar(100) primary key, email varchar(100), birthday timestamp)").executeUpdate();
+            session.createSQLQuery("INSERT INTO people VALUES ('Coda', 'coda@example.com', '1979-01-02 00:22:00')").executeUpdate();
+        } finally {
+            session.close();
+        }
+    }
+
+    private String emailOf(String name) {
+        final Session session = sessionFactory.openSession();
+        try {
+            final Transaction transaction = session.beginTransaction();
+            final Person person = (Person) session.get(Person.class, name);
+            transaction.commit();
+            return person.getEmail();
+        } finally {
+            session.close();
+        }
+    }
+
+    private int jdbcBatchSize() {
+        final Session session = sessionFactory.openSession();
+        try {
+            return ((SessionImplementor) session).getFactory().getSettings().getJdbcBatchSize();
+        } finally {
+            session.close();
+        }
+    }
 }
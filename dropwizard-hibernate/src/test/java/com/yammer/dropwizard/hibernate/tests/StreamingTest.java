@@ -0,0 +1,100 @@
+package com.yammer.dropwizard.hibernate.tests;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.jersey.core.util.StringKeyObjectValueIgnoreCaseMultivaluedMap;
+import com.yammer.dropwizard.config.Environment;
+import com.yammer.dropwizard.db.DatabaseConfiguration;
+import com.yammer.dropwizard.hibernate.AbstractDAO;
+import com.yammer.dropwizard.hibernate.SessionFactoryFactory;
+import com.yammer.dropwizard.jersey.streaming.StreamingArray;
+import com.yammer.dropwizard.jersey.streaming.StreamingArrayProvider;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
+import com.yammer.dropwizard.util.Size;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class StreamingTest {
+    static {
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    public static class PersonDAO extends AbstractDAO<Person> {
+        public PersonDAO(SessionFactory sessionFactory) {
+            super(sessionFactory);
+        }
+
+        public StreamingArray<Person> streamByEmail(String email) {
+            return stream(detachedCriteria().add(Restrictions.eq("email", email))
+                                            .addOrder(Order.asc("name")));
+        }
+    }
+
+    private final DatabaseConfiguration config = new DatabaseConfiguration();
+    private final StreamingArrayProvider provider =
+            new StreamingArrayProvider(new ObjectMapperFactory().build(), Size.kilobytes(16));
+
+    private SessionFactory sessionFactory;
+    private PersonDAO dao;
+
+    @Before
+    public void setUp() throws Exception {
+        config.setUrl("jdbc:hsqldb:mem:DbTest-" + System.nanoTime());
+        config.setUser("sa");
+        config.setDriverClass("org.hsqldb.jdbcDriver");
+        config.setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+
+        this.sessionFactory = new SessionFactoryFactory().build(mock(Environment.class),
+                                                                config,
+                                                                ImmutableList.<Class<?>>of(Person.class));
+        final Session session = sessionFactory.openSession();
+        try {
+            session.createSQLQuery("DROP TABLE people IF EXISTS").executeUpdate();
+            session.createSQLQuery("CREATE TABLE people (name varchar(100) primary key, email varchar(100), birthday timestamp)").executeUpdate();
+            session.createSQLQuery("INSERT INTO people VALUES ('Alice', 'a@example.com', NULL)").executeUpdate();
+            session.createSQLQuery("INSERT INTO people VALUES ('Bob', 'b@example.com', NULL)").executeUpdate();
+            session.createSQLQuery("INSERT INTO people VALUES ('Carol', 'b@example.com', NULL)").executeUpdate();
+        } finally {
+            session.close();
+        }
+
+        this.dao = new PersonDAO(sessionFactory);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void streamsQueryResultsInASessionOfTheirOwn() throws Exception {
+        // no session is bound to the thread, as when a response is being written
+        final StreamingArray<Person> people = dao.streamByEmail("b@example.com");
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        provider.writeTo(people,
+                         StreamingArray.class,
+                         StreamingArray.class,
+                         new Annotation[0],
+                         MediaType.APPLICATION_JSON_TYPE,
+                         new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                         output);
+
+        assertThat(output.toString())
+                .isEqualTo("[{\"name\":\"Bob\",\"email\":\"b@example.com\",\"birthday\":null}," +
+                                   "{\"name\":\"Carol\",\"email\":\"b@example.com\",\"birthday\":null}]");
+    }
+}
@@ -2,10 +2,12 @@ package com.yammer.dropwizard.hibernate.tests;
 
 import com.sun.jersey.api.core.HttpContext;
 import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.dropwizard.hibernate.ManagedStatelessSessionContext;
 import com.yammer.dropwizard.hibernate.UnitOfWork;
 import com.yammer.dropwizard.hibernate.UnitOfWorkRequestDispatcher;
 import org.hibernate.*;
 import org.hibernate.context.internal.ManagedSessionContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -116,6 +118,111 @@ public class UnitOfWorkRequestDispatcherTest {
         verify(session).setFlushMode(FlushMode.ALWAYS);
     }
 
+    @Test
+    public void bindsAStatelessSessionIfStateless() throws Exception {
+        final StatelessSession statelessSession = mock(StatelessSession.class);
+        when(unitOfWork.stateless()).thenReturn(true);
+        when(sessionFactory.openStatelessSession()).thenReturn(statelessSession);
+        when(statelessSession.beginTransaction()).thenReturn(transaction);
+        when(statelessSession.getTransaction()).thenReturn(transaction);
+
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(ManagedStatelessSessionContext.get(sessionFactory))
+                        .isSameAs(statelessSession);
+                assertThat(ManagedSessionContext.hasBind(sessionFactory))
+                        .isFalse();
+                return null;
+            }
+        }).when(underlying).dispatch(resource, context);
+
+        dispatcher.dispatch(resource, context);
+
+        final InOrder inOrder = inOrder(statelessSession, transaction, underlying);
+        inOrder.verify(statelessSession).beginTransaction();
+        inOrder.verify(underlying).dispatch(resource, context);
+        inOrder.verify(transaction).commit();
+        inOrder.verify(statelessSession).close();
+
+        verify(sessionFactory, never()).openSession();
+        assertThat(ManagedStatelessSessionContext.hasBind(sessionFactory))
+                .isFalse();
+    }
+
+    @Test
+    public void doesNotOpenALazySessionUntilItIsUsed() throws Exception {
+        final SessionFactoryImplementor lazyFactory = mock(SessionFactoryImplementor.class);
+        final UnitOfWorkRequestDispatcher lazyDispatcher =
+                new UnitOfWorkRequestDispatcher(unitOfWork, underlying, lazyFactory);
+        when(unitOfWork.lazy()).thenReturn(true);
+        when(lazyFactory.openSession()).thenReturn(session);
+
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                verify(lazyFactory, never()).openSession();
+                new ManagedSessionContext(lazyFactory).currentSession().createQuery("FROM Person");
+                return null;
+            }
+        }).when(underlying).dispatch(resource, context);
+
+        lazyDispatcher.dispatch(resource, context);
+
+        final InOrder inOrder = inOrder(lazyFactory, session, transaction);
+        inOrder.verify(lazyFactory).openSession();
+        inOrder.verify(session).beginTransaction();
+        inOrder.verify(session).createQuery("FROM Person");
+        inOrder.verify(transaction).commit();
+        inOrder.verify(session).close();
+
+        assertThat(ManagedSessionContext.hasBind(lazyFactory))
+                .isFalse();
+    }
+
+    @Test
+    public void neverOpensAnUnusedLazySession() throws Exception {
+        final SessionFactoryImplementor lazyFactory = mock(SessionFactoryImplementor.class);
+        final UnitOfWorkRequestDispatcher lazyDispatcher =
+                new UnitOfWorkRequestDispatcher(unitOfWork, underlying, lazyFactory);
+        when(unitOfWork.lazy()).thenReturn(true);
+
+        lazyDispatcher.dispatch(resource, context);
+
+        verify(lazyFactory, never()).openSession();
+        assertThat(ManagedSessionContext.hasBind(lazyFactory))
+                .isFalse();
+    }
+
+    @Test
+    public void rollsBackALazySessionOnException() throws Exception {
+        final SessionFactoryImplementor lazyFactory = mock(SessionFactoryImplementor.class);
+        final UnitOfWorkRequestDispatcher lazyDispatcher =
+                new UnitOfWorkRequestDispatcher(unitOfWork, underlying, lazyFactory);
+        when(unitOfWork.lazy()).thenReturn(true);
+        when(lazyFactory.openSession()).thenReturn(session);
+
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                new ManagedSessionContext(lazyFactory).currentSession().createQuery("FROM Person");
+                throw new RuntimeException("OH NO");
+            }
+        }).when(underlying).dispatch(resource, context);
+
+        try {
+            lazyDispatcher.dispatch(resource, context);
+            failBecauseExceptionWasNotThrown(RuntimeException.class);
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage())
+                    .isEqualTo("OH NO");
+        }
+
+        final InOrder inOrder = inOrder(transaction, session);
+        inOrder.verify(transaction).rollback();
+        inOrder.verify(session).close();
+    }
+
     @Test
     public void doesNotBeginATransactionIfNotTransactional() throws Exception {
         when(unitOfWork.transactional()).thenReturn(false);
@@ -3,6 +3,7 @@ package com.yammer.dropwizard.hibernate.tests;
 import com.sun.jersey.api.model.AbstractResourceMethod;
 import com.sun.jersey.spi.container.ResourceMethodDispatchProvider;
 import com.sun.jersey.spi.dispatch.RequestDispatcher;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetricsRequestDispatcher;
 import com.yammer.dropwizard.hibernate.UnitOfWork;
 import com.yammer.dropwizard.hibernate.UnitOfWorkRequestDispatcher;
 import com.yammer.dropwizard.hibernate.UnitOfWorkResourceMethodDispatchProvider;
@@ -54,7 +55,9 @@ public class UnitOfWorkResourceMethodDispatchProviderTest {
         final RequestDispatcher dispatcher = mock(RequestDispatcher.class);
         when(underlying.create(resourceMethod)).thenReturn(dispatcher);
 
-        final UnitOfWorkRequestDispatcher decorator = (UnitOfWorkRequestDispatcher) provider.create(resourceMethod);
+        final ConnectionMetricsRequestDispatcher instrumented =
+                (ConnectionMetricsRequestDispatcher) provider.create(resourceMethod);
+        final UnitOfWorkRequestDispatcher decorator = (UnitOfWorkRequestDispatcher) instrumented.getDispatcher();
 
         assertThat(decorator.getSessionFactory())
                 .isEqualTo(sessionFactory);
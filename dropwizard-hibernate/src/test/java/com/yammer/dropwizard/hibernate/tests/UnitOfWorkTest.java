@@ -47,4 +47,16 @@ public class UnitOfWorkTest {
         assertThat(unitOfWork.flushMode())
                 .isEqualTo(FlushMode.AUTO);
     }
+
+    @Test
+    public void defaultsToStatefulSessions() throws Exception {
+        assertThat(unitOfWork.stateless())
+                .isFalse();
+    }
+
+    @Test
+    public void defaultsToEagerSessions() throws Exception {
+        assertThat(unitOfWork.lazy())
+                .isFalse();
+    }
 }
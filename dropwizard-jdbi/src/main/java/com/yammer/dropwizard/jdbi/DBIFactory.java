@@ -6,6 +6,7 @@ import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.db.DatabaseConfiguration;
 import com.yammer.dropwizard.db.ManagedDataSource;
 import com.yammer.dropwizard.db.ManagedDataSourceFactory;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetricsResourceMethodDispatchAdapter;
 import com.yammer.dropwizard.jdbi.args.OptionalArgumentFactory;
 import com.yammer.dropwizard.jdbi.logging.LogbackLog;
 import com.yammer.metrics.Metrics;
@@ -14,7 +15,6 @@ import com.yammer.metrics.jdbi.InstrumentedTimingCollector;
 import com.yammer.metrics.jdbi.strategies.DelegatingStatementNameStrategy;
 import com.yammer.metrics.jdbi.strategies.NameStrategies;
 import com.yammer.metrics.jdbi.strategies.StatementNameStrategy;
-import org.skife.jdbi.v2.ColonPrefixNamedParamStatementRewriter;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.StatementContext;
 import org.slf4j.LoggerFactory;
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 public class DBIFactory {
     private static final Logger LOGGER = (Logger) LoggerFactory.getLogger(DBI.class);
     private static final MetricName RAW_SQL = new MetricName(DBI.class, "raw-sql");
+    private static final int MAX_CACHED_STATEMENTS = 1024;
 
     private static class SanerNamingStrategy extends DelegatingStatementNameStrategy {
         private SanerNamingStrategy() {
@@ -55,11 +56,12 @@ public class DBIFactory {
         final DBI dbi = new DBI(dataSource);
         environment.manage(dataSource);
         environment.addHealthCheck(new DBIHealthCheck(dbi, name, validationQuery));
+        environment.addProvider(ConnectionMetricsResourceMethodDispatchAdapter.class);
         dbi.setSQLLog(new LogbackLog(LOGGER, Level.TRACE));
         dbi.setTimingCollector(new InstrumentedTimingCollector(Metrics.defaultRegistry(),
                                                                new SanerNamingStrategy()));
         if (configuration.isAutoCommentsEnabled()) {
-            dbi.setStatementRewriter(new NamePrependingStatementRewriter(new ColonPrefixNamedParamStatementRewriter()));
+            dbi.setStatementRewriter(new NamePrependingStatementRewriter(MAX_CACHED_STATEMENTS));
         }
         dbi.registerArgumentFactory(new OptionalArgumentFactory(configuration.getDriverClass()));
         dbi.registerContainerFactory(new ImmutableListContainerFactory());
@@ -0,0 +1,34 @@
+package com.yammer.dropwizard.jdbi;
+
+import org.skife.jdbi.v2.DefaultStatementBuilder;
+import org.skife.jdbi.v2.StatementContext;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A {@link DefaultStatementBuilder} which sets a JDBC fetch size on every statement it creates, so
+ * that drivers can page through large result sets instead of buffering them entirely in memory.
+ */
+public class FetchSizeStatementBuilder extends DefaultStatementBuilder {
+    private final int fetchSize;
+
+    /**
+     * Creates a new {@link FetchSizeStatementBuilder}.
+     *
+     * @param fetchSize    the number of rows the driver should fetch at a time
+     */
+    public FetchSizeStatementBuilder(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public PreparedStatement create(Connection conn,
+                                    String sql,
+                                    StatementContext ctx) throws SQLException {
+        final PreparedStatement statement = super.create(conn, sql, ctx);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+}
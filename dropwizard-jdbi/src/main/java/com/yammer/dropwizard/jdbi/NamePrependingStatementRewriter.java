@@ -1,31 +1,89 @@
 package com.yammer.dropwizard.jdbi;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.skife.jdbi.v2.Binding;
 import org.skife.jdbi.v2.StatementContext;
 import org.skife.jdbi.v2.tweak.RewrittenStatement;
 import org.skife.jdbi.v2.tweak.StatementRewriter;
 
+import java.lang.reflect.Method;
+
+/**
+ * A {@link StatementRewriter} which prepends the SQL object's class and method name to the query
+ * as a comment and replaces colon-prefixed named parameters with JDBC placeholders.
+ * <p/>
+ * The output for a given SQL object method and SQL string never changes, so the rewritten and
+ * parsed statement is cached for a bounded number of them and reused on every execution.
+ */
 public class NamePrependingStatementRewriter implements StatementRewriter {
-    private final StatementRewriter rewriter;
+    private static class CacheKey {
+        private final Class<?> type;
+        private final Method method;
+        private final String sql;
+
+        private CacheKey(Class<?> type, Method method, String sql) {
+            this.type = type;
+            this.method = method;
+            this.sql = sql;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) { return true; }
+            if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+            final CacheKey that = (CacheKey) obj;
+            return type.equals(that.type) && method.equals(that.method) && sql.equals(that.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.hashCode();
+            result = (31 * result) + method.hashCode();
+            result = (31 * result) + sql.hashCode();
+            return result;
+        }
+    }
+
+    private final Cache<CacheKey, ParsedStatement> statements;
 
-    NamePrependingStatementRewriter(StatementRewriter rewriter) {
-        this.rewriter = rewriter;
+    /**
+     * Creates a new {@link NamePrependingStatementRewriter}.
+     *
+     * @param maxCachedStatements    the maximum number of rewritten SQL object statements to cache
+     */
+    public NamePrependingStatementRewriter(long maxCachedStatements) {
+        this.statements = CacheBuilder.newBuilder()
+                                      .maximumSize(maxCachedStatements)
+                                      .build();
     }
 
     @Override
     public RewrittenStatement rewrite(String sql, Binding params, StatementContext ctx) {
         if ((ctx.getSqlObjectType() != null) && (ctx.getSqlObjectMethod() != null)) {
-            final StringBuilder query = new StringBuilder(sql.length() + 100);
-            query.append("/* ");
-            final String className = ctx.getSqlObjectType().getSimpleName();
-            if (!className.isEmpty()) {
-                query.append(className).append('.');
+            final CacheKey key = new CacheKey(ctx.getSqlObjectType(),
+                                              ctx.getSqlObjectMethod(),
+                                              sql);
+            ParsedStatement statement = statements.getIfPresent(key);
+            if (statement == null) {
+                statement = ParsedStatement.parse(prependName(sql, ctx), ctx);
+                statements.put(key, statement);
             }
-            query.append(ctx.getSqlObjectMethod().getName());
-            query.append(" */ ");
-            query.append(sql);
-            return rewriter.rewrite(query.toString(), params, ctx);
+            return statement.rewrittenFor(ctx);
+        }
+        return ParsedStatement.parse(sql, ctx).rewrittenFor(ctx);
+    }
+
+    private static String prependName(String sql, StatementContext ctx) {
+        final StringBuilder query = new StringBuilder(sql.length() + 100);
+        query.append("/* ");
+        final String className = ctx.getSqlObjectType().getSimpleName();
+        if (!className.isEmpty()) {
+            query.append(className).append('.');
         }
-        return rewriter.rewrite(sql, params, ctx);
+        query.append(ctx.getSqlObjectMethod().getName());
+        query.append(" */ ");
+        query.append(sql);
+        return query.toString();
     }
 }
@@ -0,0 +1,153 @@
+package com.yammer.dropwizard.jdbi;
+
+import com.google.common.collect.ImmutableList;
+import org.skife.jdbi.org.antlr.runtime.ANTLRStringStream;
+import org.skife.jdbi.org.antlr.runtime.Token;
+import org.skife.jdbi.rewriter.colon.ColonStatementLexer;
+import org.skife.jdbi.v2.Binding;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.exceptions.UnableToCreateStatementException;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+import org.skife.jdbi.v2.tweak.Argument;
+import org.skife.jdbi.v2.tweak.RewrittenStatement;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.skife.jdbi.rewriter.colon.ColonStatementLexer.*;
+
+/**
+ * A SQL statement with its colon-prefixed named parameters replaced with JDBC placeholders.
+ * <p/>
+ * This is the same parse {@link org.skife.jdbi.v2.ColonPrefixNamedParamStatementRewriter} does,
+ * but the result is immutable and independent of any particular {@link StatementContext}, so it
+ * can be computed once and shared between executions.
+ */
+class ParsedStatement {
+    private static final String POSITIONAL = "*";
+
+    static ParsedStatement parse(String sql, StatementContext ctx) {
+        try {
+            final StringBuilder query = new StringBuilder(sql.length());
+            final ImmutableList.Builder<String> params = ImmutableList.builder();
+            boolean positionalOnly = true;
+            final ColonStatementLexer lexer = new ColonStatementLexer(new ANTLRStringStream(sql));
+            Token token = lexer.nextToken();
+            while (token.getType() != EOF) {
+                switch (token.getType()) {
+                    case LITERAL:
+                    case QUOTED_TEXT:
+                    case DOUBLE_QUOTED_TEXT:
+                        query.append(token.getText());
+                        break;
+                    case NAMED_PARAM:
+                        params.add(token.getText().substring(1));
+                        positionalOnly = false;
+                        query.append('?');
+                        break;
+                    case POSITIONAL_PARAM:
+                        params.add(POSITIONAL);
+                        query.append('?');
+                        break;
+                    case ESCAPED_TEXT:
+                        query.append(token.getText().substring(1));
+                        break;
+                    default:
+                        break;
+                }
+                token = lexer.nextToken();
+            }
+            return new ParsedStatement(query.toString(), positionalOnly, params.build());
+        } catch (IllegalArgumentException e) {
+            throw new UnableToCreateStatementException("Exception parsing for named parameter replacement", e, ctx);
+        }
+    }
+
+    private final String sql;
+    private final boolean positionalOnly;
+    private final ImmutableList<String> params;
+
+    private ParsedStatement(String sql, boolean positionalOnly, ImmutableList<String> params) {
+        this.sql = sql;
+        this.positionalOnly = positionalOnly;
+        this.params = params;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    RewrittenStatement rewrittenFor(StatementContext ctx) {
+        return new ContextualRewrittenStatement(this, ctx);
+    }
+
+    private static class ContextualRewrittenStatement implements RewrittenStatement {
+        private final ParsedStatement statement;
+        private final StatementContext context;
+
+        private ContextualRewrittenStatement(ParsedStatement statement, StatementContext context) {
+            this.statement = statement;
+            this.context = context;
+        }
+
+        @Override
+        public void bind(Binding binding, PreparedStatement prepared) throws SQLException {
+            if (statement.positionalOnly) {
+                bindPositional(binding, prepared);
+            } else {
+                bindNamed(binding, prepared);
+            }
+        }
+
+        private void bindPositional(Binding binding, PreparedStatement prepared) {
+            int position = 0;
+            Argument argument = binding.forPosition(position);
+            while (argument != null) {
+                try {
+                    argument.apply(position + 1, prepared, context);
+                } catch (SQLException e) {
+                    throw new UnableToExecuteStatementException(
+                            String.format("Exception while binding positional param at (0 based) position %d",
+                                          position), e, context);
+                }
+                position++;
+                argument = binding.forPosition(position);
+            }
+        }
+
+        private void bindNamed(Binding binding, PreparedStatement prepared) {
+            int position = 0;
+            for (String name : statement.params) {
+                if (POSITIONAL.equals(name)) {
+                    continue;
+                }
+
+                Argument argument = binding.forName(name);
+                if (argument == null) {
+                    argument = binding.forPosition(position);
+                }
+
+                if (argument == null) {
+                    throw new UnableToExecuteStatementException(
+                            String.format("Unable to execute, no named parameter matches \"%s\" and no " +
+                                                  "positional param for place %d (which is %d in the " +
+                                                  "JDBC 'start at 1' scheme) has been set.",
+                                          name, position, position + 1), context);
+                }
+
+                try {
+                    argument.apply(position + 1, prepared, context);
+                } catch (SQLException e) {
+                    throw new UnableToCreateStatementException(
+                            String.format("Exception while binding '%s'", name), e, context);
+                }
+                position++;
+            }
+        }
+
+        @Override
+        public String getSql() {
+            return statement.sql;
+        }
+    }
+}
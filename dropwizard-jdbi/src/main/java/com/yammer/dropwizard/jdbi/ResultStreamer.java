@@ -0,0 +1,169 @@
+package com.yammer.dropwizard.jdbi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yammer.dropwizard.db.DatabaseConfiguration;
+import com.yammer.dropwizard.jersey.streaming.JsonElementWriter;
+import com.yammer.dropwizard.jersey.streaming.StreamingArray;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.ResultIterator;
+import org.skife.jdbi.v2.tweak.HandleCallback;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Streams query results to a response entity as a JSON array, one row at a time.
+ * <p/>
+ * Unlike returning an {@code ImmutableList<T>}, the results are never fully materialized: the
+ * handle is only opened once Jersey starts writing the response, every statement is executed with
+ * the configured {@link DatabaseConfiguration#getStreamingFetchSize() fetch size}, and each row is
+ * serialized as soon as it is read. The handle is closed when the response has been written.
+ * <pre>{@code
+ * @GET
+ * public StreamingArray<Person> exportPeople() {
+ *     return streamer.streamArray(new HandleCallback<Iterator<Person>>() {
+ *         public Iterator<Person> withHandle(Handle handle) {
+ *             return handle.attach(PersonDAO.class).iterateAll();
+ *         }
+ *     });
+ * }
+ * }</pre>
+ */
+public class ResultStreamer {
+    private final DBI dbi;
+    private final ObjectMapper mapper;
+    private final int fetchSize;
+
+    /**
+     * Creates a new {@link ResultStreamer}.
+     *
+     * @param dbi              the {@link DBI} to open handles with
+     * @param configuration    the database configuration, which provides the fetch size
+     * @param mapper           the {@link ObjectMapper} used to serialize each row
+     */
+    public ResultStreamer(DBI dbi, DatabaseConfiguration configuration, ObjectMapper mapper) {
+        this.dbi = checkNotNull(dbi);
+        this.mapper = checkNotNull(mapper);
+        this.fetchSize = configuration.getStreamingFetchSize();
+    }
+
+    /**
+     * Returns a {@link StreamingOutput} which, when written, opens a handle, runs the given
+     * callback, and writes each element of the returned iterator as an element of a JSON array.
+     *
+     * @param query    a callback which returns an iterator over the rows to be written; if it
+     *                 returns a {@link ResultIterator}, it will be closed after writing
+     * @param <T>      the type of the rows
+     * @return a {@link StreamingOutput} which writes the query's results
+     */
+    public <T> StreamingOutput stream(HandleCallback<? extends Iterator<T>> query) {
+        return stream(Object.class, query);
+    }
+
+    /**
+     * Returns a {@link StreamingOutput} which, when written, opens a handle, runs the given
+     * callback, and writes each element of the returned iterator as an element of a JSON array,
+     * with the polymorphic type information of the given element type.
+     *
+     * @param elementType    the declared type of the rows
+     * @param query          a callback which returns an iterator over the rows to be written; if it
+     *                       returns a {@link ResultIterator}, it will be closed after writing
+     * @param <T>            the type of the rows
+     * @return a {@link StreamingOutput} which writes the query's results
+     */
+    public <T> StreamingOutput stream(Class<? super T> elementType,
+                                      HandleCallback<? extends Iterator<T>> query) {
+        return new ResultStreamingOutput<T>(mapper.getTypeFactory().constructType(elementType),
+                                            query);
+    }
+
+    /**
+     * Returns a {@link StreamingArray} which, when written, opens a handle, runs the given
+     * callback, and writes each element of the returned iterator as an element of the array. It's
+     * written by the service's {@code StreamingArrayProvider}, which flushes the response every
+     * {@code http.streamingFlushInterval} bytes.
+     *
+     * @param query    a callback which returns an iterator over the rows to be written; if it
+     *                 returns a {@link ResultIterator}, it will be closed after writing
+     * @param <T>      the type of the rows
+     * @return a {@link StreamingArray} of the query's results
+     */
+    public <T> StreamingArray<T> streamArray(final HandleCallback<? extends Iterator<T>> query) {
+        checkNotNull(query);
+        return new StreamingArray<T>() {
+            @Override
+            public void produce(Sink<? super T> sink) throws Exception {
+                ResultStreamer.this.produce(query, sink);
+            }
+        };
+    }
+
+    private <T> void produce(HandleCallback<? extends Iterator<T>> query,
+                             StreamingArray.Sink<? super T> sink) throws Exception {
+        final Handle handle = dbi.open();
+        try {
+            handle.setStatementBuilder(new FetchSizeStatementBuilder(fetchSize));
+            // some drivers (e.g., PostgreSQL) ignore the fetch size in auto-commit mode
+            handle.begin();
+            final Iterator<T> results = query.withHandle(handle);
+            try {
+                while (results.hasNext()) {
+                    sink.write(results.next());
+                }
+            } finally {
+                if (results instanceof ResultIterator) {
+                    ((ResultIterator<T>) results).close();
+                }
+            }
+            handle.commit();
+        } finally {
+            if (handle.isInTransaction()) {
+                handle.rollback();
+            }
+            handle.close();
+        }
+    }
+
+    private class ResultStreamingOutput<T> implements StreamingOutput {
+        private final JavaType elementType;
+        private final HandleCallback<? extends Iterator<T>> query;
+
+        private ResultStreamingOutput(JavaType elementType, HandleCallback<? extends Iterator<T>> query) {
+            this.elementType = elementType;
+            this.query = checkNotNull(query);
+        }
+
+        @Override
+        public void write(OutputStream output) throws IOException, WebApplicationException {
+            final JsonGenerator json = mapper.getFactory().createJsonGenerator(output);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // an array which fails part way through is left unterminated, so the client can tell
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            try {
+                final JsonElementWriter writer = new JsonElementWriter(mapper, elementType, json);
+                json.writeStartArray();
+                try {
+                    produce(query, writer);
+                } catch (IOException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new WebApplicationException(e);
+                }
+                json.writeEndArray();
+            } finally {
+                // flushes the generator and returns its buffers to the recycler
+                json.close();
+            }
+        }
+    }
+}
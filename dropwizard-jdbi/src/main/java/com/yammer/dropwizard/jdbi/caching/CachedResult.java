@@ -0,0 +1,39 @@
+package com.yammer.dropwizard.jdbi.caching;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An annotation which marks a SQL object method's results as cacheable by a
+ * {@link SqlObjectResultCache}. Results are cached per combination of method and arguments, so
+ * arguments must implement {@link Object#equals(Object)} and {@link Object#hashCode()}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedResult {
+    /**
+     * The tables the method reads from. Cached results are discarded whenever a method annotated
+     * with {@link InvalidatesTables} names one of these tables.
+     *
+     * @return the names of the tables the method reads from
+     */
+    String[] tables() default {};
+
+    /**
+     * How long a cached result is considered fresh. The unit of this amount is determined by
+     * {@link #expireAfterUnit()}. If negative, results only expire when their tables are
+     * invalidated or when they are evicted to keep the cache within its maximum size.
+     *
+     * @see #expireAfterUnit()
+     * @return the number of {@link #expireAfterUnit()}s for which a result should be cached
+     */
+    long expireAfter() default -1;
+
+    /**
+     * The time unit of {@link #expireAfter()}.
+     *
+     * @return the time unit of {@link #expireAfter()}
+     */
+    TimeUnit expireAfterUnit() default TimeUnit.SECONDS;
+}
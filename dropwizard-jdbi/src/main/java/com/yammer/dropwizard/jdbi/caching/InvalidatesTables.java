@@ -0,0 +1,22 @@
+package com.yammer.dropwizard.jdbi.caching;
+
+import java.lang.annotation.*;
+
+/**
+ * An annotation which marks a SQL object method as writing to the given tables. When the method is
+ * called and again when it returns, all results cached by a {@link SqlObjectResultCache} for
+ * methods reading from those tables are discarded. Inside a transaction tracked by
+ * {@link SqlObjectResultCache#transactionHandler}, the second invalidation happens when the
+ * transaction ends, and no results are cached for those tables until then.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InvalidatesTables {
+    /**
+     * The tables the method writes to.
+     *
+     * @return the names of the tables the method writes to
+     */
+    String[] value();
+}
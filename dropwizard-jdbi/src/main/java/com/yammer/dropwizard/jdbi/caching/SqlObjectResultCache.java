@@ -0,0 +1,430 @@
+package com.yammer.dropwizard.jdbi.caching;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheBuilderSpec;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.jdbi.strategies.StatementName;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.TransactionCallback;
+import org.skife.jdbi.v2.TransactionIsolationLevel;
+import org.skife.jdbi.v2.tweak.TransactionHandler;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded, in-process cache for the results of SQL object methods annotated with
+ * {@link CachedResult}.
+ * <p/>
+ * Results are keyed by method and arguments, and expire after the method's
+ * {@link CachedResult#expireAfter()} or as soon as a method annotated with
+ * {@link InvalidatesTables} writes to one of the method's {@link CachedResult#tables()}. Writes
+ * made inside transactions are only tracked until commit if the {@link #transactionHandler} is
+ * installed. A single
+ * cache should be shared by all the SQL objects which read and write the same tables:
+ * <pre>{@code
+ * final SqlObjectResultCache cache = new SqlObjectResultCache(CacheBuilderSpec.parse("maximumSize=10000"));
+ * final ConfigDAO configs = cache.wrap(ConfigDAO.class, dbi.onDemand(ConfigDAO.class));
+ * }</pre>
+ * Cache hits and misses are metered for each cached method, using the same names as the method's
+ * SQL timer with {@code -cache-hits} and {@code -cache-misses} appended.
+ */
+public class SqlObjectResultCache {
+    private static class Key {
+        private final Method method;
+        private final Object[] args;
+        private final int hashCode;
+
+        private Key(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+            this.hashCode = (31 * method.hashCode()) + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) { return true; }
+            if ((obj == null) || (getClass() != obj.getClass())) { return false; }
+            final Key that = (Key) obj;
+            return method.equals(that.method) && Arrays.deepEquals(args, that.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+        private final long[] generations;
+
+        private Entry(Object value, long expiresAt, long[] generations) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.generations = generations;
+        }
+    }
+
+    private static class Table {
+        private final AtomicLong generation = new AtomicLong();
+        private final AtomicInteger writers = new AtomicInteger();
+
+        private void beginWrite() {
+            writers.incrementAndGet();
+            generation.incrementAndGet();
+        }
+
+        private void endWrite() {
+            generation.incrementAndGet();
+            writers.decrementAndGet();
+        }
+    }
+
+    private static class TransactionState {
+        private int depth;
+        private final List<Table> written = Lists.newArrayList();
+    }
+
+    private class CommitTrackingTransactionHandler implements TransactionHandler {
+        private final TransactionHandler delegate;
+
+        private CommitTrackingTransactionHandler(TransactionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void begin(Handle handle) {
+            delegate.begin(handle);
+            transactions.get().depth++;
+        }
+
+        @Override
+        public void commit(Handle handle) {
+            try {
+                delegate.commit(handle);
+            } finally {
+                endTransaction();
+            }
+        }
+
+        @Override
+        public void rollback(Handle handle) {
+            try {
+                delegate.rollback(handle);
+            } finally {
+                endTransaction();
+            }
+        }
+
+        @Override
+        public void rollback(Handle handle, String name) {
+            delegate.rollback(handle, name);
+        }
+
+        @Override
+        public boolean isInTransaction(Handle handle) {
+            return delegate.isInTransaction(handle);
+        }
+
+        @Override
+        public void checkpoint(Handle handle, String name) {
+            delegate.checkpoint(handle, name);
+        }
+
+        @Override
+        public void release(Handle handle, String name) {
+            delegate.release(handle, name);
+        }
+
+        @Override
+        public <ReturnType> ReturnType inTransaction(Handle handle,
+                                                     TransactionCallback<ReturnType> callback) {
+            return delegate.inTransaction(handle, callback);
+        }
+
+        @Override
+        public <ReturnType> ReturnType inTransaction(Handle handle,
+                                                     TransactionIsolationLevel level,
+                                                     TransactionCallback<ReturnType> callback) {
+            return delegate.inTransaction(handle, level, callback);
+        }
+
+        private void endTransaction() {
+            final TransactionState state = transactions.get();
+            if (state.depth > 0) {
+                state.depth--;
+                if (state.depth == 0) {
+                    for (Table table : state.written) {
+                        table.endWrite();
+                    }
+                    state.written.clear();
+                }
+            }
+        }
+    }
+
+    private class CachedMethod {
+        private final long ttl;
+        private final ImmutableList<Table> tables;
+        private final Meter hits;
+        private final Meter misses;
+
+        private CachedMethod(Class<?> type, Method method, CachedResult annotation) {
+            this.ttl = (annotation.expireAfter() < 0) ? -1 :
+                    annotation.expireAfterUnit().toNanos(annotation.expireAfter());
+            final ImmutableList.Builder<Table> builder = ImmutableList.builder();
+            for (String table : annotation.tables()) {
+                builder.add(table(table));
+            }
+            this.tables = builder.build();
+            this.hits = Metrics.defaultRegistry().newMeter(metricName(type, method, "cache-hits"),
+                                                           "lookups",
+                                                           TimeUnit.SECONDS);
+            this.misses = Metrics.defaultRegistry().newMeter(metricName(type, method, "cache-misses"),
+                                                             "lookups",
+                                                             TimeUnit.SECONDS);
+        }
+
+        private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            final Key key = new Key(method, (args == null) ? new Object[0] : args);
+            final Entry entry = cache.getIfPresent(key);
+            if ((entry != null) && isFresh(entry)) {
+                hits.mark();
+                return entry.value;
+            }
+
+            misses.mark();
+            // snapshot before querying so that concurrent writes make the result stale
+            final long[] generations = currentGenerations();
+            final long expiresAt = (ttl < 0) ? Long.MAX_VALUE : clock.tick() + ttl;
+            final Object value = invokeTarget(target, method, args);
+            // uncommitted writes may or may not be visible to the query, so don't keep its result
+            if (!isBeingWritten()) {
+                cache.put(key, new Entry(value, expiresAt, generations));
+            }
+            return value;
+        }
+
+        private boolean isBeingWritten() {
+            for (Table table : tables) {
+                if (table.writers.get() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isFresh(Entry entry) {
+            if ((entry.expiresAt != Long.MAX_VALUE) && (clock.tick() - entry.expiresAt >= 0)) {
+                return false;
+            }
+            for (int i = 0; i < entry.generations.length; i++) {
+                if (tables.get(i).generation.get() != entry.generations[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long[] currentGenerations() {
+            final long[] generations = new long[tables.size()];
+            for (int i = 0; i < generations.length; i++) {
+                generations[i] = tables.get(i).generation.get();
+            }
+            return generations;
+        }
+    }
+
+    private class Handler implements InvocationHandler {
+        private final Object target;
+        private final ImmutableMap<Method, CachedMethod> cachedMethods;
+        private final ImmutableMap<Method, ImmutableList<Table>> invalidatingMethods;
+
+        private Handler(Class<?> type, Object target) {
+            this.target = target;
+            final ImmutableMap.Builder<Method, CachedMethod> cached = ImmutableMap.builder();
+            final ImmutableMap.Builder<Method, ImmutableList<Table>> invalidating = ImmutableMap.builder();
+            for (Method method : type.getMethods()) {
+                final CachedResult cachedResult = method.getAnnotation(CachedResult.class);
+                final InvalidatesTables invalidates = method.getAnnotation(InvalidatesTables.class);
+                checkArgument((cachedResult == null) || (invalidates == null),
+                              "%s cannot both cache results and invalidate tables", method);
+                if (cachedResult != null) {
+                    cached.put(method, new CachedMethod(type, method, cachedResult));
+                } else if (invalidates != null) {
+                    final ImmutableList.Builder<Table> tables = ImmutableList.builder();
+                    for (String table : invalidates.value()) {
+                        tables.add(table(table));
+                    }
+                    invalidating.put(method, tables.build());
+                }
+            }
+            this.cachedMethods = cached.build();
+            this.invalidatingMethods = invalidating.build();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final CachedMethod cachedMethod = cachedMethods.get(method);
+            if (cachedMethod != null) {
+                return cachedMethod.invoke(target, method, args);
+            }
+
+            final ImmutableList<Table> tables = invalidatingMethods.get(method);
+            if (tables == null) {
+                return invokeTarget(target, method, args);
+            }
+
+            // invalidate both before and after the write, and keep the tables marked as being
+            // written until the write is committed
+            for (Table table : tables) {
+                table.beginWrite();
+            }
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                final TransactionState state = transactions.get();
+                if (state.depth > 0) {
+                    state.written.addAll(tables);
+                } else {
+                    for (Table table : tables) {
+                        table.endWrite();
+                    }
+                }
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static MetricName metricName(Class<?> type, Method method, String suffix) {
+        return StatementName.getJmxSafeName(type.getPackage().getName(),
+                                            type.getSimpleName(),
+                                            method.getName() + '-' + suffix);
+    }
+
+    private final Cache<Key, Entry> cache;
+    private final ConcurrentMap<String, Table> tables = Maps.newConcurrentMap();
+    private final ThreadLocal<TransactionState> transactions = new ThreadLocal<TransactionState>() {
+        @Override
+        protected TransactionState initialValue() {
+            return new TransactionState();
+        }
+    };
+    private final Clock clock;
+
+    /**
+     * Creates a new {@link SqlObjectResultCache}.
+     *
+     * @param cacheSpec    a {@link CacheBuilderSpec} which bounds the size of the cache
+     */
+    public SqlObjectResultCache(CacheBuilderSpec cacheSpec) {
+        this(cacheSpec, Clock.defaultClock());
+    }
+
+    /**
+     * Creates a new {@link SqlObjectResultCache}.
+     *
+     * @param cacheSpec    a {@link CacheBuilderSpec} which bounds the size of the cache
+     * @param clock        the clock used to expire results
+     */
+    public SqlObjectResultCache(CacheBuilderSpec cacheSpec, Clock clock) {
+        this.cache = CacheBuilder.from(cacheSpec).build();
+        this.clock = clock;
+    }
+
+    /**
+     * Wraps a SQL object so that calls to its {@link CachedResult} methods are served from this
+     * cache and calls to its {@link InvalidatesTables} methods invalidate it.
+     *
+     * @param type         the SQL object interface
+     * @param sqlObject    the SQL object (e.g., from {@code DBI#onDemand(Class)})
+     * @param <T>          the type of the SQL object
+     * @return a caching version of {@code sqlObject}
+     */
+    public <T> T wrap(Class<T> type, T sqlObject) {
+        checkArgument(type.isInterface(), "%s is not an interface", type);
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(),
+                                                new Class<?>[]{ type },
+                                                new Handler(type, sqlObject)));
+    }
+
+    /**
+     * Wraps a {@link TransactionHandler} so that writes made by this cache's SQL objects inside a
+     * transaction only finish invalidating their tables when the transaction is committed or
+     * rolled back. Until then, results read from those tables are not cached. Install it on the
+     * {@link org.skife.jdbi.v2.DBI} which the SQL objects use:
+     * <pre>{@code
+     * dbi.setTransactionHandler(cache.transactionHandler(new LocalTransactionHandler()));
+     * }</pre>
+     *
+     * @param delegate    the transaction handler which begins and ends the transactions
+     * @return a transaction handler which tracks commits for this cache
+     */
+    public TransactionHandler transactionHandler(TransactionHandler delegate) {
+        return new CommitTrackingTransactionHandler(delegate);
+    }
+
+    /**
+     * Discards all cached results which read from any of the given tables.
+     *
+     * @param tables    the names of the tables which have been written to
+     */
+    public void invalidate(String... tables) {
+        for (String table : tables) {
+            table(table).generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Discards all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    private Table table(String name) {
+        final Table table = tables.get(name);
+        if (table != null) {
+            return table;
+        }
+        final Table created = new Table();
+        final Table existing = tables.putIfAbsent(name, created);
+        return (existing == null) ? created : existing;
+    }
+}
@@ -0,0 +1,189 @@
+package com.yammer.dropwizard.jdbi.caching.tests;
+
+import com.google.common.cache.CacheBuilderSpec;
+import com.yammer.dropwizard.jdbi.caching.CachedResult;
+import com.yammer.dropwizard.jdbi.caching.InvalidatesTables;
+import com.yammer.dropwizard.jdbi.caching.SqlObjectResultCache;
+import com.yammer.metrics.core.Clock;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.tweak.TransactionHandler;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Mockito.*;
+
+public class SqlObjectResultCacheTest {
+    public interface SettingsDAO {
+        @CachedResult(tables = "settings")
+        String findValue(String name);
+
+        @CachedResult(tables = "settings", expireAfter = 10, expireAfterUnit = TimeUnit.SECONDS)
+        String findValueBriefly(String name);
+
+        String findValueUncached(String name);
+
+        @CachedResult(tables = "settings")
+        String findFirstValue(String[] names);
+
+        @InvalidatesTables("settings")
+        void update(String name, String value);
+
+        @InvalidatesTables("users")
+        void updateUser(String name);
+    }
+
+    private final Clock clock = mock(Clock.class);
+    private final SettingsDAO underlying = mock(SettingsDAO.class);
+    private final SqlObjectResultCache cache =
+            new SqlObjectResultCache(CacheBuilderSpec.parse("maximumSize=10"), clock);
+    private final SettingsDAO dao = cache.wrap(SettingsDAO.class, underlying);
+    private final TransactionHandler transactions = cache.transactionHandler(mock(TransactionHandler.class));
+    private final Handle handle = mock(Handle.class);
+
+    @Before
+    public void setUp() throws Exception {
+        when(underlying.findValue(anyString())).thenReturn("value");
+        when(underlying.findValueBriefly(anyString())).thenReturn("value");
+        when(underlying.findValueUncached(anyString())).thenReturn("value");
+        when(underlying.findFirstValue(any(String[].class))).thenReturn("value");
+    }
+
+    @Test
+    public void cachesResultsByArguments() throws Exception {
+        assertThat(dao.findValue("one")).isEqualTo("value");
+        assertThat(dao.findValue("one")).isEqualTo("value");
+        assertThat(dao.findValue("two")).isEqualTo("value");
+
+        verify(underlying, times(1)).findValue("one");
+        verify(underlying, times(1)).findValue("two");
+    }
+
+    @Test
+    public void doesNotCacheUnannotatedMethods() throws Exception {
+        dao.findValueUncached("one");
+        dao.findValueUncached("one");
+
+        verify(underlying, times(2)).findValueUncached("one");
+    }
+
+    @Test
+    public void expiresResultsAfterTheirTtl() throws Exception {
+        when(clock.tick()).thenReturn(0L);
+        dao.findValueBriefly("one");
+
+        when(clock.tick()).thenReturn(TimeUnit.SECONDS.toNanos(9));
+        dao.findValueBriefly("one");
+
+        when(clock.tick()).thenReturn(TimeUnit.SECONDS.toNanos(10));
+        dao.findValueBriefly("one");
+
+        verify(underlying, times(2)).findValueBriefly("one");
+    }
+
+    @Test
+    public void invalidatesResultsWhenTheirTablesAreWritten() throws Exception {
+        dao.findValue("one");
+        dao.update("one", "other");
+        dao.findValue("one");
+
+        verify(underlying).update("one", "other");
+        verify(underlying, times(2)).findValue("one");
+    }
+
+    @Test
+    public void ignoresWritesToOtherTables() throws Exception {
+        dao.findValue("one");
+        dao.updateUser("one");
+        dao.findValue("one");
+
+        verify(underlying, times(1)).findValue("one");
+    }
+
+    @Test
+    public void invalidatesTablesExplicitly() throws Exception {
+        dao.findValue("one");
+        cache.invalidate("settings");
+        dao.findValue("one");
+
+        verify(underlying, times(2)).findValue("one");
+    }
+
+    @Test
+    public void doesNotCacheExceptions() throws Exception {
+        when(underlying.findValue("bad")).thenThrow(new IllegalStateException("nope"));
+
+        try {
+            dao.findValue("bad");
+            failBecauseExceptionWasNotThrown(IllegalStateException.class);
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("nope");
+        }
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void comparesArrayArgumentsByContents() throws Exception {
+        dao.findFirstValue(new String[]{ "one", "two" });
+        dao.findFirstValue(new String[]{ "one", "two" });
+
+        verify(underlying, times(1)).findFirstValue(any(String[].class));
+    }
+
+    @Test
+    public void doesNotCacheResultsDuringWrites() throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                dao.findValue("one");
+                return null;
+            }
+        }).when(underlying).update("one", "other");
+
+        dao.update("one", "other");
+        dao.findValue("one");
+
+        verify(underlying, times(2)).findValue("one");
+    }
+
+    @Test
+    public void doesNotCacheResultsUntilTransactionsCommit() throws Exception {
+        transactions.begin(handle);
+        dao.update("one", "other");
+        dao.findValue("one");
+        dao.findValue("one");
+        transactions.commit(handle);
+
+        dao.findValue("one");
+        dao.findValue("one");
+
+        verify(underlying, times(3)).findValue("one");
+    }
+
+    @Test
+    public void doesNotCacheConcurrentReadsDuringTransactions() throws Exception {
+        transactions.begin(handle);
+        dao.update("one", "other");
+
+        final Thread reader = new Thread() {
+            @Override
+            public void run() {
+                dao.findValue("one");
+            }
+        };
+        reader.start();
+        reader.join();
+
+        transactions.rollback(handle);
+        dao.findValue("one");
+
+        verify(underlying, times(2)).findValue("one");
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
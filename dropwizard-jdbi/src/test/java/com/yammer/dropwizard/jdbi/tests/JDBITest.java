@@ -3,12 +3,19 @@ package com.yammer.dropwizard.jdbi.tests;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.sun.jersey.core.util.StringKeyObjectValueIgnoreCaseMultivaluedMap;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.config.LoggingFactory;
 import com.yammer.dropwizard.db.DatabaseConfiguration;
 import com.yammer.dropwizard.db.ManagedDataSource;
+import com.yammer.dropwizard.db.instrumentation.ConnectionMetricsResourceMethodDispatchAdapter;
 import com.yammer.dropwizard.jdbi.DBIFactory;
+import com.yammer.dropwizard.jdbi.ResultStreamer;
+import com.yammer.dropwizard.jersey.streaming.StreamingArray;
+import com.yammer.dropwizard.jersey.streaming.StreamingArrayProvider;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
 import com.yammer.dropwizard.lifecycle.Managed;
+import com.yammer.dropwizard.util.Size;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,9 +23,14 @@ import org.mockito.ArgumentCaptor;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.Query;
+import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.skife.jdbi.v2.util.StringMapper;
 
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
 import java.sql.Types;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.fest.assertions.api.Assertions.assertThat;
@@ -102,6 +114,11 @@ public class JDBITest {
         verify(environment).manage(any(ManagedDataSource.class));
     }
 
+    @Test
+    public void instrumentsConnectionsPerResourceMethod() throws Exception {
+        verify(environment).addProvider(ConnectionMetricsResourceMethodDispatchAdapter.class);
+    }
+
     @Test
     public void sqlObjectsCanAcceptOptionalParams() throws Exception {
         final PersonDAO dao = dbi.open(PersonDAO.class);
@@ -141,4 +158,49 @@ public class JDBITest {
         assertThat(missing.isPresent()).isFalse();
         assertThat(missing.orNull()).isNull();
     }
+
+    @Test
+    public void streamsQueryResultsAsJson() throws Exception {
+        final ResultStreamer streamer = new ResultStreamer(dbi,
+                                                           hsqlConfig,
+                                                           new ObjectMapperFactory().build());
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        streamer.stream(new HandleCallback<Iterator<String>>() {
+            @Override
+            public Iterator<String> withHandle(Handle handle) throws Exception {
+                return handle.attach(PersonDAO.class).iterateAllNames();
+            }
+        }).write(output);
+
+        assertThat(output.toString())
+                .isEqualTo("[\"Coda Hale\",\"Kris Gale\",\"Old Guy\"]");
+    }
+
+    @Test
+    public void streamsQueryResultsAsStreamingArrays() throws Exception {
+        final ResultStreamer streamer = new ResultStreamer(dbi,
+                                                           hsqlConfig,
+                                                           new ObjectMapperFactory().build());
+        final StreamingArrayProvider provider = new StreamingArrayProvider(new ObjectMapperFactory().build(),
+                                                                           Size.kilobytes(16));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        final StreamingArray<String> names = streamer.streamArray(new HandleCallback<Iterator<String>>() {
+            @Override
+            public Iterator<String> withHandle(Handle handle) throws Exception {
+                return handle.attach(PersonDAO.class).iterateAllNames();
+            }
+        });
+        provider.writeTo(names,
+                         StreamingArray.class,
+                         StreamingArray.class,
+                         new Annotation[0],
+                         MediaType.APPLICATION_JSON_TYPE,
+                         new StringKeyObjectValueIgnoreCaseMultivaluedMap(),
+                         output);
+
+        assertThat(output.toString())
+                .isEqualTo("[\"Coda Hale\",\"Kris Gale\",\"Old Guy\"]");
+    }
 }
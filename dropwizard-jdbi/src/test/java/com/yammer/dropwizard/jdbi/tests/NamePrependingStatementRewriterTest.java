@@ -0,0 +1,52 @@
+package com.yammer.dropwizard.jdbi.tests;
+
+import com.google.common.base.Optional;
+import com.yammer.dropwizard.jdbi.NamePrependingStatementRewriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.skife.jdbi.v2.Binding;
+import org.skife.jdbi.v2.StatementContext;
+
+import java.lang.reflect.Method;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NamePrependingStatementRewriterTest {
+    private static final String SQL = "SELECT name FROM people WHERE name = :name AND note = 'a:b'";
+
+    private final NamePrependingStatementRewriter rewriter = new NamePrependingStatementRewriter(10);
+    private final Binding binding = new Binding();
+    private final StatementContext ctx = mock(StatementContext.class);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        final Method method = PersonDAO.class.getMethod("findByName", Optional.class);
+        when(ctx.getSqlObjectType()).thenReturn((Class) PersonDAO.class);
+        when(ctx.getSqlObjectMethod()).thenReturn(method);
+    }
+
+    @Test
+    public void prependsTheSqlObjectNameAndReplacesNamedParameters() throws Exception {
+        assertThat(rewriter.rewrite(SQL, binding, ctx).getSql())
+                .isEqualTo("/* PersonDAO.findByName */ SELECT name FROM people WHERE name = ? AND note = 'a:b'");
+    }
+
+    @Test
+    public void reusesTheRewrittenStatementForTheSameMethod() throws Exception {
+        final String first = rewriter.rewrite(SQL, binding, ctx).getSql();
+        final String second = rewriter.rewrite(SQL, binding, ctx).getSql();
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void doesNotCacheStatementsWithoutASqlObject() throws Exception {
+        final StatementContext raw = mock(StatementContext.class);
+
+        assertThat(rewriter.rewrite("SELECT * FROM people WHERE age > :age", binding, raw).getSql())
+                .isEqualTo("SELECT * FROM people WHERE age > ?");
+    }
+}
@@ -3,6 +3,7 @@ package com.yammer.dropwizard.jdbi.tests;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import org.skife.jdbi.v2.ResultIterator;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.customizers.SingleValueResult;
@@ -14,6 +15,9 @@ public interface PersonDAO {
     @SqlQuery("SELECT name FROM people ORDER BY name ASC")
     public ImmutableList<String> findAllNames();
 
+    @SqlQuery("SELECT name FROM people ORDER BY name ASC")
+    public ResultIterator<String> iterateAllNames();
+
     @SqlQuery("SELECT DISTINCT name FROM people")
     public ImmutableSet<String> findAllUniqueNames();
 